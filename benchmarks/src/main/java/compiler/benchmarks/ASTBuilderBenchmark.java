@@ -0,0 +1,74 @@
+package compiler.benchmarks;
+
+import compiler.ast.core.ASTNode;
+import compiler.visitors.CSSASTBuilder;
+import compiler.visitors.SimpleJinja2ASTBuilder;
+import compiler.visitors.SimplePythonASTBuilder;
+import grammar.CSSLexer;
+import grammar.CSSParser;
+import grammar.Jinja2Lexer;
+import grammar.Jinja2Parser;
+import grammar.PythonLexer;
+import grammar.PythonParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// AST construction only: parse trees are built once in setup
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ASTBuilderBenchmark {
+
+    @Param({"1", "10"})
+    public int scale;
+
+    private PythonParser.File_inputContext pythonTree;
+    private Jinja2Parser.TemplateContext jinja2Tree;
+    private CSSParser.StylesheetContext cssTree;
+
+    @Setup
+    public void setup() {
+        PythonParser pythonParser = new PythonParser(new CommonTokenStream(
+            new PythonLexer(CharStreams.fromString(BenchmarkInputs.python(scale)))));
+        pythonTree = pythonParser.file_input();
+
+        Jinja2Parser jinja2Parser = new Jinja2Parser(new CommonTokenStream(
+            new Jinja2Lexer(CharStreams.fromString(BenchmarkInputs.jinja2(scale)))));
+        jinja2Tree = jinja2Parser.template();
+
+        CSSParser cssParser = new CSSParser(new CommonTokenStream(
+            new CSSLexer(CharStreams.fromString(BenchmarkInputs.css(scale)))));
+        cssTree = cssParser.stylesheet();
+    }
+
+    @Benchmark
+    public ASTNode pythonASTBuilder() {
+        return new SimplePythonASTBuilder().visit(pythonTree);
+    }
+
+    @Benchmark
+    public ASTNode jinja2ASTBuilder() {
+        return new SimpleJinja2ASTBuilder().visit(jinja2Tree);
+    }
+
+    @Benchmark
+    public ASTNode cssASTBuilder() {
+        return new CSSASTBuilder().visit(cssTree);
+    }
+}
@@ -0,0 +1,72 @@
+package compiler.benchmarks;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.css.CSSStylesheetNode;
+import compiler.diagnostics.DiagnosticSink;
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.SourceLanguage;
+import compiler.semantic.FlaskSemanticAnalyzer;
+import compiler.symboltable.ClassicalSymbolTable;
+import compiler.symboltable.SymbolTableBuilder;
+import compiler.symboltable.css.CSSSymbolTable;
+import compiler.symboltable.css.CSSSymbolTableBuilder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Symbol table construction and semantic analysis over prebuilt ASTs.
+ *
+ * The passes report to DiagnosticSink.NONE, so the numbers leave out formatting
+ * and printing their messages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisBenchmark {
+
+    @Param({"1", "10"})
+    public int scale;
+
+    private ASTNode pythonAst;
+    private CSSStylesheetNode cssAst;
+
+    @Setup
+    public void setup() {
+        LanguageFrontEnd frontEnd = new LanguageFrontEnd();
+        pythonAst = frontEnd.compile("bench.py", BenchmarkInputs.python(scale), SourceLanguage.PYTHON).ast;
+        cssAst = (CSSStylesheetNode) frontEnd.compile("bench.css", BenchmarkInputs.css(scale), SourceLanguage.CSS).ast;
+    }
+
+    @Benchmark
+    public ClassicalSymbolTable symbolTableBuilder() {
+        ClassicalSymbolTable symbolTable = ClassicalSymbolTable.allocate();
+        new SymbolTableBuilder(symbolTable, DiagnosticSink.NONE).build(pythonAst);
+        return symbolTable;
+    }
+
+    @Benchmark
+    public CSSSymbolTable cssSymbolTableBuilder() {
+        return new CSSSymbolTableBuilder().build(cssAst);
+    }
+
+    @Benchmark
+    public FlaskSemanticAnalyzer flaskSemanticAnalyzer() {
+        FlaskSemanticAnalyzer analyzer = new FlaskSemanticAnalyzer(DiagnosticSink.NONE);
+        analyzer.analyze(pythonAst);
+        return analyzer;
+    }
+}
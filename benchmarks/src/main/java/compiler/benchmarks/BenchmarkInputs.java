@@ -0,0 +1,100 @@
+package compiler.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Benchmark corpora built from the example inputs bundled with the compiler
+ * (src/main/resources/examples and src/main/resources/css).
+ *
+ * scale = 1 is the files concatenated once; scale = N repeats them N times to
+ * get synthetically larger files with the same token mix.
+ */
+public final class BenchmarkInputs {
+
+    public static final String[] PYTHON = {
+        "examples/app.py",
+        "examples/test_python.py",
+        "examples/test_dict_list_literals.py"
+    };
+
+    public static final String[] JINJA2 = {
+        "examples/test1_display_products.html",
+        "examples/test2_add_product.html",
+        "examples/test3_product_details.html"
+    };
+
+    public static final String[] CSS = {
+        "examples/sample_styles.css",
+        "css/add_products.css",
+        "css/product_details.css",
+        "css/responsive.css"
+    };
+
+    private BenchmarkInputs() {
+    }
+
+    public static String python(int scale) {
+        return scaled(PYTHON, scale, false);
+    }
+
+    public static String jinja2(int scale) {
+        return scaled(JINJA2, scale, true);
+    }
+
+    public static String css(int scale) {
+        return scaled(CSS, scale, false);
+    }
+
+    private static String scaled(String[] resources, int scale, boolean stripDoctype) {
+        StringBuilder corpus = new StringBuilder();
+        for (int copy = 0; copy < scale; copy++) {
+            for (String resource : resources) {
+                String text = load(resource);
+                // A template may only start with a doctype, so drop it from every later file
+                if (stripDoctype && corpus.length() > 0) {
+                    text = text.replaceFirst("(?i)^\\s*<!DOCTYPE[^>]*>", "");
+                }
+                corpus.append(text);
+                if (!text.endsWith("\n")) {
+                    corpus.append('\n');
+                }
+            }
+        }
+        return corpus.toString();
+    }
+
+    // A generated module of `functions` functions with nested blocks, mostly newlines and indentation
+    public static String generatedPython(int functions) {
+        StringBuilder module = new StringBuilder();
+        for (int f = 0; f < functions; f++) {
+            module.append("def handler_").append(f).append("(request, items):\n");
+            module.append("    total = 0\n");
+            module.append("    for item in items:\n");
+            module.append("        if item.active:\n");
+            module.append("            while total < 100:\n");
+            module.append("                total = total + item.price\n");
+            module.append("                if total > 50:\n");
+            module.append("                    break\n");
+            module.append("        else:\n");
+            module.append("            total = total - 1\n");
+            module.append("\n");
+            module.append("    return total\n");
+            module.append("\n");
+        }
+        return module.toString();
+    }
+
+    public static String load(String resource) {
+        try (InputStream in = BenchmarkInputs.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) {
+                throw new IllegalStateException("Benchmark input not found on classpath: " + resource);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package compiler.benchmarks;
+
+import grammar.CSSLexer;
+import grammar.Jinja2Lexer;
+import grammar.PythonLexer;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Tokenization only: CharStream creation plus nextToken() until EOF
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({"1", "10"})
+    public int scale;
+
+    private String python;
+    private String jinja2;
+    private String css;
+
+    @Setup
+    public void setup() {
+        python = BenchmarkInputs.python(scale);
+        jinja2 = BenchmarkInputs.jinja2(scale);
+        css = BenchmarkInputs.css(scale);
+    }
+
+    @Benchmark
+    public int pythonLexer(Blackhole blackhole) {
+        return drain(new PythonLexer(CharStreams.fromString(python)), blackhole);
+    }
+
+    @Benchmark
+    public int jinja2Lexer(Blackhole blackhole) {
+        return drain(new Jinja2Lexer(CharStreams.fromString(jinja2)), blackhole);
+    }
+
+    @Benchmark
+    public int cssLexer(Blackhole blackhole) {
+        return drain(new CSSLexer(CharStreams.fromString(css)), blackhole);
+    }
+
+    private static int drain(Lexer lexer, Blackhole blackhole) {
+        lexer.removeErrorListeners();
+        int count = 0;
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            blackhole.consume(token);
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,89 @@
+package compiler.benchmarks;
+
+import compiler.parsing.ParseMode;
+import compiler.parsing.TwoStageParser;
+import grammar.CSSLexer;
+import grammar.CSSParser;
+import grammar.Jinja2Lexer;
+import grammar.Jinja2Parser;
+import grammar.PythonLexer;
+import grammar.PythonParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Parsing only: tokens are lexed once in setup and replayed through a ListTokenSource
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"1", "10"})
+    public int scale;
+
+    @Param({"LL", "SLL_THEN_LL"})
+    public ParseMode parseMode;
+
+    private List<Token> pythonTokens;
+    private List<Token> jinja2Tokens;
+    private List<Token> cssTokens;
+
+    @Setup
+    public void setup() {
+        pythonTokens = lex(new PythonLexer(CharStreams.fromString(BenchmarkInputs.python(scale))));
+        jinja2Tokens = lex(new Jinja2Lexer(CharStreams.fromString(BenchmarkInputs.jinja2(scale))));
+        cssTokens = lex(new CSSLexer(CharStreams.fromString(BenchmarkInputs.css(scale))));
+    }
+
+    @Benchmark
+    public Object pythonParser() {
+        PythonParser parser = new PythonParser(replay(pythonTokens));
+        parser.removeErrorListeners();
+        return TwoStageParser.parse(parser, parseMode, PythonParser::file_input).tree;
+    }
+
+    @Benchmark
+    public Object jinja2Parser() {
+        Jinja2Parser parser = new Jinja2Parser(replay(jinja2Tokens));
+        parser.removeErrorListeners();
+        return TwoStageParser.parse(parser, parseMode, Jinja2Parser::template).tree;
+    }
+
+    @Benchmark
+    public Object cssParser() {
+        CSSParser parser = new CSSParser(replay(cssTokens));
+        parser.removeErrorListeners();
+        return TwoStageParser.parse(parser, parseMode, CSSParser::stylesheet).tree;
+    }
+
+    private static List<Token> lex(Lexer lexer) {
+        lexer.removeErrorListeners();
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+        return new ArrayList<>(tokens.getTokens());
+    }
+
+    private static CommonTokenStream replay(List<Token> tokens) {
+        return new CommonTokenStream(new ListTokenSource(tokens));
+    }
+}
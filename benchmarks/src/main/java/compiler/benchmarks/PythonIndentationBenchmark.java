@@ -0,0 +1,52 @@
+package compiler.benchmarks;
+
+import grammar.PythonLexer;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Python lexing of a generated, deeply indented module: stresses NEWLINE / INDENT / DEDENT handling.
+// Run with -prof gc and compare gc.alloc.rate.norm (bytes per module).
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PythonIndentationBenchmark {
+
+    @Param({"100", "1000"})
+    public int functions;
+
+    private String module;
+
+    @Setup
+    public void setup() {
+        module = BenchmarkInputs.generatedPython(functions);
+    }
+
+    @Benchmark
+    public int lexGeneratedModule(Blackhole blackhole) {
+        PythonLexer lexer = new PythonLexer(CharStreams.fromString(module));
+        lexer.removeErrorListeners();
+        int count = 0;
+        for (Token token = lexer.nextToken(); token.getType() != Token.EOF; token = lexer.nextToken()) {
+            blackhole.consume(token);
+            count++;
+        }
+        return count;
+    }
+}
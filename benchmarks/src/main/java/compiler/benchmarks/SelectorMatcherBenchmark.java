@@ -0,0 +1,113 @@
+package compiler.benchmarks;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.css.CSSStylesheetNode;
+import compiler.css.SelectorMatcher;
+import compiler.parsing.ParseMode;
+import compiler.parsing.TwoStageParser;
+import compiler.visitors.CSSASTBuilder;
+import compiler.visitors.SimpleJinja2ASTBuilder;
+import grammar.CSSLexer;
+import grammar.CSSParser;
+import grammar.Jinja2Lexer;
+import grammar.Jinja2Parser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Matched rules for every element of a generated template (sections of nested lists and cards,
+// `elements` elements) against a generated stylesheet of `rules` rule sets mixing class, id,
+// tag, child, descendant and sibling selectors: the bucketed, bloom-filtered matcher against
+// testing every selector on every element.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SelectorMatcherBenchmark {
+
+    @Param({"100", "1000"})
+    public int rules;
+
+    @Param({"200", "2000"})
+    public int elements;
+
+    private SelectorMatcher matcher;
+    private ASTNode template;
+
+    @Setup
+    public void setup() {
+        CSSParser cssParser = new CSSParser(new CommonTokenStream(
+            new CSSLexer(CharStreams.fromString(generatedStylesheet(rules)))));
+        matcher = new SelectorMatcher((CSSStylesheetNode) new CSSASTBuilder().visit(cssParser.stylesheet()));
+
+        Jinja2Parser jinja2Parser = new Jinja2Parser(new CommonTokenStream(
+            new Jinja2Lexer(CharStreams.fromString(generatedTemplate(elements)))));
+        template = new SimpleJinja2ASTBuilder().visit(
+            TwoStageParser.parse(jinja2Parser, ParseMode.SLL_THEN_LL, Jinja2Parser::template).tree);
+    }
+
+    @Benchmark
+    public SelectorMatcher.Result indexed() {
+        return matcher.matchAll(template);
+    }
+
+    @Benchmark
+    public SelectorMatcher.Result linear() {
+        return matcher.matchAllLinear(template);
+    }
+
+    private static String generatedStylesheet(int rules) {
+        StringBuilder css = new StringBuilder();
+        for (int i = 0; i < rules; i++) {
+            switch (i % 8) {
+                case 0: css.append(".card-").append(i).append(" { color: red; }\n"); break;
+                case 1: css.append("#section-").append(i % 40).append(" .title { margin: 0; }\n"); break;
+                case 2: css.append(".list-").append(i % 50).append(" > li { padding: 4px; }\n"); break;
+                case 3: css.append("ul li.item-").append(i).append(" { display: block; }\n"); break;
+                case 4: css.append(".card-").append(i - 4).append(" + .card-").append(i - 3).append(" { gap: 1px; }\n"); break;
+                case 5: css.append("div.missing-").append(i).append(" span { color: blue; }\n"); break;
+                case 6: css.append(".section .body p.text-").append(i % 30).append(" { line-height: 1.5; }\n"); break;
+                default: css.append(".link-").append(i).append(":hover, .nav-").append(i).append(" a { color: green; }\n"); break;
+            }
+        }
+        return css.toString();
+    }
+
+    private static String generatedTemplate(int elements) {
+        StringBuilder html = new StringBuilder("<html><body>\n");
+        int count = 2;
+        for (int s = 0; count < elements; s++) {
+            html.append("<div class=\"section\" id=\"section-").append(s % 40).append("\">\n");
+            html.append("  <h2 class=\"title\">Section</h2>\n");
+            html.append("  <div class=\"body\">\n");
+            html.append("    <ul class=\"list-").append(s % 50).append("\">\n");
+            count += 4;
+            for (int i = 0; i < 5 && count < elements; i++, count++) {
+                html.append("      <li class=\"item-").append(s * 8 + 3).append("\"><a class=\"link-")
+                    .append(s * 8 + 7).append("\">{{ item.name }}</a></li>\n");
+                count++;
+            }
+            html.append("    </ul>\n");
+            for (int i = 0; i < 3 && count < elements; i++, count += 2) {
+                html.append("    <div class=\"card-").append((s + i) * 8).append("\"><p class=\"text-")
+                    .append(s % 30).append("\">Text</p></div>\n");
+            }
+            html.append("  </div>\n</div>\n");
+        }
+        return html.append("</body></html>\n").toString();
+    }
+}
@@ -0,0 +1,84 @@
+package compiler.benchmarks;
+
+import compiler.symboltable.ClassicalSymbolTable;
+import compiler.symboltable.SymbolTableEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// Scoped declare/lookup/exit traffic on ClassicalSymbolTable: 200 module globals, then
+// `depth` nested scopes of 4 locals each, resolving mostly globals from the innermost one.
+// Lookup cost should not grow with depth.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SymbolTableBenchmark {
+
+    private static final int GLOBALS = 200;
+    private static final int LOCALS = 4;
+    private static final int LOOKUPS = 2000;
+
+    @Param({"4", "32"})
+    public int depth;
+
+    private String[] globalNames;
+    private String[][] localNames;
+    private String[] lookupNames;
+
+    @Setup
+    public void setup() {
+        globalNames = new String[GLOBALS];
+        for (int i = 0; i < GLOBALS; i++) {
+            globalNames[i] = "global_" + i;
+        }
+        localNames = new String[depth][LOCALS];
+        for (int d = 0; d < depth; d++) {
+            for (int i = 0; i < LOCALS; i++) {
+                localNames[d][i] = "local_" + d + "_" + i;
+            }
+        }
+        // 3 in 4 lookups hit a global, the rest a local of the innermost scope
+        lookupNames = new String[LOOKUPS];
+        for (int i = 0; i < LOOKUPS; i++) {
+            lookupNames[i] = i % 4 == 3 ? localNames[depth - 1][i % LOCALS] : globalNames[(i * 7) % GLOBALS];
+        }
+    }
+
+    @Benchmark
+    public int nestedScopes(Blackhole blackhole) {
+        ClassicalSymbolTable table = ClassicalSymbolTable.allocate();
+        for (String name : globalNames) {
+            table.insert(name, new SymbolTableEntry(name, "int", 1));
+        }
+        for (int d = 0; d < depth; d++) {
+            table.enterScope();
+            for (String name : localNames[d]) {
+                table.insert(name, new SymbolTableEntry(name, "int", 2));
+            }
+        }
+        int found = 0;
+        for (String name : lookupNames) {
+            SymbolTableEntry entry = table.lookup(name);
+            blackhole.consume(entry);
+            if (entry != null) found++;
+        }
+        for (int d = 0; d < depth; d++) {
+            table.exitScope();
+        }
+        return found;
+    }
+}
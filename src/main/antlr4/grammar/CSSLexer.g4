@@ -3,6 +3,41 @@ lexer grammar CSSLexer;
 package grammar;
 }
 
+@members {
+    // One entry per open '{': true when the block holds declarations, where
+    // ":word" is the colon of "prop:value" rather than a pseudo-class. The same
+    // holds in an at-rule prelude: "(orientation:landscape)"
+    private final java.util.ArrayDeque<Boolean> declarationBlocks = new java.util.ArrayDeque<>();
+    private String pendingAtKeyword;
+
+    private static final java.util.Set<String> GROUPING_AT_RULES = java.util.Set.of(
+        "@media", "@supports", "@document", "@-moz-document", "@layer", "@container"
+    );
+
+    private boolean inDeclarationBlock() {
+        return pendingAtKeyword != null || !declarationBlocks.isEmpty() && declarationBlocks.peek();
+    }
+
+    private void openBlock() {
+        boolean groupingRule = pendingAtKeyword != null && GROUPING_AT_RULES.contains(pendingAtKeyword.toLowerCase());
+        declarationBlocks.push(!groupingRule);
+        pendingAtKeyword = null;
+    }
+
+    private void closeBlock() {
+        if (!declarationBlocks.isEmpty()) {
+            declarationBlocks.pop();
+        }
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        declarationBlocks.clear();
+        pendingAtKeyword = null;
+    }
+}
+
 HASH: '#';
 DOT: '.';
 STAR: '*';
@@ -22,21 +57,21 @@ STAR_EQUALS: '*=';     // Contains: [href*="example"]
 
 IDENTIFIER: [a-zA-Z_][a-zA-Z0-9_-]*;
 
-PSEUDO_CLASS: ':' [a-zA-Z-]+;
+PSEUDO_CLASS: ':' [a-zA-Z-]+ {!inDeclarationBlock()}?;
 PSEUDO_ELEMENT: '::' [a-zA-Z-]+;
 
 GT: '>';
 PLUS: '+';
 TILDE: '~';
 
-LBRACE: '{';
-RBRACE: '}';
+LBRACE: '{' {openBlock();};
+RBRACE: '}' {closeBlock();};
 LPAREN: '(';
 RPAREN: ')';
 LBRACKET: '[';
 RBRACKET: ']';
 COLON: ':';
-SEMICOLON: ';';
+SEMICOLON: ';' {pendingAtKeyword = null;};
 COMMA: ',';
 EQUALS: '=';
 
@@ -46,11 +81,15 @@ PLUS_OP: PLUS;
 MINUS_OP: '-';
 DIVIDE: '/';
 
-NUMBER: '-'? DIGIT+ ('.' DIGIT+)?;
+// A unit directly after the digits belongs to the number ("10px"); otherwise
+// IDENTIFIER would win over UNIT for "px" and the two would read as "10 px"
+NUMBER: '-'? (DIGIT+ ('.' DIGIT+)? | '.' DIGIT+) UNIT_SUFFIX?;
+
+fragment UNIT_SUFFIX: [a-zA-Z]+;
 
 fragment DIGIT: [0-9];
 
-PERCENTAGE: '-'? DIGIT+ ('.' DIGIT+)? '%';
+PERCENTAGE: '-'? (DIGIT+ ('.' DIGIT+)? | '.' DIGIT+) '%';
 
 // Units (% removed - now handled by PERCENTAGE token)
 UNIT:
@@ -74,7 +113,7 @@ URL: 'url(' ( ESCAPED_CHAR | ~[)\\] )* ')';
 
 fragment ESCAPED_CHAR: '\\' .;
 
-AT_KEYWORD: '@' [a-zA-Z-]+;
+AT_KEYWORD: '@' [a-zA-Z-]+ {pendingAtKeyword = getText();};
 
 WS: [ \t\r\n]+ -> skip;
 COMMENT: '/*' .*? '*/' -> skip;
@@ -103,7 +103,7 @@ valueComponent
     | COLOR_HEX           # ColorValue          // Existing (unchanged)
     | STRING              # StringValue         // Existing (unchanged)
     | CSS_VAR             # CssVariableValue    // Existing (unchanged)
-    | IDENTIFIER          # IdentifierValue     // Existing (unchanged)
+    | (IDENTIFIER | TO | FROM | AND) # IdentifierValue  // keywords stay identifiers in values ("to right")
     | URL                 # UrlValue            // Existing (unchanged)
     | LPAREN              # LeftParenValue      // Existing (unchanged)
     | RPAREN              # RightParenValue     // Existing (unchanged)
@@ -128,7 +128,7 @@ expression
     | expression MULTIPLY expression      # MulExpr
     | expression DIVIDE expression        # DivExpr
     | functionCall                        # FunctionExpr
-    | IDENTIFIER                          # IdentifierExpr
+    | (IDENTIFIER | TO | FROM | AND)      # IdentifierExpr
     | CSS_VAR                             # CssVarExpr
     | STRING                              # StringExpr
     | PERCENTAGE                          # PercentageExpr
@@ -43,49 +43,56 @@ WS
     : [ \t\r\n]+ -> skip
     ;
 
+// The expression tokens are defined once, in JINJA_VAR_MODE; the statement and
+// attribute modes re-type their matches to the same vocabulary, so the parser has
+// a single jinjaExpression rule for {{ }}, {% %} and {{ }} inside attribute values.
 mode JINJA_VAR_MODE;
 
 JINJA_VAR_CLOSE: '}}' -> popMode;
 
-JINJA_VAR_PIPE: '|';
-JINJA_VAR_DOT: '.';
-JINJA_VAR_LPAREN: '(';
-JINJA_VAR_RPAREN: ')';
-JINJA_VAR_LBRACKET: '[';
-JINJA_VAR_RBRACKET: ']';
-JINJA_VAR_COMMA: ',';
-JINJA_VAR_COLON: ':';
-JINJA_VAR_ASSIGN: '=';
-JINJA_VAR_PLUS: '+';
-JINJA_VAR_MINUS: '-';
-JINJA_VAR_STAR: '*';
-JINJA_VAR_SLASH: '/';
-JINJA_VAR_PERCENT: '%';
-JINJA_VAR_POWER: '**';
-JINJA_VAR_DOUBLE_SLASH: '//';
-JINJA_VAR_EQ: '==';
-JINJA_VAR_NEQ: '!=';
-JINJA_VAR_LT: '<';
-JINJA_VAR_GT: '>';
-JINJA_VAR_LTE: '<=';
-JINJA_VAR_GTE: '>=';
-JINJA_VAR_LBRACE: '{';
-JINJA_VAR_RBRACE: '}';
-
-JINJA_VAR_NUMBER: [0-9]+ ('.' [0-9]+)?;
-JINJA_VAR_STRING: '\'' (~['\r\n\\])* ( '\\' . ~['\r\n\\]* )* '\'' | '"' (~["\r\n\\])* ( '\\' . ~["\r\n\\]* )* '"' ;
-JINJA_VAR_TRUE: 'True' | 'true';
-JINJA_VAR_FALSE: 'False' | 'false';
-JINJA_VAR_NONE: 'None' | 'none';
-
-JINJA_VAR_AND: 'and';
-JINJA_VAR_OR: 'or';
-JINJA_VAR_NOT: 'not';
-JINJA_VAR_IN: 'in';
-JINJA_VAR_IS: 'is';
-
-JINJA_VAR_IDENTIFIER: [a-zA-Z_][a-zA-Z0-9_]*;
-JINJA_VAR_WS: [ \t\r\n]+ -> skip ;
+JINJA_PIPE: '|';
+JINJA_DOT: '.';
+JINJA_LPAREN: '(';
+JINJA_RPAREN: ')';
+JINJA_LBRACKET: '[';
+JINJA_RBRACKET: ']';
+JINJA_LBRACE: '{';
+JINJA_RBRACE: '}';
+JINJA_COMMA: ',';
+JINJA_COLON: ':';
+JINJA_ASSIGN: '=';
+JINJA_PLUS: '+';
+JINJA_MINUS: '-';
+JINJA_STAR: '*';
+JINJA_SLASH: '/';
+JINJA_PERCENT: '%';
+JINJA_POWER: '**';
+JINJA_DOUBLE_SLASH: '//';
+JINJA_EQ: '==';
+JINJA_NEQ: '!=';
+JINJA_LT: '<';
+JINJA_GT: '>';
+JINJA_LTE: '<=';
+JINJA_GTE: '>=';
+
+JINJA_NUMBER: NUMBER;
+JINJA_STRING: STRING;
+JINJA_TRUE: 'True' | 'true';
+JINJA_FALSE: 'False' | 'false';
+JINJA_NONE: 'None' | 'none';
+
+JINJA_AND: 'and';
+JINJA_OR: 'or';
+JINJA_NOT: 'not';
+JINJA_IN: 'in';
+JINJA_IS: 'is';
+
+JINJA_IDENTIFIER: NAME;
+JINJA_WS: [ \t\r\n]+ -> skip ;
+
+fragment NUMBER: [0-9]+ ('.' [0-9]+)?;
+fragment STRING: '\'' (~['\r\n\\])* ( '\\' . ~['\r\n\\]* )* '\'' | '"' (~["\r\n\\])* ( '\\' . ~["\r\n\\]* )* '"' ;
+fragment NAME: [a-zA-Z_][a-zA-Z0-9_]*;
 
 mode JINJA_STMT_MODE;
 
@@ -97,7 +104,6 @@ JINJA_STMT_ELSE: 'else';
 JINJA_STMT_ENDIF: 'endif';
 JINJA_STMT_FOR: 'for';
 JINJA_STMT_ENDFOR: 'endfor';
-JINJA_STMT_IN: 'in';
 JINJA_STMT_BLOCK: 'block';
 JINJA_STMT_ENDBLOCK: 'endblock';
 JINJA_STMT_EXTENDS: 'extends';
@@ -117,44 +123,44 @@ JINJA_STMT_AUTOESCAPE: 'autoescape';
 JINJA_STMT_ENDAUTOESCAPE: 'endautoescape';
 JINJA_STMT_AS: 'as';
 
-JINJA_STMT_PIPE: '|';
-JINJA_STMT_DOT: '.';
-JINJA_STMT_LPAREN: '(';
-JINJA_STMT_RPAREN: ')';
-JINJA_STMT_LBRACKET: '[';
-JINJA_STMT_RBRACKET: ']';
-JINJA_STMT_LBRACE: '{';
-JINJA_STMT_RBRACE: '}';
-JINJA_STMT_COMMA: ',';
-JINJA_STMT_COLON: ':';
-JINJA_STMT_ASSIGN: '=';
-JINJA_STMT_EQ: '==';
-JINJA_STMT_NEQ: '!=';
-JINJA_STMT_LT: '<';
-JINJA_STMT_GT: '>';
-JINJA_STMT_LTE: '<=';
-JINJA_STMT_GTE: '>=';
-
-JINJA_STMT_AND: 'and';
-JINJA_STMT_OR: 'or';
-JINJA_STMT_NOT: 'not';
-JINJA_STMT_IS: 'is';
-
-JINJA_STMT_PLUS: '+';
-JINJA_STMT_MINUS: '-';
-JINJA_STMT_STAR: '*';
-JINJA_STMT_SLASH: '/';
-JINJA_STMT_PERCENT: '%';
-JINJA_STMT_POWER: '**';
-JINJA_STMT_DOUBLE_SLASH: '//';
-
-JINJA_STMT_NUMBER: [0-9]+ ('.' [0-9]+)?;
-JINJA_STMT_STRING: '\'' (~['\r\n\\])* ( '\\' . ~['\r\n\\]* )* '\'' | '"' (~["\r\n\\])* ( '\\' . ~["\r\n\\]* )* '"' ;
-JINJA_STMT_TRUE: 'True' | 'true';
-JINJA_STMT_FALSE: 'False' | 'false';
-JINJA_STMT_NONE: 'None' | 'none';
-
-JINJA_STMT_IDENTIFIER: [a-zA-Z_][a-zA-Z0-9_]*;
+STMT_PIPE: '|' -> type(JINJA_PIPE);
+STMT_DOT: '.' -> type(JINJA_DOT);
+STMT_LPAREN: '(' -> type(JINJA_LPAREN);
+STMT_RPAREN: ')' -> type(JINJA_RPAREN);
+STMT_LBRACKET: '[' -> type(JINJA_LBRACKET);
+STMT_RBRACKET: ']' -> type(JINJA_RBRACKET);
+STMT_LBRACE: '{' -> type(JINJA_LBRACE);
+STMT_RBRACE: '}' -> type(JINJA_RBRACE);
+STMT_COMMA: ',' -> type(JINJA_COMMA);
+STMT_COLON: ':' -> type(JINJA_COLON);
+STMT_ASSIGN: '=' -> type(JINJA_ASSIGN);
+STMT_PLUS: '+' -> type(JINJA_PLUS);
+STMT_MINUS: '-' -> type(JINJA_MINUS);
+STMT_STAR: '*' -> type(JINJA_STAR);
+STMT_SLASH: '/' -> type(JINJA_SLASH);
+STMT_PERCENT: '%' -> type(JINJA_PERCENT);
+STMT_POWER: '**' -> type(JINJA_POWER);
+STMT_DOUBLE_SLASH: '//' -> type(JINJA_DOUBLE_SLASH);
+STMT_EQ: '==' -> type(JINJA_EQ);
+STMT_NEQ: '!=' -> type(JINJA_NEQ);
+STMT_LT: '<' -> type(JINJA_LT);
+STMT_GT: '>' -> type(JINJA_GT);
+STMT_LTE: '<=' -> type(JINJA_LTE);
+STMT_GTE: '>=' -> type(JINJA_GTE);
+
+STMT_NUMBER: NUMBER -> type(JINJA_NUMBER);
+STMT_STRING: STRING -> type(JINJA_STRING);
+STMT_TRUE: ('True' | 'true') -> type(JINJA_TRUE);
+STMT_FALSE: ('False' | 'false') -> type(JINJA_FALSE);
+STMT_NONE: ('None' | 'none') -> type(JINJA_NONE);
+
+STMT_AND: 'and' -> type(JINJA_AND);
+STMT_OR: 'or' -> type(JINJA_OR);
+STMT_NOT: 'not' -> type(JINJA_NOT);
+STMT_IN: 'in' -> type(JINJA_IN);
+STMT_IS: 'is' -> type(JINJA_IS);
+
+STMT_IDENTIFIER: NAME -> type(JINJA_IDENTIFIER);
 JINJA_STMT_WS: [ \t\r\n]+ -> skip ;
 
 mode HTML_TAG_MODE;
@@ -198,17 +204,46 @@ HTML_ATTR_SQ_END        : '\'' -> popMode, popMode ;
 
 mode JINJA_IN_ATTR_MODE;
 
-JINJA_IN_ATTR_CLOSE: '}}' -> popMode;
-JINJA_IN_ATTR_PIPE: '|';
-JINJA_IN_ATTR_DOT: '.';
-JINJA_IN_ATTR_LPAREN: '(';
-JINJA_IN_ATTR_RPAREN: ')';
-JINJA_IN_ATTR_LBRACKET: '[';
-JINJA_IN_ATTR_RBRACKET: ']';
-JINJA_IN_ATTR_COMMA: ',';
-JINJA_IN_ATTR_NUMBER: [0-9]+ ('.' [0-9]+)?;
-JINJA_IN_ATTR_STRING: '\'' (~['\r\n\\])* ( '\\' . ~['\r\n\\]* )* '\'' | '"' (~["\r\n\\])* ( '\\' . ~["\r\n\\]* )* '"' ;
-JINJA_IN_ATTR_IDENTIFIER: [a-zA-Z_][a-zA-Z0-9_]*;
+ATTR_CLOSE: '}}' -> popMode, type(JINJA_VAR_CLOSE);
+
+ATTR_PIPE: '|' -> type(JINJA_PIPE);
+ATTR_DOT: '.' -> type(JINJA_DOT);
+ATTR_LPAREN: '(' -> type(JINJA_LPAREN);
+ATTR_RPAREN: ')' -> type(JINJA_RPAREN);
+ATTR_LBRACKET: '[' -> type(JINJA_LBRACKET);
+ATTR_RBRACKET: ']' -> type(JINJA_RBRACKET);
+ATTR_LBRACE: '{' -> type(JINJA_LBRACE);
+ATTR_RBRACE: '}' -> type(JINJA_RBRACE);
+ATTR_COMMA: ',' -> type(JINJA_COMMA);
+ATTR_COLON: ':' -> type(JINJA_COLON);
+ATTR_ASSIGN: '=' -> type(JINJA_ASSIGN);
+ATTR_PLUS: '+' -> type(JINJA_PLUS);
+ATTR_MINUS: '-' -> type(JINJA_MINUS);
+ATTR_STAR: '*' -> type(JINJA_STAR);
+ATTR_SLASH: '/' -> type(JINJA_SLASH);
+ATTR_PERCENT: '%' -> type(JINJA_PERCENT);
+ATTR_POWER: '**' -> type(JINJA_POWER);
+ATTR_DOUBLE_SLASH: '//' -> type(JINJA_DOUBLE_SLASH);
+ATTR_EQ: '==' -> type(JINJA_EQ);
+ATTR_NEQ: '!=' -> type(JINJA_NEQ);
+ATTR_LT: '<' -> type(JINJA_LT);
+ATTR_GT: '>' -> type(JINJA_GT);
+ATTR_LTE: '<=' -> type(JINJA_LTE);
+ATTR_GTE: '>=' -> type(JINJA_GTE);
+
+ATTR_NUMBER: NUMBER -> type(JINJA_NUMBER);
+ATTR_STRING: STRING -> type(JINJA_STRING);
+ATTR_TRUE: ('True' | 'true') -> type(JINJA_TRUE);
+ATTR_FALSE: ('False' | 'false') -> type(JINJA_FALSE);
+ATTR_NONE: ('None' | 'none') -> type(JINJA_NONE);
+
+ATTR_AND: 'and' -> type(JINJA_AND);
+ATTR_OR: 'or' -> type(JINJA_OR);
+ATTR_NOT: 'not' -> type(JINJA_NOT);
+ATTR_IN: 'in' -> type(JINJA_IN);
+ATTR_IS: 'is' -> type(JINJA_IS);
+
+ATTR_IDENTIFIER: NAME -> type(JINJA_IDENTIFIER);
 JINJA_IN_ATTR_WS: [ \t\r\n]+ -> skip ;
 
 mode STYLE_CONTENT_MODE;
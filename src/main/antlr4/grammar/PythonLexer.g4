@@ -47,29 +47,11 @@ NEWLINE
             return;
         }
 
-        // Extract indentation part (everything after newline chars)
-        String text = getText();
-        int nlEnd = 0;
-
-        for (int i = 0; i < text.length(); i++) {
-            char c = text.charAt(i);
-            if (c == '\r' || c == '\n') {
-                nlEnd = i + 1;
-                if (c == '\r' && i + 1 < text.length() && text.charAt(i + 1) == '\n') {
-                    nlEnd++;
-                }
-            } else {
-                break;
-            }
-        }
-
-        String indentText = text.substring(nlEnd);
-
         // Emit NEWLINE token FIRST
         setType(NEWLINE);
 
-        // Then handle indentation (queues INDENT/DEDENT)
-        handleNewline(indentText);
+        // Then handle indentation (queues INDENT/DEDENT), read from the matched input
+        handleNewline();
     }
     ;
 
@@ -3,32 +3,70 @@ package compiler;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 // ANTLR Runtime imports
-import compiler.visitors.SimpleJinja2ASTBuilder;
-import compiler.visitors.SimplePythonASTBuilder;
+import compiler.cache.ASTCache;
+import compiler.diagnostics.StreamingDiagnosticSink;
+import compiler.parsing.MappedCharStream;
+import compiler.parsing.ParseMode;
+import compiler.parsing.SourceLanguage;
+import compiler.pipeline.CompilationPipeline;
+import compiler.pipeline.PipelineContext;
+import compiler.project.ProjectCompilationResult;
+import compiler.project.ProjectCompiler;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.BaseErrorListener;
-import org.antlr.v4.runtime.RecognitionException;
-import org.antlr.v4.runtime.Recognizer;
-import grammar.*;
-// Generated parser/lexer imports
 
 // Compiler internal imports
-// import compiler.visitors.Jinja2ASTBuilder;
-import compiler.ast.core.ASTNode;
 import compiler.utils.ASTPrinter;
-import compiler.symboltable.SymbolTable;
 
 public class Main {
 
+    // Prediction strategy used by every parser (--parse-mode=ll|sll-ll)
+    private static ParseMode parseMode = ParseMode.SLL_THEN_LL;
+
     public static void main(String[] args) {
         printHeader();
 
+        // Separate option flags from the input file argument
+        List<String> files = new ArrayList<>();
+        String projectRoot = null;
+        String cacheDir = null;
+        boolean stream = false;
+        boolean directBuild = false;
+        String metricsFile = null;
+        for (String arg : args) {
+            if (arg.startsWith("--parse-mode=")) {
+                parseMode = ParseMode.fromString(arg.substring("--parse-mode=".length()));
+            } else if (arg.startsWith("--project=")) {
+                projectRoot = arg.substring("--project=".length());
+            } else if (arg.startsWith("--cache-dir=")) {
+                cacheDir = arg.substring("--cache-dir=".length());
+            } else if (arg.startsWith("--metrics=")) {
+                // JSON report of the per-stage metrics (single-file mode)
+                metricsFile = arg.substring("--metrics=".length());
+            } else if (arg.equals("--stream")) {
+                // Map input files instead of reading them into Strings
+                stream = true;
+            } else if (arg.equals("--direct-build")) {
+                // Build ASTs while parsing instead of from full parse trees (project mode)
+                directBuild = true;
+            } else {
+                files.add(arg);
+            }
+        }
+        args = files.toArray(new String[0]);
+
+        // Project mode: compile app.py, templates/*.html and static/css/*.css in parallel
+        if (projectRoot != null) {
+            compileProject(projectRoot, cacheDir, stream, directBuild);
+            return;
+        }
+
         // Determine input source
-        String input;
+        CharStream input;
         String inputSource;
 
         if (args.length > 0) {
@@ -36,7 +74,11 @@ public class Main {
             String filePath = args[0];
             inputSource = "File: " + filePath;
             try {
-                input = Files.readString(Paths.get(filePath));
+                if (stream) {
+                    input = MappedCharStream.open(Paths.get(filePath));
+                } else {
+                    input = CharStreams.fromString(Files.readString(Paths.get(filePath)), filePath);
+                }
             } catch (IOException e) {
                 System.err.println("Error reading file: " + filePath);
                 e.printStackTrace();
@@ -44,58 +86,40 @@ public class Main {
             }
         } else {
             inputSource = "Built-in Example";
-            input = getDefaultExample();
+            input = CharStreams.fromString(getDefaultExample(), "built-in example");
         }
 
         System.out.println("INPUT SOURCE: " + String.format("%-29s", inputSource));
-        System.out.println("\n" + input + "\n");
+        if (input instanceof MappedCharStream) {
+            System.out.println("\n(" + ((MappedCharStream) input).getByteLength() + " bytes mapped, not echoed)\n");
+        } else {
+            System.out.println("\n" + input + "\n");
+        }
 
         // Detect file type
-        String fileType = "jinja2"; // default
-        if (args.length > 0) {
-            String filePath = args[0].toLowerCase();
-            if (filePath.endsWith(".py")) {
-                fileType = "python";
-            } else if (filePath.endsWith(".css")) {
-                fileType = "css";
-            }
-        }
+        SourceLanguage language = args.length > 0 ? SourceLanguage.fromFileName(args[0]) : SourceLanguage.JINJA2;
 
         try {
-            ASTNode ast;
+            CompilationPipeline pipeline = CompilationPipeline.standard(parseMode);
+            pipeline.addStage("AST Visualization", context -> ASTPrinter.printWithStats(context.getAST()));
+            pipeline.setVerbose(true);
 
-            if (fileType.equals("python")) {
-                ast = compilePython(input);
-            } else {
-                ast = compileJinja2(input);
-            }
+            PipelineContext context = new PipelineContext(input.getSourceName(), language, input);
+            context.setDiagnosticSink(StreamingDiagnosticSink.console());
+            CompilationPipeline.Report report = pipeline.run(context);
 
-            if (ast == null) {
-                return;
+            for (String error : context.getErrors()) {
+                System.err.println("  ✗ " + error);
+            }
+            report.print();
+            if (metricsFile != null) {
+                Files.writeString(Paths.get(metricsFile), report.toJSON());
+                System.out.println("  Metrics written to " + metricsFile);
             }
 
-            // ═══════════════════════════════════════════════════════════════
-            // STAGE 4: AST VISUALIZATION
-            // ═══════════════════════════════════════════════════════════════
-            System.out.println("┌─ STAGE 4: AST Visualization ────────────────┐");
-            System.out.println("│  Printing AST with details...");
-            System.out.println("└──────────────────────────────────────────────┘");
-
-             ASTPrinter.printWithStats(ast);
-
-            // ═══════════════════════════════════════════════════════════════
-            // STAGE 5: SYMBOL TABLE DEMONSTRATION
-            // ═══════════════════════════════════════════════════════════════
-            System.out.println("\n┌─ STAGE 5: Symbol Table Operations ──────────┐");
-            System.out.println("│  Demonstrating symbol table functionality");
-            System.out.println("└──────────────────────────────────────────────┘");
-
-            demonstrateSymbolTable();
-
-            // ═══════════════════════════════════════════════════════════════
-            // COMPLETION
-            // ═══════════════════════════════════════════════════════════════
-            printFooter();
+            if (report.isComplete()) {
+                printFooter();
+            }
 
         } catch (Exception e) {
             System.err.println("\n✗ Error during compilation:");
@@ -104,142 +128,28 @@ public class Main {
     }
 
     /**
-     * Compile Python source code
+     * Compile every source file of a Flask project
      */
-    private static ASTNode compilePython(String input) {
-        // STAGE 1: LEXICAL ANALYSIS
-        System.out.println("┌─ STAGE 1: Lexical Analysis (Python) ────────┐");
-        CharStream charStream = CharStreams.fromString(input);
-        PythonLexer lexer = new PythonLexer(charStream);
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        tokens.fill();
-        System.out.println("│  ✓ Tokenization completed");
-        System.out.println("│  → Total tokens: " + tokens.size());
-        System.out.println("└──────────────────────────────────────────────┘\n");
-
-        // STAGE 2: SYNTAX ANALYSIS
-        System.out.println("┌─ STAGE 2: Syntax Analysis (Python) ─────────┐");
-        PythonParser parser = new PythonParser(tokens);
-        parser.removeErrorListeners();
-        parser.addErrorListener(new BaseErrorListener() {
-            @Override
-            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
-                                  int line, int charPositionInLine, String msg,
-                                  RecognitionException e) {
-                System.err.println("│  ✗ Syntax Error at line " + line + ":" + charPositionInLine);
-                System.err.println("│    " + msg);
+    private static void compileProject(String projectRoot, String cacheDir, boolean stream,
+                                       boolean directBuild) {
+        try {
+            ProjectCompiler projectCompiler = new ProjectCompiler(Paths.get(projectRoot), parseMode,
+                Runtime.getRuntime().availableProcessors());
+            if (cacheDir != null) {
+                projectCompiler.setCache(new ASTCache(Paths.get(cacheDir)));
             }
-        });
-
-        PythonParser.File_inputContext parseTree = parser.file_input();
-
-        if (parser.getNumberOfSyntaxErrors() > 0) {
-            System.out.println("│  ✗ Parsing failed with " + parser.getNumberOfSyntaxErrors() + " error(s)");
-            System.out.println("└──────────────────────────────────────────────┘\n");
-            return null;
-        }
-
-        System.out.println("│  ✓ Parsing completed successfully");
-        System.out.println("│  → Parse tree root: " + parseTree.getClass().getSimpleName());
-        System.out.println("└──────────────────────────────────────────────┘\n");
-
-        // STAGE 3: AST CONSTRUCTION
-        System.out.println("┌─ STAGE 3: AST Construction (Python) ────────┐");
-        System.out.println("│  Using Visitor Pattern...");
-
-        SimplePythonASTBuilder astBuilder = new SimplePythonASTBuilder();
-        ASTNode ast = astBuilder.visit(parseTree);
-
-        System.out.println("│  ✓ AST construction completed");
-        System.out.println("│  → Root node type: " + ast.getNodeType());
-        System.out.println("│  → Child count: " + ast.getChildren().size());
-        System.out.println("└──────────────────────────────────────────────┘\n");
-
-        return ast;
-    }
-
-    /**
-     * Compile Jinja2/HTML template source code
-     */
-    private static ASTNode compileJinja2(String input) {
-        // STAGE 1: LEXICAL ANALYSIS
-        System.out.println("┌─ STAGE 1: Lexical Analysis (Jinja2) ────────┐");
-        CharStream charStream = CharStreams.fromString(input);
-        Jinja2Lexer lexer = new Jinja2Lexer(charStream);
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        tokens.fill();
-        System.out.println("│  ✓ Tokenization completed");
-        System.out.println("│  → Total tokens: " + tokens.size());
-        System.out.println("└──────────────────────────────────────────────┘\n");
-
-        // STAGE 2: SYNTAX ANALYSIS
-        System.out.println("┌─ STAGE 2: Syntax Analysis (Jinja2) ─────────┐");
-        Jinja2Parser parser = new Jinja2Parser(tokens);
-        parser.removeErrorListeners();
-        parser.addErrorListener(new BaseErrorListener() {
-            @Override
-            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
-                                  int line, int charPositionInLine, String msg,
-                                  RecognitionException e) {
-                System.err.println("│  ✗ Syntax Error at line " + line + ":" + charPositionInLine);
-                System.err.println("│    " + msg);
+            projectCompiler.setStreamingInput(stream);
+            projectCompiler.setDirectBuild(directBuild);
+            ProjectCompilationResult result = projectCompiler.compile();
+            result.printSummary();
+            if (!result.isSuccess()) {
+                System.exit(1);
             }
-        });
-
-        Jinja2Parser.TemplateContext parseTree = parser.template();
-
-        if (parser.getNumberOfSyntaxErrors() > 0) {
-            System.out.println("Parsing failed with " + parser.getNumberOfSyntaxErrors() + " error(s)");
-            return null;
+        } catch (IOException e) {
+            System.err.println("Error reading project: " + projectRoot);
+            e.printStackTrace();
+            System.exit(1);
         }
-
-        System.out.println(" Parsing completed successfully");
-        System.out.println(" Parse tree root: " + parseTree.getClass().getSimpleName());
-
-        // STAGE 3: AST CONSTRUCTION
-        System.out.println(" STAGE 3: AST Construction (Jinja2) ");
-        System.out.println("Using Visitor Pattern...");
-
-        SimpleJinja2ASTBuilder astBuilder = new SimpleJinja2ASTBuilder();
-        ASTNode ast = astBuilder.visit(parseTree);
-
-        System.out.println("AST construction completed ");
-        System.out.println("Root node type: " + ast.getNodeType());
-        System.out.println("Child count: " + ast.getChildren().size());
-
-        return ast;
-    }
-
-    private static void demonstrateSymbolTable() {
-        SymbolTable symbolTable = new SymbolTable();
-
-        System.out.println("\n→ Inserting symbols into global scope:");
-        symbolTable.insert("page_title", new SymbolTable.Symbol("page_title", "string", "Product Catalog"));
-        symbolTable.insert("user", new SymbolTable.Symbol("user", "object", "{name: 'John', logged_in: true}"));
-        symbolTable.insert("products", new SymbolTable.Symbol("products", "list", "[...]"));
-
-        System.out.println("\n→ Entering new scope (function/block):");
-        symbolTable.enterScope();
-
-        symbolTable.insert("product", new SymbolTable.Symbol("product", "object", "{id: 1, name: 'Laptop'}"));
-        symbolTable.insert("price", new SymbolTable.Symbol("price", "number", 999.99));
-
-        System.out.println("\n→ Looking up symbols:");
-        System.out.println("  Lookup 'products': " + symbolTable.lookup("products"));
-        System.out.println("  Lookup 'product': " + symbolTable.lookup("product"));
-        System.out.println("  Lookup 'price': " + symbolTable.lookup("price"));
-
-        System.out.println("\n→ Updating symbol value:");
-        symbolTable.update("price", 899.99);
-
-        System.out.println("\n→ Current symbol table contents:");
-        symbolTable.printScopes();
-
-        System.out.println("→ Exiting scope:");
-        symbolTable.exitScope();
-
-        System.out.println("\n→ After exiting scope:");
-        symbolTable.printScopes();
     }
 
     /**
@@ -263,8 +173,8 @@ public class Main {
         System.out.println("1. Lexical Analysis");
         System.out.println("2. Syntax Analysis");
         System.out.println("3. AST Construction (Visitor)");
-        System.out.println("4. AST Visualization");
-        System.out.println("5. Symbol Table Operations  done");
+        System.out.println("4. Symbol Table");
+        System.out.println("5. AST Visualization  done");
 
     }
 
@@ -0,0 +1,312 @@
+package compiler.ast.arena;
+
+import compiler.ast.core.ASTNode;
+import compiler.symboltable.NameInterner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compact encoding of ASTs: one node is one index into parallel arrays
+ * (kind, line, first child, next sibling, interned text, a long of data and
+ * an offset into a shared int pool for list sizes and further strings).
+ *
+ * An arena holds every tree of one compilation; strings are interned once
+ * for all of them. Trees are encoded from the node objects the existing
+ * builders produce, after which those objects can be dropped; a node costs
+ * 32 bytes here instead of an object, an ArrayList and its backing array.
+ * {@link #cursor} walks an encoded tree without allocating, {@link #node}
+ * turns a subtree back into the original node classes when code needs them.
+ *
+ * Node classes without a codec (see NodeCodecs) are kept as objects in a
+ * side table. Not thread-safe; use one arena per compiling thread.
+ *
+ * This is a standalone representation: the compile paths (LanguageFrontEnd,
+ * ProjectCompiler, the AST cache) still hand out node objects, and only
+ * TestASTArena encodes into an arena.
+ */
+public class ASTArena {
+
+    static final int OPAQUE = 0;
+    // A null element of a node list
+    static final int NULL = 1;
+    static final int NONE = -1;
+
+    private int[] kind = new int[256];
+    private int[] line = new int[256];
+    private int[] firstChild = new int[256];
+    private int[] nextSibling = new int[256];
+    private int[] text = new int[256];
+    private int[] aux = new int[256];
+    private long[] data = new long[256];
+    private int size;
+
+    private int[] pool = new int[256];
+    private int poolSize;
+
+    private final NameInterner strings = new NameInterner();
+    private final List<ASTNode> opaque = new ArrayList<>();
+    private final List<Integer> roots = new ArrayList<>();
+
+    // Encodes a tree and returns the index of its root
+    public int add(ASTNode root) {
+        int index = encode(root);
+        roots.add(index);
+        return index;
+    }
+
+    public List<Integer> getRoots() {
+        return roots;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ASTCursor cursor(int root) {
+        return new ASTCursor(this, root);
+    }
+
+    // The subtree at index as node objects, built fresh on every call
+    public ASTNode node(int index) {
+        if (kind[index] == NULL) {
+            return null;
+        }
+        if (kind[index] == OPAQUE) {
+            return opaque.get((int) data[index]);
+        }
+        return NodeCodecs.codec(kind[index]).decode(new Reader(index));
+    }
+
+    // Shrinks the arrays to their contents once all trees are in
+    public void trim() {
+        kind = Arrays.copyOf(kind, size);
+        line = Arrays.copyOf(line, size);
+        firstChild = Arrays.copyOf(firstChild, size);
+        nextSibling = Arrays.copyOf(nextSibling, size);
+        text = Arrays.copyOf(text, size);
+        aux = Arrays.copyOf(aux, size);
+        data = Arrays.copyOf(data, size);
+        pool = Arrays.copyOf(pool, poolSize);
+    }
+
+    // Bytes held by the node arrays and the pool (not the interned strings)
+    public long getArrayBytes() {
+        return (long) kind.length * 6 * Integer.BYTES + (long) data.length * Long.BYTES
+                + (long) pool.length * Integer.BYTES;
+    }
+
+    public int getStringCount() {
+        return strings.size();
+    }
+
+    // ==================== ACCESS (used by ASTCursor) ====================
+
+    int kind(int index) {
+        return kind[index];
+    }
+
+    int line(int index) {
+        return line[index];
+    }
+
+    int firstChild(int index) {
+        return firstChild[index];
+    }
+
+    int nextSibling(int index) {
+        return nextSibling[index];
+    }
+
+    String text(int index) {
+        return text[index] == NONE ? null : strings.name(text[index]);
+    }
+
+    long data(int index) {
+        return data[index];
+    }
+
+    // ==================== ENCODING ====================
+
+    private int encode(ASTNode node) {
+        if (node == null) {
+            int index = allocate(0);
+            kind[index] = NULL;
+            return index;
+        }
+        int index = allocate(node.getLineNumber());
+        NodeCodec<ASTNode> codec = NodeCodecs.codecFor(node);
+        if (codec == null) {
+            kind[index] = OPAQUE;
+            data[index] = opaque.size();
+            opaque.add(node);
+            return index;
+        }
+        kind[index] = NodeCodecs.kindOf(node);
+        Writer writer = new Writer(index);
+        codec.encode(node, writer);
+        writer.finish();
+        return index;
+    }
+
+    private int allocate(int lineNumber) {
+        if (size == kind.length) {
+            // trim() may have left 0 or 1 slots, where growing by half adds nothing
+            int capacity = Math.max(size + (size >> 1), 16);
+            kind = Arrays.copyOf(kind, capacity);
+            line = Arrays.copyOf(line, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            text = Arrays.copyOf(text, capacity);
+            aux = Arrays.copyOf(aux, capacity);
+            data = Arrays.copyOf(data, capacity);
+        }
+        int index = size++;
+        line[index] = lineNumber;
+        firstChild[index] = NONE;
+        nextSibling[index] = NONE;
+        text[index] = NONE;
+        aux[index] = NONE;
+        return index;
+    }
+
+    private int intern(String value) {
+        return value == null ? NONE : strings.intern(value);
+    }
+
+    private String string(int id) {
+        return id == NONE ? null : strings.name(id);
+    }
+
+    /** What a codec writes for one node; a Reader gives it back in the same order. */
+    final class Writer {
+        private final int index;
+        private int lastChild = NONE;
+        private int[] values = new int[4];
+        private int valueCount;
+
+        private Writer(int index) {
+            this.index = index;
+        }
+
+        void text(String value) {
+            text[index] = intern(value);
+        }
+
+        void data(long value) {
+            data[index] = value;
+        }
+
+        // Optional children are cheaper when the codec knows a child may be missing
+        void child(ASTNode node) {
+            int child = encode(node);
+            if (lastChild == NONE) {
+                firstChild[index] = child;
+            } else {
+                nextSibling[lastChild] = child;
+            }
+            lastChild = child;
+        }
+
+        void optional(ASTNode node) {
+            value(node == null ? 0 : 1);
+            if (node != null) child(node);
+        }
+
+        void list(List<? extends ASTNode> nodes) {
+            value(nodes == null ? NONE : nodes.size());
+            if (nodes != null) {
+                for (ASTNode node : nodes) child(node);
+            }
+        }
+
+        void strings(List<String> values) {
+            value(values == null ? NONE : values.size());
+            if (values != null) {
+                for (String value : values) value(intern(value));
+            }
+        }
+
+        void string(String value) {
+            value(intern(value));
+        }
+
+        void value(int value) {
+            if (valueCount == values.length) {
+                values = Arrays.copyOf(values, valueCount * 2);
+            }
+            values[valueCount++] = value;
+        }
+
+        // The pool entries of a node are contiguous, so they are only written once its children are
+        private void finish() {
+            if (valueCount == 0) return;
+            if (poolSize + valueCount > pool.length) {
+                pool = Arrays.copyOf(pool, Math.max(poolSize + valueCount, pool.length + (pool.length >> 1)));
+            }
+            System.arraycopy(values, 0, pool, poolSize, valueCount);
+            aux[index] = poolSize;
+            poolSize += valueCount;
+        }
+    }
+
+    final class Reader {
+        private final int index;
+        private int nextChild;
+        private int nextValue;
+
+        private Reader(int index) {
+            this.index = index;
+            this.nextChild = firstChild[index];
+            this.nextValue = aux[index];
+        }
+
+        int line() {
+            return line[index];
+        }
+
+        String text() {
+            return ASTArena.this.text(index);
+        }
+
+        long data() {
+            return data[index];
+        }
+
+        @SuppressWarnings("unchecked")
+        <T extends ASTNode> T child() {
+            int child = nextChild;
+            nextChild = nextSibling[child];
+            return (T) node(child);
+        }
+
+        <T extends ASTNode> T optional() {
+            return value() == 0 ? null : child();
+        }
+
+        <T extends ASTNode> List<T> list() {
+            int count = value();
+            if (count == NONE) return null;
+            List<T> nodes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) nodes.add(child());
+            return nodes;
+        }
+
+        List<String> strings() {
+            int count = value();
+            if (count == NONE) return null;
+            List<String> values = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) values.add(string());
+            return values;
+        }
+
+        String string() {
+            return ASTArena.this.string(value());
+        }
+
+        int value() {
+            return pool[nextValue++];
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package compiler.ast.arena;
+
+import compiler.ast.core.ASTNode;
+
+import java.util.Arrays;
+
+/**
+ * Walks one tree of an arena without building nodes, in the style of a
+ * tree-sitter cursor: move to the first child, the next sibling or back to
+ * the parent and read the current node's kind, line and text.
+ *
+ * The children seen here are the encoded fields of a node in the order its
+ * codec writes them, which for most kinds is the order of getChildren().
+ * Opaque nodes have no children here; materialize() gives the object tree.
+ */
+public class ASTCursor {
+
+    private final ASTArena arena;
+    private int current;
+    private int[] path = new int[16];
+    private int depth;
+
+    ASTCursor(ASTArena arena, int root) {
+        this.arena = arena;
+        this.current = root;
+    }
+
+    public int index() {
+        return current;
+    }
+
+    public int depth() {
+        return depth;
+    }
+
+    public String kind() {
+        int kind = arena.kind(current);
+        if (kind == ASTArena.OPAQUE) {
+            return arena.node(current).getNodeType();
+        }
+        return NodeCodecs.name(kind);
+    }
+
+    public boolean isOpaque() {
+        return arena.kind(current) == ASTArena.OPAQUE;
+    }
+
+    public int line() {
+        return arena.line(current);
+    }
+
+    // Name, operator, literal text or module, depending on the kind; null if it has none
+    public String text() {
+        return arena.text(current);
+    }
+
+    // Raw bits of numbers, booleans and flags
+    public long data() {
+        return arena.data(current);
+    }
+
+    public boolean gotoFirstChild() {
+        int child = arena.firstChild(current);
+        if (child == ASTArena.NONE) {
+            return false;
+        }
+        if (depth == path.length) {
+            path = Arrays.copyOf(path, depth * 2);
+        }
+        path[depth++] = current;
+        current = child;
+        return true;
+    }
+
+    public boolean gotoNextSibling() {
+        int sibling = arena.nextSibling(current);
+        // The node the cursor started on has no siblings within its tree
+        if (depth == 0 || sibling == ASTArena.NONE) {
+            return false;
+        }
+        current = sibling;
+        return true;
+    }
+
+    public boolean gotoParent() {
+        if (depth == 0) {
+            return false;
+        }
+        current = path[--depth];
+        return true;
+    }
+
+    public int childCount() {
+        int count = 0;
+        for (int child = arena.firstChild(current); child != ASTArena.NONE; child = arena.nextSibling(child)) {
+            count++;
+        }
+        return count;
+    }
+
+    // The current subtree as node objects
+    public ASTNode materialize() {
+        return arena.node(current);
+    }
+}
@@ -0,0 +1,16 @@
+package compiler.ast.arena;
+
+import compiler.ast.core.ASTNode;
+
+/**
+ * Writes the fields of one node class into an arena and builds the node back
+ * from them. decode must read in the order encode wrote, and build the node
+ * through the same constructors and setters the AST builder uses so that
+ * its children list comes out the same.
+ */
+interface NodeCodec<T extends ASTNode> {
+
+    void encode(T node, ASTArena.Writer out);
+
+    T decode(ASTArena.Reader in);
+}
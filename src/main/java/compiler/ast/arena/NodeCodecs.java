@@ -0,0 +1,497 @@
+package compiler.ast.arena;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.BlockNode;
+import compiler.ast.core.DecoratorNode;
+import compiler.ast.core.ExceptClauseNode;
+import compiler.ast.core.ExpressionNode;
+import compiler.ast.core.ParameterNode;
+import compiler.ast.core.ProgramNode;
+import compiler.ast.core.expressions.IdentifierNode;
+import compiler.ast.core.expressions.MemberAccessNode;
+import compiler.ast.core.expressions.NumberLiteralNode;
+import compiler.ast.core.expressions.StringLiteralNode;
+import compiler.ast.flask.FlaskAppNode;
+import compiler.ast.flask.FlaskImportNode;
+import compiler.ast.flask.FlaskRequestNode;
+import compiler.ast.flask.FlaskRouteFunction;
+import compiler.ast.flask.RouteDecoratorNode;
+import compiler.ast.python.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * The node classes an arena stores field by field, one kind number each.
+ * Covers what the Python builder produces; other trees (Jinja2, CSS) and
+ * FlaskRunNode, whose run config is a map of arbitrary values, stay opaque.
+ */
+final class NodeCodecs {
+
+    private static final List<NodeCodec<?>> CODECS = new ArrayList<>();
+    private static final List<String> NAMES = new ArrayList<>();
+    private static final Map<Class<?>, Integer> KINDS = new HashMap<>();
+
+    // Flag in data: the decorators came first in the children list (set through the constructor)
+    private static final long DECORATORS_FIRST = 1;
+
+    static {
+        register(null, "Opaque", null, null);
+        register(null, "null", null, null);
+
+        // ==================== CORE ====================
+
+        register(ProgramNode.class, "Program",
+            (node, out) -> out.list(node.getChildren()),
+            in -> {
+                ProgramNode program = new ProgramNode(in.line());
+                program.addChildren(in.list());
+                return program;
+            });
+        register(IdentifierNode.class, "Identifier",
+            (node, out) -> out.text(node.getName()),
+            in -> new IdentifierNode(in.text(), in.line()));
+        register(NumberLiteralNode.class, "NumberLiteral",
+            (node, out) -> out.data(Double.doubleToRawLongBits(node.getValue())),
+            in -> new NumberLiteralNode(Double.longBitsToDouble(in.data()), in.line()));
+        register(StringLiteralNode.class, "StringLiteral",
+            (node, out) -> out.text(node.getValue()),
+            in -> new StringLiteralNode(in.text(), in.line()));
+        register(MemberAccessNode.class, "MemberAccess",
+            (node, out) -> {
+                out.text(node.getMemberName());
+                out.optional(node.getObject());
+            },
+            in -> {
+                String member = in.text();
+                return new MemberAccessNode(in.optional(), member, in.line());
+            });
+        register(ParameterNode.class, "Parameter",
+            (node, out) -> {
+                out.text(node.getParameterName());
+                out.optional(node.getTypeAnnotation());
+                out.optional(node.getDefaultValue());
+            },
+            in -> {
+                ExpressionNode type = in.optional();
+                ExpressionNode defaultValue = in.optional();
+                return new ParameterNode(in.text(), type, defaultValue, in.line());
+            });
+        register(DecoratorNode.class, "Decorator",
+            (node, out) -> {
+                out.optional(node.getDecoratorExpr());
+                out.list(node.getArguments());
+            },
+            in -> {
+                ExpressionNode expr = in.optional();
+                return new DecoratorNode(expr, in.list(), in.line());
+            });
+        register(ExceptClauseNode.class, "ExceptClause",
+            (node, out) -> {
+                out.optional(node.getExceptionType());
+                out.string(node.getAlias());
+                out.list(node.getBody());
+            },
+            in -> {
+                ExpressionNode type = in.optional();
+                String alias = in.string();
+                return new ExceptClauseNode(type, alias, in.list(), in.line());
+            });
+        register(BlockNode.class, "Block",
+            (node, out) -> {
+                out.text(node.getBlockName());
+                out.list(node.getContent());
+            },
+            in -> new BlockNode(in.text(), in.list(), in.line()));
+
+        // ==================== PYTHON EXPRESSIONS ====================
+
+        register(BooleanLiteralNode.class, "BooleanLiteral",
+            (node, out) -> out.data(node.getValue() ? 1 : 0),
+            in -> new BooleanLiteralNode(in.data() != 0, in.line()));
+        register(NoneLiteralNode.class, "NoneLiteral",
+            (node, out) -> { },
+            in -> new NoneLiteralNode(in.line()));
+        register(BinaryOpNode.class, "BinaryOp",
+            (node, out) -> {
+                out.text(node.getOperator());
+                out.optional(node.getLeft());
+                out.optional(node.getRight());
+            },
+            in -> {
+                ExpressionNode left = in.optional();
+                ExpressionNode right = in.optional();
+                return new BinaryOpNode(in.text(), left, right, in.line());
+            });
+        register(ComparisonNode.class, "Comparison",
+            (node, out) -> {
+                out.text(node.getOperator());
+                out.optional(node.getLeft());
+                out.optional(node.getRight());
+            },
+            in -> {
+                ExpressionNode left = in.optional();
+                ExpressionNode right = in.optional();
+                return new ComparisonNode(in.text(), left, right, in.line());
+            });
+        register(UnaryOpNode.class, "UnaryOp",
+            (node, out) -> {
+                out.text(node.getOperator());
+                out.optional(node.getOperand());
+            },
+            in -> new UnaryOpNode(in.text(), in.optional(), in.line()));
+        register(FunctionCallNode.class, "FunctionCall",
+            (node, out) -> {
+                out.optional(node.getFunction());
+                out.list(node.getArguments());
+            },
+            in -> {
+                ExpressionNode function = in.optional();
+                return new FunctionCallNode(function, in.list(), in.line());
+            });
+        register(KeywordArgNode.class, "KeywordArg",
+            (node, out) -> {
+                out.text(node.getKey());
+                out.optional(node.getValue());
+            },
+            in -> new KeywordArgNode(in.text(), in.optional(), in.line()));
+        register(IndexAccessNode.class, "IndexAccess",
+            (node, out) -> {
+                out.optional(node.getObject());
+                out.optional(node.getIndex());
+            },
+            in -> {
+                ExpressionNode object = in.optional();
+                return new IndexAccessNode(object, in.optional(), in.line());
+            });
+        register(SliceNode.class, "Slice",
+            (node, out) -> {
+                out.optional(node.getObject());
+                out.optional(node.getStart());
+                out.optional(node.getStop());
+                out.optional(node.getStep());
+            },
+            in -> {
+                ExpressionNode object = in.optional();
+                ExpressionNode start = in.optional();
+                ExpressionNode stop = in.optional();
+                return new SliceNode(object, start, stop, in.optional(), in.line());
+            });
+        register(TernaryNode.class, "Ternary",
+            (node, out) -> {
+                out.optional(node.getCondition());
+                out.optional(node.getThenValue());
+                out.optional(node.getElseValue());
+            },
+            in -> {
+                ExpressionNode condition = in.optional();
+                ExpressionNode thenValue = in.optional();
+                return new TernaryNode(condition, thenValue, in.optional(), in.line());
+            });
+        register(ListLiteralNode.class, "ListLiteral",
+            (node, out) -> out.list(node.getElements()),
+            in -> new ListLiteralNode(in.list(), in.line()));
+        register(TupleNode.class, "Tuple",
+            (node, out) -> out.list(node.getElements()),
+            in -> new TupleNode(in.list(), in.line()));
+        register(TupleLiteralNode.class, "TupleLiteral",
+            (node, out) -> out.list(node.getElements()),
+            in -> new TupleLiteralNode(in.list(), in.line()));
+        register(SetLiteralNode.class, "SetLiteral",
+            (node, out) -> out.list(node.getElements()),
+            in -> new SetLiteralNode(in.list(), in.line()));
+        register(DictionaryLiteralNode.class, "DictionaryLiteral",
+            (node, out) -> {
+                out.value(node.getEntries().size());
+                for (Map.Entry<ExpressionNode, ExpressionNode> entry : node.getEntries().entrySet()) {
+                    out.child(entry.getKey());
+                    out.child(entry.getValue());
+                }
+            },
+            in -> {
+                int size = in.value();
+                Map<ExpressionNode, ExpressionNode> entries = new LinkedHashMap<>();
+                for (int i = 0; i < size; i++) {
+                    ExpressionNode key = in.child();
+                    entries.put(key, in.child());
+                }
+                return new DictionaryLiteralNode(entries, in.line());
+            });
+        register(ListComprehensionNode.class, "ListComprehension",
+            (node, out) -> {
+                out.optional(node.getElement());
+                out.optional(node.getClause());
+            },
+            in -> {
+                ExpressionNode element = in.optional();
+                return new ListComprehensionNode(element, in.optional(), in.line());
+            });
+        register(GeneratorExpressionNode.class, "GeneratorExpression",
+            (node, out) -> {
+                out.optional(node.getElement());
+                out.optional(node.getClause());
+            },
+            in -> {
+                ExpressionNode element = in.optional();
+                return new GeneratorExpressionNode(element, in.optional(), in.line());
+            });
+        register(ComprehensionClause.class, "ComprehensionClause",
+            (node, out) -> {
+                out.text(node.getTarget());
+                out.optional(node.getIterable());
+                out.list(node.getConditions());
+                out.optional(node.getNestedFor());
+            },
+            in -> {
+                ExpressionNode iterable = in.optional();
+                List<ExpressionNode> conditions = in.list();
+                return new ComprehensionClause(in.text(), iterable, conditions, in.optional(), in.line());
+            });
+        register(LambdaNode.class, "Lambda",
+            (node, out) -> {
+                out.list(node.getParameters());
+                out.optional(node.getBody());
+            },
+            in -> {
+                List<ParameterNode> parameters = in.list();
+                return new LambdaNode(parameters, in.optional(), in.line());
+            });
+
+        // ==================== PYTHON STATEMENTS ====================
+
+        register(PassNode.class, "Pass",
+            (node, out) -> { },
+            in -> new PassNode(in.line()));
+        register(AssignmentNode.class, "Assignment",
+            (node, out) -> {
+                out.list(node.getTargets());
+                out.optional(node.getValue());
+            },
+            in -> {
+                List<ExpressionNode> targets = in.list();
+                return new AssignmentNode(targets, in.optional(), in.line());
+            });
+        register(ReturnStatementNode.class, "ReturnStatement",
+            (node, out) -> out.optional(node.getValue()),
+            in -> new ReturnStatementNode(in.optional(), in.line()));
+        register(GlobalStatementNode.class, "GlobalStatement",
+            (node, out) -> out.strings(node.getNames()),
+            in -> new GlobalStatementNode(in.strings(), in.line()));
+        register(ImportStatementNode.class, "ImportStatement",
+            (node, out) -> {
+                out.text(node.getModuleName());
+                out.data(node.isFromImport() ? 1 : 0);
+                out.strings(node.getImportedNames());
+                out.strings(node.getAliases());
+            },
+            in -> {
+                List<String> names = in.strings();
+                return new ImportStatementNode(in.text(), names, in.strings(), in.data() != 0, in.line());
+            });
+        register(IfStatementNode.class, "IfStatement",
+            (node, out) -> {
+                out.optional(node.getCondition());
+                out.list(node.getThenBlock());
+                out.list(node.getElseBlock());
+            },
+            in -> {
+                ExpressionNode condition = in.optional();
+                List<ASTNode> thenBlock = in.list();
+                return new IfStatementNode(condition, thenBlock, in.list(), in.line());
+            });
+        register(ForStatementNode.class, "ForStatement",
+            (node, out) -> {
+                out.optional(node.getTarget());
+                out.optional(node.getIterable());
+                out.list(node.getBody());
+                out.list(node.getElseBlock());
+            },
+            in -> {
+                ExpressionNode target = in.optional();
+                ExpressionNode iterable = in.optional();
+                List<ASTNode> body = in.list();
+                return new ForStatementNode(target, iterable, body, in.list(), in.line());
+            });
+        register(WhileStatementNode.class, "WhileStatement",
+            (node, out) -> {
+                out.optional(node.getCondition());
+                out.list(node.getBody());
+                out.list(node.getElseBlock());
+            },
+            in -> {
+                ExpressionNode condition = in.optional();
+                List<ASTNode> body = in.list();
+                return new WhileStatementNode(condition, body, in.list(), in.line());
+            });
+        register(TryStatementNode.class, "TryStatement",
+            (node, out) -> {
+                out.list(node.getTryBlock());
+                out.list(node.getExceptClauses());
+                out.list(node.getElseBlock());
+                out.list(node.getFinallyBlock());
+            },
+            in -> {
+                List<ASTNode> tryBlock = in.list();
+                List<ExceptClauseNode> exceptClauses = in.list();
+                List<ASTNode> elseBlock = in.list();
+                return new TryStatementNode(tryBlock, exceptClauses, elseBlock, in.list(), in.line());
+            });
+        register(FunctionDefNode.class, "FunctionDef",
+            (node, out) -> {
+                out.text(node.getFunctionName());
+                out.data(decoratorsFirst(node, node.getDecorators()) ? DECORATORS_FIRST : 0);
+                out.list(node.getDecorators());
+                out.list(node.getParameters());
+                out.optional(node.getReturnType());
+                out.list(node.getBody());
+            },
+            in -> {
+                List<DecoratorNode> decorators = in.list();
+                List<ParameterNode> parameters = in.list();
+                ExpressionNode returnType = in.optional();
+                List<ASTNode> body = in.list();
+                // The builder sets decorators after construction, which appends them to the children
+                if (in.data() == DECORATORS_FIRST) {
+                    return new FunctionDefNode(in.text(), parameters, body, decorators, returnType, in.line());
+                }
+                FunctionDefNode function = new FunctionDefNode(in.text(), parameters, body, null, returnType, in.line());
+                if (!decorators.isEmpty()) function.setDecorators(decorators);
+                return function;
+            });
+        register(ClassDefNode.class, "ClassDef",
+            (node, out) -> {
+                out.text(node.getClassName());
+                out.data(decoratorsFirst(node, node.getDecorators()) ? DECORATORS_FIRST : 0);
+                out.list(node.getDecorators());
+                out.list(node.getBaseClasses());
+                out.list(node.getBody());
+            },
+            in -> {
+                List<DecoratorNode> decorators = in.list();
+                List<ExpressionNode> bases = in.list();
+                List<ASTNode> body = in.list();
+                if (in.data() == DECORATORS_FIRST) {
+                    return new ClassDefNode(in.text(), bases, body, decorators, in.line());
+                }
+                ClassDefNode cls = new ClassDefNode(in.text(), bases, body, null, in.line());
+                if (!decorators.isEmpty()) cls.setDecorators(decorators);
+                return cls;
+            });
+
+        // ==================== FLASK ====================
+
+        register(RouteDecoratorNode.class, "RouteDecorator",
+            (node, out) -> {
+                out.text(node.getAppReference());
+                out.string(node.getRoutePath());
+                out.strings(node.getHttpMethods());
+                out.list(node.getArguments());
+            },
+            in -> {
+                String path = in.string();
+                List<String> methods = in.strings();
+                return new RouteDecoratorNode(in.text(), path, methods, in.list(), in.line());
+            });
+        // The route decorators are shared with the wrapped function, so only their positions are stored
+        register(FlaskRouteFunction.class, "FlaskRouteFunction",
+            (node, out) -> {
+                out.child(node.getFunctionDef());
+                List<DecoratorNode> decorators = node.getFunctionDef().getDecorators();
+                out.value(node.getRouteDecorators().size());
+                for (RouteDecoratorNode route : node.getRouteDecorators()) {
+                    out.value(indexOf(decorators, route));
+                }
+            },
+            in -> {
+                FunctionDefNode function = in.child();
+                int count = in.value();
+                List<RouteDecoratorNode> routes = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    routes.add((RouteDecoratorNode) function.getDecorators().get(in.value()));
+                }
+                return new FlaskRouteFunction(function, routes, in.line());
+            });
+        register(FlaskAppNode.class, "FlaskApp",
+            (node, out) -> {
+                out.text(node.getAppVariableName());
+                out.string(node.getModuleName());
+                out.optional(node.getConfigExpression());
+            },
+            in -> {
+                String module = in.string();
+                return new FlaskAppNode(in.text(), module, in.optional(), in.line());
+            });
+        register(FlaskImportNode.class, "FlaskImport",
+            (node, out) -> {
+                out.text(node.getModuleName());
+                out.strings(node.getImportedNames());
+            },
+            in -> new FlaskImportNode(in.text(), in.strings(), in.line()));
+        register(FlaskRequestNode.class, "FlaskRequest",
+            (node, out) -> {
+                out.text(node.getPropertyName());
+                out.optional(node.getChainedAccess());
+            },
+            in -> new FlaskRequestNode(in.text(), in.optional(), in.line()));
+    }
+
+    private NodeCodecs() {
+    }
+
+    private static <T extends ASTNode> void register(Class<T> type, String name,
+                                                     BiConsumer<T, ASTArena.Writer> encoder,
+                                                     Function<ASTArena.Reader, T> decoder) {
+        int kind = CODECS.size();
+        CODECS.add(encoder == null ? null : new NodeCodec<T>() {
+            @Override
+            public void encode(T node, ASTArena.Writer out) {
+                encoder.accept(node, out);
+            }
+
+            @Override
+            public T decode(ASTArena.Reader in) {
+                return decoder.apply(in);
+            }
+        });
+        NAMES.add(name);
+        if (type != null) {
+            KINDS.put(type, kind);
+        }
+    }
+
+    // Kind of the exact class of node; subclasses without their own codec are opaque
+    static int kindOf(ASTNode node) {
+        Integer kind = KINDS.get(node.getClass());
+        return kind != null ? kind : ASTArena.OPAQUE;
+    }
+
+    @SuppressWarnings("unchecked")
+    static NodeCodec<ASTNode> codecFor(ASTNode node) {
+        return (NodeCodec<ASTNode>) CODECS.get(kindOf(node));
+    }
+
+    @SuppressWarnings("unchecked")
+    static NodeCodec<ASTNode> codec(int kind) {
+        return (NodeCodec<ASTNode>) CODECS.get(kind);
+    }
+
+    static String name(int kind) {
+        return NAMES.get(kind);
+    }
+
+    private static boolean decoratorsFirst(ASTNode node, List<DecoratorNode> decorators) {
+        return !decorators.isEmpty() && node.getChildren().get(0) == decorators.get(0);
+    }
+
+    private static int indexOf(List<? extends ASTNode> nodes, ASTNode node) {
+        for (int i = 0; i < nodes.size(); i++) {
+            if (nodes.get(i) == node) return i;
+        }
+        throw new IllegalStateException("Route decorator is not on its function: " + node);
+    }
+}
@@ -1,15 +1,21 @@
 package compiler.ast.core;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
 
 // ───────────────── BASE NODE ─────────────────
 
-public abstract class ASTNode {
+public abstract class ASTNode implements Serializable {
+    private static final long serialVersionUID = 1L;
+
     protected int lineNumber;
     protected String name;
     protected List<ASTNode> children;
-    protected ASTNode parent;
+    // Not serialized: rebuilt from the children lists when an AST is read back
+    protected transient ASTNode parent;
 
     public ASTNode(int lineNumber, String name) {
         this.lineNumber = lineNumber;
@@ -31,6 +37,14 @@ public abstract class ASTNode {
         }
     }
 
+    public boolean removeChild(ASTNode child) {
+        if (child != null && this.children.remove(child)) {
+            child.setParent(null);
+            return true;
+        }
+        return false;
+    }
+
     public void setParent(ASTNode parent) {
         this.parent = parent;
     }
@@ -70,4 +84,19 @@ public abstract class ASTNode {
             child.print(indent + "  ");
         }
     }
+
+    // Moves this subtree by delta lines (used when an edit above it adds or removes lines)
+    public void shiftLineNumbers(int delta) {
+        lineNumber += delta;
+        for (ASTNode child : getChildren()) {
+            child.shiftLineNumbers(delta);
+        }
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        for (ASTNode child : children) {
+            child.parent = this;
+        }
+    }
 }
@@ -7,6 +7,8 @@ import java.util.ArrayList;
 
 
 public class BlockNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
     private String blockName;
     private List<ASTNode> content;
 
@@ -28,6 +30,15 @@ public class BlockNode extends ASTNode {
         return content;
     }
 
+    // Used by TemplateLinker to put an overriding block's content in place
+    public void setContent(List<ASTNode> content) {
+        children.clear();
+        this.content = content;
+        for (ASTNode node : content) {
+            addChild(node);
+        }
+    }
+
     @Override
     public String getNodeType() {
         return "JinjaBlock";
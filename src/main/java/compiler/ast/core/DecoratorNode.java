@@ -5,6 +5,8 @@ import java.util.ArrayList;
 
 
 public class DecoratorNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode decoratorExpr;
     private List<ExpressionNode> arguments;
 
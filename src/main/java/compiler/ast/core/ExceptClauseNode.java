@@ -5,6 +5,8 @@ import java.util.ArrayList;
 
 
 public class ExceptClauseNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode exceptionType;
     private String alias;
     private List<ASTNode> body;
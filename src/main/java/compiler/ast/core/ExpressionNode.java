@@ -4,6 +4,8 @@ package compiler.ast.core;
 import compiler.ast.core.ASTNode;
 
 public abstract class ExpressionNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
     public ExpressionNode(int lineNumber, String name) { super(lineNumber, name); }
     public ExpressionNode(int lineNumber) { super(lineNumber); }
 }
@@ -2,6 +2,8 @@ package compiler.ast.core;
 
 
 public class ParameterNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
     private String parameterName;
     private ExpressionNode typeAnnotation;
     private ExpressionNode defaultValue;
@@ -6,6 +6,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class ProgramNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
 
     private final List<ASTNode> children;
 
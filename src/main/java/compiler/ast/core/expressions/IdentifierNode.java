@@ -4,8 +4,30 @@ package compiler.ast.core.expressions;
 import compiler.ast.core.ExpressionNode;
 
 public class IdentifierNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
+    // Not bound by any declaration the symbol table saw (template context, undeclared name)
+    public static final int UNRESOLVED = -1;
+    // Bound in the builtin layer; the slot is the builtin's index there
+    public static final int BUILTIN = -2;
+
+    // Filled in by SymbolTableBuilder: scopes out from the one this name is used in, and slot in that scope's frame
+    private int depth = UNRESOLVED;
+    private int slot = -1;
+
     public IdentifierNode(String name, int lineNumber) { super(lineNumber, name); }
 
+    public void resolve(int depth, int slot) {
+        this.depth = depth;
+        this.slot = slot;
+    }
+
+    public boolean isResolved() { return depth != UNRESOLVED; }
+
+    public int getDepth() { return depth; }
+
+    public int getSlot() { return slot; }
+
     @Override
     public String getNodeType() { return "Identifier"; }
-}
\ No newline at end of file
+}
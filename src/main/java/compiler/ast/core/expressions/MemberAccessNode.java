@@ -4,6 +4,8 @@ package compiler.ast.core.expressions;
 import compiler.ast.core.ExpressionNode;
 
 public class MemberAccessNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode object;
     private String memberName;
 
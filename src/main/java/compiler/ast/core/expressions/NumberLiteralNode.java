@@ -4,6 +4,8 @@ package compiler.ast.core.expressions;
 import compiler.ast.core.ExpressionNode;
 
 public class NumberLiteralNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private double value;
     public NumberLiteralNode(double value, int lineNumber) { super(lineNumber); this.value = value; }
     public double getValue() { return value; }
@@ -4,6 +4,8 @@ package compiler.ast.core.expressions;
 import compiler.ast.core.ExpressionNode;
 
 public class StringLiteralNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private String value;
     public StringLiteralNode(String value, int lineNumber) { super(lineNumber); this.value = value; }
     public String getValue() { return value; }
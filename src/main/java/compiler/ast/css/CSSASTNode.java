@@ -7,6 +7,7 @@ import java.util.List;
 
 
 public abstract class CSSASTNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
 
     public CSSASTNode(int lineNumber, String name) {
         super(lineNumber, name);
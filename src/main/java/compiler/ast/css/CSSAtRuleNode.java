@@ -5,15 +5,19 @@ import java.util.List;
 
 
 public class CSSAtRuleNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
     private String keyword;
     private CSSAtRulePreludeNode prelude;
     private List<CSSRuleSetNode> ruleSets;
+    private List<CSSKeyframeRuleNode> keyframeRules;
     private boolean hasBlock;
 
     public CSSAtRuleNode(String keyword, int lineNumber) {
         super(lineNumber, keyword);
         this.keyword = keyword;
         this.ruleSets = new ArrayList<>();
+        this.keyframeRules = new ArrayList<>();
         this.hasBlock = false;
     }
 
@@ -32,6 +36,21 @@ public class CSSAtRuleNode extends CSSASTNode {
         }
     }
 
+    public void removeRuleSet(CSSRuleSetNode ruleSet) {
+        if (ruleSets.remove(ruleSet)) {
+            removeChild(ruleSet);
+        }
+    }
+
+    // @keyframes blocks; like rule sets they are also kept as children, in source order
+    public void addKeyframeRule(CSSKeyframeRuleNode keyframeRule) {
+        if (keyframeRule != null) {
+            this.keyframeRules.add(keyframeRule);
+            addChild(keyframeRule);
+            this.hasBlock = true;
+        }
+    }
+
     public void setHasBlock(boolean hasBlock) {
         this.hasBlock = hasBlock;
     }
@@ -48,6 +67,10 @@ public class CSSAtRuleNode extends CSSASTNode {
         return ruleSets;
     }
 
+    public List<CSSKeyframeRuleNode> getKeyframeRules() {
+        return keyframeRules;
+    }
+
     public boolean hasBlock() {
         return hasBlock;
     }
@@ -60,6 +83,10 @@ public class CSSAtRuleNode extends CSSASTNode {
     @Override
     public String getNodeDetails() {
         if (hasBlock) {
+            if (!keyframeRules.isEmpty()) {
+                return String.format("CSSAtRule: @%s { %d keyframes } (line %d)",
+                        keyword, keyframeRules.size(), getLineNumber());
+            }
             return String.format("CSSAtRule: @%s { %d rule sets } (line %d)",
                     keyword, ruleSets.size(), getLineNumber());
         } else {
@@ -6,8 +6,13 @@ import java.util.List;
  // Example: in "@media screen and (max-width: 600px)", the prelude is "screen and (max-width: 600px)"
 
 public class CSSAtRulePreludeNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
     private List<String> tokens;
 
+    // Prelude as written, whitespace and all (the tokens lose where spaces were)
+    private String sourceText = "";
+
     public CSSAtRulePreludeNode(int lineNumber) {
         super(lineNumber, "at-rule-prelude");
         this.tokens = new ArrayList<>();
@@ -23,6 +28,14 @@ public class CSSAtRulePreludeNode extends CSSASTNode {
         return tokens;
     }
 
+    public String getSourceText() {
+        return sourceText;
+    }
+
+    public void setSourceText(String sourceText) {
+        this.sourceText = sourceText != null ? sourceText : "";
+    }
+
     public String getPreludeText() {
         return String.join(" ", tokens);
     }
@@ -1,6 +1,7 @@
 package compiler.ast.css;
 
 public class CSSAttributeSelectorNode extends CSSSelectorPartNode {
+    private static final long serialVersionUID = 1L;
 
     private final String attributeName;
     private final String operator;
@@ -55,7 +56,11 @@ public class CSSAttributeSelectorNode extends CSSSelectorPartNode {
     @Override
     public String getSelectorPartText() {
         if (value != null && operator != null) {
-            return "[" + attributeName + operator + value.getName() + "]";
+            String valueText = value.getValueText();
+            if (!value.getComponents().isEmpty() && value.getComponents().get(0) instanceof CSSStringValueNode) {
+                valueText = "\"" + valueText + "\"";
+            }
+            return "[" + attributeName + operator + valueText + "]";
         }
         return "[" + attributeName + "]";
     }
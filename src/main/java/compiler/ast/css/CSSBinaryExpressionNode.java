@@ -3,6 +3,8 @@ package compiler.ast.css;
  // Example: "100% - 20px", "2 * 10px", "calc(10px + 5%)"
 
 public class CSSBinaryExpressionNode extends CSSExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     public enum Operator {
         ADD("+"),
         SUBTRACT("-"),
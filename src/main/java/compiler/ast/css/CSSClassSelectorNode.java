@@ -4,6 +4,8 @@ package compiler.ast.css;
  // Example: ".className"
 
 public class CSSClassSelectorNode extends CSSSelectorPartNode {
+    private static final long serialVersionUID = 1L;
+
     private String className;
 
     public CSSClassSelectorNode(String className, int lineNumber) {
@@ -3,6 +3,8 @@ package compiler.ast.css;
  // Example: "#fff", "#FF0000", "#123456"
 
 public class CSSColorValueNode extends CSSValueComponentNode {
+    private static final long serialVersionUID = 1L;
+
     private String colorHex;
 
     public CSSColorValueNode(String colorHex, int lineNumber) {
@@ -4,6 +4,8 @@ package compiler.ast.css;
  // Combinators: descendant (space), child (>), adjacent sibling (+), general sibling (~)
 
 public class CSSCombinatorNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
     public enum CombinatorType {
         DESCENDANT(" "),     // space
         CHILD(">"),          // >
@@ -3,6 +3,8 @@ package compiler.ast.css;
  // Example: "--primary-color", "--spacing-unit"
 
 public class CSSCssVariableNode extends CSSValueComponentNode {
+    private static final long serialVersionUID = 1L;
+
     private String variableName;
 
     public CSSCssVariableNode(String variableName, int lineNumber) {
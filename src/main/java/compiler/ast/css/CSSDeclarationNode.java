@@ -3,6 +3,8 @@ package compiler.ast.css;
  // Example: "color: red", "margin: 10px !important"
 
 public class CSSDeclarationNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
     private String property;
     private CSSValueNode value;
     private boolean important;
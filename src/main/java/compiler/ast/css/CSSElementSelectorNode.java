@@ -3,6 +3,8 @@ package compiler.ast.css;
  // Example: "div", "p", "span"
 
 public class CSSElementSelectorNode extends CSSSelectorPartNode {
+    private static final long serialVersionUID = 1L;
+
     private String elementName;
 
     public CSSElementSelectorNode(String elementName, int lineNumber) {
@@ -2,6 +2,7 @@ package compiler.ast.css;
 
 
 public abstract class CSSExpressionNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
 
     public CSSExpressionNode(int lineNumber, String name) {
         super(lineNumber, name);
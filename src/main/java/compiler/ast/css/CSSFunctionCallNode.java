@@ -7,6 +7,8 @@ import java.util.stream.Collectors;
  // Example: "rgb(255, 0, 0)", "calc(100% - 20px)", "linear-gradient(...)"
 
 public class CSSFunctionCallNode extends CSSValueComponentNode {
+    private static final long serialVersionUID = 1L;
+
     private String functionName;
     private List<CSSExpressionNode> arguments;
 
@@ -0,0 +1,34 @@
+package compiler.ast.css;
+
+ // Example: "var(--gap)" inside "calc(var(--gap) * 2)"
+
+public class CSSFunctionExpressionNode extends CSSExpressionNode {
+    private static final long serialVersionUID = 1L;
+
+    private CSSFunctionCallNode functionCall;
+
+    public CSSFunctionExpressionNode(CSSFunctionCallNode functionCall, int lineNumber) {
+        super(lineNumber, functionCall.getFunctionName());
+        this.functionCall = functionCall;
+        addChild(functionCall);
+    }
+
+    public CSSFunctionCallNode getFunctionCall() {
+        return functionCall;
+    }
+
+    @Override
+    public String getExpressionText() {
+        return functionCall.getComponentText();
+    }
+
+    @Override
+    public String getNodeType() {
+        return "CSSFunctionExpression";
+    }
+
+    @Override
+    public String getNodeDetails() {
+        return String.format("CSSFunctionExpression: %s (line %d)", getExpressionText(), getLineNumber());
+    }
+}
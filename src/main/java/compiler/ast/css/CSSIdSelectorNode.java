@@ -3,6 +3,8 @@ package compiler.ast.css;
  //Example: "#idName"
 
 public class CSSIdSelectorNode extends CSSSelectorPartNode {
+    private static final long serialVersionUID = 1L;
+
     private String idName;
 
     public CSSIdSelectorNode(String idName, int lineNumber) {
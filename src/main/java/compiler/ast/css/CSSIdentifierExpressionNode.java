@@ -0,0 +1,33 @@
+package compiler.ast.css;
+
+ // Example: "to", "currentColor", "--primary-color" as a function argument
+
+public class CSSIdentifierExpressionNode extends CSSExpressionNode {
+    private static final long serialVersionUID = 1L;
+
+    private String identifier;
+
+    public CSSIdentifierExpressionNode(String identifier, int lineNumber) {
+        super(lineNumber, identifier);
+        this.identifier = identifier;
+    }
+
+    public String getIdentifier() {
+        return identifier;
+    }
+
+    @Override
+    public String getExpressionText() {
+        return identifier;
+    }
+
+    @Override
+    public String getNodeType() {
+        return "CSSIdentifierExpression";
+    }
+
+    @Override
+    public String getNodeDetails() {
+        return String.format("CSSIdentifierExpression: %s (line %d)", identifier, getLineNumber());
+    }
+}
@@ -3,6 +3,8 @@ package compiler.ast.css;
  // Example: "auto", "inherit", "solid", "red"
 
 public class CSSIdentifierValueNode extends CSSValueComponentNode {
+    private static final long serialVersionUID = 1L;
+
     private String identifier;
 
     public CSSIdentifierValueNode(String identifier, int lineNumber) {
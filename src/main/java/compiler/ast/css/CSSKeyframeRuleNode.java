@@ -0,0 +1,51 @@
+package compiler.ast.css;
+
+import java.util.ArrayList;
+import java.util.List;
+
+ // Example: "from { opacity: 0 }", "50%, 75% { opacity: 0.5 }" inside @keyframes
+
+public class CSSKeyframeRuleNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
+    private List<String> keyframeSelectors;
+    private List<CSSDeclarationNode> declarations;
+
+    public CSSKeyframeRuleNode(int lineNumber) {
+        super(lineNumber, "keyframe");
+        this.keyframeSelectors = new ArrayList<>();
+        this.declarations = new ArrayList<>();
+    }
+
+    public void addKeyframeSelector(String selector) {
+        if (selector != null) {
+            this.keyframeSelectors.add(selector);
+        }
+    }
+
+    public void addDeclaration(CSSDeclarationNode declaration) {
+        if (declaration != null) {
+            this.declarations.add(declaration);
+            addChild(declaration);
+        }
+    }
+
+    public List<String> getKeyframeSelectors() {
+        return keyframeSelectors;
+    }
+
+    public List<CSSDeclarationNode> getDeclarations() {
+        return declarations;
+    }
+
+    @Override
+    public String getNodeType() {
+        return "CSSKeyframeRule";
+    }
+
+    @Override
+    public String getNodeDetails() {
+        return String.format("CSSKeyframeRule: %s { %d declarations } (line %d)",
+                String.join(", ", keyframeSelectors), declarations.size(), getLineNumber());
+    }
+}
@@ -3,6 +3,8 @@ package compiler.ast.css;
 // Example: "10px", "50%", "2.5"
 
 public class CSSNumberExpressionNode extends CSSExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private String number;
     private String unit;  // Can be null for unitless numbers
 
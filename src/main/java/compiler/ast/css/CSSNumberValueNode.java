@@ -3,6 +3,8 @@ package compiler.ast.css;
  // Example: "10", "20px", "1.5em", "50%"
 
 public class CSSNumberValueNode extends CSSValueComponentNode {
+    private static final long serialVersionUID = 1L;
+
     private String number;
     private String unit;  // Can be null for unitless numbers
 
@@ -3,6 +3,8 @@ package compiler.ast.css;
  // Operators: +, -, *, /, , (comma)
 
 public class CSSOperatorNode extends CSSValueComponentNode {
+    private static final long serialVersionUID = 1L;
+
     public enum OperatorType {
         PLUS("+"),
         MINUS("-"),
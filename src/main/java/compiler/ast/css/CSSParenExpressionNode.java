@@ -3,6 +3,8 @@ package compiler.ast.css;
  // Example: "(100% - 20px)", "(2 * 3)"
 
 public class CSSParenExpressionNode extends CSSExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private CSSExpressionNode expression;
 
     public CSSParenExpressionNode(CSSExpressionNode expression, int lineNumber) {
@@ -1,10 +1,11 @@
 package compiler.ast.css;
 
 public class CSSParenNode extends CSSValueComponentNode {
+    private static final long serialVersionUID = 1L;
 
     @Override
     public String getComponentText() {
-        return "Paren";
+        return type.getSymbol();
     }
 
     public enum ParenType {
@@ -4,6 +4,8 @@ package compiler.ast.css;
  // Example: "50%", "100%", "-25%"
 
 public class CSSPercentageExpressionNode extends CSSExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private String percentage;
 
     public CSSPercentageExpressionNode(String percentage, int lineNumber) {
@@ -3,6 +3,8 @@ package compiler.ast.css;
   //Example: "50%", "-100%", "12.5%"
 
 public class CSSPercentageValueNode extends CSSValueComponentNode {
+    private static final long serialVersionUID = 1L;
+
     private String percentage;
 
     public CSSPercentageValueNode(String percentage, int lineNumber) {
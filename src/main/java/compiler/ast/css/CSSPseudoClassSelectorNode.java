@@ -3,6 +3,8 @@ package compiler.ast.css;
  // Example: ":hover", ":active", ":nth-child"
 
 public class CSSPseudoClassSelectorNode extends CSSSelectorPartNode {
+    private static final long serialVersionUID = 1L;
+
     private String pseudoClassName;
 
     public CSSPseudoClassSelectorNode(String pseudoClassName, int lineNumber) {
@@ -4,6 +4,8 @@ package compiler.ast.css;
  // Example: "::before", "::after", "::first-line"
 
 public class CSSPseudoElementSelectorNode extends CSSSelectorPartNode {
+    private static final long serialVersionUID = 1L;
+
     private String pseudoElementName;
 
     public CSSPseudoElementSelectorNode(String pseudoElementName, int lineNumber) {
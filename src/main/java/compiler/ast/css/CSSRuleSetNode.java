@@ -6,6 +6,8 @@ import java.util.List;
  // Structure: selectorList { declarations }
 
 public class CSSRuleSetNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
     private CSSSelectorListNode selectorList;
     private List<CSSDeclarationNode> declarations;
 
@@ -8,6 +8,8 @@ import java.util.stream.Collectors;
  // Example: "div, .class, #id"
 
 public class CSSSelectorListNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
     private List<CSSSelectorNode> selectors;
 
     public CSSSelectorListNode(int lineNumber) {
@@ -22,6 +24,12 @@ public class CSSSelectorListNode extends CSSASTNode {
         }
     }
 
+    public void removeSelector(CSSSelectorNode selector) {
+        if (selectors.remove(selector)) {
+            removeChild(selector);
+        }
+    }
+
     public List<CSSSelectorNode> getSelectors() {
         return selectors;
     }
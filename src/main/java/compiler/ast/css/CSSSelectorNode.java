@@ -6,6 +6,8 @@ import java.util.List;
  //Example: "div > .class + p"
 
 public class CSSSelectorNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
     private List<CSSSimpleSelectorNode> simpleSelectors;
     private List<CSSCombinatorNode> combinators;
 
@@ -42,7 +44,12 @@ public class CSSSelectorNode extends CSSASTNode {
         for (int i = 0; i < simpleSelectors.size(); i++) {
             sb.append(simpleSelectors.get(i).getSelectorText());
             if (i < combinators.size()) {
-                sb.append(" ").append(combinators.get(i).getCombinatorSymbol()).append(" ");
+                CSSCombinatorNode combinator = combinators.get(i);
+                if (combinator.getCombinatorType() == CSSCombinatorNode.CombinatorType.DESCENDANT) {
+                    sb.append(" ");
+                } else {
+                    sb.append(" ").append(combinator.getCombinatorSymbol()).append(" ");
+                }
             }
         }
         return sb.toString();
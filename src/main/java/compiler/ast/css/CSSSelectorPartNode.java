@@ -3,6 +3,7 @@ package compiler.ast.css;
 //  Selector parts include: element, class, id, universal, pseudo-class, pseudo-element, attribute.
 
 public abstract class CSSSelectorPartNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
 
     public CSSSelectorPartNode(int lineNumber, String name) {
         super(lineNumber, name);
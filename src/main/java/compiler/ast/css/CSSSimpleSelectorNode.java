@@ -6,6 +6,8 @@ import java.util.List;
  // Example: "div.class#id:hover"
 
 public class CSSSimpleSelectorNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
     private List<CSSSelectorPartNode> selectorParts;
 
     public CSSSimpleSelectorNode(int lineNumber) {
@@ -0,0 +1,33 @@
+package compiler.ast.css;
+
+ // Example: "'icon.svg'" in a function argument; quotes are stripped like CSSStringValueNode
+
+public class CSSStringExpressionNode extends CSSExpressionNode {
+    private static final long serialVersionUID = 1L;
+
+    private String stringValue;
+
+    public CSSStringExpressionNode(String stringValue, int lineNumber) {
+        super(lineNumber, stringValue);
+        this.stringValue = stringValue;
+    }
+
+    public String getStringValue() {
+        return stringValue;
+    }
+
+    @Override
+    public String getExpressionText() {
+        return "\"" + stringValue + "\"";
+    }
+
+    @Override
+    public String getNodeType() {
+        return "CSSStringExpression";
+    }
+
+    @Override
+    public String getNodeDetails() {
+        return String.format("CSSStringExpression: %s (line %d)", stringValue, getLineNumber());
+    }
+}
@@ -5,6 +5,8 @@ package compiler.ast.css;
  * Example: "'Arial'", '"Helvetica"'
  */
 public class CSSStringValueNode extends CSSValueComponentNode {
+    private static final long serialVersionUID = 1L;
+
     private String stringValue;
 
     public CSSStringValueNode(String stringValue, int lineNumber) {
@@ -5,6 +5,8 @@ import java.util.List;
 
  //Contains rule sets and at-rules.
 public class CSSStylesheetNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
     private List<CSSRuleSetNode> ruleSets;
     private List<CSSAtRuleNode> atRules;
 
@@ -28,6 +30,18 @@ public class CSSStylesheetNode extends CSSASTNode {
         }
     }
 
+    public void removeRuleSet(CSSRuleSetNode ruleSet) {
+        if (ruleSets.remove(ruleSet)) {
+            removeChild(ruleSet);
+        }
+    }
+
+    public void removeAtRule(CSSAtRuleNode atRule) {
+        if (atRules.remove(atRule)) {
+            removeChild(atRule);
+        }
+    }
+
     public List<CSSRuleSetNode> getRuleSets() {
         return ruleSets;
     }
@@ -3,6 +3,7 @@ package compiler.ast.css;
  // Example: "*"
 
 public class CSSUniversalSelectorNode extends CSSSelectorPartNode {
+    private static final long serialVersionUID = 1L;
 
     public CSSUniversalSelectorNode(int lineNumber) {
         super(lineNumber, "*");
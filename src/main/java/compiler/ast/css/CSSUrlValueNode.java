@@ -3,6 +3,8 @@ package compiler.ast.css;
 //Example: "url('image.png')", "url(https://example.com/bg.jpg)"
 
 public class CSSUrlValueNode extends CSSValueComponentNode {
+    private static final long serialVersionUID = 1L;
+
     private String url;
 
     public CSSUrlValueNode(String url, int lineNumber) {
@@ -2,10 +2,22 @@ package compiler.ast.css;
 
 
 public abstract class CSSValueComponentNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
+    // Whether the source had whitespace before this component ("a (b)" vs "a(b)")
+    private boolean spaceBefore;
 
     public CSSValueComponentNode(int lineNumber, String name) {
         super(lineNumber, name);
     }
 
+    public boolean hasSpaceBefore() {
+        return spaceBefore;
+    }
+
+    public void setSpaceBefore(boolean spaceBefore) {
+        this.spaceBefore = spaceBefore;
+    }
+
     public abstract String getComponentText();
 }
@@ -7,6 +7,8 @@ import java.util.stream.Collectors;
  //Example: "10px solid red" contains three value components
 
 public class CSSValueNode extends CSSASTNode {
+    private static final long serialVersionUID = 1L;
+
     private List<CSSValueComponentNode> components;
 
     public CSSValueNode(int lineNumber) {
@@ -5,6 +5,8 @@ import compiler.ast.python.StatementNode;
 
 
 public class FlaskAppNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private final String appVariableName;
     private final String moduleName;
     private final ExpressionNode configExpression;
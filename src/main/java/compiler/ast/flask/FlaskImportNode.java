@@ -9,6 +9,7 @@ import java.util.HashSet;
 
 
 public class FlaskImportNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
 
     public enum FlaskComponent {
         FLASK("Flask", "Application class"),
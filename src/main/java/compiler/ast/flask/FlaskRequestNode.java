@@ -3,6 +3,7 @@ package compiler.ast.flask;
 import compiler.ast.core.ExpressionNode;
 
 public class FlaskRequestNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
 
     public enum RequestProperty {
         ARGS,           // request.args - URL query parameters
@@ -8,6 +8,8 @@ import java.util.List;
 import java.util.ArrayList;
 
 public class FlaskRouteFunction extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private final FunctionDefNode functionDef;
     private final List<RouteDecoratorNode> routeDecorators;
     private final String endpoint;  // Flask endpoint name (defaults to function name)
@@ -6,6 +6,8 @@ import java.util.Map;
 import java.util.HashMap;
 
 public class FlaskRunNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private final String appReference;
     private final Map<String, Object> runConfig;
     private final boolean isInMainGuard;  // Inside if __name__ == "__main__"
@@ -9,6 +9,8 @@ import java.util.List;
 import java.util.ArrayList;
 
 public class RouteDecoratorNode extends DecoratorNode {
+    private static final long serialVersionUID = 1L;
+
     private final String appReference;
     private final String routePath;
     private final List<String> httpMethods;
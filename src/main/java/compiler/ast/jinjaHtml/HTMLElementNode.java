@@ -4,11 +4,19 @@ import compiler.ast.core.ASTNode;
 
 import java.util.Map;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 
 public class HTMLElementNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
     private String tagName;
     private Map<String, String> attributes;
     private boolean selfClosing;
+    // Name in the matching close tag, or null when the element is never closed (<meta>, <br>, ...)
+    private String closingTagName;
+    // Attributes whose value contains {{ }}: HTMLTextNode and Jinja2VarNode parts, quotes excluded
+    private Map<String, List<ASTNode>> attributeParts = new LinkedHashMap<>();
 
     public HTMLElementNode(String tagName, Map<String, String> attributes, int lineNumber) {
         super(lineNumber);
@@ -36,6 +44,32 @@ public class HTMLElementNode extends ASTNode {
         return selfClosing;
     }
 
+    public String getClosingTagName() {
+        return closingTagName;
+    }
+
+    public void setClosingTagName(String closingTagName) {
+        this.closingTagName = closingTagName;
+    }
+
+    public Map<String, List<ASTNode>> getAttributeParts() {
+        return attributeParts;
+    }
+
+    public void setAttributeParts(String attributeName, List<ASTNode> parts) {
+        attributeParts.put(attributeName, parts);
+    }
+
+    @Override
+    public void shiftLineNumbers(int delta) {
+        super.shiftLineNumbers(delta);
+        for (List<ASTNode> parts : attributeParts.values()) {
+            for (ASTNode part : parts) {
+                part.shiftLineNumbers(delta);
+            }
+        }
+    }
+
     @Override
     public String getNodeType() {
         return "HTMLElement";
@@ -4,6 +4,8 @@ package compiler.ast.jinjaHtml;
 import compiler.ast.core.ASTNode;
 
 public class HTMLTextNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
     private String text;
 
     public HTMLTextNode(String text, int lineNumber) {
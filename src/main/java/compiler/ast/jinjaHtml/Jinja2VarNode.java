@@ -10,13 +10,18 @@ import java.util.ArrayList;
  * AST node representing Jinja2 variable interpolation {{ variable }}
  */
 public class Jinja2VarNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode expression;
     private List<String> filters;
+    // Arguments of each filter, parallel to filters (empty list when called without parentheses)
+    private List<List<ExpressionNode>> filterArguments;
 
     public Jinja2VarNode(ExpressionNode expression, int lineNumber) {
         super(lineNumber,"Jinja2Var");
         this.expression = expression;
         this.filters = new ArrayList<>();
+        this.filterArguments = new ArrayList<>();
         addChild(expression);
     }
 
@@ -24,7 +29,25 @@ public class Jinja2VarNode extends ASTNode {
         super(lineNumber);
         this.expression = expression;
         this.filters = filters != null ? filters : new ArrayList<>();
+        this.filterArguments = new ArrayList<>();
+        for (int i = 0; i < this.filters.size(); i++) {
+            this.filterArguments.add(new ArrayList<>());
+        }
+        addChild(expression);
+    }
+
+    public Jinja2VarNode(ExpressionNode expression, List<String> filters,
+                         List<List<ExpressionNode>> filterArguments, int lineNumber) {
+        super(lineNumber);
+        this.expression = expression;
+        this.filters = filters;
+        this.filterArguments = filterArguments;
         addChild(expression);
+        for (List<ExpressionNode> arguments : filterArguments) {
+            for (ExpressionNode argument : arguments) {
+                addChild(argument);
+            }
+        }
     }
 
     public ExpressionNode getExpression() {
@@ -35,6 +58,10 @@ public class Jinja2VarNode extends ASTNode {
         return filters;
     }
 
+    public List<List<ExpressionNode>> getFilterArguments() {
+        return filterArguments;
+    }
+
     @Override
     public String getNodeType() {
         return "Jinja2Var";
@@ -0,0 +1,31 @@
+package compiler.ast.jinjaHtml;
+
+import compiler.ast.core.ASTNode;
+
+/**
+ * AST node representing Jinja2 inheritance {% extends "base.html" %}
+ */
+public class JinjaExtendsNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
+    private final String templateName;
+
+    public JinjaExtendsNode(String templateName, int lineNumber) {
+        super(lineNumber, templateName);
+        this.templateName = templateName;
+    }
+
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    @Override
+    public String getNodeType() {
+        return "JinjaExtends";
+    }
+
+    @Override
+    public String getNodeDetails() {
+        return String.format("JinjaExtends: {%% extends \"%s\" %%} (line %d)", templateName, lineNumber);
+    }
+}
@@ -0,0 +1,51 @@
+package compiler.ast.jinjaHtml;
+
+import compiler.ast.core.ExpressionNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Expression node representing a filter applied inside an expression (value | name(args))
+ */
+public class JinjaFilterNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
+    private ExpressionNode operand;
+    private String filterName;
+    // Empty when the filter is used without parentheses
+    private List<ExpressionNode> arguments;
+
+    public JinjaFilterNode(ExpressionNode operand, String filterName, List<ExpressionNode> arguments, int lineNumber) {
+        super(lineNumber);
+        this.operand = operand;
+        this.filterName = filterName;
+        this.arguments = arguments != null ? arguments : new ArrayList<>();
+        addChild(operand);
+        for (ExpressionNode argument : this.arguments) {
+            addChild(argument);
+        }
+    }
+
+    public ExpressionNode getOperand() {
+        return operand;
+    }
+
+    public String getFilterName() {
+        return filterName;
+    }
+
+    public List<ExpressionNode> getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String getNodeType() {
+        return "JinjaFilter";
+    }
+
+    @Override
+    public String getNodeDetails() {
+        return String.format("JinjaFilter: | %s (line %d)", filterName, lineNumber);
+    }
+}
@@ -7,22 +7,36 @@ import java.util.List;
 import java.util.ArrayList;
 
 public class JinjaForNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
 
     private String targetName;
+    private List<String> targetNames;
     private ExpressionNode iterable;
     private List<ASTNode> body;
+    private List<ASTNode> elseBody;
 
     public JinjaForNode(String targetName, ExpressionNode iterable, int lineNumber) {
-        super(lineNumber, targetName);
-        this.targetName = targetName;
+        this(List.of(targetName), iterable, lineNumber);
+    }
+
+    // {% for (key, value) in ... %} unpacks each item into several targets
+    public JinjaForNode(List<String> targetNames, ExpressionNode iterable, int lineNumber) {
+        super(lineNumber, targetNames.get(0));
+        this.targetName = targetNames.get(0);
+        this.targetNames = new ArrayList<>(targetNames);
         this.iterable = iterable;
         this.body = new ArrayList<>();
+        this.elseBody = new ArrayList<>();
     }
 
     public String getTargetName() {
         return targetName;
     }
 
+    public List<String> getTargetNames() {
+        return targetNames;
+    }
+
     public ExpressionNode getIterable() {
         return iterable;
     }
@@ -38,6 +52,26 @@ public class JinjaForNode extends ASTNode {
         return body;
     }
 
+    // Rendered when the iterable is empty
+    public void setElseBody(List<ASTNode> elseBody) {
+        this.elseBody = elseBody;
+        for (ASTNode child : elseBody) {
+            this.addChild(child);
+        }
+    }
+
+    public List<ASTNode> getElseBody() {
+        return elseBody;
+    }
+
+    @Override
+    public void shiftLineNumbers(int delta) {
+        super.shiftLineNumbers(delta);
+        if (iterable != null) {
+            iterable.shiftLineNumbers(delta);
+        }
+    }
+
     @Override
     public String getNodeType() {
         return "JinjaFor";
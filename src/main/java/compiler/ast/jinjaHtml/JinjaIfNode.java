@@ -1,14 +1,55 @@
 package compiler.ast.jinjaHtml;
 
 import compiler.ast.core.ASTNode;
+import compiler.ast.core.ExpressionNode;
+
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * AST node representing Jinja2 if statement
  */
 public class JinjaIfNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
+    // One condition and body per `if` / `elif` clause, in source order
+    private final List<ExpressionNode> conditions;
+    private final List<List<ASTNode>> branches;
+    private List<ASTNode> elseBody;
 
     public JinjaIfNode(int lineNumber) {
         super(lineNumber, "if");
+        this.conditions = new ArrayList<>();
+        this.branches = new ArrayList<>();
+        this.elseBody = new ArrayList<>();
+    }
+
+    public void addBranch(ExpressionNode condition, List<ASTNode> body) {
+        conditions.add(condition);
+        branches.add(body);
+        addChild(condition);
+        for (ASTNode child : body) {
+            addChild(child);
+        }
+    }
+
+    public void setElseBody(List<ASTNode> body) {
+        this.elseBody = body;
+        for (ASTNode child : body) {
+            addChild(child);
+        }
+    }
+
+    public List<ExpressionNode> getConditions() {
+        return conditions;
+    }
+
+    public List<List<ASTNode>> getBranches() {
+        return branches;
+    }
+
+    public List<ASTNode> getElseBody() {
+        return elseBody;
     }
 
     @Override
@@ -0,0 +1,47 @@
+package compiler.ast.jinjaHtml;
+
+import compiler.ast.core.ASTNode;
+
+/**
+ * AST node representing Jinja2 imports:
+ * {% import "macros.html" as alias %} and {% from "macros.html" import name %}
+ */
+public class JinjaImportNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
+    private final String templateName;
+    private final String boundName;
+    // true for {% from ... import name %}, false for {% import ... as alias %}
+    private final boolean fromImport;
+
+    public JinjaImportNode(String templateName, String boundName, boolean fromImport, int lineNumber) {
+        super(lineNumber, boundName);
+        this.templateName = templateName;
+        this.boundName = boundName;
+        this.fromImport = fromImport;
+    }
+
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    public String getBoundName() {
+        return boundName;
+    }
+
+    public boolean isFromImport() {
+        return fromImport;
+    }
+
+    @Override
+    public String getNodeType() {
+        return "JinjaImport";
+    }
+
+    @Override
+    public String getNodeDetails() {
+        return fromImport
+            ? String.format("JinjaImport: {%% from \"%s\" import %s %%} (line %d)", templateName, boundName, lineNumber)
+            : String.format("JinjaImport: {%% import \"%s\" as %s %%} (line %d)", templateName, boundName, lineNumber);
+    }
+}
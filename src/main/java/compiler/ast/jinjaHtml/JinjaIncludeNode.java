@@ -0,0 +1,53 @@
+package compiler.ast.jinjaHtml;
+
+import compiler.ast.core.ASTNode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * AST node representing Jinja2 inclusion {% include "header.html" %}.
+ * Empty as parsed; TemplateLinker fills in the included template's content.
+ */
+public class JinjaIncludeNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
+    private final String templateName;
+    private List<ASTNode> content = new ArrayList<>();
+
+    public JinjaIncludeNode(String templateName, int lineNumber) {
+        super(lineNumber, templateName);
+        this.templateName = templateName;
+    }
+
+    public String getTemplateName() {
+        return templateName;
+    }
+
+    public List<ASTNode> getContent() {
+        return content;
+    }
+
+    public boolean isLinked() {
+        return !content.isEmpty();
+    }
+
+    public void setContent(List<ASTNode> content) {
+        children.clear();
+        this.content = content;
+        for (ASTNode node : content) {
+            addChild(node);
+        }
+    }
+
+    @Override
+    public String getNodeType() {
+        return "JinjaInclude";
+    }
+
+    @Override
+    public String getNodeDetails() {
+        return String.format("JinjaInclude: {%% include \"%s\" %%} (%d items) (line %d)",
+            templateName, content.size(), lineNumber);
+    }
+}
@@ -4,6 +4,7 @@ package compiler.ast.jinjaHtml;
 import compiler.ast.core.ASTNode;
 
 public class JinjaMacroNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
 
     public JinjaMacroNode(String macroName, int lineNumber) {
         super(lineNumber, macroName);
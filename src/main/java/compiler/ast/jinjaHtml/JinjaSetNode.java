@@ -1,17 +1,35 @@
-//package compiler.ast;
-//
-//
-//import compiler.ast.core.ASTNode;
-//
-//public class JinjaSetNode extends ASTNode {
-//
-//    public JinjaSetNode(String variableName, int lineNumber) {
-//        super(lineNumber, variableName);
-//    }
-//
-//    @Override
-//    public String getNodeType() {
-//        return "JinjaSet";
-//    }
-//
-//}
+package compiler.ast.jinjaHtml;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.ExpressionNode;
+
+/**
+ * AST node representing Jinja2 assignment {% set name = expression %}
+ */
+public class JinjaSetNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
+    private final String variableName;
+    private final ExpressionNode value;
+
+    public JinjaSetNode(String variableName, ExpressionNode value, int lineNumber) {
+        super(lineNumber, variableName);
+        this.variableName = variableName;
+        this.value = value;
+        addChild(value);
+    }
+
+    public String getVariableName() {
+        return variableName;
+    }
+
+    public ExpressionNode getValue() {
+        return value;
+    }
+
+    @Override
+    public String getNodeType() {
+        return "JinjaSet";
+    }
+
+}
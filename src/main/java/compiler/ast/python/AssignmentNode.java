@@ -6,6 +6,8 @@ import java.util.List;
 import java.util.ArrayList;
 
 public class AssignmentNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private List<ExpressionNode> targets;
     private ExpressionNode value;
 
@@ -4,6 +4,8 @@ package compiler.ast.python;
 import compiler.ast.core.ExpressionNode;
 
 public class BinaryOpNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private final String operator;
     private final ExpressionNode left;
     private final ExpressionNode right;
@@ -4,6 +4,8 @@ package compiler.ast.python;
 import compiler.ast.core.ExpressionNode;
 
 public class BooleanLiteralNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private boolean value;
     public BooleanLiteralNode(boolean value, int lineNumber) { super(lineNumber); this.value = value; }
     public boolean getValue() { return value; }
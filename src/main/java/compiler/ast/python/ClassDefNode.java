@@ -9,6 +9,8 @@ import java.util.ArrayList;
 
 
 public class ClassDefNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private String className;
     private List<ExpressionNode> baseClasses;
     private List<ASTNode> body;
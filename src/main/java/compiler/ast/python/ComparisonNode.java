@@ -4,6 +4,8 @@ package compiler.ast.python;
 import compiler.ast.core.ExpressionNode;
 
 public class ComparisonNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private String operator;
     private ExpressionNode left;
     private ExpressionNode right;
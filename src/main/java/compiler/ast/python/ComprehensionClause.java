@@ -7,6 +7,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 public class ComprehensionClause extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
     private final String target;
     private final ExpressionNode iterable;
     private final List<ExpressionNode> conditions;
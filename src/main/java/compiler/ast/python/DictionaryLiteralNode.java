@@ -6,6 +6,8 @@ import java.util.Map;
 import java.util.LinkedHashMap;
 
 public class DictionaryLiteralNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private Map<ExpressionNode, ExpressionNode> entries;
 
     public DictionaryLiteralNode(Map<ExpressionNode, ExpressionNode> entries, int lineNumber) {
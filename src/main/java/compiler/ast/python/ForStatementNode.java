@@ -8,6 +8,8 @@ import java.util.ArrayList;
 
 
 public class ForStatementNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode target;
     private ExpressionNode iterable;
     private List<ASTNode> body;
@@ -8,6 +8,8 @@ import java.util.ArrayList;
 
 
 public class FunctionCallNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode function;
     private List<ExpressionNode> arguments;
 
@@ -9,6 +9,8 @@ import java.util.List;
 import java.util.ArrayList;
 
 public class FunctionDefNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private String functionName;
     private List<ParameterNode> parameters;
     private List<ASTNode> body;
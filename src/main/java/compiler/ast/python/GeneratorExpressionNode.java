@@ -4,6 +4,8 @@ import compiler.ast.core.ExpressionNode;
 import compiler.ast.python.ComprehensionClause;
 
 public class GeneratorExpressionNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private final ExpressionNode element;
     private final ComprehensionClause clause;
 
@@ -5,6 +5,8 @@ import java.util.List;
 
 
 public class GlobalStatementNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private final List<String> names;
 
     public GlobalStatementNode(List<String> names, int lineNumber) {
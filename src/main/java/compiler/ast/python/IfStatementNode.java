@@ -8,6 +8,8 @@ import java.util.ArrayList;
 
 
 public class IfStatementNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode condition;
     private List<ASTNode> thenBlock;
     private List<ASTNode> elseBlock;
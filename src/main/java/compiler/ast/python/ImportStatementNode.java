@@ -8,6 +8,8 @@ import java.util.ArrayList;
  * import module [as alias] or from module import name [as alias]
  */
 public class ImportStatementNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private String moduleName;
     private List<String> importedNames;
     private List<String> aliases;
@@ -6,6 +6,8 @@ import compiler.ast.core.ExpressionNode;
  * Expression node representing index access (list[index])
  */
 public class IndexAccessNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode object;
     private ExpressionNode index;
 
@@ -3,6 +3,8 @@ package compiler.ast.python;
 import compiler.ast.core.ExpressionNode;
 
 public class KeywordArgNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private final String key;
     private final ExpressionNode value;
 
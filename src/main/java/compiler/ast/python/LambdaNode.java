@@ -8,6 +8,8 @@ import java.util.ArrayList;
 
 
 public class LambdaNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private List<ParameterNode> parameters;
     private ExpressionNode body;
 
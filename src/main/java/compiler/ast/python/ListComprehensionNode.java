@@ -5,6 +5,8 @@ import compiler.ast.core.ExpressionNode;
 import compiler.ast.python.ComprehensionClause;
 
 public class ListComprehensionNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private final ExpressionNode element;
     private final ComprehensionClause clause;
 
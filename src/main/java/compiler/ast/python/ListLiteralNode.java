@@ -6,6 +6,8 @@ import java.util.List;
 
 
 public class ListLiteralNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private final List<ExpressionNode> elements;
 
     public ListLiteralNode(List<ExpressionNode> elements, int lineNumber) {
@@ -17,6 +19,17 @@ public class ListLiteralNode extends ExpressionNode {
         return elements;
     }
 
+    // Elements are not children, so shift them explicitly
+    @Override
+    public void shiftLineNumbers(int delta) {
+        super.shiftLineNumbers(delta);
+        for (ExpressionNode element : elements) {
+            if (element != null) {
+                element.shiftLineNumbers(delta);
+            }
+        }
+    }
+
     @Override
     public String getNodeType() {
         return "ListLiteral";
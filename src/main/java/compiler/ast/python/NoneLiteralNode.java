@@ -4,6 +4,7 @@ package compiler.ast.python;
 import compiler.ast.core.ExpressionNode;
 
 public class NoneLiteralNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
 
     public NoneLiteralNode(int lineNumber) {
         super(lineNumber);
@@ -1,6 +1,8 @@
 package compiler.ast.python;
 
 public class PassNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     public PassNode(int lineNumber) {
         super(lineNumber, "Pass");
     }
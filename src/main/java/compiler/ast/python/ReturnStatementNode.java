@@ -4,6 +4,8 @@ package compiler.ast.python;
 import compiler.ast.core.ExpressionNode;
 
 public class ReturnStatementNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode value;
 
     public ReturnStatementNode(ExpressionNode value, int lineNumber) {
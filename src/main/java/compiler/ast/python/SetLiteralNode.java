@@ -7,6 +7,8 @@ import java.util.ArrayList;
 
 
 public class SetLiteralNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private List<ExpressionNode> elements;
 
     public SetLiteralNode(List<ExpressionNode> elements, int lineNumber) {
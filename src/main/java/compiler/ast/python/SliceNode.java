@@ -4,6 +4,8 @@ package compiler.ast.python;
 import compiler.ast.core.ExpressionNode;
 
 public class SliceNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private final ExpressionNode object;
     private final ExpressionNode start;
     private final ExpressionNode stop;
@@ -3,6 +3,8 @@ package compiler.ast.python;
 import compiler.ast.core.ASTNode;
 
 public abstract class StatementNode extends ASTNode {
+    private static final long serialVersionUID = 1L;
+
     public StatementNode(int lineNumber, String className) {
         super(lineNumber);
     }
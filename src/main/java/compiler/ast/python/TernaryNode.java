@@ -4,6 +4,8 @@ package compiler.ast.python;
 import compiler.ast.core.ExpressionNode;
 
 public class TernaryNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private final ExpressionNode condition;
     private final ExpressionNode thenValue;
     private final ExpressionNode elseValue;
@@ -7,6 +7,8 @@ import java.util.List;
 import java.util.ArrayList;
 
 public class TryStatementNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private List<ASTNode> tryBlock;
     private List<ExceptClauseNode> exceptClauses;
     private List<ASTNode> elseBlock;
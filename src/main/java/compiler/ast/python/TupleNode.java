@@ -7,6 +7,8 @@ import java.util.List;
 
 
 public class TupleNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private final List<ExpressionNode> elements;
 
     public TupleNode(List<ExpressionNode> elements, int lineNumber) {
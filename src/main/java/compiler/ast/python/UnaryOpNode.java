@@ -3,6 +3,8 @@ package compiler.ast.python;
 import compiler.ast.core.ExpressionNode;
 
 public class UnaryOpNode extends ExpressionNode {
+    private static final long serialVersionUID = 1L;
+
     private final String operator;
     private final ExpressionNode operand;
 
@@ -11,6 +11,8 @@ import java.util.ArrayList;
  * while condition: ...
  */
 public class WhileStatementNode extends StatementNode {
+    private static final long serialVersionUID = 1L;
+
     private ExpressionNode condition;
     private List<ASTNode> body;
     private List<ASTNode> elseBlock;  // Python's while-else construct
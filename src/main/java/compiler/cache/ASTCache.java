@@ -0,0 +1,232 @@
+package compiler.cache;
+
+import compiler.ast.core.ASTNode;
+import compiler.parsing.SourceLanguage;
+import grammar.CSSLexer;
+import grammar.CSSParser;
+import grammar.Jinja2Lexer;
+import grammar.Jinja2Parser;
+import grammar.PythonLexer;
+import grammar.PythonParser;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of built ASTs.
+ *
+ * Key = SHA-256(language, grammar version, cache format version, code version, source text).
+ * The grammar version is derived from the serialized ATNs of the generated lexer and
+ * parser, so regenerating a grammar invalidates every entry of that language. The
+ * code version is a hash of the compiled node classes and AST builders (the class
+ * files under compiler/ast and compiler/visitors), so rebuilding either after a
+ * change invalidates every entry without anyone bumping a number.
+ * Entries live in <cacheDir>/<first two hex digits>/<key>.ast and are written
+ * atomically, so several worker threads or processes may share one directory.
+ */
+public class ASTCache {
+
+    // Bump when ASTSerializer's stream layout changes; node class and builder changes
+    // are covered by CODE_VERSION
+    public static final int FORMAT_VERSION = 8;
+
+    private static final String[] CODE_PACKAGES = { "compiler/ast/", "compiler/visitors/" };
+    private static final String CODE_VERSION = codeVersion();
+
+    private static final Map<SourceLanguage, String> GRAMMAR_VERSIONS = new EnumMap<>(SourceLanguage.class);
+
+    static {
+        GRAMMAR_VERSIONS.put(SourceLanguage.PYTHON,
+            sha256(PythonLexer._serializedATN + PythonParser._serializedATN));
+        GRAMMAR_VERSIONS.put(SourceLanguage.JINJA2,
+            sha256(Jinja2Lexer._serializedATN + Jinja2Parser._serializedATN));
+        GRAMMAR_VERSIONS.put(SourceLanguage.CSS,
+            sha256(CSSLexer._serializedATN + CSSParser._serializedATN));
+    }
+
+    private final Path cacheDir;
+    private final AtomicInteger hits = new AtomicInteger();
+    private final AtomicInteger misses = new AtomicInteger();
+
+    public ASTCache(Path cacheDir) throws IOException {
+        this.cacheDir = cacheDir;
+        Files.createDirectories(cacheDir);
+    }
+
+    public Path getCacheDir() {
+        return cacheDir;
+    }
+
+    public static String grammarVersion(SourceLanguage language) {
+        return GRAMMAR_VERSIONS.get(language);
+    }
+
+    public static String getCodeVersion() {
+        return CODE_VERSION;
+    }
+
+    public static String key(SourceLanguage language, String source) {
+        return key(language, ByteBuffer.wrap(source.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    // Same key as key(language, String) for the UTF-8 encoding of that source
+    public static String key(SourceLanguage language, ByteBuffer utf8Source) {
+        return sha256(language.name() + '\0' + grammarVersion(language) + '\0' + FORMAT_VERSION + '\0'
+            + CODE_VERSION + '\0', utf8Source.duplicate());
+    }
+
+    // Returns the cached AST, or null on a miss (unreadable entries count as misses)
+    public ASTNode get(SourceLanguage language, String source) {
+        return read(key(language, source));
+    }
+
+    // For sources that are not on the heap, e.g. MappedCharStream.getBytes()
+    public ASTNode get(SourceLanguage language, ByteBuffer utf8Source) {
+        return read(key(language, utf8Source));
+    }
+
+    public void put(SourceLanguage language, String source, ASTNode ast) throws IOException {
+        write(key(language, source), ast);
+    }
+
+    public void put(SourceLanguage language, ByteBuffer utf8Source, ASTNode ast) throws IOException {
+        write(key(language, utf8Source), ast);
+    }
+
+    private ASTNode read(String key) {
+        Path entry = entryPath(key);
+        if (!Files.isRegularFile(entry)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        try (InputStream in = Files.newInputStream(entry)) {
+            ASTNode ast = ASTSerializer.read(in);
+            hits.incrementAndGet();
+            return ast;
+        } catch (IOException | RuntimeException e) {
+            // Truncated, corrupt or written by node classes that have changed since
+            // (InvalidClassException): a miss, and the caller's put() replaces it
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    private void write(String key, ASTNode ast) throws IOException {
+        Path entry = entryPath(key);
+        Files.createDirectories(entry.getParent());
+
+        Path temp = Files.createTempFile(entry.getParent(), "ast", ".tmp");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                ASTSerializer.write(ast, out);
+            }
+            Files.move(temp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private Path entryPath(String key) {
+        return cacheDir.resolve(key.substring(0, 2)).resolve(key + ".ast");
+    }
+
+    // SHA-256 over the class files of CODE_PACKAGES in name order, read from the directory
+    // or jar ASTCache was loaded from; "unknown" if that location cannot be read
+    private static String codeVersion() {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            Path location = Paths.get(ASTCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+            Map<String, byte[]> classes = new TreeMap<>();
+            if (Files.isDirectory(location)) {
+                for (String codePackage : CODE_PACKAGES) {
+                    Path dir = location.resolve(codePackage);
+                    if (!Files.isDirectory(dir)) continue;
+                    try (Stream<Path> files = Files.walk(dir)) {
+                        for (Path file : (Iterable<Path>) files.filter(f -> f.toString().endsWith(".class"))::iterator) {
+                            classes.put(location.relativize(file).toString().replace('\\', '/'), Files.readAllBytes(file));
+                        }
+                    }
+                }
+            } else {
+                try (JarFile jar = new JarFile(location.toFile())) {
+                    for (JarEntry entry : Collections.list(jar.entries())) {
+                        String name = entry.getName();
+                        if (name.endsWith(".class") && Arrays.stream(CODE_PACKAGES).anyMatch(name::startsWith)) {
+                            try (InputStream in = jar.getInputStream(entry)) {
+                                classes.put(name, in.readAllBytes());
+                            }
+                        }
+                    }
+                }
+            }
+            if (classes.isEmpty()) {
+                return "unknown";
+            }
+            for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                digest.update(entry.getKey().getBytes(StandardCharsets.UTF_8));
+                digest.update(entry.getValue());
+            }
+            return hex(digest.digest());
+        } catch (IOException | URISyntaxException | RuntimeException | NoSuchAlgorithmException e) {
+            return "unknown"; // FORMAT_VERSION and the serializer's field checks still apply
+        }
+    }
+
+    private static String sha256(String... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : parts) {
+                digest.update(part.getBytes(StandardCharsets.UTF_8));
+            }
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String sha256(String prefix, ByteBuffer data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(prefix.getBytes(StandardCharsets.UTF_8));
+            digest.update(data);
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String hex(byte[] hash) {
+        StringBuilder hex = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
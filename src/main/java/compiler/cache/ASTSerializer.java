@@ -0,0 +1,130 @@
+package compiler.cache;
+
+import compiler.ast.core.ASTNode;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.ObjectStreamField;
+import java.io.OutputStream;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary form of an AST (Python, Flask, Jinja2/HTML and CSS nodes).
+ *
+ * Every node class is Serializable through ASTNode; the object stream writes each
+ * class descriptor once and back-references shared nodes, parent links are rebuilt
+ * on read, and the result is deflate-compressed. Reading is restricted to AST classes and the
+ * JDK collections the node fields hold (see JDK_CLASSES).
+ *
+ * Node classes declare a fixed serialVersionUID, so the stream also records the
+ * serializable fields of every class it writes; reading data written by a class
+ * whose fields have since changed fails with InvalidClassException instead of
+ * leaving the new fields at their defaults.
+ */
+public class ASTSerializer {
+
+    // Node fields are String, List, Map and Set; these are the classes behind them (ArrayList,
+    // HashMap, ... and the serial form of List.of / Map.of) plus what their streams contain
+    private static final Set<String> JDK_CLASSES = Set.of(
+        "java.lang.Object", "java.lang.String", "java.lang.Enum",
+        "java.util.ArrayList", "java.util.HashMap", "java.util.LinkedHashMap", "java.util.HashSet",
+        "java.util.Map$Entry", "java.util.CollSer",
+        "java.util.ImmutableCollections$List12", "java.util.ImmutableCollections$ListN",
+        "java.util.ImmutableCollections$Map1", "java.util.ImmutableCollections$MapN",
+        "java.util.ImmutableCollections$Set12", "java.util.ImmutableCollections$SetN"
+    );
+
+    private static final ObjectInputFilter AST_ONLY = info -> {
+        Class<?> type = info.serialClass();
+        if (type == null) {
+            return ObjectInputFilter.Status.UNDECIDED;
+        }
+        while (type.isArray()) {
+            type = type.getComponentType();
+        }
+        String name = type.getName();
+        if (type.isPrimitive() || name.startsWith("compiler.ast.") || JDK_CLASSES.contains(name)) {
+            return ObjectInputFilter.Status.ALLOWED;
+        }
+        return ObjectInputFilter.Status.REJECTED;
+    };
+
+    public static byte[] serialize(ASTNode root) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        write(root, bytes);
+        return bytes.toByteArray();
+    }
+
+    public static ASTNode deserialize(byte[] data) throws IOException {
+        return read(new ByteArrayInputStream(data));
+    }
+
+    public static void write(ASTNode root, OutputStream out) throws IOException {
+        DeflaterOutputStream deflater = new DeflaterOutputStream(out, new Deflater(Deflater.BEST_SPEED));
+        ObjectOutputStream objects = new ObjectOutputStream(deflater) {
+            @Override
+            protected void annotateClass(Class<?> type) throws IOException {
+                writeUTF(shape(type));
+            }
+        };
+        objects.writeObject(root);
+        objects.flush();
+        deflater.finish();
+    }
+
+    public static ASTNode read(InputStream in) throws IOException {
+        ObjectInputStream objects = new ObjectInputStream(new InflaterInputStream(in)) {
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass descriptor) throws IOException, ClassNotFoundException {
+                Class<?> type = super.resolveClass(descriptor);
+                if (!readUTF().equals(shape(type))) {
+                    throw new InvalidClassException(type.getName(), "fields changed since the data was written");
+                }
+                return type;
+            }
+        };
+        objects.setObjectInputFilter(AST_ONLY);
+        try {
+            Object value = objects.readObject();
+            if (!(value instanceof ASTNode)) {
+                throw new IOException("Not an AST: " + (value != null ? value.getClass().getName() : "null"));
+            }
+            return (ASTNode) value;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown AST node class: " + e.getMessage(), e);
+        }
+    }
+
+    // The serializable fields of a class as name:type pairs, e.g. "filterName:Ljava/lang/String;"
+    private static String shape(Class<?> type) {
+        ObjectStreamClass descriptor = ObjectStreamClass.lookup(type);
+        if (descriptor == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (ObjectStreamField field : descriptor.getFields()) {
+            sb.append(field.getName()).append(':')
+                .append(field.isPrimitive() ? String.valueOf(field.getTypeCode()) : field.getTypeString()).append(' ');
+        }
+        return sb.toString();
+    }
+
+    // Deep copy of a subtree; the copy has no parent
+    public static ASTNode copy(ASTNode node) {
+        try {
+            return deserialize(serialize(node));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not copy AST node " + node.getNodeType(), e);
+        }
+    }
+}
@@ -0,0 +1,638 @@
+package compiler.css;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.css.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Optimizing CSS emitter: writes a CSSStylesheetNode as minified UTF-8 bytes.
+ *
+ * Besides dropping whitespace, comments and last semicolons it shortens hex
+ * colors (#aabbcc -> #abc), trims numbers (0.50 -> .5) and drops units from
+ * zero lengths, merges rule sets whose selector lists are identical, and
+ * removes declarations a later one in the same rule overrides.
+ *
+ * Every rewrite is one the cascade cannot observe. A rule set is only merged
+ * into an earlier one when no rule in between sets a property from the same
+ * family (margin, margin-top, ... share "margin"), or a shorthand reaching into
+ * that family from another (font sets line-height, inset sets top), and no
+ * at-rule sits in between. An overridden declaration is kept when the winner looks like a
+ * progressive enhancement (a function, var() or a vendor prefix), because
+ * older browsers then still fall back to it. Zero units stay inside functions
+ * (calc needs them), in custom properties and in the flex shorthand.
+ *
+ * The stylesheet should come from an error-free parse: ANTLR's error recovery
+ * drops tokens, and the emitter can only write what the AST holds.
+ */
+public class CSSMinifier {
+
+    public static class Result {
+        public final long bytesWritten;
+        public final int ruleSetsWritten;
+        public final int mergedRuleSets;
+        public final int removedDeclarations;
+        public final int shortenedColors;
+        public final int droppedUnits;
+
+        Result(long bytesWritten, int ruleSetsWritten, int mergedRuleSets,
+               int removedDeclarations, int shortenedColors, int droppedUnits) {
+            this.bytesWritten = bytesWritten;
+            this.ruleSetsWritten = ruleSetsWritten;
+            this.mergedRuleSets = mergedRuleSets;
+            this.removedDeclarations = removedDeclarations;
+            this.shortenedColors = shortenedColors;
+            this.droppedUnits = droppedUnits;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d bytes, %d rule sets (%d merged), %d declarations removed, "
+                    + "%d colors shortened, %d units dropped",
+                    bytesWritten, ruleSetsWritten, mergedRuleSets, removedDeclarations,
+                    shortenedColors, droppedUnits);
+        }
+    }
+
+    private static final Set<String> LENGTH_UNITS = Set.of(
+        "px", "em", "rem", "ex", "ch", "vw", "vh", "vmin", "vmax",
+        "cm", "mm", "q", "in", "pt", "pc"
+    );
+
+    private static final String[] VENDOR_PREFIXES = { "-webkit-", "-moz-", "-ms-", "-o-" };
+
+    // Shorthands (and legacy aliases) that set longhands outside their own family
+    private static final Map<String, List<String>> CROSS_FAMILY_LONGHANDS = new HashMap<>();
+
+    static {
+        List<String> physicalInsets = List.of("top", "right", "bottom", "left");
+        CROSS_FAMILY_LONGHANDS.put("font", List.of("line-height"));
+        CROSS_FAMILY_LONGHANDS.put("gap", List.of("row-gap", "column-gap"));
+        CROSS_FAMILY_LONGHANDS.put("grid-gap", List.of("row-gap", "column-gap"));
+        CROSS_FAMILY_LONGHANDS.put("grid-row-gap", List.of("row-gap"));
+        CROSS_FAMILY_LONGHANDS.put("grid-column-gap", List.of("column-gap"));
+        CROSS_FAMILY_LONGHANDS.put("columns", List.of("column-width", "column-count"));
+        // Logical insets map to physical ones depending on writing-mode
+        for (String inset : List.of("inset", "inset-block", "inset-inline", "inset-block-start",
+                "inset-block-end", "inset-inline-start", "inset-inline-end")) {
+            CROSS_FAMILY_LONGHANDS.put(inset, physicalInsets);
+        }
+        CROSS_FAMILY_LONGHANDS.put("place-content", List.of("align-content", "justify-content"));
+        CROSS_FAMILY_LONGHANDS.put("place-items", List.of("align-items", "justify-items"));
+        CROSS_FAMILY_LONGHANDS.put("place-self", List.of("align-self", "justify-self"));
+        CROSS_FAMILY_LONGHANDS.put("white-space", List.of("text-wrap"));
+        CROSS_FAMILY_LONGHANDS.put("vertical-align", List.of("alignment-baseline", "baseline-shift"));
+        CROSS_FAMILY_LONGHANDS.put("word-wrap", List.of("overflow-wrap"));
+        CROSS_FAMILY_LONGHANDS.put("page-break-before", List.of("break-before"));
+        CROSS_FAMILY_LONGHANDS.put("page-break-after", List.of("break-after"));
+        CROSS_FAMILY_LONGHANDS.put("page-break-inside", List.of("break-inside"));
+    }
+
+    private int ruleSetsWritten;
+    private int mergedRuleSets;
+    private int removedDeclarations;
+    private int shortenedColors;
+    private int droppedUnits;
+
+    public byte[] minify(CSSStylesheetNode stylesheet) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            minify(stylesheet, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    public Result minify(CSSStylesheetNode stylesheet, OutputStream out) throws IOException {
+        ruleSetsWritten = mergedRuleSets = removedDeclarations = shortenedColors = droppedUnits = 0;
+
+        List<Item> items = new ArrayList<>();
+        for (ASTNode child : stylesheet.getChildren()) {
+            if (child instanceof CSSRuleSetNode ruleSet) {
+                items.add(rule(ruleSet));
+            } else if (child instanceof CSSAtRuleNode atRule) {
+                items.add(atRule(atRule));
+            }
+        }
+        optimize(items, true);
+
+        CSSByteWriter writer = new CSSByteWriter(out);
+        writeItems(items, writer);
+        writer.flush();
+        return new Result(writer.getBytesWritten(), ruleSetsWritten, mergedRuleSets,
+                removedDeclarations, shortenedColors, droppedUnits);
+    }
+
+    // ==================== MODEL ====================
+
+    // Rendered, already-minified text; the optimizations work on these
+    private interface Item {
+    }
+
+    private static final class Rule implements Item {
+        final String selector;
+        List<Declaration> declarations;
+
+        Rule(String selector, List<Declaration> declarations) {
+            this.selector = selector;
+            this.declarations = declarations;
+        }
+    }
+
+    private static final class AtRule implements Item {
+        final String keyword;
+        final String prelude;
+        final List<Item> block;  // null for "@import ...;"
+        final boolean keyframes;
+
+        AtRule(String keyword, String prelude, List<Item> block, boolean keyframes) {
+            this.keyword = keyword;
+            this.prelude = prelude;
+            this.block = block;
+            this.keyframes = keyframes;
+        }
+    }
+
+    private static final class Declaration {
+        final String property;
+        final String key;
+        final String value;
+        final boolean important;
+        final boolean enhancement;
+
+        Declaration(String property, String value, boolean important, boolean enhancement) {
+            this.property = property;
+            this.key = property.startsWith("--") ? property : property.toLowerCase(Locale.ROOT);
+            this.value = value;
+            this.important = important;
+            this.enhancement = enhancement;
+        }
+    }
+
+    private Rule rule(CSSRuleSetNode ruleSet) {
+        return new Rule(selectorList(ruleSet.getSelectorList()), declarations(ruleSet.getDeclarations()));
+    }
+
+    private AtRule atRule(CSSAtRuleNode atRule) {
+        String prelude = atRule.getPrelude() != null ? prelude(atRule.getPrelude().getSourceText()) : "";
+        if (!atRule.hasBlock()) {
+            return new AtRule(atRule.getKeyword(), prelude, null, false);
+        }
+
+        List<Item> block = new ArrayList<>();
+        boolean keyframes = !atRule.getKeyframeRules().isEmpty();
+        for (ASTNode child : atRule.getChildren()) {
+            if (child instanceof CSSRuleSetNode ruleSet) {
+                block.add(rule(ruleSet));
+            } else if (child instanceof CSSKeyframeRuleNode keyframe) {
+                List<String> selectors = new ArrayList<>();
+                for (String selector : keyframe.getKeyframeSelectors()) {
+                    selectors.add(keyframeSelector(selector));
+                }
+                block.add(new Rule(String.join(",", selectors), declarations(keyframe.getDeclarations())));
+            }
+        }
+        return new AtRule(atRule.getKeyword(), prelude, block, keyframes);
+    }
+
+    private List<Declaration> declarations(List<CSSDeclarationNode> nodes) {
+        List<Declaration> declarations = new ArrayList<>(nodes.size());
+        for (CSSDeclarationNode node : nodes) {
+            if (node.getValue() == null) continue;
+            String property = node.getProperty();
+            String key = property.toLowerCase(Locale.ROOT);
+            boolean dropZeroUnits = !property.startsWith("--") && !key.equals("flex") && !key.endsWith("-flex");
+            declarations.add(new Declaration(property, value(node.getValue(), dropZeroUnits),
+                    node.isImportant(), isEnhancement(node.getValue())));
+        }
+        return declarations;
+    }
+
+    // ==================== OPTIMIZATIONS ====================
+
+    private void optimize(List<Item> items, boolean mergeRules) {
+        for (Item item : items) {
+            if (item instanceof Rule rule) {
+                rule.declarations = removeOverridden(rule.declarations);
+            } else if (item instanceof AtRule atRule && atRule.block != null) {
+                optimize(atRule.block, !atRule.keyframes);
+            }
+        }
+        if (mergeRules) {
+            mergeDuplicateRules(items);
+        }
+        items.removeIf(item -> item instanceof Rule rule && rule.declarations.isEmpty());
+    }
+
+    // Within one rule the winner per property is the last !important one, else the last one
+    private List<Declaration> removeOverridden(List<Declaration> declarations) {
+        Map<String, Integer> winners = new HashMap<>();
+        for (int i = 0; i < declarations.size(); i++) {
+            Declaration declaration = declarations.get(i);
+            Integer winner = winners.get(declaration.key);
+            if (winner == null || declaration.important || !declarations.get(winner).important) {
+                winners.put(declaration.key, i);
+            }
+        }
+        if (winners.size() == declarations.size()) {
+            return declarations;
+        }
+
+        List<Declaration> kept = new ArrayList<>(winners.size());
+        for (int i = 0; i < declarations.size(); i++) {
+            Declaration declaration = declarations.get(i);
+            int winner = winners.get(declaration.key);
+            Declaration winning = declarations.get(winner);
+            boolean fallback = i < winner && winning.enhancement && !winning.value.equals(declaration.value)
+                    && declaration.important == winning.important;
+            if (i == winner || fallback) {
+                kept.add(declaration);
+            } else {
+                removedDeclarations++;
+            }
+        }
+        return kept;
+    }
+
+    private void mergeDuplicateRules(List<Item> items) {
+        Map<String, Integer> lastBySelector = new HashMap<>();
+        List<Item> merged = new ArrayList<>(items.size());
+        for (Item item : items) {
+            if (item instanceof Rule rule) {
+                Integer earlier = lastBySelector.get(rule.selector);
+                if (earlier != null && canMoveBefore(rule, merged, earlier)) {
+                    Rule target = (Rule) merged.get(earlier);
+                    List<Declaration> combined = new ArrayList<>(target.declarations);
+                    combined.addAll(rule.declarations);
+                    target.declarations = removeOverridden(combined);
+                    mergedRuleSets++;
+                    continue;
+                }
+                lastBySelector.put(rule.selector, merged.size());
+            }
+            merged.add(item);
+        }
+        items.clear();
+        items.addAll(merged);
+    }
+
+    // Whether rule's declarations can move up to position target without another rule reordering against them
+    private static boolean canMoveBefore(Rule rule, List<Item> items, int target) {
+        Set<String> families = new HashSet<>();
+        for (Declaration declaration : rule.declarations) {
+            families.addAll(families(declaration.key));
+        }
+        for (int i = target + 1; i < items.size(); i++) {
+            if (!(items.get(i) instanceof Rule between)) {
+                return false;
+            }
+            for (Declaration declaration : between.declarations) {
+                for (String family : families(declaration.key)) {
+                    if (families.contains(family) || family.equals("all") || families.contains("all")) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    // The families a property can set: its own, plus those of a shorthand's longhands elsewhere
+    private static Set<String> families(String property) {
+        String unprefixed = unprefixed(property);
+        Set<String> families = new HashSet<>();
+        families.add(family(unprefixed));
+        for (String longhand : CROSS_FAMILY_LONGHANDS.getOrDefault(unprefixed, List.of())) {
+            families.add(family(longhand));
+        }
+        return families;
+    }
+
+    private static String unprefixed(String property) {
+        for (String prefix : VENDOR_PREFIXES) {
+            if (property.startsWith(prefix)) {
+                return property.substring(prefix.length());
+            }
+        }
+        return property;
+    }
+
+    // "border-top-color" -> "border"; custom properties are their own family
+    private static String family(String property) {
+        if (property.startsWith("--")) {
+            return property;
+        }
+        int dash = property.indexOf('-');
+        return dash > 0 ? property.substring(0, dash) : property;
+    }
+
+    // ==================== RENDERING ====================
+
+    private String selectorList(CSSSelectorListNode selectorList) {
+        if (selectorList == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (CSSSelectorNode selector : selectorList.getSelectors()) {
+            if (sb.length() > 0) sb.append(',');
+            List<CSSSimpleSelectorNode> compounds = selector.getSimpleSelectors();
+            List<CSSCombinatorNode> combinators = selector.getCombinators();
+            for (int i = 0; i < compounds.size(); i++) {
+                for (CSSSelectorPartNode part : compounds.get(i).getSelectorParts()) {
+                    sb.append(selectorPart(part));
+                }
+                if (i < combinators.size()) {
+                    CSSCombinatorNode.CombinatorType type = combinators.get(i).getCombinatorType();
+                    sb.append(type == CSSCombinatorNode.CombinatorType.DESCENDANT ? " " : type.getSymbol());
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    private String selectorPart(CSSSelectorPartNode part) {
+        if (!(part instanceof CSSAttributeSelectorNode attribute)) {
+            return part.getSelectorPartText();
+        }
+        if (!attribute.hasValue() || attribute.getOperator() == null || attribute.getValue().getComponents().isEmpty()) {
+            return "[" + attribute.getAttributeName() + "]";
+        }
+        CSSValueComponentNode component = attribute.getValue().getComponents().get(0);
+        String value = component instanceof CSSStringValueNode string
+                ? (isIdentifier(string.getStringValue()) ? string.getStringValue() : quote(string.getStringValue()))
+                : component.getComponentText();
+        return "[" + attribute.getAttributeName() + attribute.getOperator() + value + "]";
+    }
+
+    private static String keyframeSelector(String selector) {
+        String lower = selector.toLowerCase(Locale.ROOT);
+        if (lower.equals("from")) return "0%";
+        if (lower.equals("100%")) return "to";
+        return lower.endsWith("%") ? trimNumber(lower.substring(0, lower.length() - 1)) + "%" : lower;
+    }
+
+    private String value(CSSValueNode value, boolean dropZeroUnits) {
+        StringBuilder sb = new StringBuilder();
+        CSSValueComponentNode previous = null;
+        for (CSSValueComponentNode component : value.getComponents()) {
+            if (previous != null && component.hasSpaceBefore() && !tightAfter(previous) && !tightBefore(component)) {
+                sb.append(' ');
+            }
+            sb.append(component(component, dropZeroUnits));
+            previous = component;
+        }
+        return sb.toString();
+    }
+
+    // No space is needed after ",", "/" or "("
+    private static boolean tightAfter(CSSValueComponentNode component) {
+        if (component instanceof CSSOperatorNode operator) {
+            return operator.getOperatorType() == CSSOperatorNode.OperatorType.COMMA
+                    || operator.getOperatorType() == CSSOperatorNode.OperatorType.DIVIDE;
+        }
+        return component instanceof CSSParenNode paren && paren.getType() == CSSParenNode.ParenType.LEFT;
+    }
+
+    // ... nor before ",", "/" or ")"
+    private static boolean tightBefore(CSSValueComponentNode component) {
+        if (component instanceof CSSOperatorNode operator) {
+            return operator.getOperatorType() == CSSOperatorNode.OperatorType.COMMA
+                    || operator.getOperatorType() == CSSOperatorNode.OperatorType.DIVIDE;
+        }
+        return component instanceof CSSParenNode paren && paren.getType() == CSSParenNode.ParenType.RIGHT;
+    }
+
+    private String component(CSSValueComponentNode component, boolean dropZeroUnits) {
+        if (component instanceof CSSNumberValueNode number) {
+            return number(number.getComponentText(), dropZeroUnits);
+        }
+        if (component instanceof CSSPercentageValueNode percentage) {
+            String text = percentage.getComponentText();
+            return trimNumber(text.substring(0, text.length() - 1)) + "%";
+        }
+        if (component instanceof CSSColorValueNode color) {
+            return color(color.getComponentText());
+        }
+        if (component instanceof CSSStringValueNode string) {
+            return quote(string.getStringValue());
+        }
+        if (component instanceof CSSFunctionCallNode function) {
+            return function(function);
+        }
+        return component.getComponentText();
+    }
+
+    private String function(CSSFunctionCallNode function) {
+        StringBuilder sb = new StringBuilder(function.getFunctionName()).append('(');
+        List<CSSExpressionNode> arguments = function.getArguments();
+        for (int i = 0; i < arguments.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(expression(arguments.get(i)));
+        }
+        return sb.append(')').toString();
+    }
+
+    private String expression(CSSExpressionNode expression) {
+        if (expression instanceof CSSBinaryExpressionNode binary) {
+            CSSBinaryExpressionNode.Operator operator = binary.getOperator();
+            // calc() requires whitespace around + and -
+            String symbol = operator == CSSBinaryExpressionNode.Operator.ADD
+                    || operator == CSSBinaryExpressionNode.Operator.SUBTRACT
+                    ? " " + operator.getSymbol() + " " : operator.getSymbol();
+            return expression(binary.getLeft()) + symbol + expression(binary.getRight());
+        }
+        if (expression instanceof CSSParenExpressionNode paren) {
+            return "(" + expression(paren.getExpression()) + ")";
+        }
+        if (expression instanceof CSSNumberExpressionNode number) {
+            return number(number.getExpressionText(), false);
+        }
+        if (expression instanceof CSSPercentageExpressionNode percentage) {
+            String text = percentage.getPercentage();
+            return trimNumber(text.substring(0, text.length() - 1)) + "%";
+        }
+        if (expression instanceof CSSStringExpressionNode string) {
+            return quote(string.getStringValue());
+        }
+        if (expression instanceof CSSFunctionExpressionNode function) {
+            return function(function.getFunctionCall());
+        }
+        return expression.getExpressionText();
+    }
+
+    // "0.50em" -> ".5em", "0px" -> "0" (lengths only)
+    private String number(String text, boolean dropZeroUnits) {
+        int unitStart = text.length();
+        while (unitStart > 0 && Character.isLetter(text.charAt(unitStart - 1))) {
+            unitStart--;
+        }
+        String number = trimNumber(text.substring(0, unitStart));
+        String unit = text.substring(unitStart);
+        if (number.equals("0") && dropZeroUnits && LENGTH_UNITS.contains(unit.toLowerCase(Locale.ROOT))) {
+            droppedUnits++;
+            return "0";
+        }
+        return number + unit;
+    }
+
+    // Leading and trailing zeros: "-0.50" -> "-.5", "10.0" -> "10", "-0" -> "0"
+    static String trimNumber(String number) {
+        boolean negative = number.startsWith("-");
+        String digits = negative ? number.substring(1) : number;
+        int dot = digits.indexOf('.');
+        String integer = dot < 0 ? digits : digits.substring(0, dot);
+        String fraction = dot < 0 ? "" : digits.substring(dot + 1);
+
+        int start = 0;
+        while (start < integer.length() - 1 && integer.charAt(start) == '0') start++;
+        integer = integer.substring(start);
+        int end = fraction.length();
+        while (end > 0 && fraction.charAt(end - 1) == '0') end--;
+        fraction = fraction.substring(0, end);
+
+        if (fraction.isEmpty()) {
+            boolean zero = integer.isEmpty() || integer.equals("0");
+            return zero ? "0" : (negative ? "-" : "") + integer;
+        }
+        if (integer.equals("0")) {
+            integer = "";
+        }
+        return (negative ? "-" : "") + integer + "." + fraction;
+    }
+
+    // #AABBCC -> #abc, #aabbccdd -> #abcd
+    private String color(String hex) {
+        String lower = hex.toLowerCase(Locale.ROOT);
+        if ((lower.length() == 7 || lower.length() == 9) && pairsRepeat(lower)) {
+            StringBuilder sb = new StringBuilder("#");
+            for (int i = 1; i < lower.length(); i += 2) {
+                sb.append(lower.charAt(i));
+            }
+            shortenedColors++;
+            return sb.toString();
+        }
+        return lower;
+    }
+
+    private static boolean pairsRepeat(String hex) {
+        for (int i = 1; i < hex.length(); i += 2) {
+            if (hex.charAt(i) != hex.charAt(i + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Double quotes unless the text itself contains an unescaped double quote
+    private static String quote(String text) {
+        return text.indexOf('"') >= 0 && text.indexOf('\'') < 0 ? "'" + text + "'" : "\"" + text + "\"";
+    }
+
+    private static boolean isIdentifier(String text) {
+        if (text.isEmpty() || !(Character.isLetter(text.charAt(0)) || text.charAt(0) == '_')) {
+            return false;
+        }
+        for (int i = 1; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!(Character.isLetterOrDigit(c) || c == '-' || c == '_')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // A value that older browsers may reject, so an earlier declaration is its fallback
+    private static boolean isEnhancement(CSSValueNode value) {
+        for (CSSValueComponentNode component : value.getComponents()) {
+            if (component instanceof CSSFunctionCallNode || component instanceof CSSParenNode
+                    || component instanceof CSSCssVariableNode
+                    || component.getComponentText().startsWith("-")
+                    && !(component instanceof CSSNumberValueNode)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Collapses whitespace; none is needed next to "(", ")", ",", ":"
+    private static String prelude(String source) {
+        StringBuilder sb = new StringBuilder();
+        boolean pendingSpace = false;
+        char quote = 0;
+        for (int i = 0; i < source.length(); i++) {
+            char c = source.charAt(i);
+            if (quote != 0) {
+                sb.append(c);
+                if (c == '\\' && i + 1 < source.length()) {
+                    sb.append(source.charAt(++i));
+                } else if (c == quote) {
+                    quote = 0;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+                continue;
+            }
+            if (pendingSpace && ")],:".indexOf(c) < 0 && "(,:".indexOf(sb.charAt(sb.length() - 1)) < 0) {
+                sb.append(' ');
+            }
+            pendingSpace = false;
+            if (c == '"' || c == '\'') {
+                quote = c;
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    // ==================== OUTPUT ====================
+
+    private void writeItems(List<Item> items, CSSByteWriter writer) throws IOException {
+        for (Item item : items) {
+            if (item instanceof Rule rule) {
+                writer.write(rule.selector);
+                writeDeclarations(rule.declarations, writer);
+                ruleSetsWritten++;
+            } else {
+                AtRule atRule = (AtRule) item;
+                writer.write(atRule.keyword);
+                if (!atRule.prelude.isEmpty()) {
+                    writer.write(' ');
+                    writer.write(atRule.prelude);
+                }
+                if (atRule.block == null) {
+                    writer.write(';');
+                } else {
+                    writer.write('{');
+                    writeItems(atRule.block, writer);
+                    writer.write('}');
+                }
+            }
+        }
+    }
+
+    private static void writeDeclarations(List<Declaration> declarations, CSSByteWriter writer) throws IOException {
+        writer.write('{');
+        for (int i = 0; i < declarations.size(); i++) {
+            Declaration declaration = declarations.get(i);
+            if (i > 0) writer.write(';');
+            writer.write(declaration.property);
+            writer.write(':');
+            writer.write(declaration.value);
+            if (declaration.important) writer.write("!important");
+        }
+        writer.write('}');
+    }
+}
@@ -0,0 +1,541 @@
+package compiler.css;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.css.*;
+import compiler.ast.jinjaHtml.HTMLElementNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Matches the rule sets of a stylesheet against the elements of a template.
+ *
+ * Selectors are bucketed by their rightmost compound - under its id, else its
+ * first class, else its tag, else in the universal bucket - so an element only
+ * looks at the rules filed under its own id, classes and tag. Each candidate
+ * is checked right to left. Before walking up the tree, the id, class and tag
+ * hashes of the compounds that must be ancestors are tested against a counting
+ * bloom filter of the current element's ancestors, which rejects most
+ * descendant selectors without touching a parent.
+ *
+ * Elements are read statically: Jinja2 blocks ({% if %}, {% for %}, ...) are
+ * transparent, so both branches of an if are siblings; values with {{ }} are
+ * matched as written; state pseudo-classes (:hover, :focus, ...) are assumed
+ * to hold.
+ */
+public class SelectorMatcher {
+
+    /** A rule set that applies to an element, through one of its selectors. */
+    public static final class MatchedRule {
+        public final CSSRuleSetNode ruleSet;
+        public final CSSSelectorNode selector;
+        public final CSSAtRuleNode atRule;  // enclosing @media / @supports, or null
+        public final int specificity;
+        public final int order;
+
+        private MatchedRule(CompiledSelector compiled) {
+            this.ruleSet = compiled.ruleSet;
+            this.selector = compiled.selector;
+            this.atRule = compiled.atRule;
+            this.specificity = compiled.specificity;
+            this.order = compiled.order;
+        }
+
+        @Override
+        public String toString() {
+            String text = selector.getSelectorText();
+            return atRule == null ? text : atRule.getKeyword() + " { " + text + " }";
+        }
+    }
+
+    /** Matched rules per element, elements in document order and rules in cascade order. */
+    public static final class Result {
+        public final Map<HTMLElementNode, List<MatchedRule>> matches;
+        public final int elements;
+        public final long candidates;
+        public final long rejectedByFilter;
+        public final long matched;
+
+        private Result(Map<HTMLElementNode, List<MatchedRule>> matches, int elements,
+                       long candidates, long rejectedByFilter, long matched) {
+            this.matches = matches;
+            this.elements = elements;
+            this.candidates = candidates;
+            this.rejectedByFilter = rejectedByFilter;
+            this.matched = matched;
+        }
+
+        public List<MatchedRule> get(HTMLElementNode element) {
+            return matches.getOrDefault(element, Collections.emptyList());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d elements, %d candidate selectors (%d rejected by the ancestor filter), %d matches",
+                    elements, candidates, rejectedByFilter, matched);
+        }
+    }
+
+    private final List<CompiledSelector> selectors = new ArrayList<>();
+    private final Map<String, List<CompiledSelector>> byId = new HashMap<>();
+    private final Map<String, List<CompiledSelector>> byClass = new HashMap<>();
+    private final Map<String, List<CompiledSelector>> byTag = new HashMap<>();
+    private final List<CompiledSelector> universal = new ArrayList<>();
+
+    public SelectorMatcher(CSSStylesheetNode stylesheet) {
+        for (ASTNode child : stylesheet.getChildren()) {
+            if (child instanceof CSSRuleSetNode ruleSet) {
+                addRuleSet(ruleSet, null);
+            } else if (child instanceof CSSAtRuleNode atRule) {
+                for (CSSRuleSetNode ruleSet : atRule.getRuleSets()) {
+                    addRuleSet(ruleSet, atRule);
+                }
+            }
+        }
+    }
+
+    public int getSelectorCount() {
+        return selectors.size();
+    }
+
+    private void addRuleSet(CSSRuleSetNode ruleSet, CSSAtRuleNode atRule) {
+        if (ruleSet.getSelectorList() == null) {
+            return;
+        }
+        for (CSSSelectorNode selector : ruleSet.getSelectorList().getSelectors()) {
+            if (selector.getSimpleSelectors().isEmpty()) continue;
+            CompiledSelector compiled = new CompiledSelector(ruleSet, selector, atRule, selectors.size());
+            selectors.add(compiled);
+
+            Compound subject = compiled.compounds[0];
+            if (subject.id != null) {
+                byId.computeIfAbsent(subject.id, k -> new ArrayList<>()).add(compiled);
+            } else if (subject.classes.length > 0) {
+                byClass.computeIfAbsent(subject.classes[0], k -> new ArrayList<>()).add(compiled);
+            } else if (subject.tag != null) {
+                byTag.computeIfAbsent(subject.tag, k -> new ArrayList<>()).add(compiled);
+            } else {
+                universal.add(compiled);
+            }
+        }
+    }
+
+    // ==================== MATCHING ====================
+
+    public Result matchAll(ASTNode template) {
+        Element[] elements = Element.collect(template);
+        Map<HTMLElementNode, List<MatchedRule>> matches = new LinkedHashMap<>();
+        AncestorFilter filter = new AncestorFilter();
+        int[] stack = new int[16];
+        int depth = 0;
+        Counters counters = new Counters();
+        long matched = 0;
+
+        List<CompiledSelector> found = new ArrayList<>();
+        for (int e = 0; e < elements.length; e++) {
+            Element element = elements[e];
+
+            // Preorder: leave the subtrees that ended, then the filter holds exactly the ancestors
+            while (depth > 0 && stack[depth - 1] != element.parent) {
+                filter.remove(elements[stack[--depth]]);
+            }
+
+            found.clear();
+            if (element.id != null) {
+                collect(byId.get(element.id), elements, e, filter, found, counters);
+            }
+            for (String name : element.classes) {
+                collect(byClass.get(name), elements, e, filter, found, counters);
+            }
+            collect(byTag.get(element.tag), elements, e, filter, found, counters);
+            collect(universal, elements, e, filter, found, counters);
+
+            if (!found.isEmpty()) {
+                matched += found.size();
+                matches.put(element.node, cascadeOrder(found));
+            }
+
+            if (depth == stack.length) {
+                stack = Arrays.copyOf(stack, depth * 2);
+            }
+            stack[depth++] = e;
+            filter.add(element);
+        }
+        return new Result(matches, elements.length, counters.candidates, counters.rejected, matched);
+    }
+
+    // Every selector against every element, without buckets or filter; the reference for matchAll
+    public Result matchAllLinear(ASTNode template) {
+        Element[] elements = Element.collect(template);
+        Map<HTMLElementNode, List<MatchedRule>> matches = new LinkedHashMap<>();
+        long matched = 0;
+        List<CompiledSelector> found = new ArrayList<>();
+        for (int e = 0; e < elements.length; e++) {
+            found.clear();
+            for (CompiledSelector selector : selectors) {
+                if (matches(selector, 0, elements, e)) {
+                    found.add(selector);
+                }
+            }
+            if (!found.isEmpty()) {
+                matched += found.size();
+                matches.put(elements[e].node, cascadeOrder(found));
+            }
+        }
+        return new Result(matches, elements.length, (long) elements.length * selectors.size(), 0, matched);
+    }
+
+    private static final class Counters {
+        long candidates;
+        long rejected;
+    }
+
+    private static void collect(List<CompiledSelector> bucket, Element[] elements, int e,
+                                AncestorFilter filter, List<CompiledSelector> found, Counters counters) {
+        if (bucket == null) {
+            return;
+        }
+        counters.candidates += bucket.size();
+        for (CompiledSelector selector : bucket) {
+            if (!filter.mayContainAll(selector.ancestorHashes)) {
+                counters.rejected++;
+            } else if (matches(selector, 0, elements, e)) {
+                found.add(selector);
+            }
+        }
+    }
+
+    private static List<MatchedRule> cascadeOrder(List<CompiledSelector> found) {
+        List<CompiledSelector> sorted = new ArrayList<>(found);
+        sorted.sort((a, b) -> a.specificity != b.specificity
+                ? Integer.compare(a.specificity, b.specificity) : Integer.compare(a.order, b.order));
+        List<MatchedRule> rules = new ArrayList<>(sorted.size());
+        for (CompiledSelector selector : sorted) {
+            rules.add(new MatchedRule(selector));
+        }
+        return rules;
+    }
+
+    // Right to left: compounds[i] against element e, then the combinator to compounds[i + 1]
+    private static boolean matches(CompiledSelector selector, int i, Element[] elements, int e) {
+        if (!selector.compounds[i].matches(elements, e)) {
+            return false;
+        }
+        if (i + 1 == selector.compounds.length) {
+            return true;
+        }
+        switch (selector.combinators[i]) {
+            case CHILD: {
+                int parent = elements[e].parent;
+                return parent >= 0 && matches(selector, i + 1, elements, parent);
+            }
+            case DESCENDANT:
+                for (int a = elements[e].parent; a >= 0; a = elements[a].parent) {
+                    if (matches(selector, i + 1, elements, a)) return true;
+                }
+                return false;
+            case ADJACENT_SIBLING: {
+                int previous = elements[e].previousSibling;
+                return previous >= 0 && matches(selector, i + 1, elements, previous);
+            }
+            default:
+                for (int s = elements[e].previousSibling; s >= 0; s = elements[s].previousSibling) {
+                    if (matches(selector, i + 1, elements, s)) return true;
+                }
+                return false;
+        }
+    }
+
+    // ==================== SELECTORS ====================
+
+    private static final class CompiledSelector {
+        final CSSRuleSetNode ruleSet;
+        final CSSSelectorNode selector;
+        final CSSAtRuleNode atRule;
+        final int order;
+        final Compound[] compounds;                        // rightmost first
+        final CSSCombinatorNode.CombinatorType[] combinators; // combinators[i] joins compounds[i] to compounds[i + 1]
+        final int specificity;
+        final int[] ancestorHashes;
+
+        CompiledSelector(CSSRuleSetNode ruleSet, CSSSelectorNode selector, CSSAtRuleNode atRule, int order) {
+            this.ruleSet = ruleSet;
+            this.selector = selector;
+            this.atRule = atRule;
+            this.order = order;
+
+            List<CSSSimpleSelectorNode> simple = selector.getSimpleSelectors();
+            List<CSSCombinatorNode> joins = selector.getCombinators();
+            int n = simple.size();
+            compounds = new Compound[n];
+            combinators = new CSSCombinatorNode.CombinatorType[n - 1];
+            int ids = 0, classes = 0, tags = 0;
+            for (int i = 0; i < n; i++) {
+                Compound compound = new Compound(simple.get(n - 1 - i));
+                compounds[i] = compound;
+                if (i < n - 1) {
+                    int join = n - 2 - i;
+                    combinators[i] = join < joins.size()
+                            ? joins.get(join).getCombinatorType() : CSSCombinatorNode.CombinatorType.DESCENDANT;
+                }
+                ids += compound.id != null ? 1 : 0;
+                classes += compound.classes.length + compound.attributes.length + compound.pseudoClasses.length;
+                tags += (compound.tag != null ? 1 : 0) + compound.pseudoElements;
+            }
+            specificity = Math.min(ids, 255) << 16 | Math.min(classes, 255) << 8 | Math.min(tags, 255);
+
+            // compounds[i] must be an ancestor whenever it is reached through " " or ">"
+            List<Integer> hashes = new ArrayList<>();
+            for (int i = 1; i < n; i++) {
+                CSSCombinatorNode.CombinatorType join = combinators[i - 1];
+                if (join != CSSCombinatorNode.CombinatorType.DESCENDANT && join != CSSCombinatorNode.CombinatorType.CHILD) {
+                    continue;
+                }
+                Compound compound = compounds[i];
+                if (compound.id != null) hashes.add(AncestorFilter.idHash(compound.id));
+                for (String name : compound.classes) hashes.add(AncestorFilter.classHash(name));
+                if (compound.tag != null) hashes.add(AncestorFilter.tagHash(compound.tag));
+            }
+            ancestorHashes = hashes.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    private static final class Compound {
+        String tag;          // lowercase; null for none or "*"
+        String id;
+        String[] classes;
+        AttributeTest[] attributes;
+        String[] pseudoClasses;
+        int pseudoElements;
+
+        Compound(CSSSimpleSelectorNode node) {
+            List<String> classList = new ArrayList<>();
+            List<AttributeTest> attributeList = new ArrayList<>();
+            List<String> pseudoList = new ArrayList<>();
+            for (CSSSelectorPartNode part : node.getSelectorParts()) {
+                if (part instanceof CSSElementSelectorNode element) {
+                    tag = element.getElementName().toLowerCase(Locale.ROOT);
+                } else if (part instanceof CSSIdSelectorNode idNode) {
+                    id = idNode.getIdName();
+                } else if (part instanceof CSSClassSelectorNode classNode) {
+                    classList.add(classNode.getClassName());
+                } else if (part instanceof CSSAttributeSelectorNode attribute) {
+                    attributeList.add(new AttributeTest(attribute));
+                } else if (part instanceof CSSPseudoClassSelectorNode pseudo) {
+                    pseudoList.add(pseudo.getPseudoClassName().toLowerCase(Locale.ROOT));
+                } else if (part instanceof CSSPseudoElementSelectorNode) {
+                    pseudoElements++;
+                }
+            }
+            classes = classList.toArray(new String[0]);
+            attributes = attributeList.toArray(new AttributeTest[0]);
+            pseudoClasses = pseudoList.toArray(new String[0]);
+        }
+
+        boolean matches(Element[] elements, int e) {
+            Element element = elements[e];
+            if (tag != null && !tag.equals(element.tag)) return false;
+            if (id != null && !id.equals(element.id)) return false;
+            for (String name : classes) {
+                if (!element.classes.contains(name)) return false;
+            }
+            for (AttributeTest attribute : attributes) {
+                if (!attribute.matches(element)) return false;
+            }
+            for (String pseudo : pseudoClasses) {
+                if (!pseudoClassMatches(pseudo, elements, e)) return false;
+            }
+            return true;
+        }
+    }
+
+    private static boolean pseudoClassMatches(String pseudo, Element[] elements, int e) {
+        Element element = elements[e];
+        switch (pseudo) {
+            case "root": return element.parent < 0 && element.tag.equals("html");
+            case "first-child": return element.previousSibling < 0;
+            case "last-child": return !element.hasNextSibling;
+            case "only-child": return element.previousSibling < 0 && !element.hasNextSibling;
+            case "first-of-type": return previousOfType(elements, e) < 0;
+            case "empty": return element.node.getChildren().isEmpty();
+            case "link": case "any-link": return element.tag.equals("a") && element.attributes.containsKey("href");
+            case "checked": return element.attributes.containsKey("checked") || element.attributes.containsKey("selected");
+            case "disabled": return element.attributes.containsKey("disabled");
+            case "required": return element.attributes.containsKey("required");
+            case "optional": return !element.attributes.containsKey("required");
+            default: return true;  // state and unknown pseudo-classes: assume they can hold
+        }
+    }
+
+    private static int previousOfType(Element[] elements, int e) {
+        for (int s = elements[e].previousSibling; s >= 0; s = elements[s].previousSibling) {
+            if (elements[s].tag.equals(elements[e].tag)) return s;
+        }
+        return -1;
+    }
+
+    private static final class AttributeTest {
+        final String name;
+        final String operator;
+        final String value;
+
+        AttributeTest(CSSAttributeSelectorNode node) {
+            name = node.getAttributeName().toLowerCase(Locale.ROOT);
+            operator = node.hasValue() ? node.getOperator() : null;
+            if (operator != null && !node.getValue().getComponents().isEmpty()) {
+                CSSValueComponentNode component = node.getValue().getComponents().get(0);
+                value = component instanceof CSSStringValueNode string
+                        ? string.getStringValue() : component.getComponentText();
+            } else {
+                value = null;
+            }
+        }
+
+        boolean matches(Element element) {
+            String actual = element.attributes.get(name);
+            if (actual == null) return false;
+            if (operator == null || value == null) return true;
+            switch (operator) {
+                case "=": return actual.equals(value);
+                case "~=": return Arrays.asList(actual.trim().split("\\s+")).contains(value);
+                case "|=": return actual.equals(value) || actual.startsWith(value + "-");
+                case "^=": return !value.isEmpty() && actual.startsWith(value);
+                case "$=": return !value.isEmpty() && actual.endsWith(value);
+                case "*=": return !value.isEmpty() && actual.contains(value);
+                default: return true;
+            }
+        }
+    }
+
+    // ==================== ELEMENTS ====================
+
+    // An HTMLElementNode with its element parent and siblings, in document order
+    private static final class Element {
+        final HTMLElementNode node;
+        final int parent;
+        final int previousSibling;
+        boolean hasNextSibling;
+        final String tag;
+        final String id;
+        final Set<String> classes;
+        final Map<String, String> attributes;
+
+        Element(HTMLElementNode node, int parent, int previousSibling) {
+            this.node = node;
+            this.parent = parent;
+            this.previousSibling = previousSibling;
+            this.tag = node.getTagName().toLowerCase(Locale.ROOT);
+            this.attributes = new HashMap<>();
+            for (Map.Entry<String, String> attribute : node.getAttributes().entrySet()) {
+                attributes.put(attribute.getKey().toLowerCase(Locale.ROOT), unquote(attribute.getValue()));
+            }
+            String idValue = attributes.get("id");
+            this.id = idValue != null && !idValue.isEmpty() ? idValue : null;
+            String classValue = attributes.get("class");
+            this.classes = new LinkedHashSet<>();
+            if (classValue != null) {
+                for (String name : classValue.trim().split("\\s+")) {
+                    if (!name.isEmpty()) classes.add(name);
+                }
+            }
+        }
+
+        static Element[] collect(ASTNode root) {
+            List<Element> elements = new ArrayList<>();
+            if (root instanceof HTMLElementNode element) {
+                elements.add(new Element(element, -1, -1));
+                collectChildren(element, 0, -1, elements);
+            } else {
+                collectChildren(root, -1, -1, elements);
+            }
+            return elements.toArray(new Element[0]);
+        }
+
+        // Returns the last element sibling seen; Jinja2 and other non-element nodes are transparent
+        private static int collectChildren(ASTNode node, int parent, int previous, List<Element> elements) {
+            for (ASTNode child : node.getChildren()) {
+                if (child instanceof HTMLElementNode element) {
+                    int index = elements.size();
+                    elements.add(new Element(element, parent, previous));
+                    if (previous >= 0) {
+                        elements.get(previous).hasNextSibling = true;
+                    }
+                    collectChildren(element, index, -1, elements);
+                    previous = index;
+                } else {
+                    previous = collectChildren(child, parent, previous, elements);
+                }
+            }
+            return previous;
+        }
+
+        private static String unquote(String value) {
+            if (value == null) return "";
+            if (value.length() >= 2 && (value.charAt(0) == '"' || value.charAt(0) == '\'')
+                    && value.charAt(value.length() - 1) == value.charAt(0)) {
+                return value.substring(1, value.length() - 1);
+            }
+            return value;
+        }
+    }
+
+    // Counting bloom filter over the tag, id and class hashes of the current ancestors
+    private static final class AncestorFilter {
+        private static final int BITS = 12;
+        private static final int MASK = (1 << BITS) - 1;
+        private final int[] counters = new int[1 << BITS];
+
+        static int tagHash(String tag) {
+            return mix(tag.hashCode() * 31 + 'T');
+        }
+
+        static int idHash(String id) {
+            return mix(id.hashCode() * 31 + '#');
+        }
+
+        static int classHash(String name) {
+            return mix(name.hashCode() * 31 + '.');
+        }
+
+        private static int mix(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 15);
+        }
+
+        void add(Element element) {
+            update(element, 1);
+        }
+
+        void remove(Element element) {
+            update(element, -1);
+        }
+
+        private void update(Element element, int delta) {
+            bump(tagHash(element.tag), delta);
+            if (element.id != null) bump(idHash(element.id), delta);
+            for (String name : element.classes) bump(classHash(name), delta);
+        }
+
+        private void bump(int hash, int delta) {
+            counters[hash & MASK] += delta;
+            counters[(hash >>> BITS) & MASK] += delta;
+        }
+
+        boolean mayContainAll(int[] hashes) {
+            for (int hash : hashes) {
+                if (counters[hash & MASK] == 0 || counters[(hash >>> BITS) & MASK] == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
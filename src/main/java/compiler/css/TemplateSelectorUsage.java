@@ -0,0 +1,197 @@
+package compiler.css;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.expressions.StringLiteralNode;
+import compiler.ast.jinjaHtml.HTMLElementNode;
+import compiler.ast.jinjaHtml.HTMLTextNode;
+import compiler.ast.jinjaHtml.Jinja2VarNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The classes, ids and tags that Jinja2 templates can put on an element.
+ *
+ * Static attribute values count exactly. A {{ }} inside a class or id turns
+ * its token into a pattern: "btn-{{ kind }}" may be any class starting with
+ * "btn-", and a token that is only {{ }} may be any class at all. A {{ }}
+ * is assumed to stay within the token it is written in; string literals
+ * without filters are inlined.
+ */
+public class TemplateSelectorUsage {
+
+    // Stands for the output of one {{ }} inside a pattern
+    private static final char WILDCARD = '\uFFFF';
+
+    // Elements every page has even when a template leaves them out
+    private static final Set<String> IMPLICIT_TAGS = Set.of("html", "head", "body", "tbody");
+
+    private final Set<String> classes = new TreeSet<>();
+    private final Set<String> ids = new TreeSet<>();
+    private final Set<String> tags = new TreeSet<>();
+    private final List<String> classPatterns = new ArrayList<>();
+    private final List<String> idPatterns = new ArrayList<>();
+    private boolean anyClass;
+    private boolean anyId;
+
+    public static TemplateSelectorUsage collect(Iterable<? extends ASTNode> templates) {
+        TemplateSelectorUsage usage = new TemplateSelectorUsage();
+        for (ASTNode template : templates) {
+            usage.addTemplate(template);
+        }
+        return usage;
+    }
+
+    public void addTemplate(ASTNode node) {
+        if (node == null) {
+            return;
+        }
+        if (node instanceof HTMLElementNode element) {
+            addElement(element);
+        }
+        for (ASTNode child : node.getChildren()) {
+            addTemplate(child);
+        }
+    }
+
+    private void addElement(HTMLElementNode element) {
+        if (!element.getTagName().isEmpty()) {
+            tags.add(element.getTagName().toLowerCase(Locale.ROOT));
+        }
+        for (String attribute : element.getAttributes().keySet()) {
+            String name = attribute.toLowerCase(Locale.ROOT);
+            if (!name.equals("class") && !name.equals("id")) {
+                continue;
+            }
+            String value = attributeValue(element, attribute);
+            for (String token : value.trim().split("\\s+")) {
+                if (token.isEmpty()) continue;
+                if (name.equals("class")) {
+                    addToken(token, classes, classPatterns, true);
+                } else {
+                    addToken(token, ids, idPatterns, false);
+                }
+            }
+        }
+    }
+
+    private void addToken(String token, Set<String> exact, List<String> patterns, boolean isClass) {
+        if (token.indexOf(WILDCARD) < 0) {
+            exact.add(token);
+        } else if (token.chars().allMatch(c -> c == WILDCARD)) {
+            if (isClass) anyClass = true; else anyId = true;
+        } else {
+            patterns.add(token);
+        }
+    }
+
+    // Attribute text with every {{ }} replaced by WILDCARD
+    private static String attributeValue(HTMLElementNode element, String attribute) {
+        List<ASTNode> parts = element.getAttributeParts().get(attribute);
+        if (parts == null) {
+            return unquote(element.getAttributes().get(attribute));
+        }
+        StringBuilder sb = new StringBuilder();
+        for (ASTNode part : parts) {
+            if (part instanceof HTMLTextNode text) {
+                sb.append(text.getText());
+            } else if (part instanceof Jinja2VarNode var && var.getFilters().isEmpty()
+                    && var.getExpression() instanceof StringLiteralNode literal) {
+                sb.append(literal.getValue());
+            } else {
+                sb.append(WILDCARD);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String unquote(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.length() >= 2 && (value.charAt(0) == '"' || value.charAt(0) == '\'')
+                && value.charAt(value.length() - 1) == value.charAt(0)) {
+            return value.substring(1, value.length() - 1);
+        }
+        return value;
+    }
+
+    public boolean mayHaveClass(String name) {
+        return anyClass || classes.contains(name) || matchesAny(classPatterns, name);
+    }
+
+    public boolean mayHaveId(String name) {
+        return anyId || ids.contains(name) || matchesAny(idPatterns, name);
+    }
+
+    public boolean mayHaveTag(String name) {
+        String lower = name.toLowerCase(Locale.ROOT);
+        return tags.contains(lower) || IMPLICIT_TAGS.contains(lower);
+    }
+
+    private static boolean matchesAny(List<String> patterns, String name) {
+        for (String pattern : patterns) {
+            if (matches(pattern, 0, name, 0)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Glob match where WILDCARD stands for any (possibly empty) text
+    private static boolean matches(String pattern, int p, String name, int n) {
+        while (p < pattern.length()) {
+            char c = pattern.charAt(p);
+            if (c == WILDCARD) {
+                for (int end = name.length(); end >= n; end--) {
+                    if (matches(pattern, p + 1, name, end)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            if (n == name.length() || name.charAt(n) != c) {
+                return false;
+            }
+            p++;
+            n++;
+        }
+        return n == name.length();
+    }
+
+    public Set<String> getClasses() {
+        return Collections.unmodifiableSet(classes);
+    }
+
+    public Set<String> getIds() {
+        return Collections.unmodifiableSet(ids);
+    }
+
+    public Set<String> getTags() {
+        return Collections.unmodifiableSet(tags);
+    }
+
+    // Patterns in display form: "btn-{{ }}"
+    public List<String> getPatterns() {
+        List<String> display = new ArrayList<>();
+        for (String pattern : classPatterns) {
+            display.add("." + pattern.replace(String.valueOf(WILDCARD), "{{ }}"));
+        }
+        for (String pattern : idPatterns) {
+            display.add("#" + pattern.replace(String.valueOf(WILDCARD), "{{ }}"));
+        }
+        if (anyClass) display.add(".{{ }}");
+        if (anyId) display.add("#{{ }}");
+        return display;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d tags, %d classes, %d ids, %d dynamic patterns",
+                tags.size(), classes.size(), ids.size(), getPatterns().size());
+    }
+}
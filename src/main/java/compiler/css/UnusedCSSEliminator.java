@@ -0,0 +1,144 @@
+package compiler.css;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.css.*;
+import compiler.symboltable.css.CSSSymbolTable;
+import compiler.symboltable.css.CSSSymbolTableBuilder;
+import compiler.symboltable.css.CSSSymbolTableEntry;
+import compiler.symboltable.css.CSSSymbolType;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Removes the selectors of a stylesheet that no element of the templates can
+ * match, then the rule sets left without selectors and the grouping at-rules
+ * (@media, @supports) left without rule sets.
+ *
+ * A selector is dead when one of its compounds needs a class, id or tag that
+ * never appears in TemplateSelectorUsage. Each simple selector is checked on
+ * its own, so ".a.b" stays when .a and .b are used on different elements;
+ * combinators, attributes and pseudo-classes are not checked at all. Classes
+ * added from scripts are invisible here.
+ *
+ * The stylesheet is pruned in place. Sizes are those of the minified output.
+ */
+public class UnusedCSSEliminator {
+
+    public static class Result {
+        public final long bytesBefore;
+        public final long bytesAfter;
+        public final int removedRuleSets;
+        public final List<String> removedSelectors;
+        public final List<CSSSymbolTableEntry> unusedSymbols;
+
+        Result(long bytesBefore, long bytesAfter, int removedRuleSets,
+               List<String> removedSelectors, List<CSSSymbolTableEntry> unusedSymbols) {
+            this.bytesBefore = bytesBefore;
+            this.bytesAfter = bytesAfter;
+            this.removedRuleSets = removedRuleSets;
+            this.removedSelectors = Collections.unmodifiableList(removedSelectors);
+            this.unusedSymbols = Collections.unmodifiableList(unusedSymbols);
+        }
+
+        public long getBytesSaved() {
+            return bytesBefore - bytesAfter;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d selectors and %d rule sets removed, %d → %d bytes (%d saved)",
+                    removedSelectors.size(), removedRuleSets, bytesBefore, bytesAfter, getBytesSaved());
+        }
+    }
+
+    private final TemplateSelectorUsage usage;
+    private final List<String> removedSelectors = new ArrayList<>();
+    private int removedRuleSets;
+
+    public UnusedCSSEliminator(TemplateSelectorUsage usage) {
+        this.usage = usage;
+    }
+
+    public Result prune(CSSStylesheetNode stylesheet) {
+        removedSelectors.clear();
+        removedRuleSets = 0;
+
+        // Unused class, id and element names, as indexed before pruning
+        List<CSSSymbolTableEntry> unusedSymbols = new ArrayList<>();
+        CSSSymbolTable symbols = new CSSSymbolTableBuilder().build(stylesheet);
+        for (CSSSymbolTableEntry entry : symbols.getSelectors()) {
+            if (!isUsed(entry)) {
+                unusedSymbols.add(entry);
+            }
+        }
+
+        long before = new CSSMinifier().minify(stylesheet).length;
+        for (ASTNode child : new ArrayList<>(stylesheet.getChildren())) {
+            if (child instanceof CSSRuleSetNode ruleSet && pruneRuleSet(ruleSet)) {
+                stylesheet.removeRuleSet(ruleSet);
+            } else if (child instanceof CSSAtRuleNode atRule && pruneAtRule(atRule)) {
+                stylesheet.removeAtRule(atRule);
+            }
+        }
+        long after = new CSSMinifier().minify(stylesheet).length;
+
+        return new Result(before, after, removedRuleSets, new ArrayList<>(removedSelectors), unusedSymbols);
+    }
+
+    private boolean isUsed(CSSSymbolTableEntry entry) {
+        if (entry.getType() == CSSSymbolType.CLASS_SELECTOR) return usage.mayHaveClass(entry.getName());
+        if (entry.getType() == CSSSymbolType.ID_SELECTOR) return usage.mayHaveId(entry.getName());
+        return usage.mayHaveTag(entry.getName());
+    }
+
+    // Returns true when the whole at-rule can go
+    private boolean pruneAtRule(CSSAtRuleNode atRule) {
+        if (atRule.getRuleSets().isEmpty()) {
+            return false;  // @import, @font-face, @keyframes, ...
+        }
+        for (CSSRuleSetNode ruleSet : new ArrayList<>(atRule.getRuleSets())) {
+            if (pruneRuleSet(ruleSet)) {
+                atRule.removeRuleSet(ruleSet);
+            }
+        }
+        return atRule.getRuleSets().isEmpty() && atRule.getKeyframeRules().isEmpty();
+    }
+
+    // Drops the dead selectors; returns true when none is left
+    private boolean pruneRuleSet(CSSRuleSetNode ruleSet) {
+        CSSSelectorListNode selectorList = ruleSet.getSelectorList();
+        if (selectorList == null || selectorList.getSelectors().isEmpty()) {
+            return false;
+        }
+        for (CSSSelectorNode selector : new ArrayList<>(selectorList.getSelectors())) {
+            if (!mayMatch(selector)) {
+                removedSelectors.add(String.format("%s (line %d)", selector.getSelectorText(), selector.getLineNumber()));
+                selectorList.removeSelector(selector);
+            }
+        }
+        if (selectorList.getSelectors().isEmpty()) {
+            removedRuleSets++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean mayMatch(CSSSelectorNode selector) {
+        for (CSSSimpleSelectorNode compound : selector.getSimpleSelectors()) {
+            for (CSSSelectorPartNode part : compound.getSelectorParts()) {
+                if (part instanceof CSSClassSelectorNode c && !usage.mayHaveClass(c.getClassName())) {
+                    return false;
+                }
+                if (part instanceof CSSIdSelectorNode id && !usage.mayHaveId(id.getIdName())) {
+                    return false;
+                }
+                if (part instanceof CSSElementSelectorNode element && !usage.mayHaveTag(element.getElementName())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
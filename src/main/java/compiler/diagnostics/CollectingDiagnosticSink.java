@@ -0,0 +1,54 @@
+package compiler.diagnostics;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps errors and warnings (and INFO messages if asked to) in report order; safe to share between threads
+public class CollectingDiagnosticSink implements DiagnosticSink {
+
+    private final boolean includeInfo;
+    private final List<Diagnostic> diagnostics = new ArrayList<>();
+
+    public CollectingDiagnosticSink(boolean includeInfo) {
+        this.includeInfo = includeInfo;
+    }
+
+    public CollectingDiagnosticSink() {
+        this(false);
+    }
+
+    @Override
+    public synchronized void report(Diagnostic diagnostic) {
+        if (isEnabled(diagnostic.severity)) {
+            diagnostics.add(diagnostic);
+        }
+    }
+
+    @Override
+    public boolean isEnabled(Severity severity) {
+        return includeInfo || severity != Severity.INFO;
+    }
+
+    public synchronized List<Diagnostic> getDiagnostics() {
+        return new ArrayList<>(diagnostics);
+    }
+
+    public synchronized List<Diagnostic> getDiagnostics(Severity severity) {
+        List<Diagnostic> result = new ArrayList<>();
+        for (Diagnostic diagnostic : diagnostics) {
+            if (diagnostic.severity == severity) result.add(diagnostic);
+        }
+        return result;
+    }
+
+    public synchronized boolean hasErrors() {
+        for (Diagnostic diagnostic : diagnostics) {
+            if (diagnostic.isError()) return true;
+        }
+        return false;
+    }
+
+    public synchronized void clear() {
+        diagnostics.clear();
+    }
+}
@@ -0,0 +1,27 @@
+package compiler.diagnostics;
+
+// One finding of an analysis pass; line and column are 1-based and 0-based, 0/0 when unknown
+public class Diagnostic {
+    public final Severity severity;
+    public final String code;
+    public final int line;
+    public final int column;
+    public final String message;
+
+    public Diagnostic(Severity severity, String code, int line, int column, String message) {
+        this.severity = severity;
+        this.code = code;
+        this.line = line;
+        this.column = column;
+        this.message = message;
+    }
+
+    public boolean isError() {
+        return severity == Severity.ERROR;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("[%s] Line %d: %s", code, line, message);
+    }
+}
@@ -0,0 +1,31 @@
+package compiler.diagnostics;
+
+/**
+ * Where the symbol table, SymbolTableBuilder and FlaskSemanticAnalyzer send
+ * their findings and progress messages.
+ *
+ * NONE drops everything, CollectingDiagnosticSink keeps the records for the
+ * caller, StreamingDiagnosticSink prints them as they arrive (the console
+ * output the passes always had). Passes ask isEnabled() before building a
+ * message, so with NONE or a collecting sink the progress messages cost
+ * nothing.
+ */
+public interface DiagnosticSink {
+
+    DiagnosticSink NONE = new DiagnosticSink() {
+        @Override
+        public void report(Diagnostic diagnostic) {
+        }
+
+        @Override
+        public boolean isEnabled(Severity severity) {
+            return false;
+        }
+    };
+
+    void report(Diagnostic diagnostic);
+
+    default boolean isEnabled(Severity severity) {
+        return true;
+    }
+}
@@ -0,0 +1,8 @@
+package compiler.diagnostics;
+
+// INFO carries the progress messages the passes used to print to the console
+public enum Severity {
+    ERROR,
+    WARNING,
+    INFO
+}
@@ -0,0 +1,43 @@
+package compiler.diagnostics;
+
+import java.io.PrintStream;
+
+// Prints each diagnostic at or above a minimum severity as soon as it is reported
+public class StreamingDiagnosticSink implements DiagnosticSink {
+
+    private final PrintStream out;
+    private final Severity minimum;
+
+    public StreamingDiagnosticSink(PrintStream out, Severity minimum) {
+        this.out = out;
+        this.minimum = minimum;
+    }
+
+    // Everything, to System.out: what the passes printed before sinks existed
+    public static StreamingDiagnosticSink console() {
+        return new StreamingDiagnosticSink(System.out, Severity.INFO);
+    }
+
+    @Override
+    public void report(Diagnostic diagnostic) {
+        if (!isEnabled(diagnostic.severity)) {
+            return;
+        }
+        switch (diagnostic.severity) {
+            case ERROR:
+                out.println("  ✗ " + diagnostic);
+                break;
+            case WARNING:
+                out.println("  ⚠ " + diagnostic);
+                break;
+            default:
+                out.println(diagnostic.message);
+        }
+    }
+
+    // Severity constants are declared from most to least severe
+    @Override
+    public boolean isEnabled(Severity severity) {
+        return severity.ordinal() <= minimum.ordinal();
+    }
+}
@@ -0,0 +1,277 @@
+package compiler.lsp;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.BlockNode;
+import compiler.ast.core.ExpressionNode;
+import compiler.ast.core.expressions.IdentifierNode;
+import compiler.ast.flask.FlaskAppNode;
+import compiler.ast.flask.FlaskRouteFunction;
+import compiler.ast.jinjaHtml.JinjaMacroNode;
+import compiler.ast.jinjaHtml.JinjaSetNode;
+import compiler.ast.python.AssignmentNode;
+import compiler.ast.python.ClassDefNode;
+import compiler.ast.python.FunctionDefNode;
+import compiler.diagnostics.Diagnostic;
+import compiler.parsing.SourceLanguage;
+import compiler.server.SourceAnalyzer;
+import compiler.symboltable.SymbolTableEntry;
+import compiler.symboltable.css.CSSSymbolTableEntry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * What the server answers from for one version of a document, computed on
+ * the analysis thread: LSP diagnostics, the outline and name -> declaration
+ * and usage lines. Immutable, so request handlers read it without locking
+ * while the next version is analyzed.
+ */
+final class DocumentIndex {
+
+    // LSP SymbolKind values
+    private static final int MODULE = 2;
+    private static final int NAMESPACE = 3;
+    private static final int CLASS = 5;
+    private static final int METHOD = 6;
+    private static final int FIELD = 8;
+    private static final int FUNCTION = 12;
+    private static final int VARIABLE = 13;
+    private static final int EVENT = 24;
+
+    final String uri;
+    final int version;
+    final SourceLanguage language;
+    final List<Object> diagnostics;
+    final List<Object> symbols;
+    final long elapsedNanos;
+    // 1-based lines, as everywhere in the compiler
+    private final Map<String, Integer> declarations;
+    private final Map<String, List<Integer>> usages;
+    private final String[] lines;
+
+    private DocumentIndex(String uri, int version, SourceLanguage language, String[] lines,
+                          List<Object> diagnostics, List<Object> symbols, Map<String, Integer> declarations,
+                          Map<String, List<Integer>> usages, long elapsedNanos) {
+        this.uri = uri;
+        this.version = version;
+        this.language = language;
+        this.lines = lines;
+        this.diagnostics = Collections.unmodifiableList(diagnostics);
+        this.symbols = Collections.unmodifiableList(symbols);
+        this.declarations = declarations;
+        this.usages = usages;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    static DocumentIndex build(String uri, int version, String text, SourceAnalyzer.Analysis analysis) {
+        String[] lines = text.split("\n", -1);
+        SourceSymbols builder = new SourceSymbols(lines);
+
+        List<Object> diagnostics = new ArrayList<>();
+        for (Diagnostic diagnostic : analysis.diagnostics) {
+            int line = Math.max(0, diagnostic.line - 1);
+            int end = line < lines.length ? lines[line].length() : 0;
+            diagnostics.add(Json.object(
+                "range", range(line, diagnostic.column, line, Math.max(end, diagnostic.column)),
+                "severity", diagnostic.isError() ? 1 : 2,
+                "code", diagnostic.code,
+                "source", "flask-jinja2-compiler",
+                "message", diagnostic.message));
+        }
+
+        List<Object> symbols = new ArrayList<>();
+        ASTNode ast = analysis.getAST();
+        SourceLanguage language = analysis.compilation.language;
+        if (language == SourceLanguage.PYTHON && ast != null) {
+            builder.python(ast.getChildren(), symbols, false);
+        } else if (language == SourceLanguage.JINJA2 && ast != null) {
+            builder.template(ast, symbols);
+        } else if (analysis.cssSymbolTable != null) {
+            builder.css(analysis.cssSymbolTable.getAllEntries(), symbols);
+        }
+
+        // The symbol table knows usages; scopes it has exited survive only in the outline
+        if (analysis.symbolTable != null) {
+            for (SymbolTableEntry entry : analysis.symbolTable.getEntriesAtLevel(0)) {
+                if (entry.getType() != null && entry.getType().startsWith("builtin.")) continue;
+                builder.declarations.put(entry.getName(), entry.getLineOfDeclaration());
+                builder.usages.put(entry.getName(), new ArrayList<>(entry.getLinesOfUsage()));
+            }
+        }
+
+        return new DocumentIndex(uri, version, language, lines, diagnostics, symbols,
+            builder.declarations, builder.usages, analysis.elapsedNanos);
+    }
+
+    // ==================== QUERIES ====================
+
+    // LSP Location of the declaration of name, or null
+    Map<String, Object> definition(String name) {
+        Integer line = declarations.get(name);
+        if (line == null || line <= 0) {
+            return null;
+        }
+        return Json.object("uri", uri, "range", nameRange(line - 1, name));
+    }
+
+    List<Object> references(String name, boolean includeDeclaration) {
+        List<Object> locations = new ArrayList<>();
+        if (includeDeclaration && definition(name) != null) {
+            locations.add(definition(name));
+        }
+        for (int line : usages.getOrDefault(name, Collections.emptyList())) {
+            if (line > 0) {
+                locations.add(Json.object("uri", uri, "range", nameRange(line - 1, name)));
+            }
+        }
+        return locations;
+    }
+
+    boolean declares(String name) {
+        return declarations.containsKey(name);
+    }
+
+    private Map<String, Object> nameRange(int line, String name) {
+        int column = line < lines.length ? Math.max(0, indexOfName(lines[line], name)) : 0;
+        return range(line, column, line, column + name.length());
+    }
+
+    static Map<String, Object> range(int startLine, int startCharacter, int endLine, int endCharacter) {
+        return Json.object(
+            "start", Json.object("line", startLine, "character", startCharacter),
+            "end", Json.object("line", endLine, "character", endCharacter));
+    }
+
+    // First whole-word occurrence, or -1
+    static int indexOfName(String line, String name) {
+        int from = 0;
+        int index;
+        while ((index = line.indexOf(name, from)) >= 0) {
+            boolean startsWord = index == 0 || !isNameChar(line.charAt(index - 1));
+            int end = index + name.length();
+            boolean endsWord = end == line.length() || !isNameChar(line.charAt(end));
+            if (startsWord && endsWord) {
+                return index;
+            }
+            from = index + 1;
+        }
+        return -1;
+    }
+
+    // CSS names may contain '-' (custom properties, class names)
+    static boolean isNameChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '_' || c == '-';
+    }
+
+    // ==================== OUTLINE ====================
+
+    private static class SourceSymbols {
+        final String[] lines;
+        final Map<String, Integer> declarations = new HashMap<>();
+        final Map<String, List<Integer>> usages = new HashMap<>();
+
+        SourceSymbols(String[] lines) {
+            this.lines = lines;
+        }
+
+        void python(List<ASTNode> statements, List<Object> out, boolean inClass) {
+            for (ASTNode node : statements) {
+                if (node instanceof FlaskRouteFunction) {
+                    FlaskRouteFunction route = (FlaskRouteFunction) node;
+                    out.add(symbol(route.getFunctionName(), String.join(", ", route.getRoutePaths()),
+                        FUNCTION, route.getFunctionDef().getLineNumber(), new ArrayList<>()));
+                } else if (node instanceof FunctionDefNode) {
+                    FunctionDefNode function = (FunctionDefNode) node;
+                    out.add(symbol(function.getFunctionName(), null, inClass ? METHOD : FUNCTION,
+                        function.getLineNumber(), new ArrayList<>()));
+                } else if (node instanceof ClassDefNode) {
+                    ClassDefNode classDef = (ClassDefNode) node;
+                    List<Object> members = new ArrayList<>();
+                    python(classDef.getBody(), members, true);
+                    out.add(symbol(classDef.getClassName(), null, CLASS, classDef.getLineNumber(), members));
+                } else if (node instanceof FlaskAppNode) {
+                    FlaskAppNode app = (FlaskAppNode) node;
+                    out.add(symbol(app.getAppVariableName(), "Flask(" + app.getModuleName() + ")", VARIABLE,
+                        app.getLineNumber(), new ArrayList<>()));
+                } else if (node instanceof AssignmentNode) {
+                    for (ExpressionNode target : ((AssignmentNode) node).getTargets()) {
+                        if (target instanceof IdentifierNode) {
+                            out.add(symbol(target.getName(), null, inClass ? FIELD : VARIABLE,
+                                node.getLineNumber(), new ArrayList<>()));
+                        }
+                    }
+                }
+            }
+        }
+
+        void template(ASTNode node, List<Object> out) {
+            for (ASTNode child : node.getChildren()) {
+                List<Object> target = out;
+                if (child instanceof BlockNode) {
+                    List<Object> nested = new ArrayList<>();
+                    out.add(symbol(((BlockNode) child).getBlockName(), "block", NAMESPACE, child.getLineNumber(), nested));
+                    target = nested;
+                } else if (child instanceof JinjaMacroNode) {
+                    List<Object> nested = new ArrayList<>();
+                    out.add(symbol(child.getName(), "macro", FUNCTION, child.getLineNumber(), nested));
+                    target = nested;
+                } else if (child instanceof JinjaSetNode) {
+                    out.add(symbol(((JinjaSetNode) child).getVariableName(), "set", VARIABLE,
+                        child.getLineNumber(), new ArrayList<>()));
+                }
+                template(child, target);
+            }
+        }
+
+        void css(List<CSSSymbolTableEntry> entries, List<Object> out) {
+            for (CSSSymbolTableEntry entry : entries) {
+                // Nested entries are listed under their parent
+                if (entry.getParent() == null) {
+                    out.add(css(entry));
+                }
+            }
+        }
+
+        private Map<String, Object> css(CSSSymbolTableEntry entry) {
+            List<Object> children = new ArrayList<>();
+            for (CSSSymbolTableEntry child : entry.getChildren()) {
+                children.add(css(child));
+            }
+            int kind;
+            switch (entry.getType()) {
+                case VARIABLE: kind = VARIABLE; break;
+                case KEYFRAME: kind = EVENT; break;
+                case MEDIA_QUERY: kind = NAMESPACE; break;
+                case AT_RULE: kind = MODULE; break;
+                default: kind = CLASS;
+            }
+            return symbol(entry.getName(), entry.getType().getDisplayName(), kind, entry.getLineNumber(), children);
+        }
+
+        private Map<String, Object> symbol(String name, String detail, int kind, int line, List<Object> children) {
+            if (name == null || name.isEmpty()) {
+                name = "?";
+            }
+            declarations.putIfAbsent(name, line);
+
+            int index = Math.max(0, line - 1);
+            String text = index < lines.length ? lines[index] : "";
+            int column = Math.max(0, indexOfName(text, name));
+            Map<String, Object> symbol = Json.object(
+                "name", name,
+                "kind", kind,
+                "range", range(index, 0, index, Math.max(text.length(), column + name.length())),
+                "selectionRange", range(index, column, index, column + name.length()));
+            if (detail != null) {
+                symbol.put("detail", detail);
+            }
+            if (!children.isEmpty()) {
+                symbol.put("children", children);
+            }
+            return symbol;
+        }
+    }
+}
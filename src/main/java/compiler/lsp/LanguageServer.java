@@ -0,0 +1,508 @@
+package compiler.lsp;
+
+import compiler.parsing.DFACache;
+import compiler.parsing.Jinja2IncrementalParser;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+import compiler.server.SourceAnalyzer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Language Server Protocol server (JSON-RPC over stdio) for Flask Python,
+ * Jinja2 templates and CSS.
+ *
+ * Every edit bumps the document's generation and (re)starts a debounce
+ * timer; when it fires, the document is analyzed on a worker pool with
+ * SourceAnalyzer (templates are re-parsed with Jinja2IncrementalParser from
+ * the previous parse). A newer edit interrupts a running analysis, which
+ * stops at its next parser rule or stage boundary and publishes nothing.
+ * Diagnostics are written by the timer thread. Requests are answered on
+ * the reader thread from the last finished DocumentIndex, so they never wait
+ * for an analysis.
+ *
+ * Supported: text sync (incremental), publishDiagnostics, definition,
+ * references and documentSymbol. Local names of functions are not
+ * resolvable, because the symbol table discards scopes it has exited.
+ *
+ * Usage: LanguageServer [--debounce=MS]
+ */
+public class LanguageServer {
+
+    private static final Set<SourceAnalyzer.Stage> STAGES =
+        EnumSet.of(SourceAnalyzer.Stage.DIAGNOSTICS, SourceAnalyzer.Stage.SYMBOLS);
+
+    private static final long DEFAULT_DEBOUNCE_MILLIS = 150;
+
+    private static class Document {
+        final String uri;
+        final SourceLanguage language;
+        String text;
+        int version;
+        long generation;
+        ScheduledFuture<?> pending;
+        Future<?> running;
+        // Last template parse; taken by the analysis that re-parses from it, returned when it is done
+        Jinja2IncrementalParser.ParseResult templateParse;
+        volatile DocumentIndex index;
+
+        Document(String uri, SourceLanguage language) {
+            this.uri = uri;
+            this.language = language;
+        }
+    }
+
+    private final InputStream in;
+    private final OutputStream out;
+    private final long debounceMillis;
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService timers = Executors.newSingleThreadScheduledExecutor(daemon("lsp-debounce"));
+    private final ExecutorService workers =
+        Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), daemon("lsp-analysis"));
+    private final ThreadLocal<SourceAnalyzer> analyzers = ThreadLocal.withInitial(() -> {
+        SourceAnalyzer analyzer = new SourceAnalyzer();
+        analyzer.setInterruptible(true);
+        return analyzer;
+    });
+    private final ThreadLocal<Jinja2IncrementalParser> templateParsers = ThreadLocal.withInitial(() -> {
+        Jinja2IncrementalParser parser = new Jinja2IncrementalParser();
+        parser.setInterruptible(true);
+        return parser;
+    });
+    private boolean shutdownRequested;
+
+    public LanguageServer(InputStream in, OutputStream out, long debounceMillis) {
+        this.in = new BufferedInputStream(in);
+        this.out = out;
+        this.debounceMillis = debounceMillis;
+    }
+
+    public static void main(String[] args) throws IOException {
+        long debounce = DEFAULT_DEBOUNCE_MILLIS;
+        for (String arg : args) {
+            if (arg.startsWith("--debounce=")) {
+                debounce = Long.parseLong(arg.substring("--debounce=".length()));
+            }
+        }
+
+        // stdout carries the protocol; a stray print must not corrupt it
+        OutputStream protocolOut = new BufferedOutputStream(new FileOutputStream(FileDescriptor.out));
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        Thread warmUp = new Thread(() -> System.err.println("Warm-up: " + DFACache.warmUp()), "lsp-warm-up");
+        warmUp.setDaemon(true);
+        warmUp.start();
+
+        int exitCode = new LanguageServer(new FileInputStream(FileDescriptor.in), protocolOut, debounce).run();
+        System.exit(exitCode);
+    }
+
+    // Serves until exit (0 after shutdown, 1 otherwise) or end of input
+    public int run() throws IOException {
+        try {
+            String body;
+            while ((body = readMessage()) != null) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> message = (Map<String, Object>) Json.parse(body);
+                String method = (String) message.get("method");
+                if ("exit".equals(method)) {
+                    return shutdownRequested ? 0 : 1;
+                }
+                handle(message);
+            }
+            return 1;
+        } finally {
+            timers.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    // ==================== DISPATCH ====================
+
+    @SuppressWarnings("unchecked")
+    private void handle(Map<String, Object> message) throws IOException {
+        String method = (String) message.get("method");
+        Object id = message.get("id");
+        Map<String, Object> params = (Map<String, Object>) message.getOrDefault("params", Collections.emptyMap());
+        if (method == null) {
+            return; // a response to a request we never send
+        }
+
+        try {
+            Object result;
+            switch (method) {
+                case "initialize":
+                    result = initialize();
+                    break;
+                case "shutdown":
+                    shutdownRequested = true;
+                    result = null;
+                    break;
+                case "textDocument/didOpen":
+                    didOpen((Map<String, Object>) params.get("textDocument"));
+                    return;
+                case "textDocument/didChange":
+                    didChange(params);
+                    return;
+                case "textDocument/didSave":
+                    schedule(document(params), 0);
+                    return;
+                case "textDocument/didClose":
+                    didClose(params);
+                    return;
+                case "textDocument/definition":
+                    result = definition(params);
+                    break;
+                case "textDocument/references":
+                    result = references(params);
+                    break;
+                case "textDocument/documentSymbol": {
+                    Document document = document(params);
+                    DocumentIndex index = document != null ? document.index : null;
+                    result = index != null ? index.symbols : Collections.emptyList();
+                    break;
+                }
+                default:
+                    if (id != null) {
+                        sendError(id, -32601, "Method not found: " + method);
+                    }
+                    return; // notifications such as initialized and $/cancelRequest need nothing
+            }
+            if (id != null) {
+                send(Json.object("jsonrpc", "2.0", "id", id, "result", result));
+            }
+        } catch (RuntimeException e) {
+            if (id != null) {
+                sendError(id, -32603, e.toString());
+            }
+        }
+    }
+
+    private Map<String, Object> initialize() {
+        return Json.object(
+            "capabilities", Json.object(
+                "textDocumentSync", Json.object("openClose", true, "change", 2, "save", Json.object("includeText", false)),
+                "definitionProvider", true,
+                "referencesProvider", true,
+                "documentSymbolProvider", true),
+            "serverInfo", Json.object("name", "flask-jinja2-compiler", "version", "1.0.0"));
+    }
+
+    // ==================== DOCUMENT SYNC ====================
+
+    private void didOpen(Map<String, Object> textDocument) {
+        String uri = (String) textDocument.get("uri");
+        Document document = new Document(uri, SourceLanguage.fromFileName(uri));
+        synchronized (document) {
+            document.text = (String) textDocument.get("text");
+            document.version = ((Number) textDocument.get("version")).intValue();
+        }
+        documents.put(uri, document);
+        schedule(document, 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void didChange(Map<String, Object> params) {
+        Document document = document(params);
+        if (document == null) return;
+        synchronized (document) {
+            for (Object change : (List<Object>) params.get("contentChanges")) {
+                document.text = applyChange(document.text, (Map<String, Object>) change);
+            }
+            document.version = ((Number) ((Map<String, Object>) params.get("textDocument")).get("version")).intValue();
+        }
+        schedule(document, debounceMillis);
+    }
+
+    private void didClose(Map<String, Object> params) throws IOException {
+        Document document = document(params);
+        if (document == null) return;
+        synchronized (document) {
+            document.generation++;
+            if (document.pending != null) document.pending.cancel(false);
+            if (document.running != null) document.running.cancel(true);
+        }
+        documents.remove(document.uri);
+        publishDiagnostics(document.uri, null, Collections.emptyList());
+    }
+
+    // A range change replaces the text between two (line, UTF-16 character) positions; no range replaces all
+    @SuppressWarnings("unchecked")
+    static String applyChange(String text, Map<String, Object> change) {
+        String inserted = (String) change.get("text");
+        Map<String, Object> range = (Map<String, Object>) change.get("range");
+        if (range == null) {
+            return inserted;
+        }
+        int start = offsetOf(text, (Map<String, Object>) range.get("start"));
+        int end = offsetOf(text, (Map<String, Object>) range.get("end"));
+        return text.substring(0, start) + inserted + text.substring(Math.max(start, end));
+    }
+
+    private static int offsetOf(String text, Map<String, Object> position) {
+        int line = ((Number) position.get("line")).intValue();
+        int character = ((Number) position.get("character")).intValue();
+        int offset = 0;
+        for (int i = 0; i < line; i++) {
+            int newline = text.indexOf('\n', offset);
+            if (newline < 0) return text.length();
+            offset = newline + 1;
+        }
+        int lineEnd = text.indexOf('\n', offset);
+        return Math.min(offset + character, lineEnd < 0 ? text.length() : lineEnd);
+    }
+
+    // ==================== ANALYSIS ====================
+
+    // Restarts the document's timer and interrupts its running analysis
+    private void schedule(Document document, long delayMillis) {
+        if (document == null) return;
+        synchronized (document) {
+            long generation = ++document.generation;
+            if (document.pending != null) {
+                document.pending.cancel(false);
+            }
+            if (document.running != null) {
+                document.running.cancel(true);
+            }
+            document.pending = timers.schedule(() -> {
+                synchronized (document) {
+                    if (document.generation == generation) {
+                        document.running = workers.submit(() -> analyze(document, generation));
+                    }
+                }
+            }, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void analyze(Document document, long generation) {
+        String text;
+        int version;
+        Jinja2IncrementalParser.ParseResult previousParse;
+        synchronized (document) {
+            if (document.generation != generation) return;
+            text = document.text;
+            version = document.version;
+            previousParse = document.templateParse;
+            document.templateParse = null;
+        }
+
+        Jinja2IncrementalParser.ParseResult templateParse = null;
+        try {
+            SourceAnalyzer.Analysis analysis;
+            if (document.language == SourceLanguage.JINJA2) {
+                long start = System.nanoTime();
+                templateParse = parseTemplate(previousParse, text);
+                if (isStale(document, generation)) return;
+                FileCompilationResult compilation = new FileCompilationResult(document.uri, SourceLanguage.JINJA2,
+                    templateParse.hasErrors() ? null : templateParse.ast, null, 0,
+                    new ArrayList<>(templateParse.syntaxErrors), null, System.nanoTime() - start);
+                analysis = analyzers.get().analyze(compilation, STAGES);
+            } else {
+                analysis = analyzers.get().analyze(document.uri, text, document.language, STAGES);
+            }
+            if (isStale(document, generation)) return;
+
+            DocumentIndex index = DocumentIndex.build(document.uri, version, text, analysis);
+            synchronized (document) {
+                if (document.generation != generation) return;
+                document.index = index;
+            }
+            // Workers get interrupted, so they never write to the client themselves
+            timers.execute(() -> {
+                try {
+                    publishDiagnostics(document.uri, version, index.diagnostics);
+                } catch (IOException e) {
+                    System.err.println("Cannot publish diagnostics: " + e);
+                }
+            });
+        } catch (CancellationException e) {
+            // Superseded by a newer edit
+        } catch (RuntimeException e) {
+            System.err.println("Analysis of " + document.uri + " failed: " + e);
+        } finally {
+            // Its AST is no longer read here, so the next analysis may re-parse from it;
+            // an interrupted re-parse leaves the previous parse intact
+            Jinja2IncrementalParser.ParseResult reusable = templateParse != null ? templateParse : previousParse;
+            if (reusable != null) {
+                synchronized (document) {
+                    if (document.templateParse == null) {
+                        document.templateParse = reusable;
+                    }
+                }
+            }
+        }
+    }
+
+    // One edit spanning everything between the common prefix and suffix of the two versions
+    private Jinja2IncrementalParser.ParseResult parseTemplate(Jinja2IncrementalParser.ParseResult previous, String text) {
+        Jinja2IncrementalParser parser = templateParsers.get();
+        if (previous == null) {
+            return parser.parse(text);
+        }
+        String old = previous.source;
+        int prefix = 0;
+        int max = Math.min(old.length(), text.length());
+        while (prefix < max && old.charAt(prefix) == text.charAt(prefix)) {
+            prefix++;
+        }
+        int suffix = 0;
+        while (suffix < max - prefix
+            && old.charAt(old.length() - 1 - suffix) == text.charAt(text.length() - 1 - suffix)) {
+            suffix++;
+        }
+        return parser.reparse(previous, prefix, old.length() - prefix - suffix,
+            text.substring(prefix, text.length() - suffix));
+    }
+
+    private static boolean isStale(Document document, long generation) {
+        synchronized (document) {
+            return document.generation != generation;
+        }
+    }
+
+    private void publishDiagnostics(String uri, Integer version, List<Object> diagnostics) throws IOException {
+        Map<String, Object> params = Json.object("uri", uri, "diagnostics", diagnostics);
+        if (version != null) {
+            params.put("version", version);
+        }
+        send(Json.object("jsonrpc", "2.0", "method", "textDocument/publishDiagnostics", "params", params));
+    }
+
+    // ==================== NAVIGATION ====================
+
+    private Object definition(Map<String, Object> params) {
+        Document document = document(params);
+        String name = nameAt(document, params);
+        if (name == null) return null;
+
+        DocumentIndex own = document.index;
+        if (own != null && own.declares(name)) {
+            return own.definition(name);
+        }
+        // Template context names, CSS classes used in templates, ...
+        for (Document other : documents.values()) {
+            DocumentIndex index = other.index;
+            if (other != document && index != null && index.declares(name)) {
+                return index.definition(name);
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object references(Map<String, Object> params) {
+        Document document = document(params);
+        String name = nameAt(document, params);
+        List<Object> locations = new ArrayList<>();
+        if (name == null) return locations;
+
+        Map<String, Object> context = (Map<String, Object>) params.get("context");
+        boolean includeDeclaration = context != null && Boolean.TRUE.equals(context.get("includeDeclaration"));
+        for (Document other : documents.values()) {
+            DocumentIndex index = other.index;
+            if (index != null && index.declares(name)) {
+                locations.addAll(index.references(name, includeDeclaration));
+            }
+        }
+        return locations;
+    }
+
+    // The name under the cursor in the document's current text
+    @SuppressWarnings("unchecked")
+    private static String nameAt(Document document, Map<String, Object> params) {
+        if (document == null) return null;
+        String text;
+        synchronized (document) {
+            text = document.text;
+        }
+        int offset = offsetOf(text, (Map<String, Object>) params.get("position"));
+        int start = offset;
+        while (start > 0 && DocumentIndex.isNameChar(text.charAt(start - 1))) start--;
+        int end = offset;
+        while (end < text.length() && DocumentIndex.isNameChar(text.charAt(end))) end++;
+        return start < end ? text.substring(start, end) : null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Document document(Map<String, Object> params) {
+        Map<String, Object> textDocument = (Map<String, Object>) params.get("textDocument");
+        return textDocument != null ? documents.get((String) textDocument.get("uri")) : null;
+    }
+
+    // ==================== TRANSPORT ====================
+
+    // Body of the next message, or null at end of input
+    private String readMessage() throws IOException {
+        int length = -1;
+        String header;
+        while (!(header = readHeaderLine()).isEmpty()) {
+            if (header.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                length = Integer.parseInt(header.substring(15).trim());
+            }
+        }
+        if (length < 0) {
+            return null;
+        }
+        byte[] body = in.readNBytes(length);
+        if (body.length < length) {
+            return null;
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    // Header lines end with CRLF; end of input reads as an empty header block
+    private String readHeaderLine() throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) return "";
+            if (b != '\r') line.append((char) b);
+        }
+        return line.toString();
+    }
+
+    private void sendError(Object id, int code, String message) throws IOException {
+        send(Json.object("jsonrpc", "2.0", "id", id, "error", Json.object("code", code, "message", message)));
+    }
+
+    // Responses come from the reader thread, diagnostics from workers
+    private synchronized void send(Map<String, Object> message) throws IOException {
+        byte[] body = Json.write(message).getBytes(StandardCharsets.UTF_8);
+        out.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(body);
+        out.flush();
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,76 @@
+package compiler.parsing;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+
+/**
+ * Passes on only the tokens of one channel (plus EOF).
+ *
+ * CommonTokenStream hides off-channel tokens from the parser, but
+ * UnbufferedTokenStream hands over every token it reads, so streamed parses
+ * put this between the lexer and the stream.
+ */
+public class ChannelFilterTokenSource implements TokenSource {
+
+    private final TokenSource source;
+    private final int channel;
+
+    // Every token read from the source, filtered or not
+    private int tokensRead = 0;
+
+    public ChannelFilterTokenSource(TokenSource source, int channel) {
+        this.source = source;
+        this.channel = channel;
+    }
+
+    public ChannelFilterTokenSource(TokenSource source) {
+        this(source, Token.DEFAULT_CHANNEL);
+    }
+
+    @Override
+    public Token nextToken() {
+        Token token = source.nextToken();
+        tokensRead++;
+        while (token.getChannel() != channel && token.getType() != Token.EOF) {
+            token = source.nextToken();
+            tokensRead++;
+        }
+        return token;
+    }
+
+    public int getTokensRead() {
+        return tokensRead;
+    }
+
+    @Override
+    public int getLine() {
+        return source.getLine();
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return source.getCharPositionInLine();
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return source.getInputStream();
+    }
+
+    @Override
+    public String getSourceName() {
+        return source.getSourceName();
+    }
+
+    @Override
+    public void setTokenFactory(TokenFactory<?> factory) {
+        source.setTokenFactory(factory);
+    }
+
+    @Override
+    public TokenFactory<?> getTokenFactory() {
+        return source.getTokenFactory();
+    }
+}
@@ -0,0 +1,313 @@
+package compiler.parsing;
+
+import grammar.CSSLexer;
+import grammar.CSSParser;
+import grammar.Jinja2Lexer;
+import grammar.Jinja2Parser;
+import grammar.PythonLexer;
+import grammar.PythonParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.atn.ATNSimulator;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.antlr.v4.runtime.dfa.DFAState;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Control over the prediction DFAs of the six generated recognizers.
+ *
+ * ANTLR keeps one DFA per decision in a static array of each generated
+ * lexer and parser class, shared by all their instances, and grows it as
+ * inputs are predicted; a cold JVM simulates the ATN for almost every
+ * decision of its first files. warmUp() compiles a bundled corpus so
+ * those states exist before real input arrives, stats() reports how many
+ * there are, clear() drops them (e.g. under memory pressure) and
+ * snapshot()/restore() put back a saved set.
+ *
+ * The DFAs are process-wide: clear() and restore() must not run while a
+ * parse is in progress on another thread.
+ */
+public final class DFACache {
+
+    // Bundled inputs covering the three languages (src/main/resources/examples)
+    private static final String[] CORPUS = {
+        "examples/app.py",
+        "examples/test_python.py",
+        "examples/test_dict_list_literals.py",
+        "examples/test_cpython_indentation.py",
+        "examples/test1_display_products.html",
+        "examples/test2_add_product.html",
+        "examples/test3_product_details.html",
+        "examples/test_jinja2_advanced.html",
+        "examples/sample_template.html",
+        "examples/sample_styles.css",
+        "examples/testmaram1.css"
+    };
+
+    private static final String[] NAMES = {
+        "PythonLexer", "PythonParser", "Jinja2Lexer", "Jinja2Parser", "CSSLexer", "CSSParser"
+    };
+
+    // The static DFA arrays, reached through one idle instance of each recognizer
+    private static DFA[][] tables;
+
+    public static class Stats {
+        public final String recognizer;
+        public final int decisions;
+        public final int decisionsUsed;
+        public final int states;
+
+        Stats(String recognizer, int decisions, int decisionsUsed, int states) {
+            this.recognizer = recognizer;
+            this.decisions = decisions;
+            this.decisionsUsed = decisionsUsed;
+            this.states = states;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-13s %6d states, %4d of %4d decisions",
+                recognizer, states, decisionsUsed, decisions);
+        }
+    }
+
+    public static class WarmUpResult {
+        public final int files;
+        public final int failedFiles;
+        public final int statesBefore;
+        public final int statesAfter;
+        public final long elapsedNanos;
+
+        WarmUpResult(int files, int failedFiles, int statesBefore, int statesAfter, long elapsedNanos) {
+            this.files = files;
+            this.failedFiles = failedFiles;
+            this.statesBefore = statesBefore;
+            this.statesAfter = statesAfter;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d files (%d failed) in %.1f ms, DFA states %d -> %d",
+                files, failedFiles, elapsedNanos / 1e6, statesBefore, statesAfter);
+        }
+    }
+
+    /** Copies of all DFAs at one point in time; restore() leaves it unchanged for reuse. */
+    public static final class Snapshot {
+        private final DFA[][] dfas;
+        private final int states;
+
+        private Snapshot(DFA[][] dfas) {
+            this.dfas = dfas;
+            int count = 0;
+            for (DFA[] table : dfas) {
+                for (DFA dfa : table) {
+                    count += dfa.states.size();
+                }
+            }
+            this.states = count;
+        }
+
+        public int getStateCount() {
+            return states;
+        }
+    }
+
+    private DFACache() {
+    }
+
+    // ==================== WARM-UP ====================
+
+    // Compiles the bundled corpus with a throwaway front end
+    public static WarmUpResult warmUp() {
+        List<String[]> sources = new ArrayList<>();
+        for (String resource : CORPUS) {
+            try (InputStream is = DFACache.class.getClassLoader().getResourceAsStream(resource)) {
+                if (is != null) {
+                    sources.add(new String[] { resource, new String(is.readAllBytes(), StandardCharsets.UTF_8) });
+                }
+            } catch (IOException e) {
+                // A missing corpus file only leaves some decisions cold
+            }
+        }
+        return compileAll(sources);
+    }
+
+    // Compiles the given files, e.g. the project about to be served
+    public static WarmUpResult warmUp(List<Path> files) {
+        List<String[]> sources = new ArrayList<>();
+        for (Path file : files) {
+            try {
+                sources.add(new String[] { file.toString(), Files.readString(file) });
+            } catch (IOException e) {
+                // Skipped like an unreadable corpus file
+            }
+        }
+        return compileAll(sources);
+    }
+
+    private static WarmUpResult compileAll(List<String[]> sources) {
+        long start = System.nanoTime();
+        int before = totalStates();
+        int failed = 0;
+        LanguageFrontEnd frontEnd = new LanguageFrontEnd(ParseMode.SLL_THEN_LL);
+        for (String[] source : sources) {
+            SourceLanguage language = SourceLanguage.fromFileName(source[0]);
+            if (!frontEnd.compile(source[0], source[1], language).isSuccess()) {
+                failed++;
+            }
+        }
+        return new WarmUpResult(sources.size(), failed, before, totalStates(), System.nanoTime() - start);
+    }
+
+    // ==================== INSPECTION ====================
+
+    public static List<Stats> stats() {
+        DFA[][] dfas = tables();
+        List<Stats> stats = new ArrayList<>();
+        for (int r = 0; r < dfas.length; r++) {
+            int used = 0;
+            int states = 0;
+            for (DFA dfa : dfas[r]) {
+                int size = dfa.states.size();
+                if (size > 0) used++;
+                states += size;
+            }
+            stats.add(new Stats(NAMES[r], dfas[r].length, used, states));
+        }
+        return stats;
+    }
+
+    public static int totalStates() {
+        int total = 0;
+        for (Stats stats : stats()) {
+            total += stats.states;
+        }
+        return total;
+    }
+
+    // ==================== CLEAR / SNAPSHOT / RESTORE ====================
+
+    // Replaces every DFA with an empty one (what ATNSimulator.clearDFA does per recognizer)
+    public static void clear() {
+        for (DFA[] table : tables()) {
+            for (int d = 0; d < table.length; d++) {
+                table[d] = new DFA(table[d].atnStartState, d);
+            }
+        }
+    }
+
+    public static Snapshot snapshot() {
+        DFA[][] live = tables();
+        DFA[][] copy = new DFA[live.length][];
+        for (int r = 0; r < live.length; r++) {
+            copy[r] = new DFA[live[r].length];
+            for (int d = 0; d < live[r].length; d++) {
+                copy[r][d] = copy(live[r][d]);
+            }
+        }
+        return new Snapshot(copy);
+    }
+
+    // Puts copies of the snapshot's DFAs in place of the current ones
+    public static void restore(Snapshot snapshot) {
+        DFA[][] live = tables();
+        for (int r = 0; r < live.length; r++) {
+            for (int d = 0; d < live[r].length; d++) {
+                live[r][d] = copy(snapshot.dfas[r][d]);
+            }
+        }
+    }
+
+    // New DFA states with the same edges; config sets are read-only once in a DFA, so they are shared
+    private static DFA copy(DFA dfa) {
+        DFA copy = new DFA(dfa.atnStartState, dfa.decision);
+        Map<DFAState, DFAState> copies = new IdentityHashMap<>();
+        synchronized (dfa.states) {
+            for (DFAState state : dfa.states.keySet()) {
+                DFAState stateCopy = copy(state, copies);
+                copy.states.put(stateCopy, stateCopy);
+            }
+            DFAState s0 = dfa.s0;
+            if (dfa.isPrecedenceDfa()) {
+                // The precedence start state only holds edges (one per precedence level)
+                if (s0 != null && s0.edges != null) {
+                    copy.s0.edges = edges(s0.edges, copies);
+                }
+            } else if (s0 != null) {
+                copy.s0 = copy(s0, copies);
+            }
+            for (Map.Entry<DFAState, DFAState> entry : new ArrayList<>(copies.entrySet())) {
+                if (entry.getKey().edges != null) {
+                    entry.getValue().edges = edges(entry.getKey().edges, copies);
+                }
+            }
+        }
+        return copy;
+    }
+
+    private static DFAState copy(DFAState state, Map<DFAState, DFAState> copies) {
+        if (state == ATNSimulator.ERROR) {
+            return state;
+        }
+        DFAState copy = copies.get(state);
+        if (copy == null) {
+            copy = new DFAState(state.configs);
+            copy.stateNumber = state.stateNumber;
+            copy.isAcceptState = state.isAcceptState;
+            copy.prediction = state.prediction;
+            copy.lexerActionExecutor = state.lexerActionExecutor;
+            copy.requiresFullContext = state.requiresFullContext;
+            copy.predicates = state.predicates;
+            copies.put(state, copy);
+        }
+        return copy;
+    }
+
+    private static DFAState[] edges(DFAState[] edges, Map<DFAState, DFAState> copies) {
+        DFAState[] copy = new DFAState[edges.length];
+        for (int i = 0; i < edges.length; i++) {
+            if (edges[i] != null) {
+                copy[i] = copy(edges[i], copies);
+            }
+        }
+        return copy;
+    }
+
+    private static synchronized DFA[][] tables() {
+        if (tables == null) {
+            PythonLexer pythonLexer = new PythonLexer(CharStreams.fromString(""));
+            Jinja2Lexer jinja2Lexer = new Jinja2Lexer(CharStreams.fromString(""));
+            CSSLexer cssLexer = new CSSLexer(CharStreams.fromString(""));
+            tables = new DFA[][] {
+                lexerTable(pythonLexer),
+                parserTable(new PythonParser(new CommonTokenStream(pythonLexer))),
+                lexerTable(jinja2Lexer),
+                parserTable(new Jinja2Parser(new CommonTokenStream(jinja2Lexer))),
+                lexerTable(cssLexer),
+                parserTable(new CSSParser(new CommonTokenStream(cssLexer)))
+            };
+        }
+        return tables;
+    }
+
+    private static DFA[] lexerTable(Lexer lexer) {
+        return lexer.getInterpreter().decisionToDFA;
+    }
+
+    private static DFA[] parserTable(Parser parser) {
+        return parser.getInterpreter().decisionToDFA;
+    }
+}
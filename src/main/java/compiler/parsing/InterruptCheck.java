@@ -0,0 +1,44 @@
+package compiler.parsing;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Parse listener that aborts the parse with a CancellationException once the
+ * parsing thread has been interrupted, checked at every rule entry. Lets a
+ * caller cancel a parse that has become useless (e.g. an editor analysis of
+ * an outdated text) instead of waiting for a slow LL re-parse to finish.
+ *
+ * Not a ParseCancellationException, so TwoStageParser does not mistake it
+ * for an SLL failure.
+ */
+public final class InterruptCheck implements ParseTreeListener {
+
+    public static final InterruptCheck INSTANCE = new InterruptCheck();
+
+    private InterruptCheck() {
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        if (Thread.currentThread().isInterrupted()) {
+            throw new CancellationException("Parse interrupted");
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+    }
+}
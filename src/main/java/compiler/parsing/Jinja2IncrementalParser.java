@@ -0,0 +1,300 @@
+package compiler.parsing;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.ProgramNode;
+import compiler.ast.jinjaHtml.HTMLTextNode;
+import compiler.visitors.SimpleJinja2ASTBuilder;
+import grammar.Jinja2Lexer;
+import grammar.Jinja2Parser;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Re-parses a Jinja2 template after a text edit, touching only the top-level
+ * `content` items of `template` that the edit can affect.
+ *
+ * Every top-level item starts and ends in the lexer's DEFAULT_MODE, so the text
+ * from the item before the edit to the item after it can be lexed and parsed on
+ * its own as a `template`. Items outside that window keep their AST subtrees
+ * (shifted by the edit's line delta). When the window does not re-align with the
+ * old item boundaries, or the previous parse had errors, the whole template is
+ * parsed again.
+ *
+ * Reused subtrees are shared with (and updated in place from) the previous result,
+ * so a result must not be used after it has been passed to reparse().
+ *
+ * An interruptible parser aborts with a CancellationException when its
+ * thread is interrupted (see InterruptCheck). Reused subtrees are only
+ * updated once all parsing is done, so the previous result stays usable.
+ */
+public class Jinja2IncrementalParser {
+
+    // One top-level content item: source range [startOffset, endOffset) and its AST
+    public static class TemplateItem {
+        public final int startOffset;
+        public final int endOffset;
+        public final ASTNode node;           // null for whitespace, comments and stray close tags
+        public final boolean openEnded;      // element without close tag, absorbs what follows
+
+        public TemplateItem(int startOffset, int endOffset, ASTNode node, boolean openEnded) {
+            this.startOffset = startOffset;
+            this.endOffset = endOffset;
+            this.node = node;
+            this.openEnded = openEnded;
+        }
+
+        TemplateItem shift(int offsetDelta, int lineDelta) {
+            if (node != null && lineDelta != 0) {
+                node.shiftLineNumbers(lineDelta);
+            }
+            return new TemplateItem(startOffset + offsetDelta, endOffset + offsetDelta, node, openEnded);
+        }
+    }
+
+    public static class ParseResult {
+        public final String source;
+        public final ProgramNode ast;
+        public final List<TemplateItem> items;
+        public final List<String> syntaxErrors;
+        public final int reparsedItems;
+        public final int reusedItems;
+        public final boolean fullReparse;
+
+        ParseResult(String source, ProgramNode ast, List<TemplateItem> items, List<String> syntaxErrors,
+                    int reparsedItems, int reusedItems, boolean fullReparse) {
+            this.source = source;
+            this.ast = ast;
+            this.items = Collections.unmodifiableList(items);
+            this.syntaxErrors = Collections.unmodifiableList(syntaxErrors);
+            this.reparsedItems = reparsedItems;
+            this.reusedItems = reusedItems;
+            this.fullReparse = fullReparse;
+        }
+
+        public boolean hasErrors() {
+            return !syntaxErrors.isEmpty();
+        }
+    }
+
+    // Items and errors of one parsed window
+    private static class Window {
+        final List<TemplateItem> items = new ArrayList<>();
+        final List<String> errors = new ArrayList<>();
+        int firstTokenLine = 1;
+    }
+
+    private final ParseMode parseMode;
+    private Jinja2Lexer lexer;
+    private Jinja2Parser parser;
+
+    // The parser checks for thread interruption; set before the first parse
+    private boolean interruptible;
+
+    public Jinja2IncrementalParser() {
+        this(ParseMode.SLL_THEN_LL);
+    }
+
+    public Jinja2IncrementalParser(ParseMode parseMode) {
+        this.parseMode = parseMode;
+    }
+
+    public void setInterruptible(boolean interruptible) {
+        this.interruptible = interruptible;
+    }
+
+    public ParseResult parse(String source) {
+        Window window = parseWindow(source, 0, source.length(), 1, 0);
+        return assemble(source, window.items, window.errors, window.firstTokenLine,
+            window.items.size(), 0, true);
+    }
+
+    // Example: reparse(previous, 120, 3, "user.name") replaces 3 chars at offset 120
+    public ParseResult reparse(ParseResult previous, int offset, int removedLength, String insertedText) {
+        String oldSource = previous.source;
+        if (offset < 0 || removedLength < 0 || offset + removedLength > oldSource.length()) {
+            throw new IndexOutOfBoundsException(String.format(
+                "Edit [%d, %d) outside template of length %d", offset, offset + removedLength, oldSource.length()));
+        }
+
+        int editEnd = offset + removedLength;
+        String newSource = oldSource.substring(0, offset) + insertedText + oldSource.substring(editEnd);
+        List<TemplateItem> oldItems = previous.items;
+        int n = oldItems.size();
+
+        if (previous.hasErrors() || n == 0) {
+            return parse(newSource);
+        }
+
+        // Items overlapping the edit, widened by one untouched item on each side
+        int first = 0;
+        while (first < n && oldItems.get(first).endOffset < offset) {
+            first++;
+        }
+        int last = n - 1;
+        while (last >= 0 && oldItems.get(last).startOffset > editEnd) {
+            last--;
+        }
+        int lo = Math.max(0, Math.min(first, last) - 1);
+        int hi = Math.min(n - 1, Math.max(first, last) + 1);
+
+        int offsetDelta = insertedText.length() - removedLength;
+        int windowStart = lo == 0 ? 0 : oldItems.get(lo).startOffset;
+        int windowEnd = (hi == n - 1 ? oldSource.length() : oldItems.get(hi + 1).startOffset) + offsetDelta;
+
+        int[] position = lineAndColumn(newSource, windowStart);
+        Window window = parseWindow(newSource, windowStart, windowEnd, position[0], position[1]);
+
+        if (!window.errors.isEmpty() || !realigns(window.items, oldItems, lo, hi, n, offsetDelta)) {
+            return parse(newSource);
+        }
+
+        int lineDelta = countNewlines(insertedText, 0, insertedText.length())
+            - countNewlines(oldSource, offset, editEnd);
+
+        List<TemplateItem> items = new ArrayList<>(n + window.items.size() - (hi - lo + 1));
+        items.addAll(oldItems.subList(0, lo));
+        items.addAll(window.items);
+        for (int i = hi + 1; i < n; i++) {
+            items.add(oldItems.get(i).shift(offsetDelta, lineDelta));
+        }
+
+        int programLine = lo == 0 ? window.firstTokenLine : previous.ast.getLineNumber();
+        return assemble(newSource, items, window.errors, programLine,
+            window.items.size(), n - (hi - lo + 1), false);
+    }
+
+    // The re-parsed window must start and end on the old item boundaries
+    private boolean realigns(List<TemplateItem> windowItems, List<TemplateItem> oldItems,
+                             int lo, int hi, int n, int offsetDelta) {
+        if (windowItems.isEmpty()) {
+            return lo == 0 && hi == n - 1;
+        }
+        if (lo > 0 && windowItems.get(0).startOffset != oldItems.get(lo).startOffset) {
+            return false;
+        }
+        if (hi < n - 1) {
+            TemplateItem lastNew = windowItems.get(windowItems.size() - 1);
+            TemplateItem lastOld = oldItems.get(hi);
+            if (lastNew.openEnded || lastNew.endOffset != lastOld.endOffset + offsetDelta) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private ParseResult assemble(String source, List<TemplateItem> items, List<String> errors, int programLine,
+                                 int reparsed, int reused, boolean full) {
+        ProgramNode program = new ProgramNode(programLine);
+        for (TemplateItem item : items) {
+            if (item.node != null) {
+                program.addChild(item.node);
+            }
+        }
+        return new ParseResult(source, program, items, errors, reparsed, reused, full);
+    }
+
+    // ==================== WINDOW PARSING ====================
+
+    private Window parseWindow(String source, int start, int end, int line, int column) {
+        Window window = new Window();
+        BaseErrorListener collector = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                    int errorLine, int charPositionInLine, String msg,
+                                    RecognitionException e) {
+                window.errors.add(String.format("line %d:%d %s", errorLine, charPositionInLine, msg));
+            }
+        };
+
+        if (lexer == null) {
+            lexer = new Jinja2Lexer(CharStreams.fromString(source.substring(start, end)));
+        } else {
+            lexer.setInputStream(CharStreams.fromString(source.substring(start, end)));
+        }
+        lexer.setLine(line);
+        lexer.setCharPositionInLine(column);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(collector);
+
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        if (parser == null) {
+            parser = new Jinja2Parser(tokens);
+            if (interruptible) {
+                parser.addParseListener(InterruptCheck.INSTANCE);
+            }
+        } else {
+            parser.setTokenStream(tokens);
+        }
+        parser.removeErrorListeners();
+        parser.addErrorListener(collector);
+
+        TwoStageParser.Result<Jinja2Parser.TemplateContext> result =
+            TwoStageParser.parse(parser, parseMode, Jinja2Parser::template);
+        if (!window.errors.isEmpty()) {
+            return window;
+        }
+
+        Jinja2Parser.TemplateNodeContext template = (Jinja2Parser.TemplateNodeContext) result.tree;
+        window.firstTokenLine = template.start != null ? template.start.getLine() : line;
+
+        SimpleJinja2ASTBuilder builder = new SimpleJinja2ASTBuilder();
+        if (template.HTML_DOCTYPE() != null) {
+            Token doctype = template.HTML_DOCTYPE().getSymbol();
+            window.items.add(new TemplateItem(
+                start + doctype.getStartIndex(),
+                start + doctype.getStopIndex() + 1,
+                new HTMLTextNode(doctype.getText(), doctype.getLine()),
+                false));
+        }
+        for (Jinja2Parser.ContentContext content : template.content()) {
+            ASTNode node = builder.visit(content);
+            window.items.add(new TemplateItem(
+                start + content.start.getStartIndex(),
+                start + content.stop.getStopIndex() + 1,
+                node,
+                isOpenEnded(content)));
+        }
+        return window;
+    }
+
+    private static boolean isOpenEnded(Jinja2Parser.ContentContext content) {
+        if (!(content instanceof Jinja2Parser.HtmlElementContentContext)) {
+            return false;
+        }
+        Jinja2Parser.HtmlElementContext element = ((Jinja2Parser.HtmlElementContentContext) content).htmlElement();
+        return element.HTML_TAG_SLASH_CLOSE() == null && element.htmlCloseTag() == null;
+    }
+
+    // ==================== TEXT POSITIONS ====================
+
+    // 1-based line and 0-based column of an offset, as ANTLR reports them
+    private static int[] lineAndColumn(String text, int offset) {
+        int line = 1;
+        int lineStart = 0;
+        for (int i = 0; i < offset; i++) {
+            if (text.charAt(i) == '\n') {
+                line++;
+                lineStart = i + 1;
+            }
+        }
+        return new int[] { line, offset - lineStart };
+    }
+
+    private static int countNewlines(String text, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (text.charAt(i) == '\n') {
+                count++;
+            }
+        }
+        return count;
+    }
+}
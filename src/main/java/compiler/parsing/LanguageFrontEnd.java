@@ -0,0 +1,372 @@
+package compiler.parsing;
+
+import compiler.ast.core.ASTNode;
+import compiler.cache.ASTCache;
+import compiler.project.FileCompilationResult;
+import compiler.visitors.CSSASTBuilder;
+import compiler.visitors.DirectASTBuilder;
+import compiler.visitors.SimpleJinja2ASTBuilder;
+import compiler.visitors.SimplePythonASTBuilder;
+import grammar.CSSLexer;
+import grammar.CSSParser;
+import grammar.Jinja2Lexer;
+import grammar.Jinja2Parser;
+import grammar.PythonLexer;
+import grammar.PythonParser;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Function;
+
+/**
+ * Lexer -> parser -> AST builder pipeline for all three languages.
+ *
+ * One instance keeps one lexer and one parser per language and re-targets them
+ * at each new input, so the ATN simulators are created once per instance.
+ * Instances are NOT thread-safe: use one per worker thread.
+ *
+ * With streaming input enabled, compile(Path) maps the file (MappedCharStream)
+ * instead of reading it into a String, and the parser pulls tokens through an
+ * UnbufferedTokenStream, so neither the source text nor the full token list is
+ * ever held on the heap. Such files are re-lexed if SLL prediction fails.
+ *
+ * With direct build enabled, the AST is built by a DirectASTBuilder while the
+ * parser runs, so only the top-level rule being parsed has a parse tree.
+ *
+ * An interruptible front end aborts a parse with a CancellationException
+ * when its thread is interrupted (see InterruptCheck).
+ */
+public class LanguageFrontEnd {
+
+    private final ParseMode parseMode;
+
+    // Optional on-disk AST cache shared by all front ends of a run
+    private ASTCache cache;
+
+    // Map files and stream tokens instead of buffering them (see class comment)
+    private boolean streamingInput;
+
+    // Build the AST during parsing instead of from the finished parse tree (see class comment)
+    private boolean directBuild;
+
+    // Parsers check for thread interruption; set before the first compile
+    private boolean interruptible;
+
+    private PythonLexer pythonLexer;
+    private PythonParser pythonParser;
+    private Jinja2Lexer jinja2Lexer;
+    private Jinja2Parser jinja2Parser;
+    private CSSLexer cssLexer;
+    private CSSParser cssParser;
+
+    // Syntax errors of the file currently being compiled
+    private final List<String> syntaxErrors = new ArrayList<>();
+
+    private final BaseErrorListener errorCollector = new BaseErrorListener() {
+        @Override
+        public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                int line, int charPositionInLine, String msg,
+                                RecognitionException e) {
+            syntaxErrors.add(String.format("line %d:%d %s", line, charPositionInLine, msg));
+        }
+    };
+
+    public LanguageFrontEnd(ParseMode parseMode) {
+        this.parseMode = parseMode;
+    }
+
+    public LanguageFrontEnd() {
+        this(ParseMode.SLL_THEN_LL);
+    }
+
+    public ParseMode getParseMode() {
+        return parseMode;
+    }
+
+    public void setCache(ASTCache cache) {
+        this.cache = cache;
+    }
+
+    public boolean isStreamingInput() {
+        return streamingInput;
+    }
+
+    public void setStreamingInput(boolean streamingInput) {
+        this.streamingInput = streamingInput;
+    }
+
+    public boolean isDirectBuild() {
+        return directBuild;
+    }
+
+    public void setDirectBuild(boolean directBuild) {
+        this.directBuild = directBuild;
+    }
+
+    public boolean isInterruptible() {
+        return interruptible;
+    }
+
+    public void setInterruptible(boolean interruptible) {
+        this.interruptible = interruptible;
+    }
+
+    public FileCompilationResult compile(Path file) {
+        String fileName = file.toString();
+        SourceLanguage language = SourceLanguage.fromFileName(fileName);
+        try {
+            if (streamingInput) {
+                return compile(MappedCharStream.open(file), language);
+            }
+            return compile(fileName, Files.readString(file), language);
+        } catch (IOException e) {
+            return FileCompilationResult.failed(fileName, language, "I/O error: " + e.getMessage());
+        }
+    }
+
+    public FileCompilationResult compile(String fileName, String source, SourceLanguage language) {
+        long start = System.nanoTime();
+        syntaxErrors.clear();
+
+        if (cache != null) {
+            ASTNode cached = cache.get(language, source);
+            if (cached != null) {
+                return FileCompilationResult.cached(fileName, language, cached, System.nanoTime() - start);
+            }
+        }
+
+        FileCompilationResult result = compile(fileName, CharStreams.fromString(source, fileName),
+            language, false, start);
+        if (cache != null && result.ast != null) {
+            try {
+                cache.put(language, source, result.ast);
+            } catch (IOException e) {
+                // A cache that cannot be written only costs the next run a re-parse
+            }
+        }
+        return result;
+    }
+
+    // Streams tokens straight from the mapped file; the cache is keyed on the raw bytes
+    public FileCompilationResult compile(MappedCharStream input, SourceLanguage language) {
+        long start = System.nanoTime();
+        syntaxErrors.clear();
+        String fileName = input.getSourceName();
+
+        if (cache != null) {
+            ASTNode cached = cache.get(language, input.getBytes());
+            if (cached != null) {
+                return FileCompilationResult.cached(fileName, language, cached, System.nanoTime() - start);
+            }
+        }
+
+        FileCompilationResult result = compile(fileName, input, language, true, start);
+        if (cache != null && result.ast != null) {
+            try {
+                cache.put(language, input.getBytes(), result.ast);
+            } catch (IOException e) {
+                // A cache that cannot be written only costs the next run a re-parse
+            }
+        }
+        return result;
+    }
+
+    private FileCompilationResult compile(String fileName, CharStream input, SourceLanguage language,
+                                          boolean unbuffered, long start) {
+        try {
+            ASTNode ast;
+            TwoStageParser.Stage stage;
+            int tokenCount;
+
+            switch (language) {
+                case PYTHON: {
+                    PythonLexer lexer = pythonLexer(input);
+                    PythonParser parser = pythonParser(tokenStream(lexer, unbuffered));
+                    DirectASTBuilder<?> direct = directBuild ? DirectASTBuilder.python(parser) : null;
+                    TwoStageParser.Result<PythonParser.File_inputContext> result;
+                    try {
+                        result = parse(lexer, parser, PythonParser::file_input);
+                    } finally {
+                        if (direct != null) direct.detach();
+                    }
+                    stage = result.stage;
+                    tokenCount = tokenCount(parser);
+                    if (!syntaxErrors.isEmpty()) {
+                        ast = null;
+                    } else {
+                        ast = direct != null ? direct.getResult() : new SimplePythonASTBuilder().visit(result.tree);
+                    }
+                    break;
+                }
+                case CSS: {
+                    CSSLexer lexer = cssLexer(input);
+                    CSSParser parser = cssParser(tokenStream(lexer, unbuffered));
+                    DirectASTBuilder<?> direct = directBuild ? DirectASTBuilder.css(parser) : null;
+                    TwoStageParser.Result<CSSParser.StylesheetContext> result;
+                    try {
+                        result = parse(lexer, parser, CSSParser::stylesheet);
+                    } finally {
+                        if (direct != null) direct.detach();
+                    }
+                    stage = result.stage;
+                    tokenCount = tokenCount(parser);
+                    if (!syntaxErrors.isEmpty()) {
+                        ast = null;
+                    } else {
+                        ast = direct != null ? direct.getResult() : new CSSASTBuilder().visit(result.tree);
+                    }
+                    break;
+                }
+                default: {
+                    Jinja2Lexer lexer = jinja2Lexer(input);
+                    Jinja2Parser parser = jinja2Parser(tokenStream(lexer, unbuffered));
+                    DirectASTBuilder<?> direct = directBuild ? DirectASTBuilder.jinja2(parser) : null;
+                    TwoStageParser.Result<Jinja2Parser.TemplateContext> result;
+                    try {
+                        result = parse(lexer, parser, Jinja2Parser::template);
+                    } finally {
+                        if (direct != null) direct.detach();
+                    }
+                    stage = result.stage;
+                    tokenCount = tokenCount(parser);
+                    if (!syntaxErrors.isEmpty()) {
+                        ast = null;
+                    } else {
+                        ast = direct != null ? direct.getResult() : new SimpleJinja2ASTBuilder().visit(result.tree);
+                    }
+                    break;
+                }
+            }
+
+            return new FileCompilationResult(fileName, language, ast, stage, tokenCount,
+                new ArrayList<>(syntaxErrors), null, System.nanoTime() - start);
+
+        } catch (CancellationException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // e.g. IndentationError thrown by PythonLexerBase
+            return new FileCompilationResult(fileName, language, null, null, 0,
+                new ArrayList<>(syntaxErrors), e.getMessage(), System.nanoTime() - start);
+        }
+    }
+
+    // ==================== TOKEN STREAMS ====================
+
+    private TokenStream tokenStream(Lexer lexer, boolean unbuffered) {
+        if (unbuffered) {
+            return new UnbufferedTokenStream<>(new ChannelFilterTokenSource(lexer));
+        }
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+        return tokens;
+    }
+
+    private <P extends Parser, T extends ParserRuleContext> TwoStageParser.Result<T> parse(
+            Lexer lexer, P parser, Function<P, T> startRule) {
+        if (!(parser.getInputStream() instanceof UnbufferedTokenStream)) {
+            return TwoStageParser.parse(parser, parseMode, startRule);
+        }
+        // An unbuffered stream cannot seek back to token 0: re-lex from the first character
+        return TwoStageParser.parse(parser, parseMode, startRule, p -> {
+            CharStream input = lexer.getInputStream();
+            input.seek(0);
+            lexer.setInputStream(input);
+            p.setTokenStream(new UnbufferedTokenStream<>(new ChannelFilterTokenSource(lexer)));
+        });
+    }
+
+    // All channels plus EOF, like CommonTokenStream.size()
+    private int tokenCount(Parser parser) {
+        TokenStream tokens = parser.getInputStream();
+        if (tokens.getTokenSource() instanceof ChannelFilterTokenSource) {
+            return ((ChannelFilterTokenSource) tokens.getTokenSource()).getTokensRead();
+        }
+        return tokens.size();
+    }
+
+    // ==================== RECOGNIZER REUSE ====================
+
+    private PythonLexer pythonLexer(CharStream input) {
+        if (pythonLexer == null) {
+            pythonLexer = configure(new PythonLexer(input));
+        } else {
+            pythonLexer.setInputStream(input);
+        }
+        return pythonLexer;
+    }
+
+    private PythonParser pythonParser(TokenStream tokens) {
+        if (pythonParser == null) {
+            pythonParser = configure(new PythonParser(tokens));
+        } else {
+            pythonParser.setTokenStream(tokens);
+        }
+        return pythonParser;
+    }
+
+    private Jinja2Lexer jinja2Lexer(CharStream input) {
+        if (jinja2Lexer == null) {
+            jinja2Lexer = configure(new Jinja2Lexer(input));
+        } else {
+            jinja2Lexer.setInputStream(input);
+        }
+        return jinja2Lexer;
+    }
+
+    private Jinja2Parser jinja2Parser(TokenStream tokens) {
+        if (jinja2Parser == null) {
+            jinja2Parser = configure(new Jinja2Parser(tokens));
+        } else {
+            jinja2Parser.setTokenStream(tokens);
+        }
+        return jinja2Parser;
+    }
+
+    private CSSLexer cssLexer(CharStream input) {
+        if (cssLexer == null) {
+            cssLexer = configure(new CSSLexer(input));
+        } else {
+            cssLexer.setInputStream(input);
+        }
+        return cssLexer;
+    }
+
+    private CSSParser cssParser(TokenStream tokens) {
+        if (cssParser == null) {
+            cssParser = configure(new CSSParser(tokens));
+        } else {
+            cssParser.setTokenStream(tokens);
+        }
+        return cssParser;
+    }
+
+    private <L extends Lexer> L configure(L lexer) {
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorCollector);
+        return lexer;
+    }
+
+    private <P extends Parser> P configure(P parser) {
+        parser.removeErrorListeners();
+        parser.addErrorListener(errorCollector);
+        if (interruptible) {
+            parser.addParseListener(InterruptCheck.INSTANCE);
+        }
+        return parser;
+    }
+}
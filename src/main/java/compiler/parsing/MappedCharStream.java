@@ -0,0 +1,246 @@
+package compiler.parsing;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * CharStream over a memory-mapped UTF-8 file.
+ *
+ * The file is never copied onto the heap: opening it makes one pass that counts
+ * code points and records the byte offset of every BLOCK_SIZE-th code point, and
+ * LA()/getText() decode the blocks they touch into a few small cached windows.
+ * Heap use is therefore O(size / BLOCK_SIZE) instead of a String plus a
+ * code-point array of the whole file.
+ *
+ * Malformed UTF-8 decodes to U+FFFD the way the JDK decoder behind
+ * CharStreams.fromStream replaces it: one U+FFFD for each maximal prefix of a
+ * valid sequence (E2 82 41 -> U+FFFD 'A'), for a truncated sequence at the end,
+ * and for an encoded surrogate (ED A0 80), so code point indexes match the heap
+ * path for the same file.
+ * Instances are NOT thread-safe (neither is any lexer reading them).
+ */
+public class MappedCharStream implements CharStream {
+
+    private static final int BLOCK_SHIFT = 10;
+    private static final int BLOCK_SIZE = 1 << BLOCK_SHIFT;
+    private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+    private static final int WINDOW_COUNT = 4;
+    private static final int REPLACEMENT_CHARACTER = 0xFFFD;
+
+    private final String sourceName;
+    private final ByteBuffer bytes;
+    private final int size;
+
+    // blockOffsets[b] = byte offset of code point b * BLOCK_SIZE
+    private final int[] blockOffsets;
+
+    // Decoded blocks, replaced round-robin
+    private final int[][] windows = new int[WINDOW_COUNT][BLOCK_SIZE];
+    private final int[] windowBlocks = new int[WINDOW_COUNT];
+    private int nextWindow = 0;
+
+    // Byte length of the sequence read by the last decode() call
+    private int decodedLength;
+
+    // Current position (index of the next code point to consume)
+    private int position = 0;
+
+    public static MappedCharStream open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length > Integer.MAX_VALUE) {
+                throw new IOException("File too large to map (" + length + " bytes): " + file);
+            }
+            // The mapping stays valid after the channel is closed
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            return new MappedCharStream(mapped, file.toString());
+        }
+    }
+
+    // Also usable for in-memory UTF-8 (e.g. ByteBuffer.wrap(bytes))
+    public MappedCharStream(ByteBuffer utf8, String sourceName) {
+        this.bytes = utf8.slice();
+        this.sourceName = sourceName;
+
+        int limit = bytes.limit();
+        // There are never more code points than bytes
+        int[] offsets = new int[limit / BLOCK_SIZE + 1];
+        int count = 0;
+        int offset = 0;
+        while (offset < limit) {
+            if ((count & BLOCK_MASK) == 0) {
+                offsets[count >>> BLOCK_SHIFT] = offset;
+            }
+            decode(offset);
+            offset += decodedLength;
+            count++;
+        }
+        this.size = count;
+        this.blockOffsets = Arrays.copyOf(offsets, Math.max(1, (count + BLOCK_MASK) >>> BLOCK_SHIFT));
+        Arrays.fill(windowBlocks, -1);
+    }
+
+    // The raw UTF-8 input (read-only view, e.g. for hashing without decoding)
+    public ByteBuffer getBytes() {
+        return bytes.asReadOnlyBuffer();
+    }
+
+    public int getByteLength() {
+        return bytes.limit();
+    }
+
+    // ==================== IntStream ====================
+
+    @Override
+    public void consume() {
+        if (position >= size) {
+            throw new IllegalStateException("cannot consume EOF");
+        }
+        position++;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i == 0) {
+            return 0; // undefined
+        }
+        int index = i > 0 ? position + i - 1 : position + i;
+        if (index < 0 || index >= size) {
+            return IntStream.EOF;
+        }
+        return codePointAt(index);
+    }
+
+    // Random access makes marks free
+    @Override
+    public int mark() {
+        return -1;
+    }
+
+    @Override
+    public void release(int marker) {
+    }
+
+    @Override
+    public int index() {
+        return position;
+    }
+
+    @Override
+    public void seek(int index) {
+        position = Math.min(Math.max(index, 0), size);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public String getSourceName() {
+        return sourceName == null || sourceName.isEmpty() ? UNKNOWN_SOURCE_NAME : sourceName;
+    }
+
+    // ==================== CharStream ====================
+
+    @Override
+    public String getText(Interval interval) {
+        int start = Math.max(interval.a, 0);
+        int stop = Math.min(interval.b, size - 1);
+        if (start > stop) {
+            return "";
+        }
+        StringBuilder text = new StringBuilder(stop - start + 1);
+        for (int i = start; i <= stop; i++) {
+            text.appendCodePoint(codePointAt(i));
+        }
+        return text.toString();
+    }
+
+    @Override
+    public String toString() {
+        return getText(Interval.of(0, size - 1));
+    }
+
+    // ==================== DECODING ====================
+
+    private int codePointAt(int index) {
+        int block = index >>> BLOCK_SHIFT;
+        for (int w = 0; w < WINDOW_COUNT; w++) {
+            if (windowBlocks[w] == block) {
+                return windows[w][index & BLOCK_MASK];
+            }
+        }
+        int w = nextWindow;
+        nextWindow = (nextWindow + 1) % WINDOW_COUNT;
+        decodeBlock(block, windows[w]);
+        windowBlocks[w] = block;
+        return windows[w][index & BLOCK_MASK];
+    }
+
+    private void decodeBlock(int block, int[] window) {
+        int offset = blockOffsets[block];
+        int count = Math.min(BLOCK_SIZE, size - (block << BLOCK_SHIFT));
+        for (int i = 0; i < count; i++) {
+            window[i] = decode(offset);
+            offset += decodedLength;
+        }
+    }
+
+    // Decodes one code point at offset and stores its byte length in decodedLength
+    private int decode(int offset) {
+        int b0 = bytes.get(offset) & 0xFF;
+        if (b0 < 0x80) {
+            decodedLength = 1;
+            return b0;
+        }
+
+        int needed;
+        int codePoint;
+        int min2 = 0x80;
+        int max2 = 0xBF;
+        if (b0 >= 0xC2 && b0 <= 0xDF) {
+            needed = 1;
+            codePoint = b0 & 0x1F;
+        } else if (b0 >= 0xE0 && b0 <= 0xEF) {
+            needed = 2;
+            codePoint = b0 & 0x0F;
+            if (b0 == 0xE0) min2 = 0xA0;      // overlong
+        } else if (b0 >= 0xF0 && b0 <= 0xF4) {
+            needed = 3;
+            codePoint = b0 & 0x07;
+            if (b0 == 0xF0) min2 = 0x90;      // overlong
+            else if (b0 == 0xF4) max2 = 0x8F; // above U+10FFFF
+        } else {
+            decodedLength = 1;
+            return REPLACEMENT_CHARACTER;
+        }
+
+        // A truncated or broken sequence is replaced as a whole up to the first bad byte
+        for (int k = 1; k <= needed; k++) {
+            if (offset + k >= bytes.limit()) {
+                decodedLength = k;
+                return REPLACEMENT_CHARACTER;
+            }
+            int b = bytes.get(offset + k) & 0xFF;
+            boolean valid = k == 1 ? b >= min2 && b <= max2 : (b & 0xC0) == 0x80;
+            if (!valid) {
+                decodedLength = k;
+                return REPLACEMENT_CHARACTER;
+            }
+            codePoint = (codePoint << 6) | (b & 0x3F);
+        }
+        decodedLength = needed + 1;
+        // ED A0..BF xx encodes a surrogate: well-formed in shape, replaced as one
+        return codePoint >= 0xD800 && codePoint <= 0xDFFF ? REPLACEMENT_CHARACTER : codePoint;
+    }
+}
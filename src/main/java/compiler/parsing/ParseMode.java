@@ -0,0 +1,26 @@
+package compiler.parsing;
+
+// How a parser predicts alternatives.
+// LL          : full-context LL(*) prediction only (ANTLR default)
+// SLL_THEN_LL : try fast SLL prediction with a bail-out strategy first,
+//               re-parse with full LL only if SLL reports a syntax error
+public enum ParseMode {
+    LL,
+    SLL_THEN_LL;
+
+    public static ParseMode fromString(String value) {
+        if (value == null) {
+            return SLL_THEN_LL;
+        }
+        switch (value.trim().toLowerCase()) {
+            case "ll":
+                return LL;
+            case "sll":
+            case "sll-ll":
+            case "sll_then_ll":
+                return SLL_THEN_LL;
+            default:
+                throw new IllegalArgumentException("Unknown parse mode: " + value);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package compiler.parsing;
+
+// Languages understood by the front end, detected from the file extension
+public enum SourceLanguage {
+    PYTHON("Python"),
+    JINJA2("Jinja2"),
+    CSS("CSS");
+
+    private final String displayName;
+
+    SourceLanguage(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    // Example: "templates/index.html" -> JINJA2
+    public static SourceLanguage fromFileName(String fileName) {
+        String lower = fileName.toLowerCase();
+        if (lower.endsWith(".py")) {
+            return PYTHON;
+        } else if (lower.endsWith(".css")) {
+            return CSS;
+        }
+        return JINJA2;
+    }
+}
@@ -0,0 +1,93 @@
+package compiler.parsing;
+
+import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorStrategy;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a start rule using the two-stage strategy recommended for ANTLR 4:
+ * stage 1 uses SLL prediction and bails out on the first syntax error,
+ * stage 2 rewinds the token stream and re-parses with full LL prediction and
+ * the parser's own error strategy and listeners.
+ *
+ * SLL never accepts input that LL rejects, and when it succeeds it produces the
+ * same parse tree, so the AST builders see no difference.
+ */
+public class TwoStageParser {
+
+    public enum Stage {
+        SLL,
+        LL
+    }
+
+    public static class Result<T extends ParserRuleContext> {
+        public final T tree;
+        public final Stage stage;
+        public final int syntaxErrors;
+
+        public Result(T tree, Stage stage, int syntaxErrors) {
+            this.tree = tree;
+            this.stage = stage;
+            this.syntaxErrors = syntaxErrors;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%s stage, %d syntax error(s))",
+                tree != null ? tree.getClass().getSimpleName() : "null", stage, syntaxErrors);
+        }
+    }
+
+    // Example: TwoStageParser.parse(parser, ParseMode.SLL_THEN_LL, PythonParser::file_input)
+    public static <P extends Parser, T extends ParserRuleContext> Result<T> parse(
+            P parser, ParseMode mode, Function<P, T> startRule) {
+        return parse(parser, mode, startRule, Parser::reset);
+    }
+
+    // rewind must put the parser back at the first token; streams that cannot seek
+    // back (e.g. UnbufferedTokenStream) re-lex the input into a fresh stream instead
+    public static <P extends Parser, T extends ParserRuleContext> Result<T> parse(
+            P parser, ParseMode mode, Function<P, T> startRule, Consumer<P> rewind) {
+
+        if (mode == ParseMode.LL) {
+            parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+            T tree = startRule.apply(parser);
+            return new Result<>(tree, Stage.LL, parser.getNumberOfSyntaxErrors());
+        }
+
+        // Stage 1: SLL, no error reporting, bail out on first error
+        ANTLRErrorStrategy errorStrategy = parser.getErrorHandler();
+        List<? extends ANTLRErrorListener> listeners = new ArrayList<>(parser.getErrorListeners());
+
+        parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+        parser.removeErrorListeners();
+        parser.setErrorHandler(new BailErrorStrategy());
+
+        try {
+            T tree = startRule.apply(parser);
+            return new Result<>(tree, Stage.SLL, 0);
+        } catch (ParseCancellationException e) {
+            // Fall through to stage 2
+        } finally {
+            parser.setErrorHandler(errorStrategy);
+            for (ANTLRErrorListener listener : listeners) {
+                parser.addErrorListener(listener);
+            }
+        }
+
+        // Stage 2: rewind and re-parse with full LL
+        rewind.accept(parser);
+        parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+        T tree = startRule.apply(parser);
+        return new Result<>(tree, Stage.LL, parser.getNumberOfSyntaxErrors());
+    }
+}
@@ -0,0 +1,412 @@
+package compiler.pipeline;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.css.CSSStylesheetNode;
+import compiler.diagnostics.Diagnostic;
+import compiler.parsing.ParseMode;
+import compiler.parsing.SourceLanguage;
+import compiler.parsing.TwoStageParser;
+import compiler.symboltable.ClassicalSymbolTable;
+import compiler.symboltable.SymbolTableBuilder;
+import compiler.symboltable.css.CSSSymbolTable;
+import compiler.symboltable.css.CSSSymbolTableBuilder;
+import compiler.utils.ASTPrinter;
+import compiler.visitors.CSSASTBuilder;
+import compiler.visitors.SimpleJinja2ASTBuilder;
+import compiler.visitors.SimplePythonASTBuilder;
+import grammar.CSSLexer;
+import grammar.CSSParser;
+import grammar.Jinja2Lexer;
+import grammar.Jinja2Parser;
+import grammar.PythonLexer;
+import grammar.PythonParser;
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Runs a file through a list of named stages and measures each one: wall
+ * time, CPU time and bytes allocated by the compiling thread (ThreadMXBean),
+ * plus the tokens, AST nodes and errors the stage reported to the context.
+ *
+ * Every stage also commits a StageEvent, so a JFR recording shows the stages
+ * next to GC and JIT activity. The Report prints as a table or as JSON.
+ *
+ * standard() builds lexing -> parsing -> AST construction -> symbol table;
+ * callers append their own stages (e.g. Main's AST visualization).
+ * A stage that calls context.abort() is the last one to run.
+ */
+public class CompilationPipeline {
+
+    public static class StageMetrics {
+        public final String stage;
+        public final long wallNanos;
+        // -1 when the JVM cannot measure it
+        public final long cpuNanos;
+        public final long allocatedBytes;
+        public final int tokens;
+        public final int nodes;
+        public final int errors;
+
+        public StageMetrics(String stage, long wallNanos, long cpuNanos, long allocatedBytes,
+                            int tokens, int nodes, int errors) {
+            this.stage = stage;
+            this.wallNanos = wallNanos;
+            this.cpuNanos = cpuNanos;
+            this.allocatedBytes = allocatedBytes;
+            this.tokens = tokens;
+            this.nodes = nodes;
+            this.errors = errors;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-22s %9.2f ms wall %9.2f ms CPU %10s  %7d tokens %6d nodes %4d errors",
+                stage, wallNanos / 1e6, cpuNanos / 1e6, formatBytes(allocatedBytes), tokens, nodes, errors);
+        }
+    }
+
+    public static class Report {
+        public final String fileName;
+        public final SourceLanguage language;
+        public final List<StageMetrics> stages;
+        // Null when every stage ran
+        public final String abortReason;
+
+        Report(String fileName, SourceLanguage language, List<StageMetrics> stages, String abortReason) {
+            this.fileName = fileName;
+            this.language = language;
+            this.stages = Collections.unmodifiableList(stages);
+            this.abortReason = abortReason;
+        }
+
+        public boolean isComplete() {
+            return abortReason == null;
+        }
+
+        public long getTotalWallNanos() {
+            long total = 0;
+            for (StageMetrics stage : stages) total += stage.wallNanos;
+            return total;
+        }
+
+        public long getTotalCpuNanos() {
+            long total = 0;
+            for (StageMetrics stage : stages) {
+                if (stage.cpuNanos < 0) return -1;
+                total += stage.cpuNanos;
+            }
+            return total;
+        }
+
+        public long getTotalAllocatedBytes() {
+            long total = 0;
+            for (StageMetrics stage : stages) {
+                if (stage.allocatedBytes < 0) return -1;
+                total += stage.allocatedBytes;
+            }
+            return total;
+        }
+
+        // The stage with the largest wall time, or null if none ran
+        public StageMetrics getSlowestStage() {
+            StageMetrics slowest = null;
+            for (StageMetrics stage : stages) {
+                if (slowest == null || stage.wallNanos > slowest.wallNanos) slowest = stage;
+            }
+            return slowest;
+        }
+
+        public void print() {
+            System.out.println("┌─ STAGE METRICS ─────────────────────────────┐");
+            System.out.println("│  File: " + fileName + " (" + language.getDisplayName() + ")");
+            System.out.println("└──────────────────────────────────────────────┘");
+            for (StageMetrics stage : stages) {
+                System.out.println("  " + stage);
+            }
+            System.out.println("  ─────────────────────────────────────────");
+            System.out.printf("  Total          : %.2f ms wall, %.2f ms CPU, %s allocated%n",
+                getTotalWallNanos() / 1e6, getTotalCpuNanos() / 1e6, formatBytes(getTotalAllocatedBytes()));
+            StageMetrics slowest = getSlowestStage();
+            if (slowest != null) {
+                System.out.printf("  Slowest stage  : %s (%.0f%% of wall time)%n", slowest.stage,
+                    100.0 * slowest.wallNanos / Math.max(1, getTotalWallNanos()));
+            }
+            if (abortReason != null) {
+                System.out.println("  Stopped        : " + abortReason);
+            }
+        }
+
+        public String toJSON() {
+            StringBuilder sb = new StringBuilder();
+            sb.append("{\n");
+            sb.append("  \"file\": \"").append(escapeJSON(fileName)).append("\",\n");
+            sb.append("  \"language\": \"").append(language.getDisplayName()).append("\",\n");
+            sb.append("  \"complete\": ").append(isComplete()).append(",\n");
+            if (abortReason != null) {
+                sb.append("  \"abortReason\": \"").append(escapeJSON(abortReason)).append("\",\n");
+            }
+            sb.append("  \"totalWallNanos\": ").append(getTotalWallNanos()).append(",\n");
+            sb.append("  \"totalCpuNanos\": ").append(getTotalCpuNanos()).append(",\n");
+            sb.append("  \"totalAllocatedBytes\": ").append(getTotalAllocatedBytes()).append(",\n");
+            sb.append("  \"stages\": [\n");
+            for (int i = 0; i < stages.size(); i++) {
+                StageMetrics stage = stages.get(i);
+                sb.append("    {");
+                sb.append("\"stage\": \"").append(escapeJSON(stage.stage)).append("\", ");
+                sb.append("\"wallNanos\": ").append(stage.wallNanos).append(", ");
+                sb.append("\"cpuNanos\": ").append(stage.cpuNanos).append(", ");
+                sb.append("\"allocatedBytes\": ").append(stage.allocatedBytes).append(", ");
+                sb.append("\"tokens\": ").append(stage.tokens).append(", ");
+                sb.append("\"nodes\": ").append(stage.nodes).append(", ");
+                sb.append("\"errors\": ").append(stage.errors);
+                sb.append("}");
+                if (i < stages.size() - 1) sb.append(",");
+                sb.append("\n");
+            }
+            sb.append("  ]\n");
+            sb.append("}");
+            return sb.toString();
+        }
+
+        private static String escapeJSON(String str) {
+            if (str == null) return "";
+            return str.replace("\\", "\\\\")
+                      .replace("\"", "\\\"")
+                      .replace("\n", "\\n")
+                      .replace("\r", "\\r")
+                      .replace("\t", "\\t");
+        }
+    }
+
+    private static class NamedStage {
+        final String name;
+        final PipelineStage stage;
+
+        NamedStage(String name, PipelineStage stage) {
+            this.name = name;
+            this.stage = stage;
+        }
+    }
+
+    private final List<NamedStage> stages = new ArrayList<>();
+
+    // Print a banner with the metrics of each stage as it finishes
+    private boolean verbose;
+
+    public CompilationPipeline addStage(String name, PipelineStage stage) {
+        stages.add(new NamedStage(name, stage));
+        return this;
+    }
+
+    public void setVerbose(boolean verbose) {
+        this.verbose = verbose;
+    }
+
+    public List<String> getStageNames() {
+        List<String> names = new ArrayList<>();
+        for (NamedStage stage : stages) names.add(stage.name);
+        return names;
+    }
+
+    /**
+     * Runs the stages in order on the calling thread. An exception thrown by a
+     * stage is rethrown once its metrics and event are recorded.
+     */
+    public Report run(PipelineContext context) throws Exception {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean measureCpu = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+        com.sun.management.ThreadMXBean allocations = allocationBean(threads);
+
+        List<StageMetrics> metrics = new ArrayList<>();
+        for (int i = 0; i < stages.size(); i++) {
+            NamedStage named = stages.get(i);
+            if (verbose) {
+                System.out.println(banner("┌─ STAGE " + (i + 1) + ": " + named.name + " ", '┐'));
+            }
+            context.resetStageCounts();
+
+            StageEvent event = new StageEvent();
+            event.begin();
+            long cpuBefore = measureCpu ? threads.getCurrentThreadCpuTime() : -1;
+            long allocatedBefore = allocations != null ? allocations.getCurrentThreadAllocatedBytes() : -1;
+            long start = System.nanoTime();
+            try {
+                named.stage.run(context);
+            } finally {
+                long wall = System.nanoTime() - start;
+                long cpu = measureCpu ? threads.getCurrentThreadCpuTime() - cpuBefore : -1;
+                long allocated = allocations != null ? allocations.getCurrentThreadAllocatedBytes() - allocatedBefore : -1;
+                event.end();
+
+                StageMetrics stage = new StageMetrics(named.name, wall, cpu, allocated,
+                    context.getTokenCount(), context.getNodeCount(), context.getStageErrors());
+                metrics.add(stage);
+                commit(event, context, stage);
+                if (verbose) {
+                    System.out.printf("│  %s %.2f ms wall, %.2f ms CPU, %s allocated%n",
+                        stage.errors > 0 ? "✗" : "✓", wall / 1e6, cpu / 1e6, formatBytes(allocated));
+                    System.out.printf("│  → %d tokens, %d nodes, %d errors%n", stage.tokens, stage.nodes, stage.errors);
+                    System.out.println("└──────────────────────────────────────────────┘\n");
+                }
+            }
+            if (context.isAborted()) {
+                break;
+            }
+        }
+        return new Report(context.getFileName(), context.getLanguage(), metrics, context.getAbortReason());
+    }
+
+    private static void commit(StageEvent event, PipelineContext context, StageMetrics stage) {
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.fileName = context.getFileName();
+        event.language = context.getLanguage().getDisplayName();
+        event.stage = stage.stage;
+        event.cpuTime = stage.cpuNanos;
+        event.allocatedBytes = stage.allocatedBytes;
+        event.tokens = stage.tokens;
+        event.nodes = stage.nodes;
+        event.errors = stage.errors;
+        event.commit();
+    }
+
+    // HotSpot's extension of ThreadMXBean, or null where allocation counting is unavailable
+    private static com.sun.management.ThreadMXBean allocationBean(ThreadMXBean threads) {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threads;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean;
+            }
+        }
+        return null;
+    }
+
+    // Example: banner("┌─ STAGE 1: Lexing ", '┐') pads with '─' to the width of the other banners
+    private static String banner(String title, char end) {
+        StringBuilder sb = new StringBuilder(title);
+        while (sb.length() < 46) sb.append('─');
+        return sb.append(end).toString();
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 0) return "n/a";
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+
+    // ==================== STANDARD STAGES ====================
+
+    // Lexing, parsing, AST construction and symbol table, for the context's language
+    public static CompilationPipeline standard(ParseMode parseMode) {
+        CompilationPipeline pipeline = new CompilationPipeline();
+        pipeline.addStage("Lexical Analysis", CompilationPipeline::lex);
+        pipeline.addStage("Syntax Analysis", context -> parse(context, parseMode));
+        pipeline.addStage("AST Construction", CompilationPipeline::buildAST);
+        pipeline.addStage("Symbol Table", CompilationPipeline::buildSymbolTable);
+        return pipeline;
+    }
+
+    private static void lex(PipelineContext context) {
+        Lexer lexer;
+        switch (context.getLanguage()) {
+            case PYTHON: lexer = new PythonLexer(context.getInput()); break;
+            case CSS: lexer = new CSSLexer(context.getInput()); break;
+            default: lexer = new Jinja2Lexer(context.getInput());
+        }
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorCollector(context));
+
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        tokens.fill();
+        context.setTokens(tokens);
+        context.countTokens(tokens.size());
+    }
+
+    private static void parse(PipelineContext context, ParseMode parseMode) {
+        TwoStageParser.Result<?> result;
+        switch (context.getLanguage()) {
+            case PYTHON:
+                result = TwoStageParser.parse(parser(new PythonParser(context.getTokens()), context), parseMode,
+                    PythonParser::file_input);
+                break;
+            case CSS:
+                result = TwoStageParser.parse(parser(new CSSParser(context.getTokens()), context), parseMode,
+                    CSSParser::stylesheet);
+                break;
+            default:
+                result = TwoStageParser.parse(parser(new Jinja2Parser(context.getTokens()), context), parseMode,
+                    Jinja2Parser::template);
+        }
+        context.setParseTree(result.tree);
+        context.countTokens(context.getTokens().size());
+        if (result.syntaxErrors > 0) {
+            context.abort("Parsing failed with " + result.syntaxErrors + " error(s)");
+        }
+    }
+
+    private static <P extends Parser> P parser(P parser, PipelineContext context) {
+        parser.removeErrorListeners();
+        parser.addErrorListener(errorCollector(context));
+        return parser;
+    }
+
+    private static BaseErrorListener errorCollector(PipelineContext context) {
+        return new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol,
+                                    int line, int charPositionInLine, String msg,
+                                    RecognitionException e) {
+                context.addError(String.format("line %d:%d %s", line, charPositionInLine, msg));
+            }
+        };
+    }
+
+    private static void buildAST(PipelineContext context) {
+        ASTNode ast;
+        switch (context.getLanguage()) {
+            case PYTHON: ast = new SimplePythonASTBuilder().visit(context.getParseTree()); break;
+            case CSS: ast = new CSSASTBuilder().visit(context.getParseTree()); break;
+            default: ast = new SimpleJinja2ASTBuilder().visit(context.getParseTree());
+        }
+        context.setAST(ast);
+        context.countNodes(ASTPrinter.countNodes(ast));
+        if (ast == null) {
+            context.abort("AST construction produced no tree");
+        }
+    }
+
+    private static void buildSymbolTable(PipelineContext context) {
+        if (context.getLanguage() == SourceLanguage.CSS) {
+            CSSSymbolTable table = new CSSSymbolTableBuilder().build((CSSStylesheetNode) context.getAST());
+            table.setSourceFile(context.getFileName());
+            context.setCSSSymbolTable(table);
+            return;
+        }
+
+        ClassicalSymbolTable table = ClassicalSymbolTable.allocate();
+        new SymbolTableBuilder(table, context.getDiagnosticSink()).build(context.getAST());
+        context.setSymbolTable(table);
+        // A template's free names come from the render_template() context, not from the file
+        if (context.getLanguage() == SourceLanguage.PYTHON) {
+            for (Diagnostic diagnostic : table.getDiagnostics()) {
+                if (diagnostic.isError()) {
+                    context.addError(diagnostic.line > 0
+                        ? String.format("line %d:%d %s", diagnostic.line, diagnostic.column, diagnostic.message)
+                        : diagnostic.message);
+                }
+            }
+        }
+    }
+}
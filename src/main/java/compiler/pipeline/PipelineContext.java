@@ -0,0 +1,159 @@
+package compiler.pipeline;
+
+import compiler.ast.core.ASTNode;
+import compiler.diagnostics.DiagnosticSink;
+import compiler.parsing.SourceLanguage;
+import compiler.symboltable.ClassicalSymbolTable;
+import compiler.symboltable.css.CSSSymbolTable;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * State handed from stage to stage of a CompilationPipeline: the input, what
+ * each stage produced so far, and the counts the running stage reports for
+ * its metrics.
+ */
+public class PipelineContext {
+
+    private final String fileName;
+    private final SourceLanguage language;
+    private final CharStream input;
+
+    // Where the analysis passes report (NONE = silent; their errors still reach getErrors())
+    private DiagnosticSink diagnosticSink = DiagnosticSink.NONE;
+
+    private CommonTokenStream tokens;
+    private ParserRuleContext parseTree;
+    private ASTNode ast;
+    private ClassicalSymbolTable symbolTable;
+    private CSSSymbolTable cssSymbolTable;
+
+    // Errors of every stage, "line L:C message" where the position is known
+    private final List<String> errors = new ArrayList<>();
+
+    // Counts of the running stage; reset by the pipeline before each stage
+    private int tokenCount;
+    private int nodeCount;
+    private int stageErrors;
+    private String abortReason;
+
+    public PipelineContext(String fileName, SourceLanguage language, CharStream input) {
+        this.fileName = fileName;
+        this.language = language;
+        this.input = input;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public SourceLanguage getLanguage() {
+        return language;
+    }
+
+    public CharStream getInput() {
+        return input;
+    }
+
+    public DiagnosticSink getDiagnosticSink() {
+        return diagnosticSink;
+    }
+
+    public void setDiagnosticSink(DiagnosticSink diagnosticSink) {
+        this.diagnosticSink = diagnosticSink;
+    }
+
+    public CommonTokenStream getTokens() {
+        return tokens;
+    }
+
+    public void setTokens(CommonTokenStream tokens) {
+        this.tokens = tokens;
+    }
+
+    public ParserRuleContext getParseTree() {
+        return parseTree;
+    }
+
+    public void setParseTree(ParserRuleContext parseTree) {
+        this.parseTree = parseTree;
+    }
+
+    public ASTNode getAST() {
+        return ast;
+    }
+
+    public void setAST(ASTNode ast) {
+        this.ast = ast;
+    }
+
+    public ClassicalSymbolTable getSymbolTable() {
+        return symbolTable;
+    }
+
+    public void setSymbolTable(ClassicalSymbolTable symbolTable) {
+        this.symbolTable = symbolTable;
+    }
+
+    public CSSSymbolTable getCSSSymbolTable() {
+        return cssSymbolTable;
+    }
+
+    public void setCSSSymbolTable(CSSSymbolTable cssSymbolTable) {
+        this.cssSymbolTable = cssSymbolTable;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    // ==================== STAGE METRICS ====================
+
+    public void countTokens(int count) {
+        tokenCount += count;
+    }
+
+    public void countNodes(int count) {
+        nodeCount += count;
+    }
+
+    public void addError(String error) {
+        errors.add(error);
+        stageErrors++;
+    }
+
+    // Stops the pipeline once the running stage returns
+    public void abort(String reason) {
+        this.abortReason = reason;
+    }
+
+    public String getAbortReason() {
+        return abortReason;
+    }
+
+    boolean isAborted() {
+        return abortReason != null;
+    }
+
+    void resetStageCounts() {
+        tokenCount = 0;
+        nodeCount = 0;
+        stageErrors = 0;
+    }
+
+    int getTokenCount() {
+        return tokenCount;
+    }
+
+    int getNodeCount() {
+        return nodeCount;
+    }
+
+    int getStageErrors() {
+        return stageErrors;
+    }
+}
@@ -0,0 +1,8 @@
+package compiler.pipeline;
+
+// One step of a CompilationPipeline; reads and writes the shared context
+@FunctionalInterface
+public interface PipelineStage {
+
+    void run(PipelineContext context) throws Exception;
+}
@@ -0,0 +1,49 @@
+package compiler.pipeline;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event committed for every stage a CompilationPipeline runs. The event
+ * duration is the stage's wall time; only recorded while a recording with
+ * compiler.CompilationStage enabled is running (e.g. -XX:StartFlightRecording).
+ */
+@Name("compiler.CompilationStage")
+@Label("Compilation Stage")
+@Category({"Compiler", "Pipeline"})
+@Description("One stage of compiling a Flask/Jinja2/CSS source file")
+@StackTrace(false)
+class StageEvent extends Event {
+
+    @Label("File")
+    String fileName;
+
+    @Label("Language")
+    String language;
+
+    @Label("Stage")
+    String stage;
+
+    @Label("CPU Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long cpuTime;
+
+    @Label("Allocated")
+    @DataAmount(DataAmount.BYTES)
+    long allocatedBytes;
+
+    @Label("Tokens")
+    int tokens;
+
+    @Label("AST Nodes")
+    int nodes;
+
+    @Label("Errors")
+    int errors;
+}
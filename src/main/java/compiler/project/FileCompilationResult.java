@@ -0,0 +1,66 @@
+package compiler.project;
+
+import compiler.ast.core.ASTNode;
+import compiler.parsing.SourceLanguage;
+import compiler.parsing.TwoStageParser;
+
+import java.util.Collections;
+import java.util.List;
+
+// Outcome of lexing, parsing and building the AST for one source file
+public class FileCompilationResult {
+    public final String fileName;
+    public final SourceLanguage language;
+    public final ASTNode ast;
+    public final TwoStageParser.Stage parseStage;
+    public final int tokenCount;
+    public final List<String> syntaxErrors;
+    public final String failure;
+    public final long elapsedNanos;
+    public final boolean fromCache;
+
+    public FileCompilationResult(String fileName, SourceLanguage language, ASTNode ast,
+                                 TwoStageParser.Stage parseStage, int tokenCount,
+                                 List<String> syntaxErrors, String failure, long elapsedNanos) {
+        this(fileName, language, ast, parseStage, tokenCount, syntaxErrors, failure, elapsedNanos, false);
+    }
+
+    public FileCompilationResult(String fileName, SourceLanguage language, ASTNode ast,
+                                 TwoStageParser.Stage parseStage, int tokenCount,
+                                 List<String> syntaxErrors, String failure, long elapsedNanos,
+                                 boolean fromCache) {
+        this.fileName = fileName;
+        this.language = language;
+        this.ast = ast;
+        this.parseStage = parseStage;
+        this.tokenCount = tokenCount;
+        this.syntaxErrors = Collections.unmodifiableList(syntaxErrors);
+        this.failure = failure;
+        this.elapsedNanos = elapsedNanos;
+        this.fromCache = fromCache;
+    }
+
+    public static FileCompilationResult cached(String fileName, SourceLanguage language, ASTNode ast,
+                                               long elapsedNanos) {
+        return new FileCompilationResult(fileName, language, ast, null, 0,
+            Collections.emptyList(), null, elapsedNanos, true);
+    }
+
+    public static FileCompilationResult failed(String fileName, SourceLanguage language, String failure) {
+        return new FileCompilationResult(fileName, language, null, null, 0,
+            Collections.emptyList(), failure, 0);
+    }
+
+    public boolean isSuccess() {
+        return ast != null && failure == null && syntaxErrors.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        String status = isSuccess() ? "OK" : (failure != null ? "FAILED: " + failure
+            : syntaxErrors.size() + " syntax error(s)");
+        return String.format("%-45s %-7s %-4s %6d tokens %8.2f ms  %s",
+            fileName, language.getDisplayName(), fromCache ? "HIT" : (parseStage != null ? parseStage : "-"),
+            tokenCount, elapsedNanos / 1_000_000.0, status);
+    }
+}
@@ -0,0 +1,74 @@
+package compiler.project;
+
+import compiler.parsing.TwoStageParser;
+
+import java.util.Collections;
+import java.util.List;
+
+// Per-file results of a project compilation, in discovery order
+public class ProjectCompilationResult {
+    private final String projectRoot;
+    private final List<FileCompilationResult> files;
+    private final long elapsedNanos;
+
+    public ProjectCompilationResult(String projectRoot, List<FileCompilationResult> files, long elapsedNanos) {
+        this.projectRoot = projectRoot;
+        this.files = Collections.unmodifiableList(files);
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public String getProjectRoot() {
+        return projectRoot;
+    }
+
+    public List<FileCompilationResult> getFiles() {
+        return files;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public int getFailureCount() {
+        int count = 0;
+        for (FileCompilationResult file : files) {
+            if (!file.isSuccess()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean isSuccess() {
+        return getFailureCount() == 0;
+    }
+
+    public void printSummary() {
+        int sllCount = 0;
+        int cachedCount = 0;
+        for (FileCompilationResult file : files) {
+            if (file.parseStage == TwoStageParser.Stage.SLL) {
+                sllCount++;
+            }
+            if (file.fromCache) {
+                cachedCount++;
+            }
+        }
+
+        System.out.println("┌─ PROJECT COMPILATION ───────────────────────┐");
+        System.out.println("│  Root: " + projectRoot);
+        System.out.println("└──────────────────────────────────────────────┘");
+        for (FileCompilationResult file : files) {
+            System.out.println("  " + file);
+            for (String error : file.syntaxErrors) {
+                System.out.println("      ✗ " + error);
+            }
+        }
+        System.out.println();
+        System.out.println("  Files compiled : " + files.size());
+        System.out.println("  Failed         : " + getFailureCount());
+        System.out.println("  Parsed by SLL  : " + sllCount + " / " + files.size());
+        System.out.println("  Cache hits     : " + cachedCount + " / " + files.size());
+        System.out.printf("  Wall time      : %.2f ms%n", elapsedNanos / 1_000_000.0);
+    }
+}
@@ -0,0 +1,135 @@
+package compiler.project;
+
+import compiler.cache.ASTCache;
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.ParseMode;
+import compiler.parsing.SourceLanguage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Compiles a whole Flask project in parallel:
+ *   <root>/app.py
+ *   <root>/templates/*.html
+ *   <root>/static/css/*.css
+ *
+ * Files are compiled on a fork-join pool; every worker thread owns its own
+ * LanguageFrontEnd (lexers + parsers), so no recognizer is shared between threads.
+ */
+public class ProjectCompiler {
+
+    private final Path projectRoot;
+    private final ParseMode parseMode;
+    private final int parallelism;
+    private ASTCache cache;
+    private boolean streamingInput;
+    private boolean directBuild;
+
+    public ProjectCompiler(Path projectRoot) {
+        this(projectRoot, ParseMode.SLL_THEN_LL, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ProjectCompiler(Path projectRoot, ParseMode parseMode, int parallelism) {
+        this.projectRoot = projectRoot;
+        this.parseMode = parseMode;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    // Unchanged files are then loaded from the cache instead of being re-parsed
+    public void setCache(ASTCache cache) {
+        this.cache = cache;
+    }
+
+    // Map files and stream tokens instead of reading whole files (LanguageFrontEnd.setStreamingInput)
+    public void setStreamingInput(boolean streamingInput) {
+        this.streamingInput = streamingInput;
+    }
+
+    // Build ASTs while parsing instead of from full parse trees (LanguageFrontEnd.setDirectBuild)
+    public void setDirectBuild(boolean directBuild) {
+        this.directBuild = directBuild;
+    }
+
+    public ProjectCompilationResult compile() throws IOException {
+        return compile(discoverSourceFiles());
+    }
+
+    public ProjectCompilationResult compile(List<Path> files) {
+        long start = System.nanoTime();
+        ThreadLocal<LanguageFrontEnd> frontEnds = ThreadLocal.withInitial(() -> {
+            LanguageFrontEnd frontEnd = new LanguageFrontEnd(parseMode);
+            frontEnd.setCache(cache);
+            frontEnd.setStreamingInput(streamingInput);
+            frontEnd.setDirectBuild(directBuild);
+            return frontEnd;
+        });
+
+        List<Callable<FileCompilationResult>> tasks = new ArrayList<>();
+        for (Path file : files) {
+            tasks.add(() -> frontEnds.get().compile(file));
+        }
+
+        List<FileCompilationResult> results = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            List<Future<FileCompilationResult>> futures = pool.invokeAll(tasks);
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(futures.get(i), files.get(i)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        return new ProjectCompilationResult(projectRoot.toString(), results, System.nanoTime() - start);
+    }
+
+    // app.py first, then templates, then stylesheets - each group sorted by name
+    public List<Path> discoverSourceFiles() throws IOException {
+        List<Path> files = new ArrayList<>();
+
+        Path app = projectRoot.resolve("app.py");
+        if (Files.isRegularFile(app)) {
+            files.add(app);
+        }
+        files.addAll(listFiles(projectRoot.resolve("templates"), ".html"));
+        files.addAll(listFiles(projectRoot.resolve("static").resolve("css"), ".css"));
+
+        return files;
+    }
+
+    private List<Path> listFiles(Path directory, String extension) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> stream = Files.list(directory)) {
+            return stream
+                .filter(Files::isRegularFile)
+                .filter(p -> p.getFileName().toString().toLowerCase().endsWith(extension))
+                .sorted()
+                .collect(Collectors.toList());
+        }
+    }
+
+    private FileCompilationResult await(Future<FileCompilationResult> future, Path file) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return FileCompilationResult.failed(file.toString(),
+                SourceLanguage.fromFileName(file.toString()), "interrupted");
+        } catch (ExecutionException e) {
+            return FileCompilationResult.failed(file.toString(),
+                SourceLanguage.fromFileName(file.toString()), String.valueOf(e.getCause()));
+        }
+    }
+}
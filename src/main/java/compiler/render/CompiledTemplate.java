@@ -0,0 +1,86 @@
+package compiler.render;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Map;
+
+/**
+ * A template compiled by TemplateCompiler. Immutable and safe to render from
+ * several threads at once; each render gets its own scopes and output buffer.
+ */
+public final class CompiledTemplate {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final RenderNode root;
+    private final int staticChunkCount;
+    private final long staticByteCount;
+    private final int dynamicNodeCount;
+    private final int hoistedExpressionCount;
+    private final int memberSlotCount;
+
+    CompiledTemplate(RenderNode root, int staticChunkCount, long staticByteCount, int dynamicNodeCount,
+                     int hoistedExpressionCount, int memberSlotCount) {
+        this.root = root;
+        this.staticChunkCount = staticChunkCount;
+        this.staticByteCount = staticByteCount;
+        this.dynamicNodeCount = dynamicNodeCount;
+        this.hoistedExpressionCount = hoistedExpressionCount;
+        this.memberSlotCount = memberSlotCount;
+    }
+
+    // Writes UTF-8; the stream is flushed but not closed
+    public void render(Map<String, ?> context, OutputStream out) throws IOException {
+        render(context, new TemplateOutput.Bytes(out, BUFFER_SIZE));
+    }
+
+    public void render(Map<String, ?> context, Writer out) throws IOException {
+        render(context, new TemplateOutput.Chars(out));
+    }
+
+    public String renderToString(Map<String, ?> context) {
+        StringWriter writer = new StringWriter();
+        try {
+            render(context, writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    private void render(Map<String, ?> context, TemplateOutput out) throws IOException {
+        root.render(new RenderContext(out, context));
+        out.flush();
+    }
+
+    public int getStaticChunkCount() {
+        return staticChunkCount;
+    }
+
+    public long getStaticByteCount() {
+        return staticByteCount;
+    }
+
+    public int getDynamicNodeCount() {
+        return dynamicNodeCount;
+    }
+
+    // Expressions in {% for %} bodies evaluated once per loop instead of once per iteration
+    public int getHoistedExpressionCount() {
+        return hoistedExpressionCount;
+    }
+
+    // Member chains on loop targets resolved once per iteration instead of at every use
+    public int getMemberSlotCount() {
+        return memberSlotCount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CompiledTemplate(%d static chunks, %d static bytes, %d dynamic nodes, "
+            + "%d hoisted, %d member slots)",
+            staticChunkCount, staticByteCount, dynamicNodeCount, hoistedExpressionCount, memberSlotCount);
+    }
+}
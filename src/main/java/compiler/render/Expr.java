@@ -0,0 +1,7 @@
+package compiler.render;
+
+// A compiled Jinja2 expression
+@FunctionalInterface
+interface Expr {
+    Object eval(RenderContext context);
+}
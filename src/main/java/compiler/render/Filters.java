@@ -0,0 +1,198 @@
+package compiler.render;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Built-in Jinja2 filters supported by the renderer ({{ value | name(args) }})
+final class Filters {
+
+    @FunctionalInterface
+    interface Filter {
+        Object apply(Object value, List<Object> arguments, int line);
+    }
+
+    private static final Map<String, Filter> FILTERS = new HashMap<>();
+
+    static {
+        FILTERS.put("upper", (v, a, l) -> text(v).toUpperCase());
+        FILTERS.put("lower", (v, a, l) -> text(v).toLowerCase());
+        FILTERS.put("capitalize", (v, a, l) -> capitalize(text(v)));
+        FILTERS.put("title", (v, a, l) -> title(text(v)));
+        FILTERS.put("trim", (v, a, l) -> text(v).strip());
+        FILTERS.put("string", (v, a, l) -> v instanceof SafeString ? v : Values.toText(v));
+        FILTERS.put("length", Filters::length);
+        FILTERS.put("count", Filters::length);
+        FILTERS.put("default", Filters::defaultValue);
+        FILTERS.put("d", Filters::defaultValue);
+        FILTERS.put("join", Filters::join);
+        FILTERS.put("first", (v, a, l) -> first(Values.toList(v)));
+        FILTERS.put("last", (v, a, l) -> last(Values.toList(v)));
+        FILTERS.put("list", (v, a, l) -> new ArrayList<>(Values.toList(v)));
+        FILTERS.put("reverse", Filters::reverse);
+        FILTERS.put("sum", Filters::sum);
+        FILTERS.put("abs", Filters::abs);
+        FILTERS.put("round", Filters::round);
+        FILTERS.put("int", Filters::toInt);
+        FILTERS.put("float", Filters::toFloat);
+        FILTERS.put("replace", (v, a, l) -> text(v).replace(Values.toText(argument(a, 0, "")),
+            Values.toText(argument(a, 1, ""))));
+        FILTERS.put("safe", (v, a, l) -> v instanceof SafeString ? v : new SafeString(Values.toText(v)));
+        FILTERS.put("escape", Filters::escape);
+        FILTERS.put("e", Filters::escape);
+    }
+
+    private Filters() {
+    }
+
+    static Filter get(String name) {
+        return FILTERS.get(name);
+    }
+
+    private static String text(Object value) {
+        return value == Values.UNDEFINED ? "" : Values.toText(value);
+    }
+
+    private static Object argument(List<Object> arguments, int index, Object fallback) {
+        return index < arguments.size() ? arguments.get(index) : fallback;
+    }
+
+    private static String capitalize(String text) {
+        if (text.isEmpty()) return text;
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1).toLowerCase();
+    }
+
+    private static String title(String text) {
+        StringBuilder result = new StringBuilder(text.length());
+        boolean startOfWord = true;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            result.append(startOfWord ? Character.toUpperCase(c) : Character.toLowerCase(c));
+            startOfWord = !Character.isLetterOrDigit(c);
+        }
+        return result.toString();
+    }
+
+    private static Object length(Object value, List<Object> arguments, int line) {
+        if (value instanceof CharSequence) return (long) ((CharSequence) value).length();
+        if (value instanceof Collection) return (long) ((Collection<?>) value).size();
+        if (value instanceof Map) return (long) ((Map<?, ?>) value).size();
+        return (long) Values.toList(value).size();
+    }
+
+    // default(fallback, boolean=false): also replaces falsy values when boolean is true
+    private static Object defaultValue(Object value, List<Object> arguments, int line) {
+        boolean replaceFalsy = Values.isTruthy(argument(arguments, 1, false));
+        if (value == Values.UNDEFINED || replaceFalsy && !Values.isTruthy(value)) {
+            return argument(arguments, 0, "");
+        }
+        return value;
+    }
+
+    private static Object join(Object value, List<Object> arguments, int line) {
+        String separator = Values.toText(argument(arguments, 0, ""));
+        StringBuilder result = new StringBuilder();
+        boolean safe = true;
+        List<?> items = Values.toList(value);
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) result.append(separator);
+            Object item = items.get(i);
+            safe &= item instanceof SafeString;
+            result.append(Values.toText(item));
+        }
+        return safe && !items.isEmpty() ? new SafeString(result.toString()) : result.toString();
+    }
+
+    private static Object first(List<?> items) {
+        return items.isEmpty() ? Values.UNDEFINED : items.get(0);
+    }
+
+    private static Object last(List<?> items) {
+        return items.isEmpty() ? Values.UNDEFINED : items.get(items.size() - 1);
+    }
+
+    private static Object reverse(Object value, List<Object> arguments, int line) {
+        if (value instanceof CharSequence) {
+            return new StringBuilder((CharSequence) value).reverse().toString();
+        }
+        List<Object> items = new ArrayList<>(Values.toList(value));
+        Collections.reverse(items);
+        return items;
+    }
+
+    private static Object sum(Object value, List<Object> arguments, int line) {
+        Object total = argument(arguments, 0, 0L);
+        for (Object item : Values.toList(value)) {
+            total = Values.arithmetic("+", total, item, line);
+        }
+        return total;
+    }
+
+    private static Object abs(Object value, List<Object> arguments, int line) {
+        if (Values.isIntegral(value)) return Math.abs(((Number) value).longValue());
+        if (value instanceof Number) return Math.abs(((Number) value).doubleValue());
+        throw new TemplateRenderException("bad operand type for abs(): '" + Values.typeName(value) + "'", line);
+    }
+
+    // round(precision=0, method='common'|'floor'|'ceil'), always a float like Jinja2
+    private static Object round(Object value, List<Object> arguments, int line) {
+        if (!(value instanceof Number)) {
+            throw new TemplateRenderException("round filter expects a number, got '" + Values.typeName(value) + "'", line);
+        }
+        int precision = (int) Values.toLong(argument(arguments, 0, 0L), line);
+        String method = Values.toText(argument(arguments, 1, "common"));
+        RoundingMode mode;
+        switch (method) {
+            case "common": mode = RoundingMode.HALF_UP; break;
+            case "floor": mode = RoundingMode.FLOOR; break;
+            case "ceil": mode = RoundingMode.CEILING; break;
+            default: throw new TemplateRenderException("method must be common, ceil or floor", line);
+        }
+        BigDecimal decimal = Values.isIntegral(value)
+            ? BigDecimal.valueOf(((Number) value).longValue())
+            : BigDecimal.valueOf(((Number) value).doubleValue());
+        return decimal.setScale(precision, mode).doubleValue();
+    }
+
+    private static Object toInt(Object value, List<Object> arguments, int line) {
+        if (Values.isIntegral(value)) return ((Number) value).longValue();
+        if (value instanceof Number) return (long) ((Number) value).doubleValue();
+        if (value instanceof Boolean) return (Boolean) value ? 1L : 0L;
+        try {
+            return (long) Double.parseDouble(text(value).strip());
+        } catch (NumberFormatException e) {
+            return argument(arguments, 0, 0L);
+        }
+    }
+
+    private static Object toFloat(Object value, List<Object> arguments, int line) {
+        if (value instanceof Number) return ((Number) value).doubleValue();
+        if (value instanceof Boolean) return (Boolean) value ? 1.0 : 0.0;
+        try {
+            return Double.parseDouble(text(value).strip());
+        } catch (NumberFormatException e) {
+            return argument(arguments, 0, 0.0);
+        }
+    }
+
+    private static Object escape(Object value, List<Object> arguments, int line) {
+        if (value instanceof SafeString) return value;
+        String text = text(value);
+        StringBuilder escaped = new StringBuilder(text.length() + 16);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            String replacement = TemplateOutput.escapeReplacement(c);
+            if (replacement != null) {
+                escaped.append(replacement);
+            } else {
+                escaped.append(c);
+            }
+        }
+        return new SafeString(escaped.toString());
+    }
+}
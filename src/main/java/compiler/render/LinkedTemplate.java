@@ -0,0 +1,90 @@
+package compiler.render;
+
+import compiler.ast.core.ProgramNode;
+
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A template with its inheritance chain flattened and its includes filled in,
+ * as produced by TemplateLinker. The AST is shared with the linker's cache
+ * (children of this template are copied from it) and must not be modified.
+ */
+public final class LinkedTemplate {
+
+    private final String name;
+    private final ProgramNode ast;
+    // Parent, grandparent, ... up to the root template
+    private final List<String> ancestors;
+    // Version of the source this was linked from, and the linked dependencies it used
+    final long sourceVersion;
+    final Map<String, LinkedTemplate> dependencies;
+
+    private CompiledTemplate compiled;
+
+    LinkedTemplate(String name, ProgramNode ast, List<String> ancestors, long sourceVersion,
+                   Map<String, LinkedTemplate> dependencies) {
+        this.name = name;
+        this.ast = ast;
+        this.ancestors = Collections.unmodifiableList(ancestors);
+        this.sourceVersion = sourceVersion;
+        this.dependencies = Collections.unmodifiableMap(dependencies);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public ProgramNode getAST() {
+        return ast;
+    }
+
+    public List<String> getAncestors() {
+        return ancestors;
+    }
+
+    // Every template this one was built from, itself included
+    public Set<String> getTemplates() {
+        Set<String> templates = new LinkedHashSet<>();
+        collectTemplates(templates);
+        return templates;
+    }
+
+    private void collectTemplates(Set<String> templates) {
+        if (templates.add(name)) {
+            for (LinkedTemplate dependency : dependencies.values()) {
+                dependency.collectTemplates(templates);
+            }
+        }
+    }
+
+    boolean dependsOn(String template) {
+        for (LinkedTemplate dependency : dependencies.values()) {
+            if (dependency.name.equals(template) || dependency.dependsOn(template)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Optimized and compiled on first use, and kept as long as this linked template is
+    public synchronized CompiledTemplate getCompiled() {
+        if (compiled == null) {
+            // The AST itself stays as linked: children of this template are built from it
+            ProgramNode optimized = TemplateLinker.copy(ast);
+            TemplateOptimizer.optimize(optimized);
+            compiled = TemplateCompiler.compile(optimized);
+        }
+        return compiled;
+    }
+
+    @Override
+    public String toString() {
+        return ancestors.isEmpty()
+            ? String.format("LinkedTemplate(%s)", name)
+            : String.format("LinkedTemplate(%s extends %s)", name, String.join(" -> ", ancestors));
+    }
+}
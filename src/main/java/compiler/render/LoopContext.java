@@ -0,0 +1,24 @@
+package compiler.render;
+
+// The `loop` variable inside {% for %}: loop.index, loop.first, loop.length, ...
+final class LoopContext {
+    final int length;
+    int index0;
+
+    LoopContext(int length) {
+        this.length = length;
+    }
+
+    Object get(String name) {
+        switch (name) {
+            case "index": return (long) index0 + 1;
+            case "index0": return (long) index0;
+            case "revindex": return (long) (length - index0);
+            case "revindex0": return (long) (length - index0 - 1);
+            case "first": return index0 == 0;
+            case "last": return index0 == length - 1;
+            case "length": return (long) length;
+            default: return Values.UNDEFINED;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package compiler.render;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// State of one render: the output and the variable scopes ({% for %} bodies, {% set %})
+final class RenderContext {
+
+    // One scope level; template variables are looked up innermost first, then in globals
+    static final class Scope {
+        final Scope parent;
+        final Map<String, Object> variables = new HashMap<>();
+        // {% for %} scopes: values cached for the whole loop, and for the current iteration
+        Object[] invariants;
+        Object[] members;
+
+        Scope(Scope parent) {
+            this.parent = parent;
+        }
+    }
+
+    final TemplateOutput out;
+    private final Map<String, ?> globals;
+    private Scope scope;
+
+    RenderContext(TemplateOutput out, Map<String, ?> globals) {
+        this.out = out;
+        this.globals = globals;
+        this.scope = new Scope(null);
+    }
+
+    Object lookup(String name) {
+        for (Scope s = scope; s != null; s = s.parent) {
+            Object value = s.variables.get(name);
+            if (value != null || s.variables.containsKey(name)) {
+                return value;
+            }
+        }
+        Object value = globals.get(name);
+        if (value == null && !globals.containsKey(name)) {
+            return Values.UNDEFINED;
+        }
+        return value;
+    }
+
+    void set(String name, Object value) {
+        scope.variables.put(name, value);
+    }
+
+    // The scope `hops` levels out from the innermost one
+    Scope scope(int hops) {
+        Scope s = scope;
+        for (int i = 0; i < hops; i++) {
+            s = s.parent;
+        }
+        return s;
+    }
+
+    Scope pushScope() {
+        scope = new Scope(scope);
+        return scope;
+    }
+
+    void popScope() {
+        scope = scope.parent;
+    }
+}
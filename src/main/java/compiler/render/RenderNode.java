@@ -0,0 +1,9 @@
+package compiler.render;
+
+import java.io.IOException;
+
+// One compiled piece of a template: static chunk, {{ }} output, loop, branch, ...
+@FunctionalInterface
+interface RenderNode {
+    void render(RenderContext context) throws IOException;
+}
@@ -0,0 +1,28 @@
+package compiler.render;
+
+/**
+ * Markup that is written as-is instead of being HTML-escaped,
+ * like MarkupSafe's Markup (result of the `safe` and `escape` filters).
+ */
+public final class SafeString {
+    private final String html;
+
+    public SafeString(String html) {
+        this.html = html;
+    }
+
+    @Override
+    public String toString() {
+        return html;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof SafeString && ((SafeString) other).html.equals(html);
+    }
+
+    @Override
+    public int hashCode() {
+        return html.hashCode();
+    }
+}
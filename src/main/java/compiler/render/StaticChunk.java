@@ -0,0 +1,14 @@
+package compiler.render;
+
+import java.nio.charset.StandardCharsets;
+
+// A run of static template text, encoded to UTF-8 once at compile time
+final class StaticChunk {
+    final String text;
+    final byte[] utf8;
+
+    StaticChunk(String text) {
+        this.text = text;
+        this.utf8 = text.getBytes(StandardCharsets.UTF_8);
+    }
+}
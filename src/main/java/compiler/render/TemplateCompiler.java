@@ -0,0 +1,816 @@
+package compiler.render;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.BlockNode;
+import compiler.ast.core.ExpressionNode;
+import compiler.ast.core.ProgramNode;
+import compiler.ast.core.expressions.IdentifierNode;
+import compiler.ast.core.expressions.MemberAccessNode;
+import compiler.ast.core.expressions.NumberLiteralNode;
+import compiler.ast.core.expressions.StringLiteralNode;
+import compiler.ast.jinjaHtml.HTMLElementNode;
+import compiler.ast.jinjaHtml.HTMLTextNode;
+import compiler.ast.jinjaHtml.Jinja2VarNode;
+import compiler.ast.jinjaHtml.JinjaExtendsNode;
+import compiler.ast.jinjaHtml.JinjaFilterNode;
+import compiler.ast.jinjaHtml.JinjaForNode;
+import compiler.ast.jinjaHtml.JinjaIfNode;
+import compiler.ast.jinjaHtml.JinjaImportNode;
+import compiler.ast.jinjaHtml.JinjaIncludeNode;
+import compiler.ast.jinjaHtml.JinjaSetNode;
+import compiler.ast.python.BinaryOpNode;
+import compiler.ast.python.BooleanLiteralNode;
+import compiler.ast.python.ComparisonNode;
+import compiler.ast.python.DictionaryLiteralNode;
+import compiler.ast.python.FunctionCallNode;
+import compiler.ast.python.IndexAccessNode;
+import compiler.ast.python.ListLiteralNode;
+import compiler.ast.python.NoneLiteralNode;
+import compiler.ast.python.UnaryOpNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Compiles a Jinja2 template AST (from SimpleJinja2ASTBuilder) into a tree of
+ * closures that renders without walking the AST or re-reading the template.
+ *
+ * Markup that does not depend on the context - text, tags, static attributes -
+ * is concatenated across node boundaries into as few chunks as possible, and
+ * each chunk is UTF-8 encoded once here, so rendering to a stream is mostly
+ * array copies. Output of {{ }} is HTML-escaped, as in Flask.
+ *
+ * Inside a {% for %} body, an expression that does not depend on anything the
+ * loop changes (its targets, `loop`, names set in the body) is evaluated once
+ * per run of the loop instead of once per iteration, and a member chain on a
+ * loop target that the body uses more than once (product.stock) is resolved
+ * once per iteration. Both are evaluated lazily, on first use, so an expression
+ * in a branch that is never taken is still never evaluated.
+ *
+ * Usage:
+ *   CompiledTemplate template = TemplateCompiler.compile(ast);
+ *   template.render(Map.of("products", products), response.getOutputStream());
+ */
+public final class TemplateCompiler {
+
+    // Marks a loop slot that has not been evaluated yet in this run / iteration
+    private static final Object UNSET = new Object();
+
+    // A {% for %} whose body is being compiled
+    private static final class Loop {
+        final int depth;
+        final List<String> targets;
+        // Names that may differ between iterations: targets, `loop` and anything set in the body
+        final Set<String> variant = new HashSet<>();
+        // Member chains on a target used more than once in the body, e.g. "product.stock"
+        final Set<String> repeatedChains = new HashSet<>();
+        final Map<String, Integer> memberSlots = new HashMap<>();
+        int invariantSlots;
+
+        Loop(int depth, JinjaForNode node) {
+            this.depth = depth;
+            this.targets = node.getTargetNames();
+            Set<String> assigned = new HashSet<>();
+            TemplateOptimizer.collectAssigned(node.getBody(), assigned);
+            variant.addAll(targets);
+            variant.add("loop");
+            variant.addAll(assigned);
+
+            // A target set again in the body may no longer hold the item when a chain reads it
+            Set<String> roots = new HashSet<>(targets);
+            roots.removeAll(assigned);
+            Map<String, Integer> counts = new HashMap<>();
+            countChains(node.getBody(), roots, counts);
+            counts.forEach((chain, count) -> {
+                if (count > 1) {
+                    repeatedChains.add(chain);
+                }
+            });
+        }
+    }
+
+    private int staticChunkCount;
+    private long staticByteCount;
+    private int dynamicNodeCount;
+    private int hoistedExpressionCount;
+    private int memberSlotCount;
+
+    // Loops around the code being compiled, outermost first
+    private final List<Loop> loops = new ArrayList<>();
+    // Compiling an expression that is already hoisted: nothing inside it gets a slot of its own
+    private boolean hoisting;
+
+    private TemplateCompiler() {
+    }
+
+    public static CompiledTemplate compile(ASTNode template) {
+        TemplateCompiler compiler = new TemplateCompiler();
+        Emitter emitter = compiler.new Emitter();
+        compiler.emit(template, emitter);
+        RenderNode root = emitter.build();
+        return new CompiledTemplate(root, compiler.staticChunkCount, compiler.staticByteCount,
+            compiler.dynamicNodeCount, compiler.hoistedExpressionCount, compiler.memberSlotCount);
+    }
+
+    // A single expression, compiled the same way as in a template (used by TemplateOptimizer)
+    static Expr compileExpressionNode(ExpressionNode node) {
+        return new TemplateCompiler().compileExpression(node);
+    }
+
+    // Collects the render nodes of one body, merging adjacent static text into one chunk
+    private final class Emitter {
+        private final List<RenderNode> nodes = new ArrayList<>();
+        private final StringBuilder pendingText = new StringBuilder();
+
+        void text(String text) {
+            pendingText.append(text);
+        }
+
+        void node(RenderNode node) {
+            flushText();
+            nodes.add(node);
+            dynamicNodeCount++;
+        }
+
+        private void flushText() {
+            if (pendingText.length() == 0) {
+                return;
+            }
+            StaticChunk chunk = new StaticChunk(pendingText.toString());
+            pendingText.setLength(0);
+            staticChunkCount++;
+            staticByteCount += chunk.utf8.length;
+            nodes.add(context -> context.out.writeChunk(chunk));
+        }
+
+        RenderNode build() {
+            flushText();
+            if (nodes.isEmpty()) {
+                return context -> { };
+            }
+            if (nodes.size() == 1) {
+                return nodes.get(0);
+            }
+            RenderNode[] sequence = nodes.toArray(new RenderNode[0]);
+            return context -> {
+                for (RenderNode node : sequence) {
+                    node.render(context);
+                }
+            };
+        }
+    }
+
+    // ==================== TEMPLATE NODES ====================
+
+    private void emit(ASTNode node, Emitter out) {
+        if (node instanceof ProgramNode) {
+            for (ASTNode child : node.getChildren()) {
+                emit(child, out);
+            }
+        } else if (node instanceof BlockNode) {
+            for (ASTNode child : ((BlockNode) node).getContent()) {
+                emit(child, out);
+            }
+        } else if (node instanceof HTMLTextNode) {
+            out.text(((HTMLTextNode) node).getText());
+        } else if (node instanceof HTMLElementNode) {
+            emitElement((HTMLElementNode) node, out);
+        } else if (node instanceof Jinja2VarNode) {
+            Expr value = compileOutput((Jinja2VarNode) node);
+            out.node(context -> context.out.writeValue(value.eval(context)));
+        } else if (node instanceof JinjaForNode) {
+            out.node(compileFor((JinjaForNode) node));
+        } else if (node instanceof JinjaIfNode) {
+            out.node(compileIf((JinjaIfNode) node));
+        } else if (node instanceof JinjaSetNode) {
+            JinjaSetNode set = (JinjaSetNode) node;
+            String name = set.getVariableName();
+            Expr value = compileExpression(set.getValue());
+            out.node(context -> context.set(name, value.eval(context)));
+        } else if (node instanceof JinjaIncludeNode) {
+            // Empty unless the template went through TemplateLinker
+            for (ASTNode child : ((JinjaIncludeNode) node).getContent()) {
+                emit(child, out);
+            }
+        } else if (node instanceof JinjaExtendsNode || node instanceof JinjaImportNode) {
+            // Resolved by TemplateLinker; an unlinked child renders just its own blocks
+        } else {
+            throw new TemplateRenderException("Cannot render " + node.getNodeType(), node.getLineNumber());
+        }
+    }
+
+    private RenderNode compileBody(List<ASTNode> nodes) {
+        Emitter body = new Emitter();
+        for (ASTNode node : nodes) {
+            emit(node, body);
+        }
+        return body.build();
+    }
+
+    private void emitElement(HTMLElementNode element, Emitter out) {
+        out.text("<" + element.getTagName());
+        Map<String, List<ASTNode>> dynamicAttributes = element.getAttributeParts();
+        for (Map.Entry<String, String> attribute : element.getAttributes().entrySet()) {
+            String name = attribute.getKey();
+            String rawValue = attribute.getValue();
+            List<ASTNode> parts = dynamicAttributes.get(name);
+            if (parts == null) {
+                out.text(rawValue.isEmpty() ? " " + name : " " + name + "=" + rawValue);
+                continue;
+            }
+            String quote = rawValue.startsWith("'") ? "'" : "\"";
+            out.text(" " + name + "=" + quote);
+            for (ASTNode part : parts) {
+                emit(part, out);
+            }
+            out.text(quote);
+        }
+        if (element.isSelfClosing()) {
+            out.text("/>");
+            return;
+        }
+        out.text(">");
+        for (ASTNode child : element.getChildren()) {
+            emit(child, out);
+        }
+        if (element.getClosingTagName() != null) {
+            out.text("</" + element.getClosingTagName() + ">");
+        }
+    }
+
+    private RenderNode compileFor(JinjaForNode node) {
+        int line = node.getLineNumber();
+        Expr iterable = compileExpression(node.getIterable());
+        String[] targets = node.getTargetNames().toArray(new String[0]);
+        Loop info = new Loop(loops.size(), node);
+        loops.add(info);
+        RenderNode body;
+        try {
+            body = compileBody(node.getBody());
+        } finally {
+            loops.remove(loops.size() - 1);
+        }
+        // Runs outside the loop's scope, so compiled outside it too
+        RenderNode elseBody = compileBody(node.getElseBody());
+        int invariantSlots = info.invariantSlots;
+        int memberSlots = info.memberSlots.size();
+        hoistedExpressionCount += invariantSlots;
+        memberSlotCount += memberSlots;
+
+        return context -> {
+            List<?> items = Values.toList(iterable.eval(context));
+            if (items.isEmpty()) {
+                elseBody.render(context);
+                return;
+            }
+            RenderContext.Scope scope = context.pushScope();
+            LoopContext loop = new LoopContext(items.size());
+            scope.variables.put("loop", loop);
+            if (invariantSlots > 0) {
+                scope.invariants = new Object[invariantSlots];
+                Arrays.fill(scope.invariants, UNSET);
+            }
+            Object[] members = memberSlots > 0 ? new Object[memberSlots] : null;
+            scope.members = members;
+            try {
+                for (int i = 0; i < items.size(); i++) {
+                    loop.index0 = i;
+                    bindTargets(scope, targets, items.get(i), line);
+                    if (members != null) {
+                        Arrays.fill(members, UNSET);
+                    }
+                    body.render(context);
+                }
+            } finally {
+                context.popScope();
+            }
+        };
+    }
+
+    private static void bindTargets(RenderContext.Scope scope, String[] targets, Object item, int line) {
+        if (targets.length == 1) {
+            scope.variables.put(targets[0], item);
+            return;
+        }
+        List<?> values = item instanceof Map.Entry
+            ? List.of(((Map.Entry<?, ?>) item).getKey(), ((Map.Entry<?, ?>) item).getValue())
+            : Values.toList(item);
+        if (values.size() != targets.length) {
+            throw new TemplateRenderException(String.format("cannot unpack %d values into %d loop targets",
+                values.size(), targets.length), line);
+        }
+        for (int i = 0; i < targets.length; i++) {
+            scope.variables.put(targets[i], values.get(i));
+        }
+    }
+
+    private RenderNode compileIf(JinjaIfNode node) {
+        List<ExpressionNode> conditionNodes = node.getConditions();
+        Expr[] conditions = new Expr[conditionNodes.size()];
+        RenderNode[] branches = new RenderNode[conditionNodes.size()];
+        for (int i = 0; i < conditions.length; i++) {
+            conditions[i] = compileExpression(conditionNodes.get(i));
+            branches[i] = compileBody(node.getBranches().get(i));
+        }
+        RenderNode elseBody = compileBody(node.getElseBody());
+
+        return context -> {
+            for (int i = 0; i < conditions.length; i++) {
+                if (Values.isTruthy(conditions[i].eval(context))) {
+                    branches[i].render(context);
+                    return;
+                }
+            }
+            elseBody.render(context);
+        };
+    }
+
+    // ==================== EXPRESSIONS ====================
+
+    // {{ expression | filter(args) | ... }}
+    private Expr compileOutput(Jinja2VarNode node) {
+        // Filters are pure, so a whole chain on loop-invariant values can be hoisted too
+        if (!node.getFilters().isEmpty() && !loops.isEmpty() && !hoisting) {
+            Set<String> names = new HashSet<>();
+            boolean pure = freeNames(node.getExpression(), names);
+            for (List<ExpressionNode> arguments : node.getFilterArguments()) {
+                for (ExpressionNode argument : arguments) {
+                    pure &= freeNames(argument, names);
+                }
+            }
+            Expr hoisted = pure ? hoist(names, () -> compileFilters(node)) : null;
+            if (hoisted != null) {
+                return hoisted;
+            }
+        }
+        return compileFilters(node);
+    }
+
+    private Expr compileFilters(Jinja2VarNode node) {
+        Expr value = compileExpression(node.getExpression());
+        List<String> filters = node.getFilters();
+        List<List<ExpressionNode>> filterArguments = node.getFilterArguments();
+        for (int i = 0; i < filters.size(); i++) {
+            List<ExpressionNode> arguments = i < filterArguments.size() ? filterArguments.get(i) : List.of();
+            value = applyFilter(value, filters.get(i), arguments, node.getLineNumber());
+        }
+        return value;
+    }
+
+    private Expr applyFilter(Expr input, String name, List<ExpressionNode> argumentNodes, int line) {
+        Filters.Filter filter = Filters.get(name);
+        if (filter == null) {
+            throw new TemplateRenderException("No filter named '" + name + "'", line);
+        }
+        Expr[] arguments = compileAll(argumentNodes);
+        return context -> filter.apply(input.eval(context), evalAll(arguments, context), line);
+    }
+
+    private Expr[] compileAll(List<ExpressionNode> nodes) {
+        Expr[] compiled = new Expr[nodes.size()];
+        for (int i = 0; i < compiled.length; i++) {
+            compiled[i] = compileExpression(nodes.get(i));
+        }
+        return compiled;
+    }
+
+    private static List<Object> evalAll(Expr[] expressions, RenderContext context) {
+        if (expressions.length == 0) {
+            return Collections.emptyList();
+        }
+        List<Object> values = new ArrayList<>(expressions.length);
+        for (Expr expression : expressions) {
+            values.add(expression.eval(context));
+        }
+        return values;
+    }
+
+    private Expr compileExpression(ExpressionNode node) {
+        if (node != null && !loops.isEmpty() && !hoisting) {
+            Expr slot = compileSlot(node);
+            if (slot != null) {
+                return slot;
+            }
+        }
+        return compileValue(node);
+    }
+
+    private Expr compileValue(ExpressionNode node) {
+        if (node == null) {
+            return context -> Values.UNDEFINED;
+        }
+        int line = node.getLineNumber();
+
+        if (node instanceof StringLiteralNode) {
+            String value = ((StringLiteralNode) node).getValue();
+            return context -> value;
+        }
+        if (node instanceof NumberLiteralNode) {
+            // The AST keeps numbers as double; whole literals are Jinja2 ints
+            double number = ((NumberLiteralNode) node).getValue();
+            Object value = number == Math.rint(number) && Math.abs(number) < 1e15 ? (Object) (long) number : (Object) number;
+            return context -> value;
+        }
+        if (node instanceof BooleanLiteralNode) {
+            Boolean value = ((BooleanLiteralNode) node).getValue();
+            return context -> value;
+        }
+        if (node instanceof NoneLiteralNode) {
+            return context -> null;
+        }
+        if (node instanceof IdentifierNode) {
+            String name = node.getName();
+            return context -> context.lookup(name);
+        }
+        if (node instanceof MemberAccessNode) {
+            MemberAccessNode access = (MemberAccessNode) node;
+            Expr object = compileExpression(access.getObject());
+            String member = access.getMemberName();
+            return context -> Values.getAttribute(object.eval(context), member);
+        }
+        if (node instanceof IndexAccessNode) {
+            IndexAccessNode access = (IndexAccessNode) node;
+            Expr object = compileExpression(access.getObject());
+            Expr index = compileExpression(access.getIndex());
+            return context -> Values.getItem(object.eval(context), index.eval(context));
+        }
+        if (node instanceof UnaryOpNode) {
+            return compileUnary((UnaryOpNode) node);
+        }
+        if (node instanceof BinaryOpNode) {
+            return compileBinary((BinaryOpNode) node);
+        }
+        if (node instanceof ComparisonNode) {
+            return compileComparison((ComparisonNode) node);
+        }
+        if (node instanceof FunctionCallNode) {
+            return compileCall((FunctionCallNode) node);
+        }
+        if (node instanceof JinjaFilterNode) {
+            JinjaFilterNode filter = (JinjaFilterNode) node;
+            return applyFilter(compileExpression(filter.getOperand()), filter.getFilterName(), filter.getArguments(), line);
+        }
+        if (node instanceof ListLiteralNode) {
+            Expr[] elements = compileAll(((ListLiteralNode) node).getElements());
+            return context -> evalAll(elements, context);
+        }
+        if (node instanceof DictionaryLiteralNode) {
+            Map<ExpressionNode, ExpressionNode> entries = ((DictionaryLiteralNode) node).getEntries();
+            Expr[] keys = compileAll(new ArrayList<>(entries.keySet()));
+            Expr[] values = compileAll(new ArrayList<>(entries.values()));
+            return context -> {
+                Map<Object, Object> dict = new LinkedHashMap<>();
+                for (int i = 0; i < keys.length; i++) {
+                    dict.put(keys[i].eval(context), values[i].eval(context));
+                }
+                return dict;
+            };
+        }
+        throw new TemplateRenderException("Unsupported expression " + node.getNodeType(), line);
+    }
+
+    // ==================== LOOP SLOTS ====================
+
+    // A cached evaluation of node inside the enclosing loops, or null to evaluate it every time
+    private Expr compileSlot(ExpressionNode node) {
+        int innermost = loops.size() - 1;
+
+        // product.stock used twice in the body: resolved once per iteration
+        String root = chainRoot(node);
+        if (node instanceof MemberAccessNode && root != null) {
+            for (int i = innermost; i >= 0; i--) {
+                Loop loop = loops.get(i);
+                if (loop.targets.contains(root)) {
+                    String chain = chainKey(node, Set.of(root));
+                    if (loop.repeatedChains.contains(chain)) {
+                        return memberSlot(loop, chain, compileValue(node), innermost - i);
+                    }
+                    break;
+                }
+                if (loop.variant.contains(root)) {
+                    break; // Rebound by an inner loop: not the outer loop's item
+                }
+            }
+        }
+
+        // Same value in every iteration
+        Set<String> names = new HashSet<>();
+        if (node instanceof IdentifierNode || isLiteral(node) || !freeNames(node, names)) {
+            return null;
+        }
+        return hoist(names, () -> compileValue(node));
+    }
+
+    // Evaluated once per run of the outermost loop that does not change any of names, or null if none
+    private Expr hoist(Set<String> names, Supplier<Expr> compiler) {
+        int innermost = loops.size() - 1;
+        int owner = -1;
+        for (int i = innermost; i >= 0 && Collections.disjoint(names, loops.get(i).variant); i--) {
+            owner = i;
+        }
+        if (owner < 0) {
+            return null;
+        }
+        Expr compute;
+        hoisting = true;
+        try {
+            compute = compiler.get();
+        } finally {
+            hoisting = false;
+        }
+        int slot = loops.get(owner).invariantSlots++;
+        int hops = innermost - owner;
+        return context -> {
+            Object[] slots = context.scope(hops).invariants;
+            Object value = slots[slot];
+            if (value == UNSET) {
+                value = compute.eval(context);
+                slots[slot] = value;
+            }
+            return value;
+        };
+    }
+
+    private static Expr memberSlot(Loop loop, String chain, Expr compute, int hops) {
+        int slot = loop.memberSlots.computeIfAbsent(chain, key -> loop.memberSlots.size());
+        return context -> {
+            Object[] slots = context.scope(hops).members;
+            Object value = slots[slot];
+            if (value == UNSET) {
+                value = compute.eval(context);
+                slots[slot] = value;
+            }
+            return value;
+        };
+    }
+
+    // Names an expression reads; false if it calls anything (a TemplateFunction may not be pure)
+    private static boolean freeNames(ExpressionNode node, Set<String> names) {
+        if (isLiteral(node)) {
+            return true;
+        }
+        if (node instanceof IdentifierNode) {
+            names.add(node.getName());
+            return true;
+        }
+        if (node instanceof MemberAccessNode) {
+            return freeNames(((MemberAccessNode) node).getObject(), names);
+        }
+        if (node instanceof IndexAccessNode) {
+            return freeNames(((IndexAccessNode) node).getObject(), names)
+                && freeNames(((IndexAccessNode) node).getIndex(), names);
+        }
+        if (node instanceof UnaryOpNode) {
+            return freeNames(((UnaryOpNode) node).getOperand(), names);
+        }
+        if (node instanceof BinaryOpNode) {
+            return freeNames(((BinaryOpNode) node).getLeft(), names) && freeNames(((BinaryOpNode) node).getRight(), names);
+        }
+        if (node instanceof ComparisonNode) {
+            ComparisonNode comparison = (ComparisonNode) node;
+            // The right side of `is` names a test, not a variable
+            return freeNames(comparison.getLeft(), names)
+                && ("is".equals(comparison.getOperator()) || freeNames(comparison.getRight(), names));
+        }
+        // Filters are pure, unlike calls
+        if (node instanceof JinjaFilterNode) {
+            JinjaFilterNode filter = (JinjaFilterNode) node;
+            boolean pure = freeNames(filter.getOperand(), names);
+            for (ExpressionNode argument : filter.getArguments()) {
+                pure &= freeNames(argument, names);
+            }
+            return pure;
+        }
+        if (node instanceof ListLiteralNode) {
+            for (ExpressionNode element : ((ListLiteralNode) node).getElements()) {
+                if (!freeNames(element, names)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (node instanceof DictionaryLiteralNode) {
+            for (Map.Entry<ExpressionNode, ExpressionNode> entry : ((DictionaryLiteralNode) node).getEntries().entrySet()) {
+                if (!freeNames(entry.getKey(), names) || !freeNames(entry.getValue(), names)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isLiteral(ExpressionNode node) {
+        return node == null || node instanceof StringLiteralNode || node instanceof NumberLiteralNode
+            || node instanceof BooleanLiteralNode || node instanceof NoneLiteralNode;
+    }
+
+    // Example: product.details.name -> "product"
+    private static String chainRoot(ExpressionNode node) {
+        while (node instanceof MemberAccessNode) {
+            node = ((MemberAccessNode) node).getObject();
+        }
+        return node instanceof IdentifierNode ? node.getName() : null;
+    }
+
+    // Example: product.details.name -> "product.details.name", or null if not rooted at one of roots
+    private static String chainKey(ExpressionNode node, Set<String> roots) {
+        if (node instanceof IdentifierNode) {
+            return roots.contains(node.getName()) ? node.getName() : null;
+        }
+        if (node instanceof MemberAccessNode) {
+            String object = chainKey(((MemberAccessNode) node).getObject(), roots);
+            return object != null ? object + "." + ((MemberAccessNode) node).getMemberName() : null;
+        }
+        return null;
+    }
+
+    // Counts the member chains on roots in a loop body, inner loops that rebind a root excepted
+    private static void countChains(List<ASTNode> nodes, Set<String> roots, Map<String, Integer> counts) {
+        for (ASTNode node : nodes) {
+            if (node instanceof Jinja2VarNode) {
+                countChains(((Jinja2VarNode) node).getExpression(), roots, counts);
+                for (List<ExpressionNode> arguments : ((Jinja2VarNode) node).getFilterArguments()) {
+                    for (ExpressionNode argument : arguments) {
+                        countChains(argument, roots, counts);
+                    }
+                }
+            } else if (node instanceof JinjaSetNode) {
+                countChains(((JinjaSetNode) node).getValue(), roots, counts);
+            } else if (node instanceof JinjaIfNode) {
+                JinjaIfNode ifNode = (JinjaIfNode) node;
+                for (ExpressionNode condition : ifNode.getConditions()) {
+                    countChains(condition, roots, counts);
+                }
+                for (List<ASTNode> branch : ifNode.getBranches()) {
+                    countChains(branch, roots, counts);
+                }
+                countChains(ifNode.getElseBody(), roots, counts);
+            } else if (node instanceof JinjaForNode) {
+                JinjaForNode forNode = (JinjaForNode) node;
+                countChains(forNode.getIterable(), roots, counts);
+                countChains(forNode.getElseBody(), roots, counts);
+                Set<String> inner = new HashSet<>(roots);
+                inner.removeAll(forNode.getTargetNames());
+                countChains(forNode.getBody(), inner, counts);
+            } else if (node instanceof HTMLElementNode) {
+                for (List<ASTNode> parts : ((HTMLElementNode) node).getAttributeParts().values()) {
+                    countChains(parts, roots, counts);
+                }
+                countChains(node.getChildren(), roots, counts);
+            } else if (node instanceof BlockNode) {
+                countChains(((BlockNode) node).getContent(), roots, counts);
+            } else if (node instanceof JinjaIncludeNode) {
+                countChains(((JinjaIncludeNode) node).getContent(), roots, counts);
+            }
+        }
+    }
+
+    private static void countChains(ExpressionNode node, Set<String> roots, Map<String, Integer> counts) {
+        if (node == null) {
+            return;
+        }
+        String chain = node instanceof MemberAccessNode ? chainKey(node, roots) : null;
+        if (chain != null) {
+            counts.merge(chain, 1, Integer::sum);
+        }
+        List<? extends ASTNode> children = node instanceof ListLiteralNode
+            ? ((ListLiteralNode) node).getElements() : node.getChildren();
+        for (ASTNode child : children) {
+            if (child instanceof ExpressionNode) {
+                countChains((ExpressionNode) child, roots, counts);
+            }
+        }
+    }
+
+    private Expr compileUnary(UnaryOpNode node) {
+        Expr operand = compileExpression(node.getOperand());
+        int line = node.getLineNumber();
+        switch (node.getOperator()) {
+            case "not":
+                return context -> !Values.isTruthy(operand.eval(context));
+            case "-":
+                return context -> Values.arithmetic("-", 0L, operand.eval(context), line);
+            case "+":
+                return operand;
+            default:
+                throw new TemplateRenderException("Unsupported operator " + node.getOperator(), line);
+        }
+    }
+
+    private Expr compileBinary(BinaryOpNode node) {
+        Expr left = compileExpression(node.getLeft());
+        Expr right = compileExpression(node.getRight());
+        String operator = node.getOperator();
+        int line = node.getLineNumber();
+        switch (operator) {
+            case "and":
+                return context -> {
+                    Object value = left.eval(context);
+                    return Values.isTruthy(value) ? right.eval(context) : value;
+                };
+            case "or":
+                return context -> {
+                    Object value = left.eval(context);
+                    return Values.isTruthy(value) ? value : right.eval(context);
+                };
+            default:
+                return context -> Values.arithmetic(operator, left.eval(context), right.eval(context), line);
+        }
+    }
+
+    private Expr compileComparison(ComparisonNode node) {
+        int line = node.getLineNumber();
+        Expr left = compileExpression(node.getLeft());
+        if ("is".equals(node.getOperator())) {
+            Test test = compileTest(node.getRight(), line);
+            return context -> test.test(left.eval(context));
+        }
+        Expr right = compileExpression(node.getRight());
+        switch (node.getOperator()) {
+            case "==": return context -> Values.areEqual(left.eval(context), right.eval(context));
+            case "!=": return context -> !Values.areEqual(left.eval(context), right.eval(context));
+            case "<": return context -> Values.compare(left.eval(context), right.eval(context), line) < 0;
+            case ">": return context -> Values.compare(left.eval(context), right.eval(context), line) > 0;
+            case "<=": return context -> Values.compare(left.eval(context), right.eval(context), line) <= 0;
+            case ">=": return context -> Values.compare(left.eval(context), right.eval(context), line) >= 0;
+            case "in": return context -> Values.contains(right.eval(context), left.eval(context), line);
+            default:
+                throw new TemplateRenderException("Unsupported comparison " + node.getOperator(), line);
+        }
+    }
+
+    // Right-hand side of `is`: a test name, `not <test>`, none / true / false
+    @FunctionalInterface
+    private interface Test {
+        boolean test(Object value);
+    }
+
+    private Test compileTest(ExpressionNode node, int line) {
+        if (node instanceof UnaryOpNode && "not".equals(((UnaryOpNode) node).getOperator())) {
+            Test test = compileTest(((UnaryOpNode) node).getOperand(), line);
+            return value -> !test.test(value);
+        }
+        if (node instanceof NoneLiteralNode) {
+            return value -> value == null;
+        }
+        if (node instanceof BooleanLiteralNode) {
+            Boolean expected = ((BooleanLiteralNode) node).getValue();
+            return expected::equals;
+        }
+        if (!(node instanceof IdentifierNode)) {
+            throw new TemplateRenderException("Unsupported test expression", line);
+        }
+        switch (node.getName()) {
+            case "defined": return value -> value != Values.UNDEFINED;
+            case "undefined": return value -> value == Values.UNDEFINED;
+            case "none": return value -> value == null;
+            case "number": return value -> value instanceof Number;
+            case "string": return value -> value instanceof CharSequence || value instanceof SafeString;
+            case "mapping": return value -> value instanceof Map;
+            case "sequence": return value -> value instanceof List || value instanceof CharSequence;
+            case "iterable": return value -> value instanceof Iterable || value instanceof Map
+                || value instanceof CharSequence || value != null && value.getClass().isArray();
+            case "even": return value -> Values.toLong(value, line) % 2 == 0;
+            case "odd": return value -> Values.toLong(value, line) % 2 != 0;
+            case "lower": return value -> value instanceof CharSequence && value.toString().equals(value.toString().toLowerCase());
+            case "upper": return value -> value instanceof CharSequence && value.toString().equals(value.toString().toUpperCase());
+            default:
+                throw new TemplateRenderException("No test named '" + node.getName() + "'", line);
+        }
+    }
+
+    // name(args): a TemplateFunction from the context, or the range() builtin
+    private Expr compileCall(FunctionCallNode node) {
+        int line = node.getLineNumber();
+        if (!(node.getFunction() instanceof IdentifierNode)) {
+            throw new TemplateRenderException("Unsupported call target", line);
+        }
+        String name = node.getFunction().getName();
+        if ("super".equals(name)) {
+            throw new TemplateRenderException("super() is not supported", line);
+        }
+        Expr[] arguments = compileAll(node.getArguments());
+        return context -> {
+            Object function = context.lookup(name);
+            List<Object> values = evalAll(arguments, context);
+            if (function instanceof TemplateFunction) {
+                return ((TemplateFunction) function).call(values);
+            }
+            if (function == Values.UNDEFINED && "range".equals(name)) {
+                return Values.range(values, line);
+            }
+            throw new TemplateRenderException(function == Values.UNDEFINED
+                ? "'" + name + "' is undefined"
+                : "'" + Values.typeName(function) + "' object is not callable", line);
+        };
+    }
+}
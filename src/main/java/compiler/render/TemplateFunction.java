@@ -0,0 +1,12 @@
+package compiler.render;
+
+import java.util.List;
+
+/**
+ * A callable passed in the render context, e.g. Flask's url_for:
+ *   context.put("url_for", args -> "/static/" + args.get(1));
+ */
+@FunctionalInterface
+public interface TemplateFunction {
+    Object call(List<Object> arguments);
+}
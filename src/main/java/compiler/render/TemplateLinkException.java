@@ -0,0 +1,13 @@
+package compiler.render;
+
+public class TemplateLinkException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public TemplateLinkException(String message) {
+        super(message);
+    }
+
+    public TemplateLinkException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,384 @@
+package compiler.render;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.BlockNode;
+import compiler.ast.core.ProgramNode;
+import compiler.ast.core.expressions.IdentifierNode;
+import compiler.ast.jinjaHtml.JinjaExtendsNode;
+import compiler.ast.jinjaHtml.JinjaImportNode;
+import compiler.ast.jinjaHtml.JinjaIncludeNode;
+import compiler.ast.python.FunctionCallNode;
+import compiler.cache.ASTSerializer;
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves {% extends %}, {% include %} and {% import %} between the
+ * templates under one root directory.
+ *
+ * Each template is parsed once and kept with its direct dependencies; together
+ * they form a DAG, and a cycle is reported as a TemplateLinkException.
+ * link(name) returns a LinkedTemplate: one AST in which the parent chain is
+ * flattened (the most derived {% block %} wins) and every include holds the
+ * linked content of the included template. Blocks inside included content
+ * belong to the included template: they neither override nor get overridden.
+ * {{ super() }} is not supported and is reported as a TemplateLinkException.
+ *
+ * Linked templates are cached. A cached result is reused as long as its own
+ * source and every linked template it was built from are unchanged, so a child
+ * page only pays for its inheritance chain when something in it changed. With
+ * checkModified on (the default) a file whose modification time or size
+ * changed is re-parsed on the next link; invalidate(name) does the same
+ * explicitly, e.g. from a file watcher.
+ *
+ * Imports only add an edge to the graph: macros are not built yet, so there
+ * is nothing to bind. link() and invalidate() are synchronized.
+ *
+ * Usage:
+ *   TemplateLinker linker = new TemplateLinker(Paths.get("templates"));
+ *   linker.link("products.html").getCompiled().render(context, out);
+ */
+public class TemplateLinker {
+
+    // One parsed template file
+    private static class Source {
+        final String name;
+        final long modified;
+        final long size;
+        final long version;
+        final ProgramNode ast;
+        // {% extends %} target, or null
+        final String parent;
+        // Parent, includes and imports in source order, without duplicates
+        final List<String> dependencies;
+
+        Source(String name, long modified, long size, long version, ProgramNode ast, String parent,
+               List<String> dependencies) {
+            this.name = name;
+            this.modified = modified;
+            this.size = size;
+            this.version = version;
+            this.ast = ast;
+            this.parent = parent;
+            this.dependencies = dependencies;
+        }
+    }
+
+    private final Path root;
+    private final LanguageFrontEnd frontEnd;
+    private final Map<String, Source> sources = new HashMap<>();
+    private final Map<String, LinkedTemplate> linked = new HashMap<>();
+
+    // Re-check file modification times on every link (see class comment)
+    private boolean checkModified = true;
+
+    private long nextVersion = 1;
+    private int parses;
+    private int hits;
+    private int misses;
+
+    public TemplateLinker(Path root, LanguageFrontEnd frontEnd) {
+        this.root = root.toAbsolutePath().normalize();
+        this.frontEnd = frontEnd;
+    }
+
+    public TemplateLinker(Path root) {
+        this(root, new LanguageFrontEnd());
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    public synchronized void setCheckModified(boolean checkModified) {
+        this.checkModified = checkModified;
+    }
+
+    public synchronized LinkedTemplate link(String name) {
+        return link(normalize(name), new ArrayDeque<>());
+    }
+
+    /**
+     * Forgets the parsed template and every cached result built on it (its
+     * children, the pages including it, and so on). Returns how many linked
+     * templates were dropped.
+     */
+    public synchronized int invalidate(String name) {
+        String key = normalize(name);
+        sources.remove(key);
+        int dropped = 0;
+        for (Iterator<LinkedTemplate> it = linked.values().iterator(); it.hasNext(); ) {
+            LinkedTemplate template = it.next();
+            if (template.getName().equals(key) || template.dependsOn(key)) {
+                it.remove();
+                dropped++;
+            }
+        }
+        return dropped;
+    }
+
+    public synchronized void clear() {
+        sources.clear();
+        linked.clear();
+    }
+
+    // Direct dependencies of a template parsed so far (empty if it was not)
+    public synchronized List<String> getDependencies(String name) {
+        Source source = sources.get(normalize(name));
+        return source != null ? new ArrayList<>(source.dependencies) : new ArrayList<>();
+    }
+
+    // Parsed templates that extend, include or import the given one
+    public synchronized List<String> getDependents(String name) {
+        String key = normalize(name);
+        List<String> dependents = new ArrayList<>();
+        for (Source source : sources.values()) {
+            if (source.dependencies.contains(key)) {
+                dependents.add(source.name);
+            }
+        }
+        return dependents;
+    }
+
+    public synchronized String getStatistics() {
+        return String.format("Statistics: %d templates parsed (%d parses), %d linked, %d hits, %d misses",
+            sources.size(), parses, linked.size(), hits, misses);
+    }
+
+    // ==================== LINKING ====================
+
+    // path holds the templates being linked, innermost first, to report cycles and where a name came from
+    private LinkedTemplate link(String name, Deque<String> path) {
+        if (path.contains(name)) {
+            throw new TemplateLinkException("Cyclic template dependency: " + chain(path, name));
+        }
+        path.push(name);
+        try {
+            Source source = load(name, path);
+
+            // Dependencies first; each one comes back from the cache unless it changed
+            Map<String, LinkedTemplate> dependencies = new LinkedHashMap<>();
+            for (String dependency : source.dependencies) {
+                dependencies.put(dependency, link(dependency, path));
+            }
+
+            LinkedTemplate cached = linked.get(name);
+            if (cached != null && isCurrent(cached, source, dependencies)) {
+                hits++;
+                return cached;
+            }
+            misses++;
+            LinkedTemplate result = build(source, dependencies);
+            linked.put(name, result);
+            return result;
+        } finally {
+            path.pop();
+        }
+    }
+
+    private static boolean isCurrent(LinkedTemplate cached, Source source, Map<String, LinkedTemplate> dependencies) {
+        if (cached.sourceVersion != source.version || !cached.dependencies.keySet().equals(dependencies.keySet())) {
+            return false;
+        }
+        // A dependency that was re-linked is a new object
+        for (Map.Entry<String, LinkedTemplate> dependency : dependencies.entrySet()) {
+            if (cached.dependencies.get(dependency.getKey()) != dependency.getValue()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private LinkedTemplate build(Source source, Map<String, LinkedTemplate> dependencies) {
+        // The parsed AST stays untouched; links are made in a copy
+        ProgramNode own = copy(source.ast);
+        fillIncludes(own, dependencies);
+
+        if (source.parent == null) {
+            return new LinkedTemplate(source.name, own, new ArrayList<>(), source.version, dependencies);
+        }
+
+        LinkedTemplate parent = dependencies.get(source.parent);
+        Map<String, BlockNode> overrides = new HashMap<>();
+        collectBlocks(own, overrides);
+        ProgramNode result = copy(parent.getAST());
+        overrideBlocks(result, overrides);
+
+        List<String> ancestors = new ArrayList<>();
+        ancestors.add(parent.getName());
+        ancestors.addAll(parent.getAncestors());
+        return new LinkedTemplate(source.name, result, ancestors, source.version, dependencies);
+    }
+
+    private void fillIncludes(ASTNode node, Map<String, LinkedTemplate> dependencies) {
+        for (ASTNode child : node.getChildren()) {
+            if (child instanceof JinjaIncludeNode) {
+                JinjaIncludeNode include = (JinjaIncludeNode) child;
+                ProgramNode included = copy(dependencies.get(normalize(include.getTemplateName())).getAST());
+                include.setContent(new ArrayList<>(included.getChildren()));
+            } else {
+                fillIncludes(child, dependencies);
+            }
+        }
+    }
+
+    // First definition of each block name, nested blocks included; included content is not the child's own
+    private static void collectBlocks(ASTNode node, Map<String, BlockNode> blocks) {
+        for (ASTNode child : node.getChildren()) {
+            if (child instanceof JinjaIncludeNode) {
+                continue;
+            }
+            if (child instanceof BlockNode) {
+                blocks.putIfAbsent(((BlockNode) child).getBlockName(), (BlockNode) child);
+            }
+            collectBlocks(child, blocks);
+        }
+    }
+
+    // The overriding content may itself define (or be overridden in) nested blocks, so it is walked too
+    private static void overrideBlocks(ASTNode node, Map<String, BlockNode> overrides) {
+        for (ASTNode child : node.getChildren()) {
+            if (child instanceof JinjaIncludeNode) {
+                continue;
+            }
+            if (child instanceof BlockNode) {
+                BlockNode block = (BlockNode) child;
+                BlockNode override = overrides.get(block.getBlockName());
+                if (override != null && override != block) {
+                    block.setContent(new ArrayList<>(override.getContent()));
+                }
+            }
+            overrideBlocks(child, overrides);
+        }
+    }
+
+    static ProgramNode copy(ProgramNode ast) {
+        try {
+            return (ProgramNode) ASTSerializer.deserialize(ASTSerializer.serialize(ast));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ==================== SOURCES ====================
+
+    // The parsed template, re-parsed if its file changed since (with checkModified)
+    private Source load(String name, Deque<String> path) {
+        Path file = root.resolve(name);
+        Source source = sources.get(name);
+        if (source != null && (!checkModified || isUnchanged(source, file))) {
+            return source;
+        }
+
+        String text;
+        long modified;
+        long size;
+        try {
+            modified = Files.getLastModifiedTime(file).toMillis();
+            size = Files.size(file);
+            text = Files.readString(file);
+        } catch (NoSuchFileException e) {
+            throw new TemplateLinkException("Template not found: " + name + " (" + chain(path, null) + ")");
+        } catch (IOException e) {
+            throw new TemplateLinkException("Cannot read template " + name + ": " + e.getMessage(), e);
+        }
+
+        FileCompilationResult compilation = frontEnd.compile(name, text, SourceLanguage.JINJA2);
+        parses++;
+        if (!compilation.syntaxErrors.isEmpty()) {
+            throw new TemplateLinkException(name + ": " + compilation.syntaxErrors.get(0));
+        }
+        if (compilation.ast == null) {
+            throw new TemplateLinkException(name + ": " + compilation.failure);
+        }
+
+        ProgramNode ast = (ProgramNode) compilation.ast;
+        rejectSuper(name, ast);
+        String parent = null;
+        List<String> dependencies = new ArrayList<>();
+        for (ASTNode child : ast.getChildren()) {
+            if (child instanceof JinjaExtendsNode) {
+                parent = normalize(((JinjaExtendsNode) child).getTemplateName());
+                dependencies.add(parent);
+                break;
+            }
+        }
+        collectDependencies(ast, dependencies);
+
+        source = new Source(name, modified, size, nextVersion++, ast, parent, dependencies);
+        sources.put(name, source);
+        return source;
+    }
+
+    private void collectDependencies(ASTNode node, List<String> dependencies) {
+        for (ASTNode child : node.getChildren()) {
+            String dependency = null;
+            if (child instanceof JinjaIncludeNode) {
+                dependency = ((JinjaIncludeNode) child).getTemplateName();
+            } else if (child instanceof JinjaImportNode) {
+                dependency = ((JinjaImportNode) child).getTemplateName();
+            }
+            if (dependency != null) {
+                String key = normalize(dependency);
+                if (!dependencies.contains(key)) {
+                    dependencies.add(key);
+                }
+            }
+            collectDependencies(child, dependencies);
+        }
+    }
+
+    // Rendering the parent's block from an override is not implemented; fail here rather than at render time
+    private static void rejectSuper(String name, ASTNode node) {
+        for (ASTNode child : node.getChildren()) {
+            if (child instanceof FunctionCallNode && ((FunctionCallNode) child).getFunction() instanceof IdentifierNode
+                    && "super".equals(((FunctionCallNode) child).getFunction().getName())) {
+                throw new TemplateLinkException(String.format("%s: line %d: {{ super() }} is not supported",
+                    name, child.getLineNumber()));
+            }
+            rejectSuper(name, child);
+        }
+    }
+
+    private static boolean isUnchanged(Source source, Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis() == source.modified && Files.size(file) == source.size;
+        } catch (IOException e) {
+            return false; // gone; load() reports it
+        }
+    }
+
+    // Example: "./layouts/../base.html" -> "base.html"
+    private String normalize(String name) {
+        Path file = root.resolve(name).normalize();
+        if (!file.startsWith(root)) {
+            throw new TemplateLinkException("Template outside the template root: " + name);
+        }
+        return root.relativize(file).toString().replace('\\', '/');
+    }
+
+    // Example: path [layout.html, page.html] + base.html -> "page.html -> layout.html -> base.html"
+    private static String chain(Deque<String> path, String last) {
+        List<String> names = new ArrayList<>(path);
+        java.util.Collections.reverse(names);
+        if (last != null) {
+            names.add(last);
+        }
+        return String.join(" -> ", names);
+    }
+}
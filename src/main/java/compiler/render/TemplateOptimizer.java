@@ -0,0 +1,643 @@
+package compiler.render;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.BlockNode;
+import compiler.ast.core.ExpressionNode;
+import compiler.ast.core.ProgramNode;
+import compiler.ast.core.expressions.IdentifierNode;
+import compiler.ast.core.expressions.MemberAccessNode;
+import compiler.ast.core.expressions.NumberLiteralNode;
+import compiler.ast.core.expressions.StringLiteralNode;
+import compiler.ast.jinjaHtml.HTMLElementNode;
+import compiler.ast.jinjaHtml.HTMLTextNode;
+import compiler.ast.jinjaHtml.Jinja2VarNode;
+import compiler.ast.jinjaHtml.JinjaFilterNode;
+import compiler.ast.jinjaHtml.JinjaForNode;
+import compiler.ast.jinjaHtml.JinjaIfNode;
+import compiler.ast.jinjaHtml.JinjaIncludeNode;
+import compiler.ast.jinjaHtml.JinjaSetNode;
+import compiler.ast.python.BinaryOpNode;
+import compiler.ast.python.BooleanLiteralNode;
+import compiler.ast.python.ComparisonNode;
+import compiler.ast.python.DictionaryLiteralNode;
+import compiler.ast.python.FunctionCallNode;
+import compiler.ast.python.IndexAccessNode;
+import compiler.ast.python.ListLiteralNode;
+import compiler.ast.python.NoneLiteralNode;
+import compiler.ast.python.UnaryOpNode;
+import compiler.utils.ASTPrinter;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Simplifies a Jinja2 template AST before it is rendered:
+ *
+ *   - constant subexpressions are folded ({{ 60 * 60 }} -> 3600)
+ *   - filter chains on constants are applied ({{ "sale" | upper }} -> SALE)
+ *   - {% set %} of a constant is evaluated here and its uses replaced by the value
+ *   - {% if %} / {% elif %} branches with a constant condition, and loops over a
+ *     constant empty sequence, are pruned or inlined
+ *   - elements without any dynamic part become text, and adjacent text nodes are
+ *     merged, so each static region ends up as a single precomputed string
+ *
+ * Constants are evaluated with the renderer's own Expr / Filters / Values code, so
+ * a folded template renders exactly like the original. Anything that fails to
+ * evaluate (1 / 0, an unknown filter) is left for render time to report.
+ *
+ * The tree is modified in place and loses nothing a renderer needs, but removed
+ * {% set %}s are gone: optimize after TemplateLinker has linked a template, not
+ * a template that others extend.
+ *
+ * Usage:
+ *   TemplateOptimizer.Result result = TemplateOptimizer.optimize(ast);
+ *   CompiledTemplate template = TemplateCompiler.compile(ast);
+ */
+public final class TemplateOptimizer {
+
+    public static final class Result {
+        public final int nodesBefore;
+        public final int nodesAfter;
+        public final int foldedExpressions;
+        public final int foldedOutputs;
+        public final int foldedSets;
+        public final int foldedConditions;
+        public final int staticElements;
+        public final int mergedTextNodes;
+
+        Result(int nodesBefore, int nodesAfter, TemplateOptimizer optimizer) {
+            this.nodesBefore = nodesBefore;
+            this.nodesAfter = nodesAfter;
+            this.foldedExpressions = optimizer.foldedExpressions;
+            this.foldedOutputs = optimizer.foldedOutputs;
+            this.foldedSets = optimizer.foldedSets;
+            this.foldedConditions = optimizer.foldedConditions;
+            this.staticElements = optimizer.staticElements;
+            this.mergedTextNodes = optimizer.mergedTextNodes;
+        }
+
+        public void print() {
+            System.out.println("Template optimization:");
+            System.out.println(String.format("  Nodes:              %d -> %d", nodesBefore, nodesAfter));
+            System.out.println("  Folded expressions: " + foldedExpressions);
+            System.out.println("  Folded {{ }}:       " + foldedOutputs);
+            System.out.println("  Folded {% set %}:   " + foldedSets);
+            System.out.println("  Folded conditions:  " + foldedConditions);
+            System.out.println("  Static elements:    " + staticElements);
+            System.out.println("  Merged text nodes:  " + mergedTextNodes);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d -> %d nodes (%d expressions, %d outputs, %d sets folded)",
+                nodesBefore, nodesAfter, foldedExpressions, foldedOutputs, foldedSets);
+        }
+    }
+
+    private static final Object NOT_CONSTANT = new Object();
+
+    // Expressions being folded never look anything up, so one empty context serves them all
+    private final RenderContext constantContext =
+        new RenderContext(new TemplateOutput.Chars(Writer.nullWriter()), Map.of());
+
+    // Constant {% set %} values known at the current point of the walk
+    private Map<String, Object> constants = new HashMap<>();
+    // Of those, the ones whose {% set %} was removed; it is put back before anything may reassign them
+    private final Set<String> removedSets = new HashSet<>();
+    // Names called as functions are looked up at render time; their sets are never folded
+    private final Set<String> callTargets = new HashSet<>();
+
+    private int foldedExpressions;
+    private int foldedOutputs;
+    private int foldedSets;
+    private int foldedConditions;
+    private int staticElements;
+    private int mergedTextNodes;
+
+    private TemplateOptimizer() {
+    }
+
+    public static Result optimize(ProgramNode template) {
+        int before = ASTPrinter.countNodes(template);
+        TemplateOptimizer optimizer = new TemplateOptimizer();
+        optimizer.collectCallTargets(template);
+        List<ASTNode> body = optimizer.optimizeBody(template.getChildren(), true);
+        template.getChildren().clear();
+        template.addChildren(body);
+        return new Result(before, ASTPrinter.countNodes(template), optimizer);
+    }
+
+    // ==================== TEMPLATE NODES ====================
+
+    // topLevel: not inside an {% if %} or {% for %}, so a {% set %} here always runs
+    private List<ASTNode> optimizeBody(List<ASTNode> nodes, boolean topLevel) {
+        List<ASTNode> result = new ArrayList<>();
+        for (ASTNode node : nodes) {
+            optimizeNode(node, topLevel, result);
+        }
+        return mergeText(result);
+    }
+
+    private void optimizeNode(ASTNode node, boolean topLevel, List<ASTNode> out) {
+        if (node instanceof HTMLElementNode) {
+            out.add(optimizeElement((HTMLElementNode) node, topLevel));
+        } else if (node instanceof Jinja2VarNode) {
+            out.add(optimizeOutput((Jinja2VarNode) node));
+        } else if (node instanceof JinjaSetNode) {
+            optimizeSet((JinjaSetNode) node, topLevel, out);
+        } else if (node instanceof JinjaIfNode) {
+            optimizeIf((JinjaIfNode) node, topLevel, out);
+        } else if (node instanceof JinjaForNode) {
+            optimizeFor((JinjaForNode) node, topLevel, out);
+        } else if (node instanceof BlockNode) {
+            BlockNode block = (BlockNode) node;
+            block.setContent(optimizeBody(block.getContent(), topLevel));
+            out.add(block);
+        } else if (node instanceof JinjaIncludeNode) {
+            JinjaIncludeNode include = (JinjaIncludeNode) node;
+            include.setContent(optimizeBody(include.getContent(), topLevel));
+            out.add(include);
+        } else {
+            out.add(node);
+        }
+    }
+
+    private ASTNode optimizeElement(HTMLElementNode element, boolean topLevel) {
+        Map<String, List<ASTNode>> attributeParts = element.getAttributeParts();
+        for (String name : new ArrayList<>(attributeParts.keySet())) {
+            List<ASTNode> parts = optimizeBody(attributeParts.get(name), topLevel);
+            if (parts.size() == 1 && parts.get(0) instanceof HTMLTextNode) {
+                // Every {{ }} in the value folded: a plain attribute now
+                String quote = element.getAttributes().get(name).startsWith("'") ? "'" : "\"";
+                element.getAttributes().put(name, quote + ((HTMLTextNode) parts.get(0)).getText() + quote);
+                attributeParts.remove(name);
+            } else {
+                element.setAttributeParts(name, parts);
+            }
+        }
+
+        List<ASTNode> children = optimizeBody(element.getChildren(), topLevel);
+        element.getChildren().clear();
+        for (ASTNode child : children) {
+            element.addChild(child);
+        }
+
+        if (!attributeParts.isEmpty() || children.size() > 1
+                || children.size() == 1 && !(children.get(0) instanceof HTMLTextNode)) {
+            return element;
+        }
+        // Rendered once here, by the compiler that would otherwise render it every time
+        staticElements++;
+        String markup = TemplateCompiler.compile(element).renderToString(Map.of());
+        return new HTMLTextNode(markup, element.getLineNumber());
+    }
+
+    // {{ expression | filter(args) | ... }}: fold the expression and as many filters as possible
+    private ASTNode optimizeOutput(Jinja2VarNode node) {
+        int line = node.getLineNumber();
+        ExpressionNode expression = foldExpression(node.getExpression());
+        List<String> filters = node.getFilters();
+        List<List<ExpressionNode>> filterArguments = new ArrayList<>();
+        for (List<ExpressionNode> arguments : node.getFilterArguments()) {
+            filterArguments.add(foldAll(arguments));
+        }
+
+        // Longest prefix of the chain whose result can be written back as a literal
+        ExpressionNode prefix = expression;
+        int prefixLength = 0;
+        Object value = constantValue(expression);
+        if (value != NOT_CONSTANT) {
+            int applied = 0;
+            for (; applied < filters.size(); applied++) {
+                value = applyFilter(filters.get(applied),
+                    applied < filterArguments.size() ? filterArguments.get(applied) : List.of(), value, line);
+                if (value == NOT_CONSTANT) {
+                    break;
+                }
+                ExpressionNode literal = literal(value, line);
+                if (literal != null) {
+                    prefix = literal;
+                    prefixLength = applied + 1;
+                }
+            }
+            if (applied == filters.size()) {
+                foldedOutputs++;
+                return new HTMLTextNode(outputText(value), line);
+            }
+        }
+
+        if (prefixLength == 0 && expression == node.getExpression()
+                && filterArguments.equals(node.getFilterArguments())) {
+            return node;
+        }
+        return new Jinja2VarNode(prefix,
+            new ArrayList<>(filters.subList(prefixLength, filters.size())),
+            new ArrayList<>(filterArguments.subList(Math.min(prefixLength, filterArguments.size()), filterArguments.size())),
+            line);
+    }
+
+    private void optimizeSet(JinjaSetNode set, boolean topLevel, List<ASTNode> out) {
+        String name = set.getVariableName();
+        int line = set.getLineNumber();
+        ExpressionNode value = foldExpression(set.getValue());
+        Object constant = constantValue(value);
+        ExpressionNode literal = constant != NOT_CONSTANT ? literal(constant, line) : null;
+
+        removedSets.remove(name);
+        if (literal == null || callTargets.contains(name)) {
+            constants.remove(name);
+            out.add(value == set.getValue() ? set : new JinjaSetNode(name, value, line));
+            return;
+        }
+        constants.put(name, constant);
+        if (topLevel) {
+            removedSets.add(name);
+            foldedSets++;
+        } else {
+            out.add(new JinjaSetNode(name, literal, line));
+        }
+    }
+
+    private void optimizeIf(JinjaIfNode node, boolean topLevel, List<ASTNode> out) {
+        int line = node.getLineNumber();
+        List<ExpressionNode> conditions = new ArrayList<>();
+        List<List<ASTNode>> branches = new ArrayList<>();
+        List<ASTNode> elseBody = node.getElseBody();
+        for (int i = 0; i < node.getConditions().size(); i++) {
+            ExpressionNode condition = foldExpression(node.getConditions().get(i));
+            Object value = constantValue(condition);
+            if (value == NOT_CONSTANT) {
+                conditions.add(condition);
+                branches.add(node.getBranches().get(i));
+                continue;
+            }
+            foldedConditions++;
+            if (Values.isTruthy(value)) {
+                // Always taken: it is the else of whatever came before, and nothing after it runs
+                elseBody = node.getBranches().get(i);
+                break;
+            }
+        }
+
+        if (conditions.isEmpty()) {
+            for (ASTNode child : elseBody) {
+                optimizeNode(child, topLevel, out);
+            }
+            return;
+        }
+
+        Set<String> assigned = new HashSet<>();
+        for (List<ASTNode> branch : branches) {
+            collectAssigned(branch, assigned);
+        }
+        collectAssigned(elseBody, assigned);
+        forget(assigned, line, out);
+
+        JinjaIfNode result = new JinjaIfNode(line);
+        for (int i = 0; i < conditions.size(); i++) {
+            result.addBranch(conditions.get(i), optimizeBranch(branches.get(i)));
+        }
+        result.setElseBody(optimizeBranch(elseBody));
+        out.add(result);
+    }
+
+    private void optimizeFor(JinjaForNode node, boolean topLevel, List<ASTNode> out) {
+        int line = node.getLineNumber();
+        ExpressionNode iterable = foldExpression(node.getIterable());
+        if (isEmptySequence(constantValue(iterable))) {
+            // Only the else body can run
+            foldedConditions++;
+            for (ASTNode child : node.getElseBody()) {
+                optimizeNode(child, topLevel, out);
+            }
+            return;
+        }
+
+        Set<String> assigned = new HashSet<>();
+        collectAssigned(node.getBody(), assigned);
+        collectAssigned(node.getElseBody(), assigned);
+        forget(assigned, line, out);
+
+        // Inside the loop the targets and `loop` shadow anything set outside
+        Map<String, Object> outside = constants;
+        constants = new HashMap<>(outside);
+        constants.keySet().removeAll(node.getTargetNames());
+        constants.remove("loop");
+        List<ASTNode> body = optimizeBody(node.getBody(), false);
+        constants = outside;
+
+        JinjaForNode result = new JinjaForNode(node.getTargetNames(), iterable, line);
+        result.setBody(body);
+        result.setElseBody(optimizeBranch(node.getElseBody()));
+        out.add(result);
+    }
+
+    private static boolean isEmptySequence(Object value) {
+        if (value == NOT_CONSTANT) {
+            return false;
+        }
+        try {
+            return Values.toList(value).isEmpty();
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    // A body that may or may not run: what it sets stays inside it
+    private List<ASTNode> optimizeBranch(List<ASTNode> nodes) {
+        Map<String, Object> outside = constants;
+        constants = new HashMap<>(outside);
+        List<ASTNode> result = optimizeBody(nodes, false);
+        constants = outside;
+        return result;
+    }
+
+    // Stops treating names as constants; a removed {% set %} of one is put back first
+    private void forget(Set<String> names, int line, List<ASTNode> out) {
+        for (String name : names) {
+            if (removedSets.remove(name)) {
+                out.add(new JinjaSetNode(name, literal(constants.get(name), line), line));
+                foldedSets--;
+            }
+            constants.remove(name);
+        }
+    }
+
+    static void collectAssigned(List<ASTNode> nodes, Set<String> names) {
+        for (ASTNode node : nodes) {
+            if (node instanceof JinjaSetNode) {
+                names.add(((JinjaSetNode) node).getVariableName());
+            } else if (node instanceof JinjaForNode) {
+                collectAssigned(((JinjaForNode) node).getBody(), names);
+                collectAssigned(((JinjaForNode) node).getElseBody(), names);
+            } else if (node instanceof JinjaIfNode) {
+                for (List<ASTNode> branch : ((JinjaIfNode) node).getBranches()) {
+                    collectAssigned(branch, names);
+                }
+                collectAssigned(((JinjaIfNode) node).getElseBody(), names);
+            } else if (node instanceof BlockNode) {
+                collectAssigned(((BlockNode) node).getContent(), names);
+            } else if (node instanceof JinjaIncludeNode) {
+                collectAssigned(((JinjaIncludeNode) node).getContent(), names);
+            } else if (node instanceof HTMLElementNode) {
+                collectAssigned(node.getChildren(), names);
+            }
+        }
+    }
+
+    private void collectCallTargets(ASTNode node) {
+        if (node instanceof FunctionCallNode && ((FunctionCallNode) node).getFunction() instanceof IdentifierNode) {
+            callTargets.add(((FunctionCallNode) node).getFunction().getName());
+        }
+        if (node instanceof JinjaForNode && ((JinjaForNode) node).getIterable() != null) {
+            collectCallTargets(((JinjaForNode) node).getIterable());
+        }
+        if (node instanceof ListLiteralNode) {
+            for (ExpressionNode element : ((ListLiteralNode) node).getElements()) {
+                collectCallTargets(element);
+            }
+        }
+        if (node instanceof HTMLElementNode) {
+            for (List<ASTNode> parts : ((HTMLElementNode) node).getAttributeParts().values()) {
+                for (ASTNode part : parts) {
+                    collectCallTargets(part);
+                }
+            }
+        }
+        for (ASTNode child : node.getChildren()) {
+            collectCallTargets(child);
+        }
+    }
+
+    private List<ASTNode> mergeText(List<ASTNode> nodes) {
+        List<ASTNode> result = new ArrayList<>(nodes.size());
+        for (ASTNode node : nodes) {
+            int last = result.size() - 1;
+            if (node instanceof HTMLTextNode && last >= 0 && result.get(last) instanceof HTMLTextNode) {
+                HTMLTextNode previous = (HTMLTextNode) result.get(last);
+                result.set(last, new HTMLTextNode(previous.getText() + ((HTMLTextNode) node).getText(),
+                    previous.getLineNumber()));
+                mergedTextNodes++;
+            } else {
+                result.add(node);
+            }
+        }
+        return result;
+    }
+
+    // ==================== EXPRESSIONS ====================
+
+    // The expression with constant parts folded; the node itself when nothing changed
+    private ExpressionNode foldExpression(ExpressionNode node) {
+        if (node == null || isLiteral(node)) {
+            return node;
+        }
+        ExpressionNode rebuilt = foldChildren(node);
+        Object value = constantValue(rebuilt);
+        ExpressionNode literal = value != NOT_CONSTANT ? literal(value, node.getLineNumber()) : null;
+        if (literal != null) {
+            foldedExpressions++;
+            return literal;
+        }
+        return rebuilt;
+    }
+
+    private List<ExpressionNode> foldAll(List<ExpressionNode> nodes) {
+        List<ExpressionNode> folded = new ArrayList<>(nodes.size());
+        boolean changed = false;
+        for (ExpressionNode node : nodes) {
+            ExpressionNode result = foldExpression(node);
+            changed |= result != node;
+            folded.add(result);
+        }
+        return changed ? folded : nodes;
+    }
+
+    private ExpressionNode foldChildren(ExpressionNode node) {
+        int line = node.getLineNumber();
+        if (node instanceof IdentifierNode) {
+            Object value = constants.containsKey(node.getName()) ? constants.get(node.getName()) : NOT_CONSTANT;
+            return value != NOT_CONSTANT ? literal(value, line) : node;
+        }
+        if (node instanceof MemberAccessNode) {
+            MemberAccessNode access = (MemberAccessNode) node;
+            ExpressionNode object = foldExpression(access.getObject());
+            return object == access.getObject() ? node : new MemberAccessNode(object, access.getMemberName(), line);
+        }
+        if (node instanceof IndexAccessNode) {
+            IndexAccessNode access = (IndexAccessNode) node;
+            ExpressionNode object = foldExpression(access.getObject());
+            ExpressionNode index = foldExpression(access.getIndex());
+            return object == access.getObject() && index == access.getIndex()
+                ? node : new IndexAccessNode(object, index, line);
+        }
+        if (node instanceof UnaryOpNode) {
+            UnaryOpNode unary = (UnaryOpNode) node;
+            ExpressionNode operand = foldExpression(unary.getOperand());
+            return operand == unary.getOperand() ? node : new UnaryOpNode(unary.getOperator(), operand, line);
+        }
+        if (node instanceof BinaryOpNode) {
+            BinaryOpNode binary = (BinaryOpNode) node;
+            ExpressionNode left = foldExpression(binary.getLeft());
+            ExpressionNode right = foldExpression(binary.getRight());
+            return left == binary.getLeft() && right == binary.getRight()
+                ? node : new BinaryOpNode(binary.getOperator(), left, right, line);
+        }
+        if (node instanceof ComparisonNode) {
+            ComparisonNode comparison = (ComparisonNode) node;
+            ExpressionNode left = foldExpression(comparison.getLeft());
+            // The right side of `is` names a test, not a variable
+            ExpressionNode right = "is".equals(comparison.getOperator())
+                ? comparison.getRight() : foldExpression(comparison.getRight());
+            return left == comparison.getLeft() && right == comparison.getRight()
+                ? node : new ComparisonNode(comparison.getOperator(), left, right, line);
+        }
+        if (node instanceof FunctionCallNode) {
+            FunctionCallNode call = (FunctionCallNode) node;
+            List<ExpressionNode> arguments = foldAll(call.getArguments());
+            return arguments == call.getArguments() ? node : new FunctionCallNode(call.getFunction(), arguments, line);
+        }
+        if (node instanceof JinjaFilterNode) {
+            JinjaFilterNode filter = (JinjaFilterNode) node;
+            ExpressionNode operand = foldExpression(filter.getOperand());
+            List<ExpressionNode> arguments = foldAll(filter.getArguments());
+            return operand == filter.getOperand() && arguments == filter.getArguments()
+                ? node : new JinjaFilterNode(operand, filter.getFilterName(), arguments, line);
+        }
+        if (node instanceof ListLiteralNode) {
+            ListLiteralNode list = (ListLiteralNode) node;
+            List<ExpressionNode> elements = foldAll(list.getElements());
+            return elements == list.getElements() ? node : new ListLiteralNode(elements, line);
+        }
+        if (node instanceof DictionaryLiteralNode) {
+            Map<ExpressionNode, ExpressionNode> entries = ((DictionaryLiteralNode) node).getEntries();
+            Map<ExpressionNode, ExpressionNode> folded = new LinkedHashMap<>();
+            boolean changed = false;
+            for (Map.Entry<ExpressionNode, ExpressionNode> entry : entries.entrySet()) {
+                ExpressionNode key = foldExpression(entry.getKey());
+                ExpressionNode value = foldExpression(entry.getValue());
+                changed |= key != entry.getKey() || value != entry.getValue();
+                folded.put(key, value);
+            }
+            return changed ? new DictionaryLiteralNode(folded, line) : node;
+        }
+        return node;
+    }
+
+    // Value of an expression that depends on nothing but literals, or NOT_CONSTANT
+    private Object constantValue(ExpressionNode node) {
+        if (node == null || !isConstant(node)) {
+            return NOT_CONSTANT;
+        }
+        try {
+            return TemplateCompiler.compileExpressionNode(node).eval(constantContext);
+        } catch (RuntimeException e) {
+            return NOT_CONSTANT; // Reported when rendered, as before
+        }
+    }
+
+    private static boolean isConstant(ExpressionNode node) {
+        if (isLiteral(node)) {
+            return true;
+        }
+        if (node instanceof UnaryOpNode) {
+            return isConstant(((UnaryOpNode) node).getOperand());
+        }
+        if (node instanceof BinaryOpNode) {
+            return isConstant(((BinaryOpNode) node).getLeft()) && isConstant(((BinaryOpNode) node).getRight());
+        }
+        if (node instanceof ComparisonNode) {
+            ComparisonNode comparison = (ComparisonNode) node;
+            return isConstant(comparison.getLeft())
+                && ("is".equals(comparison.getOperator()) || isConstant(comparison.getRight()));
+        }
+        if (node instanceof MemberAccessNode) {
+            return isConstant(((MemberAccessNode) node).getObject());
+        }
+        if (node instanceof IndexAccessNode) {
+            return isConstant(((IndexAccessNode) node).getObject()) && isConstant(((IndexAccessNode) node).getIndex());
+        }
+        if (node instanceof JinjaFilterNode) {
+            JinjaFilterNode filter = (JinjaFilterNode) node;
+            return isConstant(filter.getOperand()) && filter.getArguments().stream().allMatch(TemplateOptimizer::isConstant);
+        }
+        if (node instanceof ListLiteralNode) {
+            return ((ListLiteralNode) node).getElements().stream().allMatch(TemplateOptimizer::isConstant);
+        }
+        if (node instanceof DictionaryLiteralNode) {
+            for (Map.Entry<ExpressionNode, ExpressionNode> entry : ((DictionaryLiteralNode) node).getEntries().entrySet()) {
+                if (!isConstant(entry.getKey()) || !isConstant(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isLiteral(ExpressionNode node) {
+        return node instanceof StringLiteralNode || node instanceof NumberLiteralNode
+            || node instanceof BooleanLiteralNode || node instanceof NoneLiteralNode;
+    }
+
+    // A literal node that compiles back to exactly this value, or null (lists, dicts, 2.0, ...)
+    private static ExpressionNode literal(Object value, int line) {
+        if (value == null) {
+            return new NoneLiteralNode(line);
+        }
+        if (value instanceof String) {
+            return new StringLiteralNode((String) value, line);
+        }
+        if (value instanceof Boolean) {
+            return new BooleanLiteralNode((Boolean) value, line);
+        }
+        if (value instanceof Long && Math.abs((Long) value) < 1e15) {
+            return new NumberLiteralNode((Long) value, line);
+        }
+        // Whole doubles would come back as ints (see TemplateCompiler.compileExpression)
+        if (value instanceof Double && Double.isFinite((Double) value) && (Double) value != Math.rint((Double) value)) {
+            return new NumberLiteralNode((Double) value, line);
+        }
+        return null;
+    }
+
+    private Object applyFilter(String name, List<ExpressionNode> arguments, Object value, int line) {
+        Filters.Filter filter = Filters.get(name);
+        if (filter == null) {
+            return NOT_CONSTANT;
+        }
+        List<Object> values = new ArrayList<>(arguments.size());
+        for (ExpressionNode argument : arguments) {
+            Object argumentValue = constantValue(argument);
+            if (argumentValue == NOT_CONSTANT) {
+                return NOT_CONSTANT;
+            }
+            values.add(argumentValue);
+        }
+        try {
+            return filter.apply(value, values, line);
+        } catch (RuntimeException e) {
+            return NOT_CONSTANT;
+        }
+    }
+
+    // What {{ value }} writes: escaped unless marked safe
+    private static String outputText(Object value) {
+        StringWriter text = new StringWriter();
+        try {
+            new TemplateOutput.Chars(text).writeValue(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return text.toString();
+    }
+}
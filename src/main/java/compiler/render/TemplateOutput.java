@@ -0,0 +1,168 @@
+package compiler.render;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+
+/**
+ * Where a template renders to. Static chunks go out as-is (pre-encoded bytes for
+ * streams), dynamic values are HTML-escaped while being written, without building
+ * an intermediate escaped String.
+ */
+abstract class TemplateOutput {
+
+    abstract void writeChunk(StaticChunk chunk) throws IOException;
+
+    abstract void write(String text) throws IOException;
+
+    abstract void writeEscaped(String text) throws IOException;
+
+    abstract void flush() throws IOException;
+
+    // Output of {{ }}: escaped unless marked safe
+    void writeValue(Object value) throws IOException {
+        if (value instanceof SafeString) {
+            write(value.toString());
+        } else {
+            writeEscaped(Values.toText(value));
+        }
+    }
+
+    static String escapeReplacement(char c) {
+        switch (c) {
+            case '&': return "&amp;";
+            case '<': return "&lt;";
+            case '>': return "&gt;";
+            case '"': return "&#34;";
+            case '\'': return "&#39;";
+            default: return null;
+        }
+    }
+
+    // ==================== BYTE STREAMS ====================
+
+    static final class Bytes extends TemplateOutput {
+        private final OutputStream out;
+        private final byte[] buffer;
+        private int position;
+
+        Bytes(OutputStream out, int bufferSize) {
+            this.out = out;
+            this.buffer = new byte[bufferSize];
+        }
+
+        @Override
+        void writeChunk(StaticChunk chunk) throws IOException {
+            byte[] bytes = chunk.utf8;
+            if (bytes.length > buffer.length - position) {
+                flushBuffer();
+                if (bytes.length > buffer.length) {
+                    out.write(bytes);
+                    return;
+                }
+            }
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        @Override
+        void write(String text) throws IOException {
+            encode(text, false);
+        }
+
+        @Override
+        void writeEscaped(String text) throws IOException {
+            encode(text, true);
+        }
+
+        // UTF-8 encoding straight into the buffer
+        private void encode(String text, boolean escape) throws IOException {
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (position > buffer.length - 6) {
+                    flushBuffer();
+                }
+                if (c < 0x80) {
+                    String replacement = escape ? escapeReplacement(c) : null;
+                    if (replacement != null) {
+                        for (int k = 0; k < replacement.length(); k++) {
+                            buffer[position++] = (byte) replacement.charAt(k);
+                        }
+                    } else {
+                        buffer[position++] = (byte) c;
+                    }
+                } else if (c < 0x800) {
+                    buffer[position++] = (byte) (0xC0 | (c >> 6));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                } else if (Character.isSurrogate(c)) {
+                    buffer[position++] = (byte) '?';
+                } else {
+                    buffer[position++] = (byte) (0xE0 | (c >> 12));
+                    buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                    buffer[position++] = (byte) (0x80 | (c & 0x3F));
+                }
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (position > 0) {
+                out.write(buffer, 0, position);
+                position = 0;
+            }
+        }
+
+        @Override
+        void flush() throws IOException {
+            flushBuffer();
+            out.flush();
+        }
+    }
+
+    // ==================== CHARACTER WRITERS ====================
+
+    static final class Chars extends TemplateOutput {
+        private final Writer out;
+
+        Chars(Writer out) {
+            this.out = out;
+        }
+
+        @Override
+        void writeChunk(StaticChunk chunk) throws IOException {
+            out.write(chunk.text);
+        }
+
+        @Override
+        void write(String text) throws IOException {
+            out.write(text);
+        }
+
+        @Override
+        void writeEscaped(String text) throws IOException {
+            int length = text.length();
+            int runStart = 0;
+            for (int i = 0; i < length; i++) {
+                String replacement = escapeReplacement(text.charAt(i));
+                if (replacement != null) {
+                    out.write(text, runStart, i - runStart);
+                    out.write(replacement);
+                    runStart = i + 1;
+                }
+            }
+            out.write(text, runStart, length - runStart);
+        }
+
+        @Override
+        void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
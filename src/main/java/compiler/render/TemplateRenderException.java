@@ -0,0 +1,13 @@
+package compiler.render;
+
+public class TemplateRenderException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public TemplateRenderException(String message) {
+        super(message);
+    }
+
+    public TemplateRenderException(String message, int lineNumber) {
+        super(String.format("line %d: %s", lineNumber, message));
+    }
+}
@@ -0,0 +1,355 @@
+package compiler.render;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Jinja2 value semantics on plain Java objects: truthiness, text conversion,
+ * attribute/item lookup, arithmetic and comparisons (Python rules, Long for
+ * integers, Double for floats, null for None).
+ */
+final class Values {
+
+    // Missing variable or attribute: renders as "" and is falsy, like jinja2.Undefined
+    static final Object UNDEFINED = new Object() {
+        @Override
+        public String toString() {
+            return "";
+        }
+    };
+
+    // Per-class getter / field lookups, resolved once
+    private static final ClassValue<Map<String, Function<Object, Object>>> ACCESSORS =
+        new ClassValue<>() {
+            @Override
+            protected Map<String, Function<Object, Object>> computeValue(Class<?> type) {
+                return new ConcurrentHashMap<>();
+            }
+        };
+
+    private Values() {
+    }
+
+    // ==================== CONVERSIONS ====================
+
+    static boolean isTruthy(Object value) {
+        if (value == null || value == UNDEFINED) return false;
+        if (value instanceof Boolean) return (Boolean) value;
+        if (value instanceof Number) return ((Number) value).doubleValue() != 0;
+        if (value instanceof CharSequence) return ((CharSequence) value).length() > 0;
+        if (value instanceof Collection) return !((Collection<?>) value).isEmpty();
+        if (value instanceof Map) return !((Map<?, ?>) value).isEmpty();
+        if (value instanceof SafeString) return !value.toString().isEmpty();
+        if (value.getClass().isArray()) return Array.getLength(value) > 0;
+        return true;
+    }
+
+    static String toText(Object value) {
+        if (value == null) return "None";
+        if (value instanceof String) return (String) value;
+        if (value instanceof Boolean) return (Boolean) value ? "True" : "False";
+        if (value instanceof Double || value instanceof Float) return formatFloat(((Number) value).doubleValue());
+        return value.toString();
+    }
+
+    // Python's str(float): 5.0 stays "5.0"
+    static String formatFloat(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e16) {
+            return (long) value + ".0";
+        }
+        if (Double.isNaN(value)) return "nan";
+        if (Double.isInfinite(value)) return value > 0 ? "inf" : "-inf";
+        return Double.toString(value);
+    }
+
+    static boolean isIntegral(Object value) {
+        return value instanceof Long || value instanceof Integer || value instanceof Short || value instanceof Byte;
+    }
+
+    static List<?> toList(Object value) {
+        if (value == null || value == UNDEFINED) return Collections.emptyList();
+        if (value instanceof List) return (List<?>) value;
+        if (value instanceof Map) return new ArrayList<>(((Map<?, ?>) value).keySet());
+        if (value instanceof Collection) return new ArrayList<>((Collection<?>) value);
+        if (value instanceof Iterable) {
+            List<Object> items = new ArrayList<>();
+            for (Object item : (Iterable<?>) value) {
+                items.add(item);
+            }
+            return items;
+        }
+        if (value instanceof CharSequence) {
+            List<Object> chars = new ArrayList<>();
+            ((CharSequence) value).codePoints().forEach(c -> chars.add(new String(Character.toChars(c))));
+            return chars;
+        }
+        if (value.getClass().isArray()) {
+            List<Object> items = new ArrayList<>();
+            for (int i = 0, n = Array.getLength(value); i < n; i++) {
+                items.add(Array.get(value, i));
+            }
+            return items;
+        }
+        throw new TemplateRenderException("'" + typeName(value) + "' object is not iterable");
+    }
+
+    static String typeName(Object value) {
+        if (value == null) return "NoneType";
+        if (value == UNDEFINED) return "Undefined";
+        return value.getClass().getSimpleName();
+    }
+
+    // ==================== LOOKUPS ====================
+
+    // obj.name: mapping key, then Java bean getter / record accessor / public field
+    static Object getAttribute(Object object, String name) {
+        if (object == null || object == UNDEFINED) return UNDEFINED;
+        if (object instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) object;
+            Object value = map.get(name);
+            return value != null || map.containsKey(name) ? value : UNDEFINED;
+        }
+        if (object instanceof LoopContext) {
+            return ((LoopContext) object).get(name);
+        }
+        Function<Object, Object> accessor = ACCESSORS.get(object.getClass())
+            .computeIfAbsent(name, key -> findAccessor(object.getClass(), key));
+        return accessor.apply(object);
+    }
+
+    private static Function<Object, Object> findAccessor(Class<?> type, String name) {
+        String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+        for (String methodName : new String[] { "get" + capitalized, "is" + capitalized, name }) {
+            try {
+                Method method = type.getMethod(methodName);
+                if (method.getReturnType() != void.class && !Modifier.isStatic(method.getModifiers())) {
+                    method.trySetAccessible();
+                    return target -> invoke(method, target);
+                }
+            } catch (NoSuchMethodException | RuntimeException ignored) {
+                // try the next naming convention
+            }
+        }
+        try {
+            Field field = type.getField(name);
+            if (!Modifier.isStatic(field.getModifiers())) {
+                return target -> read(field, target);
+            }
+        } catch (NoSuchFieldException ignored) {
+            // fall through
+        }
+        return target -> UNDEFINED;
+    }
+
+    private static Object invoke(Method method, Object target) {
+        try {
+            return method.invoke(target);
+        } catch (ReflectiveOperationException e) {
+            throw new TemplateRenderException("Cannot read '" + method.getName() + "': " + e.getMessage());
+        }
+    }
+
+    private static Object read(Field field, Object target) {
+        try {
+            return field.get(target);
+        } catch (IllegalAccessException e) {
+            throw new TemplateRenderException("Cannot read '" + field.getName() + "': " + e.getMessage());
+        }
+    }
+
+    // obj[key]: list / array / string index (negative from the end), mapping key, then attribute
+    static Object getItem(Object object, Object key) {
+        if (object == null || object == UNDEFINED) return UNDEFINED;
+        if (object instanceof Map) {
+            Map<?, ?> map = (Map<?, ?>) object;
+            Object value = map.get(key);
+            return value != null || map.containsKey(key) ? value : UNDEFINED;
+        }
+        if (isIntegral(key)) {
+            int index = ((Number) key).intValue();
+            if (object instanceof List) {
+                List<?> list = (List<?>) object;
+                return index(list.size(), index) >= 0 ? list.get(index(list.size(), index)) : UNDEFINED;
+            }
+            if (object instanceof CharSequence) {
+                CharSequence text = (CharSequence) object;
+                int i = index(text.length(), index);
+                return i >= 0 ? String.valueOf(text.charAt(i)) : UNDEFINED;
+            }
+            if (object.getClass().isArray()) {
+                int i = index(Array.getLength(object), index);
+                return i >= 0 ? Array.get(object, i) : UNDEFINED;
+            }
+        }
+        if (key instanceof String) {
+            return getAttribute(object, (String) key);
+        }
+        return UNDEFINED;
+    }
+
+    private static int index(int size, int index) {
+        int i = index < 0 ? size + index : index;
+        return i >= 0 && i < size ? i : -1;
+    }
+
+    // ==================== OPERATORS ====================
+
+    static Object arithmetic(String operator, Object left, Object right, int line) {
+        if (left instanceof Number && right instanceof Number) {
+            boolean integral = isIntegral(left) && isIntegral(right);
+            long a = ((Number) left).longValue();
+            long b = ((Number) right).longValue();
+            double x = ((Number) left).doubleValue();
+            double y = ((Number) right).doubleValue();
+            switch (operator) {
+                case "+": return integral ? (Object) (a + b) : (Object) (x + y);
+                case "-": return integral ? (Object) (a - b) : (Object) (x - y);
+                case "*": return integral ? (Object) (a * b) : (Object) (x * y);
+                case "/":
+                    if (y == 0) throw new TemplateRenderException("division by zero", line);
+                    return x / y;
+                case "//":
+                    if (y == 0) throw new TemplateRenderException("division by zero", line);
+                    return integral ? (Object) Math.floorDiv(a, b) : (Object) Math.floor(x / y);
+                case "%":
+                    if (y == 0) throw new TemplateRenderException("modulo by zero", line);
+                    return integral ? (Object) Math.floorMod(a, b) : (Object) (x - y * Math.floor(x / y));
+                case "**":
+                    if (integral && b >= 0) {
+                        long result = 1;
+                        for (long i = 0; i < b; i++) result *= a;
+                        return result;
+                    }
+                    return Math.pow(x, y);
+                default:
+                    break;
+            }
+        }
+        if ("+".equals(operator)) {
+            if (isText(left) && isText(right)) {
+                return left.toString() + right.toString();
+            }
+            if (left instanceof List && right instanceof List) {
+                List<Object> joined = new ArrayList<>((List<?>) left);
+                joined.addAll((List<?>) right);
+                return joined;
+            }
+        }
+        if ("*".equals(operator) && isText(left) && isIntegral(right)) {
+            return left.toString().repeat((int) Math.max(0, ((Number) right).longValue()));
+        }
+        throw new TemplateRenderException(String.format("unsupported operand type(s) for %s: '%s' and '%s'",
+            operator, typeName(left), typeName(right)), line);
+    }
+
+    private static boolean isText(Object value) {
+        return value instanceof CharSequence || value instanceof SafeString;
+    }
+
+    static boolean areEqual(Object left, Object right) {
+        if (left instanceof Number && right instanceof Number) {
+            if (isIntegral(left) && isIntegral(right)) {
+                return ((Number) left).longValue() == ((Number) right).longValue();
+            }
+            return ((Number) left).doubleValue() == ((Number) right).doubleValue();
+        }
+        if (left instanceof Boolean && right instanceof Number || left instanceof Number && right instanceof Boolean) {
+            return toNumber(left) == toNumber(right);
+        }
+        return Objects.equals(left, right);
+    }
+
+    private static double toNumber(Object value) {
+        return value instanceof Boolean ? ((Boolean) value ? 1 : 0) : ((Number) value).doubleValue();
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    static int compare(Object left, Object right, int line) {
+        if (left instanceof Number && right instanceof Number) {
+            if (isIntegral(left) && isIntegral(right)) {
+                return Long.compare(((Number) left).longValue(), ((Number) right).longValue());
+            }
+            return Double.compare(((Number) left).doubleValue(), ((Number) right).doubleValue());
+        }
+        if (left instanceof Comparable && right != null && left.getClass() == right.getClass()) {
+            return ((Comparable) left).compareTo(right);
+        }
+        throw new TemplateRenderException(String.format("'<' not supported between '%s' and '%s'",
+            typeName(left), typeName(right)), line);
+    }
+
+    static boolean contains(Object container, Object item, int line) {
+        if (container instanceof CharSequence) {
+            return container.toString().contains(toText(item));
+        }
+        if (container instanceof Map) {
+            return ((Map<?, ?>) container).containsKey(item);
+        }
+        if (container instanceof Collection || container instanceof Iterable || container != null
+                && container.getClass().isArray()) {
+            for (Object element : toList(container)) {
+                if (areEqual(element, item)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        throw new TemplateRenderException("argument of type '" + typeName(container) + "' is not iterable", line);
+    }
+
+    // ==================== BUILTINS ====================
+
+    // range(stop) / range(start, stop[, step]) without materializing the numbers
+    static List<Long> range(List<Object> arguments, int line) {
+        long start = 0;
+        long stop;
+        long step = 1;
+        if (arguments.size() == 1) {
+            stop = toLong(arguments.get(0), line);
+        } else if (arguments.size() == 2 || arguments.size() == 3) {
+            start = toLong(arguments.get(0), line);
+            stop = toLong(arguments.get(1), line);
+            if (arguments.size() == 3) step = toLong(arguments.get(2), line);
+        } else {
+            throw new TemplateRenderException("range expected 1 to 3 arguments, got " + arguments.size(), line);
+        }
+        if (step == 0) {
+            throw new TemplateRenderException("range() arg 3 must not be zero", line);
+        }
+        long first = start;
+        long stride = step;
+        long count = step > 0 ? Math.max(0, (stop - start + step - 1) / step) : Math.max(0, (start - stop - step - 1) / -step);
+        int size = (int) Math.min(count, Integer.MAX_VALUE);
+        return new AbstractList<>() {
+            @Override
+            public Long get(int index) {
+                return first + index * stride;
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    static long toLong(Object value, int line) {
+        if (isIntegral(value)) return ((Number) value).longValue();
+        if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            if (d == Math.rint(d)) return (long) d;
+        }
+        throw new TemplateRenderException("'" + typeName(value) + "' object cannot be interpreted as an integer", line);
+    }
+}
@@ -0,0 +1,135 @@
+package compiler.routing;
+
+import java.util.List;
+
+/**
+ * Flask URL converters, matched by hand-written scanners instead of regexes.
+ *
+ * Declaration order is match priority: when several converter edges leave the
+ * same trie node, the most specific one is tried first, and path (which may
+ * span '/') comes last, as in Werkzeug.
+ */
+public enum Converter {
+    ANY("any"),
+    INT("int"),
+    FLOAT("float"),
+    UUID("uuid"),
+    STRING("string"),
+    PATH("path");
+
+    private final String converterName;
+
+    Converter(String converterName) {
+        this.converterName = converterName;
+    }
+
+    public String getConverterName() {
+        return converterName;
+    }
+
+    // Unknown converters fall back to string (FlaskSemanticAnalyzer reports them as FLASK103)
+    public static Converter forName(String name) {
+        for (Converter converter : values()) {
+            if (converter.converterName.equals(name)) {
+                return converter;
+            }
+        }
+        return STRING;
+    }
+
+    public static boolean isKnown(String name) {
+        for (Converter converter : values()) {
+            if (converter.converterName.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Whether path[start, end) is a value of this converter; never allocates
+    boolean accepts(String path, int start, int end, List<String> options) {
+        if (start >= end) {
+            return false;
+        }
+        switch (this) {
+            case ANY:
+                for (String option : options) {
+                    if (option.length() == end - start && path.startsWith(option, start)) {
+                        return true;
+                    }
+                }
+                return false;
+            case INT:
+                // Digits only, within the long range
+                return digits(path, start, end) == end && parseLong(path, start, end) >= 0;
+            case FLOAT: {
+                int dot = digits(path, start, end);
+                return dot > start && dot < end - 1 && path.charAt(dot) == '.'
+                    && digits(path, dot + 1, end) == end;
+            }
+            case UUID:
+                return isUuid(path, start, end);
+            case STRING:
+                for (int i = start; i < end; i++) {
+                    if (path.charAt(i) == '/') return false;
+                }
+                return true;
+            case PATH:
+                return path.charAt(start) != '/';
+            default:
+                return false;
+        }
+    }
+
+    // Typed value of an accepted segment
+    Object convert(String path, int start, int end) {
+        switch (this) {
+            case INT:
+                return parseLong(path, start, end);
+            case FLOAT:
+                return Double.parseDouble(path.substring(start, end));
+            case UUID:
+                return java.util.UUID.fromString(path.substring(start, end));
+            default:
+                return path.substring(start, end);
+        }
+    }
+
+    // Index of the first non-digit in [start, end)
+    private static int digits(String s, int start, int end) {
+        int i = start;
+        while (i < end && s.charAt(i) >= '0' && s.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    // -1 on overflow
+    private static long parseLong(String s, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = s.charAt(i) - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // 8-4-4-4-12 hex digits
+    private static boolean isUuid(String s, int start, int end) {
+        if (end - start != 36) {
+            return false;
+        }
+        for (int i = 0; i < 36; i++) {
+            char c = s.charAt(start + i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if (!(c >= '0' && c <= '9' || c >= 'a' && c <= 'f' || c >= 'A' && c <= 'F')) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,152 @@
+package compiler.routing;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * One Flask URL rule, e.g. "/products/<int:id>", split into literal text and
+ * converter segments.
+ */
+public class Route {
+
+    /** Either literal text or a {@code <converter(options):name>} placeholder. */
+    public static final class Segment {
+        public final String literal;
+        public final String converterName;
+        public final Converter converter;
+        public final List<String> options;
+        public final String name;
+
+        private Segment(String literal, String converterName, List<String> options, String name) {
+            this.literal = literal;
+            this.converterName = converterName;
+            this.converter = literal == null ? Converter.forName(converterName) : null;
+            this.options = options;
+            this.name = name;
+        }
+
+        public boolean isLiteral() {
+            return literal != null;
+        }
+
+        @Override
+        public String toString() {
+            return isLiteral() ? literal : "<" + converterName + ":" + name + ">";
+        }
+    }
+
+    private final String rule;
+    private final String endpoint;
+    private final Set<String> methods;
+    private final int lineNumber;
+    private final List<Segment> segments;
+    private final List<String> parameterNames = new ArrayList<>();
+
+    public Route(String rule, Collection<String> methods, String endpoint, int lineNumber) {
+        this.rule = rule;
+        this.endpoint = endpoint;
+        this.lineNumber = lineNumber;
+        this.methods = new LinkedHashSet<>();
+        for (String method : methods) {
+            this.methods.add(method.toUpperCase());
+        }
+        this.segments = parse(rule);
+        for (Segment segment : segments) {
+            if (!segment.isLiteral()) {
+                parameterNames.add(segment.name);
+            }
+        }
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public Set<String> getMethods() {
+        return Collections.unmodifiableSet(methods);
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public List<Segment> getSegments() {
+        return Collections.unmodifiableList(segments);
+    }
+
+    public List<String> getParameterNames() {
+        return Collections.unmodifiableList(parameterNames);
+    }
+
+    /**
+     * Splits a rule into segments. Malformed placeholders (no closing '>') are
+     * kept as literal text; FlaskSemanticAnalyzer reports them separately.
+     */
+    public static List<Segment> parse(String rule) {
+        List<Segment> segments = new ArrayList<>();
+        if (rule == null) {
+            return segments;
+        }
+        int literalStart = 0;
+        int i = 0;
+        while (i < rule.length()) {
+            int open = rule.indexOf('<', i);
+            int close = open < 0 ? -1 : rule.indexOf('>', open);
+            if (close < 0) {
+                break;
+            }
+            if (open > literalStart) {
+                segments.add(new Segment(rule.substring(literalStart, open), null, List.of(), null));
+            }
+            segments.add(placeholder(rule.substring(open + 1, close)));
+            i = literalStart = close + 1;
+        }
+        if (literalStart < rule.length()) {
+            segments.add(new Segment(rule.substring(literalStart), null, List.of(), null));
+        }
+        return segments;
+    }
+
+    // "name", "converter:name" or "converter(arg, ...):name"
+    private static Segment placeholder(String text) {
+        int colon = text.lastIndexOf(':');
+        if (colon < 0) {
+            return new Segment(null, "string", List.of(), text.trim());
+        }
+        String spec = text.substring(0, colon).trim();
+        String name = text.substring(colon + 1).trim();
+
+        int paren = spec.indexOf('(');
+        if (paren < 0) {
+            return new Segment(null, spec, List.of(), name);
+        }
+        int closeParen = spec.lastIndexOf(')');
+        String args = spec.substring(paren + 1, closeParen > paren ? closeParen : spec.length());
+
+        // Positional arguments only: any(a, b) lists its options, keyword
+        // arguments such as length=2 do not affect which segments match
+        List<String> options = new ArrayList<>();
+        for (String arg : args.split(",")) {
+            arg = arg.trim();
+            if (arg.isEmpty() || arg.contains("=")) continue;
+            if (arg.length() >= 2 && (arg.charAt(0) == '\'' || arg.charAt(0) == '"')) {
+                arg = arg.substring(1, arg.length() - 1);
+            }
+            options.add(arg);
+        }
+        return new Segment(null, spec.substring(0, paren).trim(), List.copyOf(options), name);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s -> %s (line %d)", rule, methods, endpoint, lineNumber);
+    }
+}
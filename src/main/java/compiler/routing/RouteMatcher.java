@@ -0,0 +1,331 @@
+package compiler.routing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Dispatches request paths to Flask routes through a radix trie.
+ *
+ * Literal text is stored on compressed edges keyed by their first character;
+ * converter placeholders become parameter edges, tried after the literal edge
+ * in Converter priority order, with backtracking. A lookup touches each path
+ * character about once (path converters and placeholders followed by literal
+ * text in the same segment may retry shorter spans) instead of testing every
+ * rule's regex in turn.
+ *
+ * Two rules that differ only in parameter names end at the same trie node, so
+ * ambiguity is found while inserting, in time linear in the total rule length,
+ * rather than by comparing every pair of rules.
+ */
+public class RouteMatcher {
+
+    /** Result of {@link #match}: a route, a 405 with the allowed methods, or a 404. */
+    public static final class Match {
+        public final Route route;
+        public final Map<String, Object> arguments;
+        public final Set<String> allowedMethods;
+
+        private Match(Route route, Map<String, Object> arguments, Set<String> allowedMethods) {
+            this.route = route;
+            this.arguments = arguments;
+            this.allowedMethods = allowedMethods;
+        }
+
+        public boolean isFound() {
+            return route != null;
+        }
+
+        public boolean isMethodNotAllowed() {
+            return route == null && !allowedMethods.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            if (isFound()) {
+                return route.getEndpoint() + " " + arguments;
+            }
+            return isMethodNotAllowed() ? "405 (allowed: " + allowedMethods + ")" : "404";
+        }
+    }
+
+    /** A rule that can never be reached because an earlier rule takes the same paths and method. */
+    public static final class Conflict {
+        public final Route route;
+        public final Route existing;
+        public final String method;
+
+        private Conflict(Route route, Route existing, String method) {
+            this.route = route;
+            this.existing = existing;
+            this.method = method;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s is shadowed by %s (line %d)",
+                method, route.getRule(), existing.getRule(), existing.getLineNumber());
+        }
+    }
+
+    public static class Builder {
+        private final Node root = new Node();
+        private final List<Route> routes = new ArrayList<>();
+        private final List<Conflict> conflicts = new ArrayList<>();
+        private int maxParameters;
+
+        // Registers a rule; returns the conflicts it caused (empty when it is unambiguous)
+        public List<Conflict> add(String rule, Collection<String> methods, String endpoint, int line) {
+            return add(new Route(rule, methods, endpoint, line));
+        }
+
+        public List<Conflict> add(Route route) {
+            routes.add(route);
+
+            Node node = root;
+            int parameters = 0;
+            for (Route.Segment segment : route.getSegments()) {
+                if (segment.isLiteral()) {
+                    node = node.insertLiteral(segment.literal);
+                } else {
+                    node = node.insertParameter(segment.converter, segment.options);
+                    parameters++;
+                }
+            }
+            maxParameters = Math.max(maxParameters, parameters);
+
+            // First registration wins, as in Flask
+            List<Conflict> found = new ArrayList<>();
+            if (node.routes == null) {
+                node.routes = new LinkedHashMap<>();
+            }
+            for (String method : route.getMethods()) {
+                Route existing = node.routes.putIfAbsent(method, route);
+                if (existing != null) {
+                    found.add(new Conflict(route, existing, method));
+                }
+            }
+            conflicts.addAll(found);
+            return found;
+        }
+
+        public List<Conflict> getConflicts() {
+            return Collections.unmodifiableList(conflicts);
+        }
+
+        // A matcher over a private copy of the trie, unaffected by later add() calls
+        public RouteMatcher build() {
+            Builder copy = new Builder();
+            for (Route route : routes) {
+                copy.add(route);
+            }
+            return new RouteMatcher(copy.root, List.copyOf(routes), List.copyOf(conflicts), copy.maxParameters);
+        }
+    }
+
+    private final Node root;
+    private final List<Route> routes;
+    private final List<Conflict> conflicts;
+    private final int maxParameters;
+
+    private RouteMatcher(Node root, List<Route> routes, List<Conflict> conflicts, int maxParameters) {
+        this.root = root;
+        this.routes = routes;
+        this.conflicts = conflicts;
+        this.maxParameters = maxParameters;
+    }
+
+    public List<Route> getRoutes() {
+        return routes;
+    }
+
+    public List<Conflict> getConflicts() {
+        return conflicts;
+    }
+
+    public Match match(String method, String path) {
+        Lookup lookup = new Lookup(method.toUpperCase(), path, maxParameters);
+        if (!lookup.find(root, 0, 0)) {
+            Set<String> allowed = lookup.allowed != null ? lookup.allowed : Collections.emptySet();
+            return new Match(null, Collections.emptyMap(), allowed);
+        }
+
+        // Parameter spans are only converted once the whole path has matched
+        List<String> names = lookup.route.getParameterNames();
+        List<Route.Segment> segments = lookup.route.getSegments();
+        Map<String, Object> arguments = new LinkedHashMap<>();
+        int p = 0;
+        for (Route.Segment segment : segments) {
+            if (!segment.isLiteral()) {
+                arguments.put(names.get(p), segment.converter.convert(path, lookup.starts[p], lookup.ends[p]));
+                p++;
+            }
+        }
+        return new Match(lookup.route, arguments, Collections.emptySet());
+    }
+
+    // ==================== TRIE ====================
+
+    private static final class Node {
+        String[] labels = new String[0];
+        Node[] children = new Node[0];
+        ParameterEdge[] parameters = new ParameterEdge[0];
+        Map<String, Route> routes;
+
+        // Some literal edge continues the current segment (e.g. "<name>.txt")
+        boolean inSegmentLiteral;
+
+        Node insertLiteral(String text) {
+            Node node = this;
+            int i = 0;
+            while (i < text.length()) {
+                int e = node.edge(text.charAt(i));
+                if (e < 0) {
+                    Node child = new Node();
+                    node.addEdge(text.substring(i), child);
+                    return child;
+                }
+                String label = node.labels[e];
+                int common = 0;
+                while (common < label.length() && i + common < text.length()
+                        && label.charAt(common) == text.charAt(i + common)) {
+                    common++;
+                }
+                if (common < label.length()) {
+                    // Split the edge at the first differing character
+                    Node middle = new Node();
+                    middle.addEdge(label.substring(common), node.children[e]);
+                    node.labels[e] = label.substring(0, common);
+                    node.children[e] = middle;
+                }
+                node = node.children[e];
+                i += common;
+            }
+            return node;
+        }
+
+        Node insertParameter(Converter converter, List<String> options) {
+            for (ParameterEdge edge : parameters) {
+                if (edge.converter == converter && edge.options.equals(options)) {
+                    return edge.child;
+                }
+            }
+            ParameterEdge edge = new ParameterEdge(converter, options, new Node());
+            int at = 0;
+            while (at < parameters.length && parameters[at].converter.ordinal() <= converter.ordinal()) {
+                at++;
+            }
+            ParameterEdge[] grown = new ParameterEdge[parameters.length + 1];
+            System.arraycopy(parameters, 0, grown, 0, at);
+            grown[at] = edge;
+            System.arraycopy(parameters, at, grown, at + 1, parameters.length - at);
+            parameters = grown;
+            return edge.child;
+        }
+
+        int edge(char first) {
+            for (int e = 0; e < labels.length; e++) {
+                if (labels[e].charAt(0) == first) {
+                    return e;
+                }
+            }
+            return -1;
+        }
+
+        private void addEdge(String label, Node child) {
+            labels = Arrays.copyOf(labels, labels.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            labels[labels.length - 1] = label;
+            children[children.length - 1] = child;
+            if (label.charAt(0) != '/') {
+                inSegmentLiteral = true;
+            }
+        }
+    }
+
+    private static final class ParameterEdge {
+        final Converter converter;
+        final List<String> options;
+        final Node child;
+
+        ParameterEdge(Converter converter, List<String> options, Node child) {
+            this.converter = converter;
+            this.options = options;
+            this.child = child;
+        }
+    }
+
+    // Per-call search state; parameter spans are recorded as offsets, not substrings
+    private static final class Lookup {
+        final String method;
+        final String path;
+        final int[] starts;
+        final int[] ends;
+        Route route;
+        Set<String> allowed;
+
+        Lookup(String method, String path, int maxParameters) {
+            this.method = method;
+            this.path = path;
+            this.starts = new int[maxParameters];
+            this.ends = new int[maxParameters];
+        }
+
+        boolean find(Node node, int pos, int depth) {
+            int length = path.length();
+            if (pos == length && node.routes != null) {
+                Route found = node.routes.get(method);
+                if (found == null && method.equals("HEAD")) {
+                    found = node.routes.get("GET");
+                }
+                if (found != null) {
+                    route = found;
+                    return true;
+                }
+                if (allowed == null) {
+                    allowed = new LinkedHashSet<>();
+                }
+                allowed.addAll(node.routes.keySet());
+            }
+            if (pos == length) {
+                return false;
+            }
+
+            int e = node.edge(path.charAt(pos));
+            if (e >= 0 && path.startsWith(node.labels[e], pos)
+                    && find(node.children[e], pos + node.labels[e].length(), depth)) {
+                return true;
+            }
+
+            for (ParameterEdge edge : node.parameters) {
+                starts[depth] = pos;
+                if (edge.converter == Converter.PATH) {
+                    if (!edge.converter.accepts(path, pos, length, edge.options)) continue;
+                    // Shortest span first, like Werkzeug's non-greedy path pattern
+                    for (int end = pos + 1; end <= length; end++) {
+                        ends[depth] = end;
+                        if (find(edge.child, end, depth + 1)) return true;
+                    }
+                    continue;
+                }
+
+                int segmentEnd = path.indexOf('/', pos);
+                if (segmentEnd < 0) segmentEnd = length;
+                int shortest = edge.child.inSegmentLiteral ? pos + 1 : segmentEnd;
+                for (int end = segmentEnd; end >= shortest; end--) {
+                    if (edge.converter.accepts(path, pos, end, edge.options)) {
+                        ends[depth] = end;
+                        if (find(edge.child, end, depth + 1)) return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
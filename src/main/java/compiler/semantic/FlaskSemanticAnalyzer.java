@@ -4,6 +4,13 @@ import compiler.ast.core.ASTNode;
 import compiler.ast.core.ParameterNode;
 import compiler.ast.flask.*;
 import compiler.ast.python.FunctionDefNode;
+import compiler.diagnostics.Diagnostic;
+import compiler.diagnostics.DiagnosticSink;
+import compiler.diagnostics.Severity;
+import compiler.diagnostics.StreamingDiagnosticSink;
+import compiler.routing.Converter;
+import compiler.routing.Route;
+import compiler.routing.RouteMatcher;
 
 import java.util.*;
 
@@ -15,6 +22,10 @@ public class FlaskSemanticAnalyzer {
         "GET", "POST", "PUT", "DELETE", "PATCH", "HEAD", "OPTIONS", "TRACE", "CONNECT"
     );
 
+    private static final Set<String> VALID_CONVERTERS = Set.of(
+        "int", "float", "path", "string", "uuid", "any"
+    );
+
     // Flask-specific context objects
     private static final Set<String> FLASK_CONTEXT_OBJECTS = Set.of(
         "request", "session", "g", "current_app"
@@ -23,7 +34,23 @@ public class FlaskSemanticAnalyzer {
     private final List<SemanticError> errors = new ArrayList<>();
     private final List<SemanticWarning> warnings = new ArrayList<>();
     private final Set<String> registeredEndpoints = new HashSet<>();
-    private final Map<String, Set<String>> routeMethodMap = new HashMap<>();
+    private final RouteMatcher.Builder routes = new RouteMatcher.Builder();
+    private RouteMatcher routeMatcher;
+
+    // Decorators are children of their FlaskRouteFunction, so the traversal reaches them twice
+    private final Set<RouteDecoratorNode> analyzedDecorators = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    // Receives the findings once analyze() is done, errors first
+    private final DiagnosticSink sink;
+
+    // Prints the findings and a summary to System.out
+    public FlaskSemanticAnalyzer() {
+        this(StreamingDiagnosticSink.console());
+    }
+
+    public FlaskSemanticAnalyzer(DiagnosticSink sink) {
+        this.sink = sink;
+    }
 
     public static class SemanticError {
         public final String message;
@@ -62,11 +89,21 @@ public class FlaskSemanticAnalyzer {
     public void analyze(ASTNode root) {
         if (root == null) return;
 
-            System.out.println("FLASK SEMANTIC ANALYSIS");
+        boolean tracing = sink.isEnabled(Severity.INFO);
+        if (tracing) {
+            sink.report(new Diagnostic(Severity.INFO, "TRACE", 0, 0, "FLASK SEMANTIC ANALYSIS"));
+        }
 
         traverseAndAnalyze(root);
 
-        printAnalysisResults();
+        for (Diagnostic diagnostic : getDiagnostics()) {
+            sink.report(diagnostic);
+        }
+        if (tracing) {
+            sink.report(new Diagnostic(Severity.INFO, "TRACE", 0, 0, errors.isEmpty() && warnings.isEmpty()
+                ? "  ✓ No Flask semantic issues found.\n"
+                : String.format("Summary: %d error(s), %d warning(s)", errors.size(), warnings.size())));
+        }
     }
 
     private void traverseAndAnalyze(ASTNode node) {
@@ -76,7 +113,7 @@ public class FlaskSemanticAnalyzer {
         if (node instanceof FlaskRouteFunction) {
             analyzeRouteFunction((FlaskRouteFunction) node);
         } else if (node instanceof RouteDecoratorNode) {
-            analyzeRouteDecorator((RouteDecoratorNode) node);
+            analyzeRouteDecorator((RouteDecoratorNode) node, null);
         } else if (node instanceof FlaskAppNode) {
             analyzeFlaskApp((FlaskAppNode) node);
         } else if (node instanceof FlaskImportNode) {
@@ -129,11 +166,13 @@ public class FlaskSemanticAnalyzer {
         }
 
            for (RouteDecoratorNode decorator : node.getRouteDecorators()) {
-            analyzeRouteDecorator(decorator);
+            analyzeRouteDecorator(decorator, node.getEndpoint());
         }
     }
 
-     private void analyzeRouteDecorator(RouteDecoratorNode node) {
+     private void analyzeRouteDecorator(RouteDecoratorNode node, String endpoint) {
+        if (!analyzedDecorators.add(node)) return;
+
         String path = node.getRoutePath();
         int line = node.getLineNumber();
 
@@ -148,20 +187,14 @@ public class FlaskSemanticAnalyzer {
                     method, VALID_HTTP_METHODS), line);
             }
         }
-        String normalizedPath = normalizePath(path);
-        Set<String> existingMethods = routeMethodMap.getOrDefault(normalizedPath, new HashSet<>());
 
-        for (String method : node.getHttpMethods()) {
-            if (existingMethods.contains(method)) {
-                addWarning("FLASK102", String.format(
-                    "Route '%s' with method '%s' may conflict with an existing route.",
-                    path, method), line);
-            }
+        // Rules with the same shape end on the same trie node, so conflicts surface on insert
+        routeMatcher = null;
+        for (RouteMatcher.Conflict conflict : routes.add(path, node.getHttpMethods(), endpoint, line)) {
+            addWarning("FLASK102", String.format(
+                "Route '%s' with method '%s' may conflict with existing route '%s' (line %d).",
+                path, conflict.method, conflict.existing.getRule(), conflict.existing.getLineNumber()), line);
         }
-
-        // Track route for conflict detection
-        routeMethodMap.computeIfAbsent(normalizedPath, k -> new HashSet<>())
-                      .addAll(node.getHttpMethods());
     }
 
     private void validateRoutePath(String path, int line) {
@@ -202,26 +235,15 @@ public class FlaskSemanticAnalyzer {
         }
 
         // Check for valid path parameter types
-        java.util.regex.Pattern paramPattern = java.util.regex.Pattern.compile("<([^:>]+):([^>]+)>");
-        java.util.regex.Matcher matcher = paramPattern.matcher(path);
-
-        Set<String> validConverters = Set.of("int", "float", "path", "string", "uuid", "any");
-        while (matcher.find()) {
-            String converter = matcher.group(1);
-            if (!validConverters.contains(converter)) {
+        for (Route.Segment segment : Route.parse(path)) {
+            if (!segment.isLiteral() && !Converter.isKnown(segment.converterName)) {
                 addWarning("FLASK103", String.format(
                     "Unknown URL converter '%s' in path '%s'. Standard converters: %s",
-                    converter, path, validConverters), line);
+                    segment.converterName, path, VALID_CONVERTERS), line);
             }
         }
     }
 
-
-    private String normalizePath(String path) {
-        // Replace path parameters with placeholder for comparison
-        return path.replaceAll("<[^>]+>", "<param>");
-    }
-
     private void analyzeFlaskApp(FlaskAppNode node) {
         String moduleName = node.getModuleName();
         int line = node.getLineNumber();
@@ -276,39 +298,30 @@ public class FlaskSemanticAnalyzer {
         return new ArrayList<>(warnings);
     }
 
-    public boolean hasErrors() {
-        return !errors.isEmpty();
-    }
-
-    private void printAnalysisResults() {
-        if (errors.isEmpty() && warnings.isEmpty()) {
-            System.out.println("  ✓ No Flask semantic issues found.\n");
-            return;
+    // Errors, then warnings, as sink records
+    public List<Diagnostic> getDiagnostics() {
+        List<Diagnostic> diagnostics = new ArrayList<>();
+        for (SemanticError error : errors) {
+            diagnostics.add(new Diagnostic(Severity.ERROR, error.errorCode, error.lineNumber, 0, error.message));
         }
-
-        if (!errors.isEmpty()) {
-            System.out.println("ERRORS (" + errors.size() + "):");
-            System.out.println("─────────────────────────────────────────");
-            for (SemanticError error : errors) {
-                System.out.println("  ✗ " + error);
-            }
-            System.out.println();
+        for (SemanticWarning warning : warnings) {
+            diagnostics.add(new Diagnostic(Severity.WARNING, warning.warningCode, warning.lineNumber, 0,
+                warning.message));
         }
+        return diagnostics;
+    }
 
-        if (!warnings.isEmpty()) {
-            System.out.println("WARNINGS (" + warnings.size() + "):");
-            System.out.println("─────────────────────────────────────────");
-            for (SemanticWarning warning : warnings) {
-                System.out.println("  ⚠ " + warning);
-            }
-            System.out.println();
+    // Dispatch trie over every route seen by analyze(); built on first call
+    public RouteMatcher getRouteMatcher() {
+        if (routeMatcher == null) {
+            routeMatcher = routes.build();
         }
-
-        System.out.println("─────────────────────────────────────────");
-        System.out.println(String.format("Summary: %d error(s), %d warning(s)",
-            errors.size(), warnings.size()));
+        return routeMatcher;
     }
 
+    public boolean hasErrors() {
+        return !errors.isEmpty();
+    }
 
     public String getErrorReport() {
         StringBuilder sb = new StringBuilder();
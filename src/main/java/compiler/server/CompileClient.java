@@ -0,0 +1,152 @@
+package compiler.server;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.URLEncoder;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Thin client for CompileServer; one connection carries all requests.
+ *
+ * Usage: CompileClient [--port=N | --socket=PATH] [--stages=ast,diagnostics,symbols] [--send] FILE...
+ *        CompileClient [--port=N | --socket=PATH] --stats | --ping | --shutdown
+ *
+ * By default the server reads each file itself; --send ships the contents,
+ * for servers that do not share the client's filesystem view. Exits with 1
+ * if any file has error diagnostics, 2 if a request failed.
+ */
+public class CompileClient implements Closeable {
+
+    public static class Response {
+        public final String status;
+        public final String json;
+
+        Response(String status, String json) {
+            this.status = status;
+            this.json = json;
+        }
+
+        public boolean isOk() {
+            return status.equals("OK");
+        }
+
+        public boolean isError() {
+            return status.equals("ERROR");
+        }
+    }
+
+    private final SocketChannel channel;
+    private final InputStream in;
+    private final OutputStream out;
+
+    public CompileClient(SocketAddress address) throws IOException {
+        this.channel = address instanceof UnixDomainSocketAddress
+            ? SocketChannel.open(StandardProtocolFamily.UNIX)
+            : SocketChannel.open();
+        this.channel.connect(address);
+        this.in = new BufferedInputStream(Channels.newInputStream(channel));
+        this.out = Channels.newOutputStream(channel);
+    }
+
+    public static void main(String[] args) throws IOException {
+        SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), CompileServer.DEFAULT_PORT);
+        String stages = "diagnostics";
+        String command = null;
+        boolean send = false;
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    Integer.parseInt(arg.substring("--port=".length())));
+            } else if (arg.startsWith("--socket=")) {
+                address = UnixDomainSocketAddress.of(arg.substring("--socket=".length()));
+            } else if (arg.startsWith("--stages=")) {
+                stages = arg.substring("--stages=".length());
+            } else if (arg.equals("--send")) {
+                send = true;
+            } else if (arg.equals("--stats") || arg.equals("--ping") || arg.equals("--shutdown")) {
+                command = arg.substring(2);
+            } else {
+                files.add(Paths.get(arg));
+            }
+        }
+
+        int exitCode = 0;
+        try (CompileClient client = new CompileClient(address)) {
+            if (command != null) {
+                Response response = client.request(command);
+                System.out.println(response.json);
+                exitCode = response.isError() ? 2 : 0;
+            }
+            for (Path file : files) {
+                Response response = send
+                    ? client.compile(file.toString(), Files.readString(file), stages)
+                    : client.compile(file, stages);
+                System.out.println(response.json);
+                if (response.isError()) {
+                    exitCode = 2;
+                } else if (!response.isOk() && exitCode == 0) {
+                    exitCode = 1;
+                }
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    // The server reads the file
+    public Response compile(Path file, String stages) throws IOException {
+        return request("compile path=" + encode(file.toAbsolutePath().toString()) + " stages=" + encode(stages));
+    }
+
+    // The source travels with the request
+    public Response compile(String fileName, String source, String stages) throws IOException {
+        byte[] bytes = source.getBytes(StandardCharsets.UTF_8);
+        return request("compile name=" + encode(fileName) + " length=" + bytes.length
+            + " stages=" + encode(stages), bytes);
+    }
+
+    public Response request(String line) throws IOException {
+        return request(line, null);
+    }
+
+    private Response request(String line, byte[] body) throws IOException {
+        out.write((line + "\n").getBytes(StandardCharsets.UTF_8));
+        if (body != null) {
+            out.write(body);
+        }
+        out.flush();
+
+        String status = CompileServer.readLine(in);
+        if (status == null) {
+            throw new IOException("Server closed the connection");
+        }
+        int space = status.indexOf(' ');
+        int length = Integer.parseInt(status.substring(space + 1));
+        String json = new String(CompileServer.readBytes(in, length), StandardCharsets.UTF_8);
+        return new Response(status.substring(0, space), json);
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
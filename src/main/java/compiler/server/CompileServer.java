@@ -0,0 +1,403 @@
+package compiler.server;
+
+import compiler.cache.ASTCache;
+import compiler.diagnostics.Diagnostic;
+import compiler.parsing.DFACache;
+import compiler.parsing.ParseMode;
+import compiler.parsing.SourceLanguage;
+import compiler.utils.ASTJsonWriter;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.URLDecoder;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resident compiler: keeps warm parsers, DFAs and (optionally) the AST cache
+ * across requests, so a client pays for a socket round trip instead of a
+ * JVM start and a cold parse. Listens on a loopback TCP port or a Unix
+ * domain socket. Each connection has its own thread that reads requests and
+ * writes responses; compiles run on a fixed pool of workers, each keeping its
+ * own SourceAnalyzer, so an idle connection holds no worker.
+ *
+ * Protocol (UTF-8). A request is one line, a command followed by key=value
+ * pairs with URL-encoded values:
+ *   compile path=<file> [language=python|jinja2|css] [stages=ast,diagnostics,symbols]
+ *   compile name=<file> length=<bytes> [language=...] [stages=...]   then <bytes> bytes of source
+ *   stats | ping | shutdown
+ * A response is a status line "<OK|FAIL|ERROR> <bytes>" followed by that many
+ * bytes of JSON. FAIL means the file compiled with error diagnostics, ERROR
+ * that the request itself could not be served. A connection may carry any
+ * number of requests. A length outside 0..MAX_SOURCE_BYTES is answered with
+ * ERROR and the connection is closed, since the bytes that follow cannot be
+ * framed.
+ *
+ * Usage: CompileServer [--port=N | --socket=PATH] [--cache-dir=DIR] [--parse-mode=ll|sll-ll] [--no-warm-up]
+ */
+public class CompileServer {
+
+    public static final int DEFAULT_PORT = 7341;
+
+    public static final int MAX_SOURCE_BYTES = 64 << 20;
+
+    private static final String DEFAULT_STAGES = "diagnostics";
+
+    private final SocketAddress address;
+    private final ParseMode parseMode;
+    private final ASTCache cache;
+    private final ExecutorService workers;
+    private final ExecutorService connections;
+    private final ThreadLocal<SourceAnalyzer> analyzers;
+    private final long startTime = System.nanoTime();
+    private final AtomicLong requests = new AtomicLong();
+
+    private ServerSocketChannel server;
+    private volatile boolean running;
+
+    public CompileServer(SocketAddress address, ParseMode parseMode, ASTCache cache, int parallelism) {
+        this.address = address;
+        this.parseMode = parseMode;
+        this.cache = cache;
+        this.workers = Executors.newFixedThreadPool(parallelism);
+        this.connections = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "compile-connection");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.analyzers = ThreadLocal.withInitial(() -> new SourceAnalyzer(parseMode, cache));
+    }
+
+    public static void main(String[] args) throws IOException {
+        SocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), DEFAULT_PORT);
+        ParseMode parseMode = ParseMode.SLL_THEN_LL;
+        ASTCache cache = null;
+        boolean warmUp = true;
+        for (String arg : args) {
+            if (arg.startsWith("--port=")) {
+                address = new InetSocketAddress(InetAddress.getLoopbackAddress(),
+                    Integer.parseInt(arg.substring("--port=".length())));
+            } else if (arg.startsWith("--socket=")) {
+                address = UnixDomainSocketAddress.of(arg.substring("--socket=".length()));
+            } else if (arg.startsWith("--cache-dir=")) {
+                cache = new ASTCache(Paths.get(arg.substring("--cache-dir=".length())));
+            } else if (arg.startsWith("--parse-mode=")) {
+                parseMode = ParseMode.fromString(arg.substring("--parse-mode=".length()));
+            } else if (arg.equals("--no-warm-up")) {
+                warmUp = false;
+            }
+        }
+
+        if (warmUp) {
+            System.err.println("Warm-up: " + DFACache.warmUp());
+        }
+
+        CompileServer server = new CompileServer(address, parseMode, cache,
+            Runtime.getRuntime().availableProcessors());
+        server.start();
+        System.err.println("Compile server listening on " + address);
+        server.serve();
+    }
+
+    public void start() throws IOException {
+        if (address instanceof UnixDomainSocketAddress) {
+            // A socket file left by a previous run would make bind fail
+            Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        } else {
+            server = ServerSocketChannel.open();
+        }
+        server.bind(address);
+        running = true;
+    }
+
+    // Accepts connections until stop() or a shutdown request
+    public void serve() throws IOException {
+        try {
+            while (running) {
+                SocketChannel channel;
+                try {
+                    channel = server.accept();
+                } catch (IOException e) {
+                    if (!running) break;
+                    throw e;
+                }
+                connections.execute(() -> handle(channel));
+            }
+        } finally {
+            stop();
+        }
+    }
+
+    public void stop() {
+        running = false;
+        workers.shutdown();
+        connections.shutdown();
+        try {
+            if (server != null) server.close();
+            if (address instanceof UnixDomainSocketAddress) {
+                Files.deleteIfExists(((UnixDomainSocketAddress) address).getPath());
+            }
+        } catch (IOException e) {
+            // Nothing left to release
+        }
+    }
+
+    public SocketAddress getLocalAddress() throws IOException {
+        return server.getLocalAddress();
+    }
+
+    // ==================== CONNECTION ====================
+
+    private void handle(SocketChannel channel) {
+        try (channel;
+             InputStream in = new BufferedInputStream(Channels.newInputStream(channel));
+             OutputStream out = Channels.newOutputStream(channel)) {
+            String line;
+            while ((line = readLine(in)) != null) {
+                if (line.isBlank()) continue;
+                requests.incrementAndGet();
+                Response response;
+                try {
+                    response = dispatch(line, in);
+                } catch (IOException e) {
+                    response = error("I/O error: " + e);
+                } catch (RuntimeException e) {
+                    response = error(e.getMessage() != null ? e.getMessage() : e.toString());
+                }
+                byte[] body = response.json.getBytes(StandardCharsets.UTF_8);
+                out.write((response.status + " " + body.length + "\n").getBytes(StandardCharsets.UTF_8));
+                out.write(body);
+                out.flush();
+                if (response.closeConnection) {
+                    return;
+                }
+                if (line.equals("shutdown")) {
+                    running = false;
+                    server.close();
+                    return;
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private Response dispatch(String line, InputStream in) throws IOException {
+        String[] parts = line.trim().split(" +");
+        Map<String, String> params = new HashMap<>();
+        for (int i = 1; i < parts.length; i++) {
+            int eq = parts[i].indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected key=value, got '" + parts[i] + "'");
+            }
+            params.put(parts[i].substring(0, eq), URLDecoder.decode(parts[i].substring(eq + 1), StandardCharsets.UTF_8));
+        }
+
+        switch (parts[0]) {
+            case "compile":
+                return compile(params, in);
+            case "stats":
+                return new Response("OK", stats());
+            case "ping":
+                return new Response("OK", "{\"pong\":true}");
+            case "shutdown":
+                return new Response("OK", "{\"shutdown\":true}");
+            default:
+                return error("Unknown command '" + parts[0] + "'");
+        }
+    }
+
+    private Response compile(Map<String, String> params, InputStream in) throws IOException {
+        String fileName;
+        String source;
+        if (params.containsKey("length")) {
+            fileName = params.getOrDefault("name", "<input>");
+            int length = parseLength(params.get("length"));
+            if (length < 0) {
+                return unframed("length must be 0.." + MAX_SOURCE_BYTES + ", got '" + params.get("length") + "'");
+            }
+            source = new String(readBytes(in, length), StandardCharsets.UTF_8);
+        } else if (params.containsKey("path")) {
+            fileName = params.get("path");
+            source = Files.readString(Path.of(fileName));
+        } else {
+            return error("compile needs path=<file> or length=<bytes>");
+        }
+
+        SourceLanguage language = params.containsKey("language")
+            ? SourceLanguage.valueOf(params.get("language").toUpperCase())
+            : SourceLanguage.fromFileName(fileName);
+        Set<SourceAnalyzer.Stage> stages = SourceAnalyzer.Stage.parse(params.getOrDefault("stages", DEFAULT_STAGES));
+
+        Future<SourceAnalyzer.Analysis> pending =
+            workers.submit(() -> analyzers.get().analyze(fileName, source, language, stages));
+        SourceAnalyzer.Analysis analysis = await(pending);
+        return new Response(analysis.hasErrors() ? "FAIL" : "OK", toJSON(analysis, stages));
+    }
+
+    private static SourceAnalyzer.Analysis await(Future<SourceAnalyzer.Analysis> pending) throws IOException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while compiling", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    // The length= value, or -1 if it is not a number in 0..MAX_SOURCE_BYTES
+    private static int parseLength(String value) {
+        try {
+            int length = Integer.parseInt(value);
+            return length <= MAX_SOURCE_BYTES ? length : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // ==================== JSON ====================
+
+    private static String toJSON(SourceAnalyzer.Analysis analysis, Set<SourceAnalyzer.Stage> stages) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"file\":");
+        ASTJsonWriter.quote(analysis.compilation.fileName, sb);
+        sb.append(",\"language\":\"").append(analysis.compilation.language.getDisplayName()).append('"');
+        sb.append(",\"success\":").append(!analysis.hasErrors());
+        sb.append(",\"fromCache\":").append(analysis.compilation.fromCache);
+        sb.append(",\"parseStage\":").append(analysis.compilation.parseStage != null
+            ? "\"" + analysis.compilation.parseStage + "\"" : "null");
+        sb.append(",\"tokens\":").append(analysis.compilation.tokenCount);
+        sb.append(",\"elapsedMs\":").append(String.format("%.3f", analysis.elapsedNanos / 1e6));
+
+        sb.append(",\"diagnostics\":[");
+        for (int i = 0; i < analysis.diagnostics.size(); i++) {
+            Diagnostic diagnostic = analysis.diagnostics.get(i);
+            if (i > 0) sb.append(',');
+            sb.append("{\"severity\":\"").append(diagnostic.severity).append('"');
+            sb.append(",\"code\":");
+            ASTJsonWriter.quote(diagnostic.code, sb);
+            sb.append(",\"line\":").append(diagnostic.line);
+            sb.append(",\"column\":").append(diagnostic.column);
+            sb.append(",\"message\":");
+            ASTJsonWriter.quote(diagnostic.message, sb);
+            sb.append('}');
+        }
+        sb.append(']');
+
+        if (stages.contains(SourceAnalyzer.Stage.SYMBOLS)) {
+            sb.append(",\"symbols\":");
+            if (analysis.symbolTable != null) {
+                sb.append(analysis.symbolTable.toJSON());
+            } else if (analysis.cssSymbolTable != null) {
+                sb.append(analysis.cssSymbolTable.toJSON());
+            } else {
+                sb.append("null");
+            }
+        }
+        if (stages.contains(SourceAnalyzer.Stage.AST)) {
+            sb.append(",\"ast\":");
+            ASTJsonWriter.write(analysis.getAST(), sb);
+        }
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private String stats() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"requests\":").append(requests.get());
+        sb.append(",\"uptimeMs\":").append((System.nanoTime() - startTime) / 1_000_000);
+        sb.append(",\"parseMode\":\"").append(parseMode).append('"');
+        sb.append(",\"cache\":").append(cache != null);
+        sb.append(",\"dfaStates\":").append(DFACache.totalStates());
+        sb.append(",\"recognizers\":[");
+        boolean first = true;
+        for (DFACache.Stats stats : DFACache.stats()) {
+            if (!first) sb.append(',');
+            sb.append("{\"name\":\"").append(stats.recognizer).append('"');
+            sb.append(",\"decisions\":").append(stats.decisions);
+            sb.append(",\"decisionsUsed\":").append(stats.decisionsUsed);
+            sb.append(",\"states\":").append(stats.states).append('}');
+            first = false;
+        }
+        sb.append("]}");
+        return sb.toString();
+    }
+
+    private static Response error(String message) {
+        StringBuilder sb = new StringBuilder("{\"error\":");
+        ASTJsonWriter.quote(message, sb);
+        return new Response("ERROR", sb.append('}').toString());
+    }
+
+    // An error after which the rest of the input cannot be split into requests
+    private static Response unframed(String message) {
+        Response response = error(message);
+        return new Response(response.status, response.json, true);
+    }
+
+    private static class Response {
+        final String status;
+        final String json;
+        final boolean closeConnection;
+
+        Response(String status, String json) {
+            this(status, json, false);
+        }
+
+        Response(String status, String json, boolean closeConnection) {
+            this.status = status;
+            this.json = json;
+            this.closeConnection = closeConnection;
+        }
+    }
+
+    // ==================== FRAMING ====================
+
+    // One '\n'-terminated UTF-8 line, or null at end of stream
+    static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return line.size() == 0 ? null : line.toString(StandardCharsets.UTF_8);
+            }
+            if (b != '\r') line.write(b);
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    static byte[] readBytes(InputStream in, int length) throws IOException {
+        byte[] bytes = in.readNBytes(length);
+        if (bytes.length < length) {
+            throw new EOFException("Expected " + length + " bytes, got " + bytes.length);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,181 @@
+package compiler.server;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.css.CSSStylesheetNode;
+import compiler.cache.ASTCache;
+import compiler.diagnostics.CollectingDiagnosticSink;
+import compiler.diagnostics.Diagnostic;
+import compiler.diagnostics.DiagnosticSink;
+import compiler.diagnostics.Severity;
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.ParseMode;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+import compiler.semantic.FlaskSemanticAnalyzer;
+import compiler.symboltable.ClassicalSymbolTable;
+import compiler.symboltable.SymbolTableBuilder;
+import compiler.symboltable.css.CSSSymbolTable;
+import compiler.symboltable.css.CSSSymbolTableBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Front end plus the analyses that run on its AST, for one source at a time.
+ *
+ * Python goes through SymbolTableBuilder and FlaskSemanticAnalyzer, templates
+ * through SymbolTableBuilder, stylesheets through CSSSymbolTableBuilder.
+ * Syntax errors, builder failures and the findings of those passes all come
+ * back as Diagnostics with a line number. The passes run without console
+ * output.
+ *
+ * Like LanguageFrontEnd, an instance is NOT thread-safe: use one per thread.
+ */
+public class SourceAnalyzer {
+
+    public enum Stage {
+        AST, DIAGNOSTICS, SYMBOLS;
+
+        // Example: "ast,diagnostics" -> {AST, DIAGNOSTICS}
+        public static Set<Stage> parse(String list) {
+            Set<Stage> stages = EnumSet.noneOf(Stage.class);
+            for (String name : list.split(",")) {
+                if (!name.isBlank()) {
+                    stages.add(Stage.valueOf(name.trim().toUpperCase()));
+                }
+            }
+            return stages;
+        }
+    }
+
+    public static class Analysis {
+        public final FileCompilationResult compilation;
+        public final List<Diagnostic> diagnostics;
+        // Set when SYMBOLS was requested and the AST built (one of the two, by language)
+        public final ClassicalSymbolTable symbolTable;
+        public final CSSSymbolTable cssSymbolTable;
+        public final long elapsedNanos;
+
+        Analysis(FileCompilationResult compilation, List<Diagnostic> diagnostics,
+                 ClassicalSymbolTable symbolTable, CSSSymbolTable cssSymbolTable, long elapsedNanos) {
+            this.compilation = compilation;
+            this.diagnostics = Collections.unmodifiableList(diagnostics);
+            this.symbolTable = symbolTable;
+            this.cssSymbolTable = cssSymbolTable;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        public ASTNode getAST() {
+            return compilation.ast;
+        }
+
+        public boolean hasErrors() {
+            for (Diagnostic diagnostic : diagnostics) {
+                if (diagnostic.isError()) return true;
+            }
+            return false;
+        }
+    }
+
+    // "line 3:14 mismatched input ..." as collected by LanguageFrontEnd
+    private static final Pattern SYNTAX_ERROR = Pattern.compile("line (\\d+):(\\d+) (.*)", Pattern.DOTALL);
+
+    // Builder failures carry their line in the text
+    private static final Pattern MESSAGE_LINE = Pattern.compile("line (\\d+)");
+
+    private final LanguageFrontEnd frontEnd;
+
+    public SourceAnalyzer(ParseMode parseMode, ASTCache cache) {
+        this.frontEnd = new LanguageFrontEnd(parseMode);
+        this.frontEnd.setCache(cache);
+    }
+
+    public SourceAnalyzer() {
+        this(ParseMode.SLL_THEN_LL, null);
+    }
+
+    // See LanguageFrontEnd.setInterruptible
+    public void setInterruptible(boolean interruptible) {
+        frontEnd.setInterruptible(interruptible);
+    }
+
+    public Analysis analyze(String fileName, String source, SourceLanguage language, Set<Stage> stages) {
+        long start = System.nanoTime();
+        return analyze(frontEnd.compile(fileName, source, language), stages, start);
+    }
+
+    // Runs the passes on a file compiled elsewhere, e.g. by Jinja2IncrementalParser
+    public Analysis analyze(FileCompilationResult compilation, Set<Stage> stages) {
+        return analyze(compilation, stages, System.nanoTime() - compilation.elapsedNanos);
+    }
+
+    private Analysis analyze(FileCompilationResult compilation, Set<Stage> stages, long start) {
+        String fileName = compilation.fileName;
+        SourceLanguage language = compilation.language;
+        List<Diagnostic> diagnostics = new ArrayList<>();
+
+        for (String error : compilation.syntaxErrors) {
+            Matcher m = SYNTAX_ERROR.matcher(error);
+            if (m.matches()) {
+                diagnostics.add(new Diagnostic(Severity.ERROR, "SYNTAX", Integer.parseInt(m.group(1)),
+                    Integer.parseInt(m.group(2)), m.group(3)));
+            } else {
+                diagnostics.add(new Diagnostic(Severity.ERROR, "SYNTAX", 0, 0, error));
+            }
+        }
+        if (compilation.failure != null) {
+            diagnostics.add(new Diagnostic(Severity.ERROR, "BUILD", lineOf(compilation.failure), 0,
+                compilation.failure));
+        }
+
+        ClassicalSymbolTable symbolTable = null;
+        CSSSymbolTable cssSymbolTable = null;
+        ASTNode ast = compilation.ast;
+        boolean wantSymbols = stages.contains(Stage.SYMBOLS);
+        boolean wantDiagnostics = stages.contains(Stage.DIAGNOSTICS);
+
+        if (ast != null && (wantSymbols || wantDiagnostics)) {
+            if (language == SourceLanguage.CSS) {
+                if (wantSymbols) {
+                    cssSymbolTable = new CSSSymbolTableBuilder().build((CSSStylesheetNode) ast);
+                    cssSymbolTable.setSourceFile(fileName);
+                }
+            } else {
+                ClassicalSymbolTable table = ClassicalSymbolTable.allocate();
+                CollectingDiagnosticSink symbolDiagnostics = new CollectingDiagnosticSink();
+                new SymbolTableBuilder(table, symbolDiagnostics).build(ast);
+                if (wantDiagnostics) {
+                    for (Diagnostic diagnostic : symbolDiagnostics.getDiagnostics()) {
+                        // A template's free names come from the render_template() context, not from the file
+                        if (language == SourceLanguage.JINJA2 && diagnostic.isError()) {
+                            diagnostic = new Diagnostic(Severity.WARNING, diagnostic.code, diagnostic.line,
+                                diagnostic.column, diagnostic.message);
+                        }
+                        diagnostics.add(diagnostic);
+                    }
+                }
+                if (wantSymbols) {
+                    symbolTable = table;
+                }
+            }
+
+            if (wantDiagnostics && language == SourceLanguage.PYTHON) {
+                FlaskSemanticAnalyzer analyzer = new FlaskSemanticAnalyzer(DiagnosticSink.NONE);
+                analyzer.analyze(ast);
+                diagnostics.addAll(analyzer.getDiagnostics());
+            }
+        }
+
+        return new Analysis(compilation, diagnostics, symbolTable, cssSymbolTable, System.nanoTime() - start);
+    }
+
+    private static int lineOf(String message) {
+        Matcher m = MESSAGE_LINE.matcher(message);
+        return m.find() ? Integer.parseInt(m.group(1)) : 0;
+    }
+}
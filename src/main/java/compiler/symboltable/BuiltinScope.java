@@ -0,0 +1,101 @@
+package compiler.symboltable;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable base layer of predeclared names, shared by every symbol table.
+ *
+ * A table attaches it in O(1) instead of inserting each builtin again: the
+ * table's interner starts as a copy of this one (builtin i has name ID i) and
+ * an entry is only created the first time a table resolves that builtin, so
+ * usage lines recorded on it stay private to the table.
+ */
+public final class BuiltinScope {
+
+    public static final BuiltinScope PYTHON = python();
+
+    private final NameInterner names = new NameInterner();
+    private final List<String> types = new ArrayList<>();
+    private final List<Integer> addresses = new ArrayList<>();
+    private final Map<String, Integer> countsByType = new LinkedHashMap<>();
+    private int reservedBytes;
+
+    private BuiltinScope() {
+    }
+
+    private static BuiltinScope python() {
+        BuiltinScope scope = new BuiltinScope();
+
+        // Python built-in exceptions
+        scope.addAll("builtin.exception",
+            "Exception", "ValueError", "TypeError", "KeyError", "IndexError",
+            "AttributeError", "NameError", "RuntimeError", "IOError",
+            "FileNotFoundError", "ZeroDivisionError", "ImportError",
+            "ModuleNotFoundError", "StopIteration", "AssertionError");
+
+        // Python built-in functions
+        scope.addAll("builtin.function",
+            "print", "len", "range", "int", "float", "str", "list", "dict",
+            "tuple", "set", "bool", "type", "isinstance", "issubclass",
+            "hasattr", "getattr", "setattr", "delattr", "dir", "vars",
+            "open", "input", "sum", "min", "max", "abs", "round",
+            "enumerate", "zip", "map", "filter", "sorted", "reversed",
+            "any", "all", "next", "iter", "chr", "ord", "hex", "oct", "bin");
+
+        // Python built-in constants
+        scope.addAll("builtin.constant",
+            "__name__", "__file__", "__doc__", "__package__", "__loader__",
+            "True", "False", "None", "NotImplemented", "Ellipsis");
+
+        return scope;
+    }
+
+    // Builtins take the first global addresses, in declaration order
+    private void addAll(String type, String... builtinNames) {
+        for (String name : builtinNames) {
+            names.intern(name);
+            types.add(type);
+            addresses.add(reservedBytes);
+            reservedBytes += new SymbolTableEntry(name, type, 0).getSize();
+        }
+        countsByType.merge(type, builtinNames.length, Integer::sum);
+    }
+
+    public int size() {
+        return names.size();
+    }
+
+    public String getName(int id) {
+        return names.name(id);
+    }
+
+    public String getType(int id) {
+        return types.get(id);
+    }
+
+    public int count(String type) {
+        return countsByType.getOrDefault(type, 0);
+    }
+
+    // Global addresses below this belong to builtins
+    public int getReservedBytes() {
+        return reservedBytes;
+    }
+
+    // Interner pre-seeded with the builtin names, for a new table to own
+    NameInterner copyNames() {
+        return names.copy();
+    }
+
+    // A fresh, table-private entry for builtin id
+    SymbolTableEntry newEntry(int id) {
+        SymbolTableEntry entry = new SymbolTableEntry(names.name(id), types.get(id), 0);
+        entry.setInitialized(true);
+        entry.setScopeLevel(0);
+        entry.setAddress(addresses.get(id));
+        return entry;
+    }
+}
@@ -1,57 +1,42 @@
 package compiler.symboltable;
 
+import compiler.diagnostics.Diagnostic;
+import compiler.diagnostics.DiagnosticSink;
+import compiler.diagnostics.Severity;
+
 import java.util.*;
 
 public class ClassicalSymbolTable {
 
     // Internal Data Structures
 
+    /* Name -> entry bindings of every open scope (interned names, O(1) lookup) */
+    private ScopedSymbolMap<SymbolTableEntry> scopes;
 
-    private static class Scope {
-        private final int level;
-        private final Map<String, SymbolTableEntry> entries;
-
-        public Scope(int level) {
-            this.level = level;
-            this.entries = new HashMap<>();
-        }
-
-        public int getLevel() {
-            return level;
-        }
-
-        public Map<String, SymbolTableEntry> getEntries() {
-            return entries;
-        }
-
-        public boolean contains(String name) {
-            return entries.containsKey(name);
-        }
-
-        public SymbolTableEntry get(String name) {
-            return entries.get(name);
-        }
-
-        public void put(String name, SymbolTableEntry entry) {
-            entries.put(name, entry);
-        }
-    }
-
-    // Stack of scopes (top = current scope, bottom = global scope) */
-    private Deque<Scope> scopeStack;
+    /* Shared predeclared names below the global scope (null = none) */
+    private BuiltinScope builtins;
 
-    // Current scope level (0 = global) */
-    private int currentScopeLevel;
+    /* Table-private entries of the builtins resolved so far, by name ID */
+    private SymbolTableEntry[] builtinEntries;
 
     // Next available memory address for allocation */
     private int nextAddress;
 
+    /* frameSizes[level] = entries inserted into that open scope so far; the next one gets that slot */
+    private int[] frameSizes = new int[8];
+
     /* Error tracking */
     private List<String> errors;
 
     /* Warning tracking */
     private List<String> warnings;
 
+    /* The same errors and warnings as records with code and line, in report order */
+    private List<Diagnostic> diagnostics;
+
+    /* Receives every error and warning as it is recorded (NONE = only kept here) */
+    private DiagnosticSink sink = DiagnosticSink.NONE;
+
 
     // Constructor
 
@@ -59,14 +44,12 @@ public class ClassicalSymbolTable {
       Private constructor - use allocate() to create instances
      */
     private ClassicalSymbolTable() {
-        this.scopeStack = new ArrayDeque<>();
-        this.currentScopeLevel = 0;
+        // Global scope is level 0
+        this.scopes = new ScopedSymbolMap<>();
         this.nextAddress = 0;
         this.errors = new ArrayList<>();
         this.warnings = new ArrayList<>();
-
-        // Create global scope (level 0)
-        scopeStack.push(new Scope(currentScopeLevel));
+        this.diagnostics = new ArrayList<>();
     }
 
 
@@ -79,45 +62,102 @@ public class ClassicalSymbolTable {
         return new ClassicalSymbolTable();
     }
 
+    // @return a new symbol table on top of a shared builtin layer
+    public static ClassicalSymbolTable allocate(BuiltinScope builtins) {
+        ClassicalSymbolTable table = new ClassicalSymbolTable();
+        table.attachBuiltins(builtins);
+        return table;
+    }
+
+    /*
+      Makes the builtins resolvable without inserting them. Must happen before
+      the first insert, because builtin i keeps name ID i in this table.
+     */
+    public void attachBuiltins(BuiltinScope builtins) {
+        if (scopes.getNames().size() > 0) {
+            throw new IllegalStateException("Builtins must be attached to an empty symbol table");
+        }
+        this.builtins = builtins;
+        this.builtinEntries = new SymbolTableEntry[builtins.size()];
+        this.scopes = new ScopedSymbolMap<>(builtins.copyNames());
+        this.nextAddress = Math.max(nextAddress, builtins.getReservedBytes());
+    }
+
+    public BuiltinScope getBuiltins() {
+        return builtins;
+    }
+
     public void free() {
-        scopeStack.clear();
+        scopes = new ScopedSymbolMap<>();
+        builtins = null;
+        builtinEntries = null;
         errors.clear();
         warnings.clear();
-        currentScopeLevel = 0;
+        diagnostics.clear();
         nextAddress = 0;
+        frameSizes = new int[8];
     }
 
     public SymbolTableEntry lookup(String name) {
-        // Search from current scope upward to global scope
-        for (Scope scope : scopeStack) {
-            if (scope.contains(name)) {
-                return scope.get(name);
-            }
+        // Innermost binding, then the builtin layer
+        int nameId = scopes.findNameId(name);
+        return nameId < 0 ? null : lookup(nameId);
+    }
+
+    // Interned ID of name, for callers that resolve the same identifier repeatedly
+    public int nameId(String name) {
+        return scopes.nameId(name);
+    }
+
+    public SymbolTableEntry lookup(int nameId) {
+        SymbolTableEntry entry = scopes.get(nameId);
+        return entry != null ? entry : builtin(nameId);
+    }
+
+    private SymbolTableEntry builtin(int nameId) {
+        if (builtins == null || nameId >= builtinEntries.length) {
+            return null;
+        }
+        SymbolTableEntry entry = builtinEntries[nameId];
+        if (entry == null) {
+            entry = builtins.newEntry(nameId);
+            entry.setSlot(nameId);
+            builtinEntries[nameId] = entry;
         }
-        return null; // Not found in any scope
+        return entry;
     }
 
+    // True for entries of the builtin layer, whose slot indexes the builtins rather than a frame
+    public boolean isBuiltin(SymbolTableEntry entry) {
+        int slot = entry.getSlot();
+        return builtinEntries != null && slot >= 0 && slot < builtinEntries.length && builtinEntries[slot] == entry;
+    }
 
-    public boolean insert(String name, SymbolTableEntry entry) {
-        if (scopeStack.isEmpty()) {
-            errors.add("ERROR: Cannot insert - no scope available");
-            return false;
+    private List<SymbolTableEntry> builtinEntries() {
+        List<SymbolTableEntry> entries = new ArrayList<>();
+        if (builtins != null) {
+            for (int id = 0; id < builtinEntries.length; id++) {
+                entries.add(builtin(id));
+            }
         }
+        return entries;
+    }
 
-        Scope currentScope = scopeStack.peek();
 
-        // Check for redeclaration in current scope
-        if (currentScope.contains(name)) {
-            int existingLine = currentScope.get(name).getLineOfDeclaration();
-            errors.add(String.format(
-                "ERROR: Redeclaration of identifier '%s' at line %d (previously declared at line %d)",
+    public boolean insert(String name, SymbolTableEntry entry) {
+        // Check for redeclaration in current scope (builtins may be shadowed)
+        SymbolTableEntry existing = scopes.getInCurrentScope(name);
+        if (existing != null) {
+            int existingLine = existing.getLineOfDeclaration();
+            error("SYM001", entry.getLineOfDeclaration(), String.format(
+                "Redeclaration of identifier '%s' at line %d (previously declared at line %d)",
                 name, entry.getLineOfDeclaration(), existingLine
             ));
             return false;
         }
 
         // Set scope level and address
-        entry.setScopeLevel(currentScopeLevel);
+        entry.setScopeLevel(scopes.getLevel());
 
         // Allocate memory address if not already set
         if (entry.getAddress() == -1) {
@@ -125,8 +165,11 @@ public class ClassicalSymbolTable {
             nextAddress += entry.getSize();
         }
 
+        // Next slot of the current scope's frame (addresses are bytes; slots index an array)
+        entry.setSlot(frameSizes[scopes.getLevel()]++);
+
         // Insert into current scope
-        currentScope.put(name, entry);
+        scopes.put(name, entry);
 
         return true;
     }
@@ -136,8 +179,8 @@ public class ClassicalSymbolTable {
         SymbolTableEntry entry = lookup(name);
 
         if (entry == null) {
-            errors.add(String.format(
-                "ERROR: Cannot set attribute - identifier '%s' not found in symbol table",
+            error("SYM002", 0, String.format(
+                "Cannot set attribute - identifier '%s' not found in symbol table",
                 name
             ));
             return false;
@@ -176,8 +219,8 @@ public class ClassicalSymbolTable {
                 break;
 
             default:
-                warnings.add(String.format(
-                    "WARNING: Unknown attribute '%s' for identifier '%s'",
+                warning("SYM101", 0, String.format(
+                    "Unknown attribute '%s' for identifier '%s'",
                     attribute, name
                 ));
                 return false;
@@ -191,8 +234,8 @@ public class ClassicalSymbolTable {
         SymbolTableEntry entry = lookup(name);
 
         if (entry == null) {
-            errors.add(String.format(
-                "ERROR: Cannot get attribute - identifier '%s' not found in symbol table",
+            error("SYM002", 0, String.format(
+                "Cannot get attribute - identifier '%s' not found in symbol table",
                 name
             ));
             return null;
@@ -231,8 +274,8 @@ public class ClassicalSymbolTable {
                 return entry.getArrayDimensions();
 
             default:
-                warnings.add(String.format(
-                    "WARNING: Unknown attribute '%s' for identifier '%s'",
+                warning("SYM101", 0, String.format(
+                    "Unknown attribute '%s' for identifier '%s'",
                     attribute, name
                 ));
                 return null;
@@ -244,23 +287,31 @@ public class ClassicalSymbolTable {
 
 
     public void enterScope() {
-        currentScopeLevel++;
-        scopeStack.push(new Scope(currentScopeLevel));
+        int level = scopes.enterScope();
+        if (level == frameSizes.length) {
+            frameSizes = Arrays.copyOf(frameSizes, level * 2);
+        }
+        frameSizes[level] = 0;
     }
 
+    // Discards the scope's bindings in O(bindings), restoring what they shadowed
     public void exitScope() {
-        if (scopeStack.size() <= 1) {
-            warnings.add("WARNING: Cannot exit global scope");
+        if (scopes.getLevel() == 0) {
+            warning("SYM102", 0, "Cannot exit global scope");
             return;
         }
 
-        scopeStack.pop();
-        currentScopeLevel--;
+        scopes.exitScope();
     }
 
 
     public int getCurrentScopeLevel() {
-        return currentScopeLevel;
+        return scopes.getLevel();
+    }
+
+    // Slots a frame for the current scope needs so far
+    public int getFrameSize() {
+        return frameSizes[scopes.getLevel()];
     }
 
 
@@ -269,8 +320,8 @@ public class ClassicalSymbolTable {
         SymbolTableEntry entry = lookup(name);
 
         if (entry == null) {
-            errors.add(String.format(
-                "ERROR: Undeclared identifier '%s' used at line %d",
+            error("SYM003", line, String.format(
+                "Undeclared identifier '%s' used at line %d",
                 name, line
             ));
             return false;
@@ -285,10 +336,7 @@ public class ClassicalSymbolTable {
 
 
     public SymbolTableEntry lookupCurrentScope(String name) {
-        if (scopeStack.isEmpty()) {
-            return null;
-        }
-        return scopeStack.peek().get(name);
+        return scopes.getInCurrentScope(name);
     }
 
     public boolean contains(String name) {
@@ -304,22 +352,19 @@ public class ClassicalSymbolTable {
     //Retrieval Operations
 
 
+    // Innermost scope first; builtins count as part of the global scope
     public List<SymbolTableEntry> getAllEntries() {
-        List<SymbolTableEntry> allEntries = new ArrayList<>();
-        for (Scope scope : scopeStack) {
-            allEntries.addAll(scope.getEntries().values());
-        }
+        List<SymbolTableEntry> allEntries = scopes.values();
+        allEntries.addAll(builtinEntries());
         return allEntries;
     }
 
 
 
     public List<SymbolTableEntry> getEntriesAtLevel(int level) {
-        List<SymbolTableEntry> entries = new ArrayList<>();
-        for (Scope scope : scopeStack) {
-            if (scope.getLevel() == level) {
-                entries.addAll(scope.getEntries().values());
-            }
+        List<SymbolTableEntry> entries = scopes.valuesAtLevel(level);
+        if (level == 0) {
+            entries.addAll(builtinEntries());
         }
         return entries;
     }
@@ -335,6 +380,33 @@ public class ClassicalSymbolTable {
     }
 
 
+    public List<Diagnostic> getDiagnostics() {
+        return new ArrayList<>(diagnostics);
+    }
+
+    public DiagnosticSink getDiagnosticSink() {
+        return sink;
+    }
+
+    public void setDiagnosticSink(DiagnosticSink sink) {
+        this.sink = sink;
+    }
+
+    // getErrors() keeps the "ERROR: ..." text; the record carries code and line instead
+    private void error(String code, int line, String message) {
+        errors.add("ERROR: " + message);
+        Diagnostic diagnostic = new Diagnostic(Severity.ERROR, code, line, 0, message);
+        diagnostics.add(diagnostic);
+        sink.report(diagnostic);
+    }
+
+    private void warning(String code, int line, String message) {
+        warnings.add("WARNING: " + message);
+        Diagnostic diagnostic = new Diagnostic(Severity.WARNING, code, line, 0, message);
+        diagnostics.add(diagnostic);
+        sink.report(diagnostic);
+    }
+
     public boolean hasErrors() {
         return !errors.isEmpty();
     }
@@ -373,25 +445,19 @@ public class ClassicalSymbolTable {
     public void printTable() {
            System.out.println("SYMBOL TABLE");
 
-        if (scopeStack.isEmpty()) {
-            System.out.println("  (empty)");
-            return;
-        }
-
         // Print table header
         System.out.println("\n┌───────────────┬────────────┬─────────┬──────┬────────┬──────────┬────────┬──────────────┐");
         System.out.println("│ Name          │ Type       │ Size    │ Dim  │ Decl   │ Address  │ Scope  │ Usage Lines  │");
         System.out.println("├───────────────┼────────────┼─────────┼──────┼────────┼──────────┼────────┼──────────────┤");
 
-        List<Scope> scopeList = new ArrayList<>(scopeStack);
-        Collections.reverse(scopeList); // Reverse to print global scope first
-
-        for (Scope scope : scopeList) {
-            if (!scope.getEntries().isEmpty()) {
-                System.out.println(String.format("│ %-90s │", "SCOPE LEVEL " + scope.getLevel()));
+        // Global scope first
+        for (int level = 0; level <= scopes.getLevel(); level++) {
+            List<SymbolTableEntry> entries = getEntriesAtLevel(level);
+            if (!entries.isEmpty()) {
+                System.out.println(String.format("│ %-90s │", "SCOPE LEVEL " + level));
                 System.out.println("├───────────────┼────────────┼─────────┼──────┼────────┼──────────┼────────┼──────────────┤");
 
-                for (SymbolTableEntry entry : scope.getEntries().values()) {
+                for (SymbolTableEntry entry : entries) {
                     String usageLines = entry.getLinesOfUsage().isEmpty() ?
                         "-" : entry.getLinesOfUsage().toString();
 
@@ -414,7 +480,7 @@ public class ClassicalSymbolTable {
 
         System.out.println("└───────────────┴────────────┴─────────┴──────┴────────┴──────────┴────────┴──────────────┘");
         System.out.println(String.format("\nTotal Entries: %d | Current Scope Level: %d | Next Address: %d",
-            getAllEntries().size(), currentScopeLevel, nextAddress));
+            getAllEntries().size(), scopes.getLevel(), nextAddress));
         System.out.println();
     }
 
@@ -443,7 +509,7 @@ public class ClassicalSymbolTable {
 
     public String getStatistics() {
         int totalEntries = getAllEntries().size();
-        int totalScopes = scopeStack.size();
+        int totalScopes = scopes.getLevel() + 1;
         int totalErrors = errors.size();
         int totalWarnings = warnings.size();
 
@@ -453,6 +519,53 @@ public class ClassicalSymbolTable {
         );
     }
 
+    // Open scopes, innermost first; builtins are left out
+    public String toJSON() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"currentLevel\": ").append(scopes.getLevel()).append(",\n");
+        sb.append("  \"scopes\": [\n");
+
+        for (int level = scopes.getLevel(); level >= 0; level--) {
+            sb.append("    {\n");
+            sb.append("      \"level\": ").append(level).append(",\n");
+            sb.append("      \"symbols\": [\n");
+
+            List<SymbolTableEntry> entries = scopes.valuesAtLevel(level);
+            for (int i = 0; i < entries.size(); i++) {
+                SymbolTableEntry entry = entries.get(i);
+                sb.append("        {");
+                sb.append("\"name\": \"").append(escapeJSON(entry.getName())).append("\", ");
+                sb.append("\"type\": \"").append(escapeJSON(entry.getType())).append("\", ");
+                sb.append("\"line\": ").append(entry.getLineOfDeclaration()).append(", ");
+                sb.append("\"address\": ").append(entry.getAddress()).append(", ");
+                sb.append("\"slot\": ").append(entry.getSlot()).append(", ");
+                sb.append("\"usages\": ").append(entry.getLinesOfUsage());
+                sb.append("}");
+                if (i < entries.size() - 1) sb.append(",");
+                sb.append("\n");
+            }
+
+            sb.append("      ]\n");
+            sb.append("    }");
+            if (level > 0) sb.append(",");
+            sb.append("\n");
+        }
+
+        sb.append("  ]\n");
+        sb.append("}");
+        return sb.toString();
+    }
+
+    private String escapeJSON(String str) {
+        if (str == null) return "";
+        return str.replace("\\", "\\\\")
+                  .replace("\"", "\\\"")
+                  .replace("\n", "\\n")
+                  .replace("\r", "\\r")
+                  .replace("\t", "\\t");
+    }
+
     private String truncate(String str, int maxLength) {
         if (str.length() <= maxLength) {
             return str;
@@ -0,0 +1,115 @@
+package compiler.symboltable;
+
+import java.util.Arrays;
+
+/**
+ * Maps identifier names to dense int IDs (0, 1, 2, ... in first-seen order).
+ *
+ * Open addressing with linear probing over a power-of-two slot array; each slot
+ * holds id + 1 (0 = empty) and the hash of every name is kept next to it, so a
+ * probe only calls String.equals on a full hash match.
+ */
+public class NameInterner {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] slots;
+    private String[] names;
+    private int[] hashes;
+    private int size;
+
+    public NameInterner() {
+        slots = new int[INITIAL_CAPACITY];
+        names = new String[INITIAL_CAPACITY / 2];
+        hashes = new int[INITIAL_CAPACITY / 2];
+    }
+
+    private NameInterner(NameInterner other) {
+        slots = other.slots.clone();
+        names = other.names.clone();
+        hashes = other.hashes.clone();
+        size = other.size;
+    }
+
+    // An independent interner that already holds this one's names under the same IDs
+    public NameInterner copy() {
+        return new NameInterner(this);
+    }
+
+    // ID of name, assigning the next free ID if it is new
+    public int intern(String name) {
+        int hash = spread(name.hashCode());
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (true) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                break;
+            }
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        int id = size++;
+        if (id == names.length) {
+            names = Arrays.copyOf(names, id * 2);
+            hashes = Arrays.copyOf(hashes, id * 2);
+        }
+        names[id] = name;
+        hashes[id] = hash;
+        slots[slot] = id + 1;
+
+        // Keep the load factor at or below 1/2
+        if (size * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+        return id;
+    }
+
+    // ID of name, or -1 if it was never interned
+    public int find(String name) {
+        int hash = spread(name.hashCode());
+        int mask = slots.length - 1;
+        int slot = hash & mask;
+        while (true) {
+            int id = slots[slot] - 1;
+            if (id < 0) {
+                return -1;
+            }
+            if (hashes[id] == hash && names[id].equals(name)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private void rehash(int capacity) {
+        int[] grown = new int[capacity];
+        int mask = capacity - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (grown[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            grown[slot] = id + 1;
+        }
+        slots = grown;
+    }
+
+    // String.hashCode is weak in the low bits for short identifiers
+    private static int spread(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        return h ^ (h >>> 13);
+    }
+}
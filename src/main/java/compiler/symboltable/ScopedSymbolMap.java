@@ -0,0 +1,184 @@
+package compiler.symboltable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Name -> value bindings with nested scopes and O(1) lookup at any depth.
+ *
+ * Names are interned to dense IDs, and heads[id] points at the innermost
+ * binding record of that name. Every record remembers the record it shadows,
+ * so the records form one chain per name. Records are appended to a single
+ * stack that doubles as the undo log: leaving a scope pops its records and
+ * restores each shadowed head, which costs O(bindings of that scope) and not
+ * O(depth) or O(table size).
+ */
+public class ScopedSymbolMap<V> {
+
+    private static final int NONE = -1;
+
+    private final NameInterner names;
+
+    // Innermost binding record per name ID (NONE = unbound)
+    private int[] heads;
+
+    // Binding records, in declaration order
+    private int[] recordName = new int[32];
+    private int[] recordLevel = new int[32];
+    private int[] recordShadowed = new int[32];
+    private Object[] recordValue = new Object[32];
+    private int recordCount;
+
+    // scopeStarts[level] = first record of that scope
+    private int[] scopeStarts = new int[8];
+    private int level;
+
+    public ScopedSymbolMap() {
+        this(new NameInterner());
+    }
+
+    // Takes ownership of names (pass a copy() to share a pre-seeded interner)
+    public ScopedSymbolMap(NameInterner names) {
+        this.names = names;
+        this.heads = new int[Math.max(16, names.size())];
+        Arrays.fill(heads, NONE);
+    }
+
+    // ==================== SCOPES ====================
+
+    public int enterScope() {
+        level++;
+        if (level == scopeStarts.length) {
+            scopeStarts = Arrays.copyOf(scopeStarts, level * 2);
+        }
+        scopeStarts[level] = recordCount;
+        return level;
+    }
+
+    public void exitScope() {
+        if (level == 0) {
+            throw new IllegalStateException("Cannot exit global scope");
+        }
+        int start = scopeStarts[level];
+        for (int r = recordCount - 1; r >= start; r--) {
+            heads[recordName[r]] = recordShadowed[r];
+            recordValue[r] = null;
+        }
+        recordCount = start;
+        level--;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public void clear() {
+        Arrays.fill(heads, NONE);
+        Arrays.fill(recordValue, 0, recordCount, null);
+        recordCount = 0;
+        level = 0;
+    }
+
+    // ==================== NAMES ====================
+
+    public NameInterner getNames() {
+        return names;
+    }
+
+    // Interns name; IDs stay valid for the lifetime of the map
+    public int nameId(String name) {
+        return names.intern(name);
+    }
+
+    // -1 if the name was never seen, which also means it is unbound
+    public int findNameId(String name) {
+        return names.find(name);
+    }
+
+    // ==================== BINDINGS ====================
+
+    public V get(String name) {
+        int id = names.find(name);
+        return id < 0 ? null : get(id);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(int nameId) {
+        int record = nameId < heads.length ? heads[nameId] : NONE;
+        return record == NONE ? null : (V) recordValue[record];
+    }
+
+    // Scope level of the innermost binding, or -1 when unbound
+    public int getBindingLevel(int nameId) {
+        int record = nameId < heads.length ? heads[nameId] : NONE;
+        return record == NONE ? -1 : recordLevel[record];
+    }
+
+    public V getInCurrentScope(String name) {
+        int id = names.find(name);
+        return id >= 0 && getBindingLevel(id) == level ? get(id) : null;
+    }
+
+    // Binds name in the current scope; returns the value it replaced in this scope, if any
+    @SuppressWarnings("unchecked")
+    public V put(String name, V value) {
+        int id = names.intern(name);
+        if (id >= heads.length) {
+            int oldLength = heads.length;
+            heads = Arrays.copyOf(heads, Math.max(id + 1, oldLength * 2));
+            Arrays.fill(heads, oldLength, heads.length, NONE);
+        }
+
+        int head = heads[id];
+        if (head != NONE && recordLevel[head] == level) {
+            V previous = (V) recordValue[head];
+            recordValue[head] = value;
+            return previous;
+        }
+
+        if (recordCount == recordName.length) {
+            int capacity = recordCount * 2;
+            recordName = Arrays.copyOf(recordName, capacity);
+            recordLevel = Arrays.copyOf(recordLevel, capacity);
+            recordShadowed = Arrays.copyOf(recordShadowed, capacity);
+            recordValue = Arrays.copyOf(recordValue, capacity);
+        }
+        int record = recordCount++;
+        recordName[record] = id;
+        recordLevel[record] = level;
+        recordShadowed[record] = head;
+        recordValue[record] = value;
+        heads[id] = record;
+        return null;
+    }
+
+    // ==================== ENUMERATION ====================
+
+    // Values bound in one open scope, in declaration order
+    @SuppressWarnings("unchecked")
+    public List<V> valuesAtLevel(int scopeLevel) {
+        List<V> values = new ArrayList<>();
+        if (scopeLevel < 0 || scopeLevel > level) {
+            return values;
+        }
+        int end = scopeLevel == level ? recordCount : scopeStarts[scopeLevel + 1];
+        for (int r = scopeStarts[scopeLevel]; r < end; r++) {
+            values.add((V) recordValue[r]);
+        }
+        return values;
+    }
+
+    // All visible and shadowed values, innermost scope first
+    public List<V> values() {
+        List<V> values = new ArrayList<>(recordCount);
+        for (int l = level; l >= 0; l--) {
+            values.addAll(valuesAtLevel(l));
+        }
+        return values;
+    }
+
+    public int size() {
+        return recordCount;
+    }
+}
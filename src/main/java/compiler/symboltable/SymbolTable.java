@@ -1,5 +1,10 @@
 package compiler.symboltable;
 
+import compiler.diagnostics.Diagnostic;
+import compiler.diagnostics.DiagnosticSink;
+import compiler.diagnostics.Severity;
+import compiler.diagnostics.StreamingDiagnosticSink;
+
 import java.util.*;
 
 
@@ -53,100 +58,65 @@ public class SymbolTable {
     }
 
 
-    private static class Scope {
-        private final Map<String, Symbol> symbols;
-        private final int level;
-
-        public Scope(int level) {
-            this.symbols = new HashMap<>();
-            this.level = level;
-        }
-
-        public void insert(String name, Symbol symbol) {
-            symbols.put(name, symbol);
-        }
-
-        public Symbol lookup(String name) {
-            return symbols.get(name);
-        }
-
-        public boolean contains(String name) {
-            return symbols.containsKey(name);
-        }
+    // Bindings of all open scopes; lookup is O(1) regardless of depth
+    private final ScopedSymbolMap<Symbol> scopes;
 
-        public Map<String, Symbol> getSymbols() {
-            return symbols;
-        }
+    // Scope changes, inserts and updates are INFO; misuse is reported as warnings and errors
+    private final DiagnosticSink sink;
+    private final boolean tracing;
 
-        public int getLevel() {
-            return level;
-        }
+    // Prints every operation to System.out
+    public SymbolTable() {
+        this(StreamingDiagnosticSink.console());
     }
 
-    // Stack of scopes (most recent scope at the top)
-    private final Deque<Scope> scopeStack;
-    private int currentLevel;
-
-    public SymbolTable() {
-        scopeStack = new ArrayDeque<>();
-        currentLevel = 0;
-        // Create global scope
-        scopeStack.push(new Scope(currentLevel));
+    public SymbolTable(DiagnosticSink sink) {
+        // Global scope is level 0
+        scopes = new ScopedSymbolMap<>();
+        this.sink = sink;
+        this.tracing = sink.isEnabled(Severity.INFO);
     }
 
     public void enterScope() {
-        currentLevel++;
-        scopeStack.push(new Scope(currentLevel));
-        System.out.println("→ Entered scope level " + currentLevel);
+        int level = scopes.enterScope();
+        if (tracing) trace("→ Entered scope level " + level);
     }
 
 
     public void exitScope() {
-        if (scopeStack.size() > 1) {
-            Scope exitedScope = scopeStack.pop();
-            currentLevel--;
-            System.out.println("← Exited scope level " + (currentLevel + 1));
+        if (scopes.getLevel() > 0) {
+            scopes.exitScope();
+            if (tracing) trace("← Exited scope level " + (scopes.getLevel() + 1));
         } else {
-            System.out.println("Warning: Cannot exit global scope!");
+            sink.report(new Diagnostic(Severity.WARNING, "SYM102", 0, 0, "Cannot exit global scope"));
         }
     }
 
 
     public void insert(String name, Symbol symbol) {
-        if (scopeStack.isEmpty()) {
-            throw new IllegalStateException("No scope available!");
-        }
-
-        Scope currentScope = scopeStack.peek();
-
-        if (currentScope.contains(name)) {
-            System.out.println("Warning: Symbol '" + name + "' already declared in current scope");
+        if (scopes.getInCurrentScope(name) != null) {
+            sink.report(new Diagnostic(Severity.WARNING, "SYM001", 0, 0,
+                "Symbol '" + name + "' already declared in current scope"));
         }
 
         // Set the correct scope level
-        symbol.scopeLevel = currentLevel;
-        currentScope.insert(name, symbol);
+        symbol.scopeLevel = scopes.getLevel();
+        scopes.put(name, symbol);
+
+        if (tracing) trace("  + Inserted: " + symbol);
+    }
 
-        System.out.println("  + Inserted: " + symbol);
+    private void trace(String message) {
+        sink.report(new Diagnostic(Severity.INFO, "TRACE", 0, 0, message));
     }
 
 
     public Symbol lookupCurrent(String name) {
-        if (scopeStack.isEmpty()) {
-            return null;
-        }
-        return scopeStack.peek().lookup(name);
+        return scopes.getInCurrentScope(name);
     }
 
     public Symbol lookup(String name) {
-
-        for (Scope scope : scopeStack) {
-            Symbol symbol = scope.lookup(name);
-            if (symbol != null) {
-                return symbol;
-            }
-        }
-        return null; // Symbol not found
+        return scopes.get(name); // null if not found
     }
 
 
@@ -154,10 +124,10 @@ public class SymbolTable {
         Symbol symbol = lookup(name);
         if (symbol != null) {
             symbol.setValue(newValue);
-            System.out.println("  ✓ Updated: " + symbol);
+            if (tracing) trace("  ✓ Updated: " + symbol);
             return;
         }
-        System.out.println("  ✗ Symbol '" + name + "' not found for update");
+        sink.report(new Diagnostic(Severity.ERROR, "SYM002", 0, 0, "Symbol '" + name + "' not found for update"));
     }
 
 
@@ -167,7 +137,7 @@ public class SymbolTable {
 
 
     public int getCurrentLevel() {
-        return currentLevel;
+        return scopes.getLevel();
     }
 
 
@@ -176,31 +146,26 @@ public class SymbolTable {
         System.out.println("║          SYMBOL TABLE CONTENTS                ║");
         System.out.println("╚═══════════════════════════════════════════════╝");
 
-        int level = currentLevel;
-        for (Scope scope : scopeStack) {
-            System.out.println("\n┌─ Scope Level " + scope.getLevel() + " ─────────────────────────");
+        for (int level = scopes.getLevel(); level >= 0; level--) {
+            System.out.println("\n┌─ Scope Level " + level + " ─────────────────────────");
 
-            if (scope.getSymbols().isEmpty()) {
+            List<Symbol> symbols = scopes.valuesAtLevel(level);
+            if (symbols.isEmpty()) {
                 System.out.println("│  (empty)");
             } else {
-                for (Symbol symbol : scope.getSymbols().values()) {
+                for (Symbol symbol : symbols) {
                     System.out.println("│  " + symbol);
                 }
             }
 
             System.out.println("└─────────────────────────────────────────────");
-            level--;
         }
         System.out.println();
     }
 
 
     public List<Symbol> getAllSymbols() {
-        List<Symbol> allSymbols = new ArrayList<>();
-        for (Scope scope : scopeStack) {
-            allSymbols.addAll(scope.getSymbols().values());
-        }
-        return allSymbols;
+        return scopes.values();
     }
 
 //
@@ -213,7 +178,7 @@ public class SymbolTable {
 
 
     public void define(String name, String type, Object value) {
-        Symbol symbol = new Symbol(name, type, value, currentLevel);
+        Symbol symbol = new Symbol(name, type, value, scopes.getLevel());
         insert(name, symbol);
     }
 
@@ -266,20 +231,20 @@ public class SymbolTable {
     public String toJSON() {
         StringBuilder sb = new StringBuilder();
         sb.append("{\n");
-        sb.append("  \"currentLevel\": ").append(currentLevel).append(",\n");
+        sb.append("  \"currentLevel\": ").append(scopes.getLevel()).append(",\n");
         sb.append("  \"scopes\": [\n");
 
         int scopeIndex = 0;
-        for (Scope scope : scopeStack) {
+        for (int level = scopes.getLevel(); level >= 0; level--) {
             if (scopeIndex > 0) {
                 sb.append(",\n");
             }
             sb.append("    {\n");
-            sb.append("      \"level\": ").append(scope.getLevel()).append(",\n");
+            sb.append("      \"level\": ").append(level).append(",\n");
             sb.append("      \"symbols\": [\n");
 
             int symbolIndex = 0;
-            for (Symbol symbol : scope.getSymbols().values()) {
+            for (Symbol symbol : scopes.valuesAtLevel(level)) {
                 if (symbolIndex > 0) {
                     sb.append(",\n");
                 }
@@ -7,8 +7,14 @@ import compiler.ast.core.expressions.IdentifierNode;
 import compiler.ast.core.expressions.NumberLiteralNode;
 import compiler.ast.core.expressions.StringLiteralNode;
 import compiler.ast.flask.*;
+import compiler.ast.jinjaHtml.HTMLElementNode;
 import compiler.ast.jinjaHtml.JinjaForNode;
+import compiler.ast.jinjaHtml.JinjaSetNode;
 import compiler.ast.python.*;
+import compiler.diagnostics.Diagnostic;
+import compiler.diagnostics.DiagnosticSink;
+import compiler.diagnostics.Severity;
+import compiler.diagnostics.StreamingDiagnosticSink;
 
 import java.util.*;
 
@@ -17,11 +23,19 @@ public class SymbolTableBuilder {
     private ClassicalSymbolTable symbolTable;
     private boolean isInDeclarationContext;
 
+    private final DiagnosticSink sink;
+    private final boolean tracing;
+
     // Flask-specific tracking
     private final Set<String> flaskApps = new HashSet<>();
     private final Map<String, RouteInfo> routeEndpoints = new LinkedHashMap<>();
     private final Set<String> flaskImports = new HashSet<>();
 
+    // Frame size of each scope, by the node that opened it (the root for the global scope)
+    private final Map<ASTNode, Integer> frameSizes = new IdentityHashMap<>();
+    private int resolvedReferences;
+    private int unresolvedReferences;
+
 
     public static class RouteInfo {
         public final String functionName;
@@ -42,9 +56,26 @@ public class SymbolTableBuilder {
         }
     }
 
+    // Prints progress, errors and warnings to System.out as it goes
     public SymbolTableBuilder(ClassicalSymbolTable symbolTable) {
+        this(symbolTable, StreamingDiagnosticSink.console());
+    }
+
+    // The table reports its errors and warnings to the same sink
+    public SymbolTableBuilder(ClassicalSymbolTable symbolTable, DiagnosticSink sink) {
         this.symbolTable = symbolTable;
         this.isInDeclarationContext = false;
+        this.sink = sink;
+        this.tracing = sink.isEnabled(Severity.INFO);
+        symbolTable.setDiagnosticSink(sink);
+    }
+
+    // Progress message; only formatted when the sink wants INFO
+    private void trace(String format, Object... args) {
+        if (tracing) {
+            sink.report(new Diagnostic(Severity.INFO, "TRACE", 0, 0,
+                args.length == 0 ? format : String.format(format, args)));
+        }
     }
 
 
@@ -53,71 +84,31 @@ public class SymbolTableBuilder {
             return;
         }
 
-        System.out.println("BUILDING SYMBOL TABLE FROM AST");
+        trace("BUILDING SYMBOL TABLE FROM AST");
 
         // Initialize with Python built-ins
         initializePythonBuiltins();
 
         traverse(root);
+        frameSizes.put(root, symbolTable.getFrameSize());
 
-        System.out.println("SYMBOL TABLE BUILD COMPLETED");
-
-        // Print any errors or warnings
-        symbolTable.printErrors();
-        symbolTable.printWarnings();
+        trace("SYMBOL TABLE BUILD COMPLETED");
     }
-    private void initializePythonBuiltins() {
-        System.out.println("  [INIT] Initializing Python built-in identifiers...\n");
-
-        // Python built-in exceptions
-        String[] builtinExceptions = {
-            "Exception", "ValueError", "TypeError", "KeyError", "IndexError",
-            "AttributeError", "NameError", "RuntimeError", "IOError",
-            "FileNotFoundError", "ZeroDivisionError", "ImportError",
-            "ModuleNotFoundError", "StopIteration", "AssertionError"
-        };
 
-        for (String exceptionName : builtinExceptions) {
-            SymbolTableEntry entry = new SymbolTableEntry(exceptionName, "builtin.exception", 0);
-            entry.setInitialized(true);
-            symbolTable.insert(exceptionName, entry);
-            symbolTable.set_attribute(exceptionName, "builtin", true);
-        }
-
-        // Python built-in functions
-        String[] builtinFunctions = {
-            "print", "len", "range", "int", "float", "str", "list", "dict",
-            "tuple", "set", "bool", "type", "isinstance", "issubclass",
-            "hasattr", "getattr", "setattr", "delattr", "dir", "vars",
-            "open", "input", "sum", "min", "max", "abs", "round",
-            "enumerate", "zip", "map", "filter", "sorted", "reversed",
-            "any", "all", "next", "iter", "chr", "ord", "hex", "oct", "bin"
-        };
-
-        for (String funcName : builtinFunctions) {
-            SymbolTableEntry entry = new SymbolTableEntry(funcName, "builtin.function", 0);
-            entry.setInitialized(true);
-            symbolTable.insert(funcName, entry);
-            symbolTable.set_attribute(funcName, "builtin", true);
-        }
-
-        // Python built-in constants
-        String[] builtinConstants = {
-            "__name__", "__file__", "__doc__", "__package__", "__loader__",
-            "True", "False", "None", "NotImplemented", "Ellipsis"
-        };
+    private void initializePythonBuiltins() {
+        trace("  [INIT] Initializing Python built-in identifiers...\n");
 
-        for (String constantName : builtinConstants) {
-            SymbolTableEntry entry = new SymbolTableEntry(constantName, "builtin.constant", 0);
-            entry.setInitialized(true);
-            symbolTable.insert(constantName, entry);
-            symbolTable.set_attribute(constantName, "builtin", true);
+        // Shared base layer: attaching it inserts nothing
+        BuiltinScope builtins = BuiltinScope.PYTHON;
+        if (symbolTable.getBuiltins() != builtins) {
+            symbolTable.attachBuiltins(builtins);
         }
 
-        System.out.println(String.format(
+        trace(
             "  [INIT] Added %d built-in exceptions, %d built-in functions, %d built-in constants\n",
-            builtinExceptions.length, builtinFunctions.length, builtinConstants.length
-        ));
+            builtins.count("builtin.exception"), builtins.count("builtin.function"),
+            builtins.count("builtin.constant")
+        );
     }
 
     private void traverse(ASTNode node) {
@@ -128,9 +119,25 @@ public class SymbolTableBuilder {
         // Process current node based on its type
         processNode(node);
 
-        // Recursively traverse children
-        for (ASTNode child : node.getChildren()) {
-            traverse(child);
+        // Recursively traverse children (nodes that open a scope or bind a name walk their own)
+        if (!(node instanceof FlaskRouteFunction || node instanceof ForStatementNode || node instanceof AssignmentNode
+                || node instanceof JinjaForNode || node instanceof JinjaSetNode)) {
+            for (ASTNode child : node.getChildren()) {
+                traverse(child);
+            }
+        }
+
+        // Expressions that are not children
+        if (node instanceof ListLiteralNode) {
+            for (ExpressionNode element : ((ListLiteralNode) node).getElements()) {
+                traverse(element);
+            }
+        } else if (node instanceof HTMLElementNode) {
+            for (List<ASTNode> parts : ((HTMLElementNode) node).getAttributeParts().values()) {
+                for (ASTNode part : parts) {
+                    traverse(part);
+                }
+            }
         }
 
         // Post-processing for certain node types
@@ -173,6 +180,9 @@ public class SymbolTableBuilder {
         else if (node instanceof JinjaForNode) {
             processJinjaFor((JinjaForNode) node);
         }
+        else if (node instanceof JinjaSetNode) {
+            processJinjaSet((JinjaSetNode) node);
+        }
         else if (node instanceof ImportStatementNode) {
             processImport((ImportStatementNode) node);
         }
@@ -183,12 +193,21 @@ public class SymbolTableBuilder {
     private void postProcessNode(ASTNode node) {
         // Exit scope for function and class definitions
         if (node instanceof FunctionDefNode || node instanceof ClassDefNode) {
-            symbolTable.exitScope();
+            exitScope(node);
         }
     }
 
+    // Leaves the scope owner opened, remembering how many slots its frame needs
+    private void exitScope(ASTNode owner) {
+        frameSizes.put(owner, symbolTable.getFrameSize());
+        symbolTable.exitScope();
+    }
 
+
+    // The value is walked first, so `x = x + 1` reads the binding x had before
     private void processAssignment(AssignmentNode node) {
+        traverse(node.getValue());
+
         List<ExpressionNode> targets = node.getTargets();
 
         for (ExpressionNode target : targets) {
@@ -207,26 +226,30 @@ public class SymbolTableBuilder {
 
                     boolean success = symbolTable.insert(name, entry);
                     if (success) {
-                        System.out.println(String.format(
+                        trace(
                             "  [DECL] Variable '%s' declared at line %d (type: %s, scope: %d)",
                             name, line, type, symbolTable.getCurrentScopeLevel()
-                        ));
+                        );
                     }
                 } else {
                     // Already declared - this is a usage (assignment)
                     symbolTable.recordUsage(name, line);
                     symbolTable.set_attribute(name, "initialized", true);
 
-                    System.out.println(String.format(
+                    trace(
                         "  [USE]  Variable '%s' assigned at line %d",
                         name, line
-                    ));
+                    );
                 }
             }
         }
 
         // Mark that we're not in declaration context when processing the value
         isInDeclarationContext = false;
+
+        for (ExpressionNode target : targets) {
+            traverse(target);
+        }
     }
     private void processFunctionDef(FunctionDefNode node) {
         String name = node.getFunctionName();
@@ -238,18 +261,18 @@ public class SymbolTableBuilder {
 
         boolean success = symbolTable.insert(name, entry);
         if (success) {
-            System.out.println(String.format(
+            trace(
                 "  [DECL] Function '%s' declared at line %d (params: %d, scope: %d)",
                 name, line, node.getParameters().size(), symbolTable.getCurrentScopeLevel()
-            ));
+            );
         }
 
         // Enter new scope for function body
         symbolTable.enterScope();
-        System.out.println(String.format(
+        trace(
             "  → Entering function '%s' scope (level %d)",
             name, symbolTable.getCurrentScopeLevel()
-        ));
+        );
 
         // Parameters will be processed as children
     }
@@ -264,18 +287,18 @@ public class SymbolTableBuilder {
 
         boolean success = symbolTable.insert(name, entry);
         if (success) {
-            System.out.println(String.format(
+            trace(
                 "  [DECL] Class '%s' declared at line %d (scope: %d)",
                 name, line, symbolTable.getCurrentScopeLevel()
-            ));
+            );
         }
 
         // Enter new scope for class body
         symbolTable.enterScope();
-        System.out.println(String.format(
+        trace(
             "  → Entering class '%s' scope (level %d)",
             name, symbolTable.getCurrentScopeLevel()
-        ));
+        );
     }
 
 
@@ -295,15 +318,18 @@ public class SymbolTableBuilder {
 
         boolean success = symbolTable.insert(name, entry);
         if (success) {
-            System.out.println(String.format(
+            trace(
                 "  [DECL] Parameter '%s' declared at line %d (type: %s, scope: %d)",
                 name, line, type, symbolTable.getCurrentScopeLevel()
-            ));
+            );
         }
     }
 
 
     private void processForStatement(ForStatementNode node) {
+        // The iterable is evaluated before the target is bound
+        traverse(node.getIterable());
+
         ExpressionNode target = node.getTarget();
 
         if (target instanceof IdentifierNode) {
@@ -319,75 +345,93 @@ public class SymbolTableBuilder {
 
                 boolean success = symbolTable.insert(name, entry);
                 if (success) {
-                    System.out.println(String.format(
+                    trace(
                         "  [DECL] Loop variable '%s' declared at line %d (scope: %d)",
                         name, line, symbolTable.getCurrentScopeLevel()
-                    ));
+                    );
                 }
-            } else {
-                // Already declared - record usage
-                symbolTable.recordUsage(name, line);
             }
         }
+        traverse(target);
 
-        // Enter new scope for loop body
-        symbolTable.enterScope();
-        System.out.println(String.format(
-            "  → Entering for-loop scope (level %d)",
-            symbolTable.getCurrentScopeLevel()
-        ));
-
-        // Process loop body
+        // The body runs in the enclosing frame: only def, class and the module get one in Python
         for (ASTNode bodyNode : node.getBody()) {
             traverse(bodyNode);
         }
 
-        // Exit loop scope
-        symbolTable.exitScope();
-        System.out.println(String.format(
-            "  ← Exiting for-loop scope (back to level %d)",
-            symbolTable.getCurrentScopeLevel()
-        ));
+        for (ASTNode elseNode : node.getElseBlock()) {
+            traverse(elseNode);
+        }
     }
 
 
+    // The targets and `loop` live in the loop's own scope, as they do when the template renders
     private void processJinjaFor(JinjaForNode node) {
-        String variableName = node.getTargetName();
         int line = node.getLineNumber();
 
-        // Check if loop variable is already declared
-        if (!symbolTable.containsInCurrentScope(variableName)) {
-            // Declare loop variable
-            SymbolTableEntry entry = new SymbolTableEntry(variableName, "unknown", line);
+        // The iterable is evaluated outside the loop
+        traverse(node.getIterable());
+
+        // Enter new scope for Jinja2 loop body
+        symbolTable.enterScope();
+        trace(
+            "  → Entering Jinja2 for-loop scope (level %d)",
+            symbolTable.getCurrentScopeLevel()
+        );
+
+        List<String> names = new ArrayList<>(node.getTargetNames());
+        names.add("loop");
+        for (String variableName : names) {
+            SymbolTableEntry entry = new SymbolTableEntry(variableName, "loop".equals(variableName) ? "loop" : "unknown", line);
             entry.setInitialized(true);
 
             boolean success = symbolTable.insert(variableName, entry);
             if (success) {
-                System.out.println(String.format(
+                trace(
                     "  [DECL] Jinja2 loop variable '%s' declared at line %d (scope: %d)",
                     variableName, line, symbolTable.getCurrentScopeLevel()
-                ));
+                );
             }
         }
 
-        // Enter new scope for Jinja2 loop body
-        symbolTable.enterScope();
-        System.out.println(String.format(
-            "  → Entering Jinja2 for-loop scope (level %d)",
-            symbolTable.getCurrentScopeLevel()
-        ));
-
         // Process loop body
         for (ASTNode bodyNode : node.getBody()) {
             traverse(bodyNode);
         }
 
         // Exit loop scope
-        symbolTable.exitScope();
-        System.out.println(String.format(
+        exitScope(node);
+        trace(
             "  ← Exiting Jinja2 for-loop scope (back to level %d)",
             symbolTable.getCurrentScopeLevel()
-        ));
+        );
+
+        // {% else %} runs when there was nothing to loop over, outside the loop scope
+        for (ASTNode elseNode : node.getElseBody()) {
+            traverse(elseNode);
+        }
+    }
+
+    // {% set name = value %}: the value is read before name is bound
+    private void processJinjaSet(JinjaSetNode node) {
+        traverse(node.getValue());
+
+        String name = node.getVariableName();
+        int line = node.getLineNumber();
+        if (!symbolTable.containsInCurrentScope(name)) {
+            SymbolTableEntry entry = new SymbolTableEntry(name, inferType(node.getValue()), line);
+            entry.setInitialized(true);
+
+            boolean success = symbolTable.insert(name, entry);
+            if (success) {
+                trace(
+                    "  [DECL] Jinja2 variable '%s' set at line %d (scope: %d)",
+                    name, line, symbolTable.getCurrentScopeLevel()
+                );
+            }
+        } else {
+            symbolTable.recordUsage(name, line);
+        }
     }
 
 
@@ -403,12 +447,26 @@ public class SymbolTableBuilder {
         // Record usage
         boolean success = symbolTable.recordUsage(name, line);
         if (success) {
-            System.out.println(String.format(
-                "  [USE]  Identifier '%s' used at line %d",
-                name, line
-            ));
+            resolve(node);
+            trace(
+                "  [USE]  Identifier '%s' used at line %d (depth %d, slot %d)",
+                name, line, node.getDepth(), node.getSlot()
+            );
+        } else {
+            // If recordUsage returns false, an error was already logged
+            unresolvedReferences++;
+        }
+    }
+
+    // Rewrites the reference to the (depth, slot) of the binding it sees
+    private void resolve(IdentifierNode node) {
+        SymbolTableEntry entry = symbolTable.lookup(node.getName());
+        if (symbolTable.isBuiltin(entry)) {
+            node.resolve(IdentifierNode.BUILTIN, entry.getSlot());
+        } else {
+            node.resolve(symbolTable.getCurrentScopeLevel() - entry.getScopeLevel(), entry.getSlot());
         }
-        // If recordUsage returns false, an error was already logged
+        resolvedReferences++;
     }
 
     private String inferType(ExpressionNode expr) {
@@ -482,10 +540,10 @@ public class SymbolTableBuilder {
 
             boolean success = symbolTable.insert(importedName, entry);
             if (success) {
-                System.out.println(String.format(
+                trace(
                     "  [FLASK] Imported '%s' (%s) at line %d",
                     importedName, type, line
-                ));
+                );
             }
         }
 
@@ -539,10 +597,10 @@ public class SymbolTableBuilder {
             symbolTable.set_attribute(appName, "flask_app", true);
             symbolTable.set_attribute(appName, "module_name", node.getModuleName());
 
-            System.out.println(String.format(
+            trace(
                 "  [FLASK] App '%s' = Flask(%s) declared at line %d",
                 appName, node.getModuleName(), line
-            ));
+            );
         }
     }
 
@@ -569,19 +627,19 @@ public class SymbolTableBuilder {
                 RouteInfo routeInfo = new RouteInfo(functionName, path, methods, line);
                 routeEndpoints.put(path, routeInfo);
 
-                System.out.println(String.format(
+                trace(
                     "  [FLASK] Route '%s' %s -> %s() at line %d",
                     path, methods, functionName, line
-                ));
+                );
             }
         }
 
         // Enter function scope and process parameters
         symbolTable.enterScope();
-        System.out.println(String.format(
+        trace(
             "  → Entering route handler '%s' scope (level %d)",
             functionName, symbolTable.getCurrentScopeLevel()
-        ));
+        );
 
         // Process URL path parameters as function parameters
         for (RouteDecoratorNode routeDecorator : node.getRouteDecorators()) {
@@ -590,17 +648,20 @@ public class SymbolTableBuilder {
                 paramEntry.setInitialized(true);
                 symbolTable.insert(pathParam, paramEntry);
 
-                System.out.println(String.format(
+                trace(
                     "  [FLASK] URL parameter '%s' injected from route path",
                     pathParam
-                ));
+                );
             }
         }
 
         // Process function parameters
         FunctionDefNode funcDef = node.getFunctionDef();
         for (ParameterNode param : funcDef.getParameters()) {
-            traverse(param);
+            // Already declared above when it is bound from the URL
+            if (!symbolTable.containsInCurrentScope(param.getParameterName())) {
+                traverse(param);
+            }
         }
 
         // Process function body
@@ -609,11 +670,11 @@ public class SymbolTableBuilder {
         }
 
         // Exit function scope
-        symbolTable.exitScope();
-        System.out.println(String.format(
+        exitScope(node);
+        trace(
             "  ← Exiting route handler '%s' scope (back to level %d)",
             functionName, symbolTable.getCurrentScopeLevel()
-        ));
+        );
     }
 
 
@@ -624,11 +685,11 @@ public class SymbolTableBuilder {
         // Record usage of Flask app
         symbolTable.recordUsage(appRef, line);
 
-        System.out.println(String.format(
+        trace(
             "  [FLASK] %s.run(debug=%s, port=%d) at line %d%s",
             appRef, node.isDebugEnabled(), node.getPort(), line,
             node.isInMainGuard() ? " (in __main__ guard)" : ""
-        ));
+        );
     }
 
     private void processImport(ImportStatementNode node) {
@@ -642,10 +703,10 @@ public class SymbolTableBuilder {
 
                 boolean success = symbolTable.insert(importedName, entry);
                 if (success) {
-                    System.out.println(String.format(
+                    trace(
                         "  [IMPORT] '%s' from '%s' at line %d",
                         importedName, node.getModuleName(), line
-                    ));
+                    );
                 }
             }
         } else {
@@ -656,16 +717,30 @@ public class SymbolTableBuilder {
 
             boolean success = symbolTable.insert(moduleName, entry);
             if (success) {
-                System.out.println(String.format(
+                trace(
                     "  [IMPORT] Module '%s' at line %d",
                     moduleName, line
-                ));
+                );
             }
         }
     }
 
 
 
+    // Slots a frame for the scope opened by node needs (node = the root for the global scope), or -1
+    public int getFrameSize(ASTNode node) {
+        Integer size = frameSizes.get(node);
+        return size != null ? size : -1;
+    }
+
+    public int getResolvedReferences() {
+        return resolvedReferences;
+    }
+
+    public int getUnresolvedReferences() {
+        return unresolvedReferences;
+    }
+
     public Set<String> getFlaskApps() {
         return new HashSet<>(flaskApps);
     }
@@ -16,6 +16,9 @@ public class SymbolTableEntry {
 
     private int address;
 
+    // Index in its scope's frame, in declaration order (-1 = not inserted yet)
+    private int slot;
+
     private int scopeLevel;
     private boolean isInitialized;
 
@@ -35,6 +38,7 @@ public class SymbolTableEntry {
         this.size = calculateDefaultSize(type);
         this.dimension = 0;
         this.address = -1; // -1 indicates address not yet assigned
+        this.slot = -1;
         this.scopeLevel = 0;
         this.isInitialized = false;
     }
@@ -101,6 +105,14 @@ public class SymbolTableEntry {
         this.address = address;
     }
 
+    public int getSlot() {
+        return slot;
+    }
+
+    public void setSlot(int slot) {
+        this.slot = slot;
+    }
+
     public int getScopeLevel() {
         return scopeLevel;
     }
@@ -237,6 +249,7 @@ public class SymbolTableEntry {
         sb.append(String.format("│ Line of Decl:     %d\n", lineOfDeclaration));
         sb.append(String.format("│ Memory Address:   %d (0x%X)\n", address, address));
         sb.append(String.format("│ Scope Level:      %d\n", scopeLevel));
+        sb.append(String.format("│ Frame Slot:       %d\n", slot));
         sb.append(String.format("│ Initialized:      %s\n", isInitialized ? "Yes" : "No"));
 
         if (!linesOfUsage.isEmpty()) {
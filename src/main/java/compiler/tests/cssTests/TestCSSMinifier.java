@@ -0,0 +1,127 @@
+package compiler.tests.cssTests;
+
+import compiler.ast.css.CSSStylesheetNode;
+import compiler.css.CSSMinifier;
+import compiler.visitors.CSSASTBuilder;
+import grammar.CSSLexer;
+import grammar.CSSParser;
+import org.antlr.v4.runtime.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Minifies every stylesheet in a directory (static/css by default) and checks
+ * that the output parses again without errors and is a fixed point, then checks
+ * that rule sets are not merged across a shorthand reaching into their properties.
+ *
+ * Usage: TestCSSMinifier [css-dir] [out-dir]
+ */
+public class TestCSSMinifier {
+
+    // Source -> expected output; the first three must not merge the repeated selector
+    private static final String[][] MERGE_CASES = {
+        { ".a{color:red}.b{font:20px/1 serif}.a{line-height:3}", ".a{color:red}.b{font:20px/1 serif}.a{line-height:3}" },
+        { ".c{color:red}.d{gap:0}.c{row-gap:4px}", ".c{color:red}.d{gap:0}.c{row-gap:4px}" },
+        { ".e{color:red}.f{inset:0}.e{top:1px}", ".e{color:red}.f{inset:0}.e{top:1px}" },
+        { ".a{color:red}.b{margin:0}.a{line-height:3}", ".a{color:red;line-height:3}.b{margin:0}" }
+    };
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Paths.get(args.length > 0 ? args[0] : "static/css");
+        Path outDir = args.length > 1 ? Paths.get(args[1]) : null;
+        if (outDir != null) {
+            Files.createDirectories(outDir);
+        }
+
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> stream = Files.list(dir)) {
+            stream.filter(p -> p.toString().endsWith(".css")).sorted().forEach(files::add);
+        }
+
+        long totalIn = 0;
+        long totalOut = 0;
+        int failures = 0;
+        System.out.println("CSS MINIFIER: " + dir);
+        System.out.println("─────────────────────────────────────────");
+        for (Path file : files) {
+            byte[] source = Files.readAllBytes(file);
+            int[] errors = new int[1];
+            CSSStylesheetNode stylesheet = parse(new String(source, StandardCharsets.UTF_8), errors);
+            if (errors[0] > 0) {
+                System.out.println(String.format("  %-28s skipped (%d syntax errors)", file.getFileName(), errors[0]));
+                continue;
+            }
+
+            CSSMinifier minifier = new CSSMinifier();
+            CSSMinifier.Result result;
+            byte[] minified;
+            if (outDir != null) {
+                try (OutputStream out = Files.newOutputStream(outDir.resolve(file.getFileName()))) {
+                    result = minifier.minify(stylesheet, out);
+                }
+                minified = Files.readAllBytes(outDir.resolve(file.getFileName()));
+            } else {
+                minified = minifier.minify(stylesheet);
+                result = null;
+            }
+
+            // The output must parse cleanly and minify to itself
+            int[] reparseErrors = new int[1];
+            CSSStylesheetNode reparsed = parse(new String(minified, StandardCharsets.UTF_8), reparseErrors);
+            boolean stable = reparseErrors[0] == 0
+                    && new String(new CSSMinifier().minify(reparsed), StandardCharsets.UTF_8)
+                        .equals(new String(minified, StandardCharsets.UTF_8));
+            if (!stable) failures++;
+
+            totalIn += source.length;
+            totalOut += minified.length;
+            System.out.println(String.format("  %-28s %7d → %6d bytes (-%.1f%%) %s",
+                    file.getFileName(), source.length, minified.length,
+                    100.0 * (source.length - minified.length) / source.length,
+                    stable ? "✓" : "✗ reparse errors: " + reparseErrors[0]));
+            if (result != null) {
+                System.out.println("      " + result);
+            }
+        }
+
+        System.out.println("─────────────────────────────────────────");
+        if (totalIn > 0) {
+            System.out.println(String.format("  total %d → %d bytes (-%.1f%%), %d unstable",
+                    totalIn, totalOut, 100.0 * (totalIn - totalOut) / totalIn, failures));
+        }
+
+        System.out.println("─────────────────────────────────────────");
+        for (String[] mergeCase : MERGE_CASES) {
+            String minified = new String(new CSSMinifier().minify(parse(mergeCase[0], new int[1])), StandardCharsets.UTF_8);
+            if (!minified.equals(mergeCase[1])) {
+                throw new IllegalStateException("Merge changed the cascade: " + mergeCase[0] + " -> " + minified);
+            }
+            System.out.println("  ✓ " + mergeCase[0] + " → " + minified);
+        }
+    }
+
+    private static CSSStylesheetNode parse(String css, int[] errors) {
+        BaseErrorListener counter = new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                                    int charPositionInLine, String msg, RecognitionException e) {
+                errors[0]++;
+            }
+        };
+        CSSLexer lexer = new CSSLexer(CharStreams.fromString(css));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(counter);
+        CSSParser parser = new CSSParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        parser.addErrorListener(counter);
+        return (CSSStylesheetNode) new CSSASTBuilder().visit(parser.stylesheet());
+    }
+}
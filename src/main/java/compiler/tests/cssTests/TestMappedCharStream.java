@@ -0,0 +1,92 @@
+package compiler.tests.cssTests;
+
+import compiler.parsing.ChannelFilterTokenSource;
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.MappedCharStream;
+import compiler.project.FileCompilationResult;
+import grammar.CSSLexer;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.UnbufferedTokenStream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a generated CSS bundle (100000 rules = 13.8 MB by default) and runs a
+ * token pass plus a full compile over it, either buffered (Files.readString +
+ * CharStreams.fromString + CommonTokenStream) or streamed (MappedCharStream +
+ * UnbufferedTokenStream).
+ *
+ * Usage: TestMappedCharStream buffered|stream [rules] [--tokens-only]
+ *
+ * Compare the smallest heap each mode survives, e.g. with 100000 rules the
+ * streamed token pass runs in -Xmx16m while the buffered one needs -Xmx256m.
+ */
+public class TestMappedCharStream {
+
+    public static void main(String[] args) throws IOException {
+        boolean stream = args.length > 0 && args[0].equals("stream");
+        int rules = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        boolean compile = args.length <= 2 || !args[2].equals("--tokens-only");
+
+        Path bundle = Files.createTempFile("bundle", ".css");
+        try {
+            writeBundle(bundle, rules);
+            System.out.println(String.format("Generated %s (%,d bytes, %,d rules), %s mode, -Xmx%d MB",
+                bundle, Files.size(bundle), rules, stream ? "stream" : "buffered",
+                Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+
+            long start = System.nanoTime();
+            int tokens = stream ? streamedTokenPass(bundle) : bufferedTokenPass(bundle);
+            System.out.println(String.format("✓ Token pass: %,d tokens in %d ms",
+                tokens, (System.nanoTime() - start) / 1_000_000));
+
+            if (compile) {
+                LanguageFrontEnd frontEnd = new LanguageFrontEnd();
+                frontEnd.setStreamingInput(stream);
+                FileCompilationResult result = frontEnd.compile(bundle);
+                if (!result.isSuccess()) {
+                    throw new IllegalStateException("Compile failed: " + result);
+                }
+                if (result.tokenCount != tokens) {
+                    throw new IllegalStateException("Token counts differ: " + result.tokenCount + " vs " + tokens);
+                }
+                System.out.println("✓ Compile: " + result);
+            }
+        } finally {
+            Files.deleteIfExists(bundle);
+        }
+    }
+
+    private static int bufferedTokenPass(Path file) throws IOException {
+        CommonTokenStream tokens = new CommonTokenStream(new CSSLexer(CharStreams.fromString(Files.readString(file))));
+        tokens.fill();
+        return tokens.size();
+    }
+
+    // Holds a handful of tokens and four decoded 1K windows at any time
+    private static int streamedTokenPass(Path file) throws IOException {
+        ChannelFilterTokenSource source = new ChannelFilterTokenSource(new CSSLexer(MappedCharStream.open(file)));
+        UnbufferedTokenStream<Token> tokens = new UnbufferedTokenStream<>(source);
+        while (tokens.LA(1) != Token.EOF) {
+            tokens.consume();
+        }
+        return source.getTokensRead();
+    }
+
+    private static void writeBundle(Path file, int rules) throws IOException {
+        try (BufferedWriter out = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < rules; i++) {
+                out.write(".component-" + i + " .title, #item-" + i + " {\n");
+                out.write("    color: #" + String.format("%06x", (i * 2654435761L) & 0xFFFFFF) + ";\n");
+                out.write("    margin: " + (i % 16) + "px 0 " + (i % 7) + "em;\n");
+                out.write("    font-family: \"Helvetica Neue\", Arial, sans-serif;\n");
+                out.write("}\n");
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package compiler.tests.cssTests;
+
+import compiler.parsing.MappedCharStream;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.misc.Interval;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Checks that MappedCharStream decodes malformed UTF-8 to the same code points
+ * as CharStreams.fromStream: the named cases, every sequence of up to four
+ * bytes drawn from the lead/continuation boundaries, and a random buffer
+ * spanning several decode blocks.
+ */
+public class TestMappedCharStreamDecoding {
+
+    private static final int[][] CASES = {
+        { 0xE2, 0x82, 0x41 },       // truncated 3-byte sequence, then 'A'
+        { 0xF0, 0x9F, 0x98, 0x42 }, // truncated 4-byte sequence, then 'B'
+        { 0xED, 0xA0, 0x80 },       // encoded surrogate
+        { 0xE0, 0x80, 0x80 },       // overlong
+        { 0xF4, 0x90, 0x80, 0x80 }, // above U+10FFFF
+        { 0x41, 0xF0, 0x9F, 0x98 }, // truncated at the end
+        { 0xC0, 0xAF, 0xFF, 0x80 }  // bytes that never start a sequence
+    };
+
+    private static final int[] BOUNDARY_BYTES = {
+        0x41, 0x80, 0x8F, 0x90, 0x9F, 0xA0, 0xBF, 0xC0, 0xC1, 0xC2, 0xDF,
+        0xE0, 0xE2, 0xED, 0xEF, 0xF0, 0xF4, 0xF5, 0xFF
+    };
+
+    public static void main(String[] args) throws IOException {
+        System.out.println("MAPPED CHAR STREAM: malformed UTF-8");
+        System.out.println("─────────────────────────────────────────");
+        for (int[] unsigned : CASES) {
+            byte[] bytes = new byte[unsigned.length];
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = (byte) unsigned[i];
+            }
+            int[] codePoints = compare(bytes);
+            System.out.println(String.format("  ✓ %-14s -> %d code points %s",
+                hex(bytes), codePoints.length, codePointsHex(codePoints)));
+        }
+
+        int sequences = 0;
+        for (int length = 1; length <= 4; length++) {
+            int[] digits = new int[length];
+            byte[] bytes = new byte[length];
+            while (true) {
+                for (int i = 0; i < length; i++) {
+                    bytes[i] = (byte) BOUNDARY_BYTES[digits[i]];
+                }
+                compare(bytes);
+                sequences++;
+                int i = length - 1;
+                while (i >= 0 && ++digits[i] == BOUNDARY_BYTES.length) {
+                    digits[i--] = 0;
+                }
+                if (i < 0) {
+                    break;
+                }
+            }
+        }
+        System.out.println(String.format("  ✓ %,d boundary sequences of 1-4 bytes", sequences));
+
+        // Mostly ASCII with malformed and multi-byte runs, across block boundaries
+        Random random = new Random(42);
+        byte[] bytes = new byte[200_000];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (random.nextInt(4) == 0 ? BOUNDARY_BYTES[random.nextInt(BOUNDARY_BYTES.length)] : 'a');
+        }
+        int[] codePoints = compare(bytes);
+        System.out.println(String.format("  ✓ random %,d bytes -> %,d code points", bytes.length, codePoints.length));
+    }
+
+    // The code points of both streams; throws if they differ in count, value or getText()
+    private static int[] compare(byte[] bytes) throws IOException {
+        CharStream heap = CharStreams.fromStream(new ByteArrayInputStream(bytes));
+        MappedCharStream mapped = new MappedCharStream(ByteBuffer.wrap(bytes), "<bytes>");
+        int[] expected = codePoints(heap);
+        int[] actual = codePoints(mapped);
+        if (!Arrays.equals(expected, actual)) {
+            throw new IllegalStateException(String.format("%s: fromStream %s, mapped %s",
+                hex(bytes), codePointsHex(expected), codePointsHex(actual)));
+        }
+        Interval all = Interval.of(0, heap.size() - 1);
+        if (!heap.getText(all).equals(mapped.getText(all))) {
+            throw new IllegalStateException(hex(bytes) + ": getText() differs");
+        }
+        return actual;
+    }
+
+    private static int[] codePoints(CharStream stream) {
+        int[] codePoints = new int[stream.size()];
+        for (int i = 0; i < codePoints.length; i++) {
+            stream.seek(i);
+            codePoints[i] = stream.LA(1);
+        }
+        return codePoints;
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < Math.min(bytes.length, 8); i++) {
+            if (sb.length() > 0) sb.append(' ');
+            sb.append(String.format("%02X", bytes[i] & 0xFF));
+        }
+        return bytes.length > 8 ? sb + " ..." : sb.toString();
+    }
+
+    private static String codePointsHex(int[] codePoints) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < Math.min(codePoints.length, 8); i++) {
+            if (i > 0) sb.append(' ');
+            sb.append(String.format("U+%04X", codePoints[i]));
+        }
+        return sb.append(codePoints.length > 8 ? " ...]" : "]").toString();
+    }
+}
@@ -0,0 +1,108 @@
+package compiler.tests.cssTests;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.css.CSSStylesheetNode;
+import compiler.ast.jinjaHtml.HTMLElementNode;
+import compiler.css.SelectorMatcher;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+import compiler.project.ProjectCompilationResult;
+import compiler.project.ProjectCompiler;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Matches every template of a Flask project against the stylesheets it links
+ * with <link rel="stylesheet">, prints the rules matched per element and
+ * checks the indexed matcher against the linear scan.
+ *
+ * Usage: TestSelectorMatcher [project-root]
+ */
+public class TestSelectorMatcher {
+
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args.length > 0 ? args[0] : ".");
+        ProjectCompilationResult project = new ProjectCompiler(root).compile();
+
+        Map<String, SelectorMatcher> matchers = new LinkedHashMap<>();
+        List<FileCompilationResult> templates = new ArrayList<>();
+        for (FileCompilationResult file : project.getFiles()) {
+            if (!file.isSuccess()) continue;
+            if (file.language == SourceLanguage.CSS) {
+                matchers.put(Paths.get(file.fileName).getFileName().toString(),
+                        new SelectorMatcher((CSSStylesheetNode) file.ast));
+            } else if (file.language == SourceLanguage.JINJA2) {
+                templates.add(file);
+            }
+        }
+
+        int mismatches = 0;
+        for (FileCompilationResult template : templates) {
+            System.out.println("\n" + Paths.get(template.fileName).getFileName());
+            System.out.println("─────────────────────────────────────────");
+            for (String stylesheet : linkedStylesheets(template.ast)) {
+                SelectorMatcher matcher = matchers.get(stylesheet);
+                if (matcher == null) {
+                    System.out.println("  (" + stylesheet + " not found)");
+                    continue;
+                }
+                SelectorMatcher.Result result = matcher.matchAll(template.ast);
+                SelectorMatcher.Result linear = matcher.matchAllLinear(template.ast);
+                boolean same = sameMatches(result, linear);
+                if (!same) mismatches++;
+
+                System.out.println("  " + stylesheet + " (" + matcher.getSelectorCount() + " selectors): " + result);
+                System.out.println("  linear scan: " + linear.candidates + " selector tests, "
+                        + (same ? "same matches ✓" : "DIFFERENT MATCHES ✗"));
+                for (Map.Entry<HTMLElementNode, List<SelectorMatcher.MatchedRule>> entry : result.matches.entrySet()) {
+                    HTMLElementNode element = entry.getKey();
+                    String cls = element.getAttributes().get("class");
+                    System.out.println(String.format("    <%s%s> line %d → %s", element.getTagName(),
+                            cls != null ? " class=" + cls : "", element.getLineNumber(), entry.getValue()));
+                }
+            }
+        }
+        System.out.println("\n" + (mismatches == 0 ? "All templates match the linear scan." : mismatches + " mismatches."));
+    }
+
+    private static List<String> linkedStylesheets(ASTNode node) {
+        List<String> names = new ArrayList<>();
+        collectLinks(node, names);
+        return names;
+    }
+
+    private static void collectLinks(ASTNode node, List<String> names) {
+        if (node instanceof HTMLElementNode element && element.getTagName().equalsIgnoreCase("link")) {
+            String href = element.getAttributes().get("href");
+            if (href != null) {
+                href = href.replace("\"", "").replace("'", "");
+                if (href.endsWith(".css")) {
+                    names.add(href.substring(href.lastIndexOf('/') + 1));
+                }
+            }
+        }
+        for (ASTNode child : node.getChildren()) {
+            collectLinks(child, names);
+        }
+    }
+
+    private static boolean sameMatches(SelectorMatcher.Result a, SelectorMatcher.Result b) {
+        if (!a.matches.keySet().equals(b.matches.keySet())) {
+            return false;
+        }
+        for (Map.Entry<HTMLElementNode, List<SelectorMatcher.MatchedRule>> entry : a.matches.entrySet()) {
+            List<SelectorMatcher.MatchedRule> other = b.matches.get(entry.getKey());
+            if (other.size() != entry.getValue().size()) return false;
+            for (int i = 0; i < other.size(); i++) {
+                if (other.get(i).selector != entry.getValue().get(i).selector) return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package compiler.tests.cssTests;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.css.CSSStylesheetNode;
+import compiler.css.CSSMinifier;
+import compiler.css.TemplateSelectorUsage;
+import compiler.css.UnusedCSSEliminator;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+import compiler.project.ProjectCompilationResult;
+import compiler.project.ProjectCompiler;
+import compiler.symboltable.css.CSSSymbolTableEntry;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiles a Flask project (the working directory by default), collects the
+ * classes, ids and tags its templates use and prunes every stylesheet under
+ * static/css against them.
+ *
+ * Usage: TestUnusedCSS [project-root] [out-dir]
+ */
+public class TestUnusedCSS {
+
+    public static void main(String[] args) throws IOException {
+        Path root = Paths.get(args.length > 0 ? args[0] : ".");
+        Path outDir = args.length > 1 ? Paths.get(args[1]) : null;
+        if (outDir != null) {
+            Files.createDirectories(outDir);
+        }
+
+        ProjectCompilationResult project = new ProjectCompiler(root).compile();
+        List<ASTNode> templates = new ArrayList<>();
+        List<FileCompilationResult> stylesheets = new ArrayList<>();
+        for (FileCompilationResult file : project.getFiles()) {
+            if (!file.isSuccess()) {
+                System.out.println("  skipped " + file.fileName + ": " + file);
+            } else if (file.language == SourceLanguage.JINJA2) {
+                templates.add(file.ast);
+            } else if (file.language == SourceLanguage.CSS) {
+                stylesheets.add(file);
+            }
+        }
+
+        TemplateSelectorUsage usage = TemplateSelectorUsage.collect(templates);
+        System.out.println("TEMPLATE USAGE (" + templates.size() + " templates): " + usage);
+        System.out.println("─────────────────────────────────────────");
+        System.out.println("  tags:    " + usage.getTags());
+        System.out.println("  classes: " + usage.getClasses());
+        System.out.println("  ids:     " + usage.getIds());
+        if (!usage.getPatterns().isEmpty()) {
+            System.out.println("  dynamic: " + usage.getPatterns());
+        }
+
+        long totalBefore = 0;
+        long totalAfter = 0;
+        UnusedCSSEliminator eliminator = new UnusedCSSEliminator(usage);
+        for (FileCompilationResult file : stylesheets) {
+            CSSStylesheetNode stylesheet = (CSSStylesheetNode) file.ast;
+            UnusedCSSEliminator.Result result = eliminator.prune(stylesheet);
+            totalBefore += result.bytesBefore;
+            totalAfter += result.bytesAfter;
+
+            System.out.println("\n" + Paths.get(file.fileName).getFileName() + ": " + result);
+            for (String selector : result.removedSelectors) {
+                System.out.println("  - " + selector);
+            }
+            for (CSSSymbolTableEntry entry : result.unusedSymbols) {
+                System.out.println(String.format("  unused %s '%s' (line %d)",
+                        entry.getType(), entry.getName(), entry.getLineNumber()));
+            }
+
+            if (outDir != null) {
+                try (OutputStream out = Files.newOutputStream(outDir.resolve(Paths.get(file.fileName).getFileName()))) {
+                    new CSSMinifier().minify(stylesheet, out);
+                }
+            }
+        }
+
+        System.out.println("─────────────────────────────────────────");
+        System.out.println(String.format("  total %d → %d bytes minified (%d saved by pruning)",
+                totalBefore, totalAfter, totalBefore - totalAfter));
+    }
+}
@@ -0,0 +1,122 @@
+package compiler.tests.jinja2HtmlTests;
+
+import compiler.ast.core.ASTNode;
+import compiler.parsing.Jinja2IncrementalParser;
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+import compiler.utils.ASTJsonWriter;
+import compiler.utils.ASTPrinter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Applies a sequence of edits to a template through Jinja2IncrementalParser
+ * and after each one checks that the incremental AST prints (ASTPrinter) and
+ * serializes (ASTJsonWriter) exactly like a fresh full parse of the edited
+ * source. The edits go inside text, inside {{ }}, across tag boundaries, add
+ * and remove blocks, leave an element unclosed (the window cannot re-align)
+ * and pass through a syntax error, so both the reuse path and the fallback to
+ * a full parse run on trees whose nodes earlier edits shifted in place.
+ */
+public class TestIncrementalParser {
+
+    private static final String TEMPLATE =
+        "<!DOCTYPE html>\n"
+            + "<h1>Welcome to {{ store_name }}</h1>\n"
+            + "<p>Hello, {{ user.name }}!</p>\n"
+            + "<ul>\n"
+            + "{% for product in products %}\n"
+            + "  <li class=\"{{ product.kind }}\">{{ product.name | upper }}</li>\n"
+            + "{% endfor %}\n"
+            + "</ul>\n"
+            + "<div id=\"footer\">Items: {{ products | length }}</div>\n"
+            + "<p>Thanks</p>\n";
+
+    // Description, text to find (first occurrence), replacement, whether the edit may reuse items
+    private static final Object[][] EDITS = {
+        { "inside text", "Hello", "Good morning", true },
+        { "inside {{ }}", "user.name", "user.full_name", true },
+        { "filter inside {{ }}", "product.name | upper", "product.name | lower", true },
+        { "line break inside text", "Thanks", "Thanks\nfor\nvisiting", true },
+        { "across a tag boundary", "Welcome to {{ store_name }}</h1>\n<p>", "Shop</h1>\n<h2>{{ store_name }}</h2>\n<p>", true },
+        { "add a block", "<p>Thanks", "{% if user %}<b>{{ user.name }}</b>{% else %}<b>guest</b>{% endif %}\n<p>Thanks", true },
+        { "remove a block", "{% if user %}<b>{{ user.name }}</b>{% else %}<b>guest</b>{% endif %}", "<b>hi</b>", true },
+        { "block end moves", "{% endfor %}\n</ul>", "</ul>\n{% endfor %}", false },
+        { "block end moves back", "</ul>\n{% endfor %}", "{% endfor %}\n</ul>", false },
+        { "unclose an element", "{{ products | length }}</div>", "{{ products | length }}", false },
+        { "close it again", "Items: {{ products | length }}", "Items: {{ products | length }}</div>", false },
+        { "syntax error", "{{ user.full_name }}", "{{ user. }}", false },
+        { "fix the error", "{{ user. }}", "{{ user.full_name }}", false },
+        { "after recovery", "Good morning", "Hi", true }
+    };
+
+    public static void main(String[] args) {
+        Jinja2IncrementalParser parser = new Jinja2IncrementalParser();
+        Jinja2IncrementalParser.ParseResult result = parser.parse(TEMPLATE);
+        check("initial parse", result, null);
+
+        System.out.println("INCREMENTAL JINJA2 PARSE");
+        System.out.println("─────────────────────────────────────────");
+        int incremental = 0;
+        for (Object[] edit : EDITS) {
+            String description = (String) edit[0];
+            String find = (String) edit[1];
+            int offset = result.source.indexOf(find);
+            if (offset < 0) {
+                throw new IllegalStateException(description + ": '" + find + "' not in the template");
+            }
+            result = parser.reparse(result, offset, find.length(), (String) edit[2]);
+            check(description, result, (Boolean) edit[3]);
+            if (!result.fullReparse) incremental++;
+        }
+        System.out.println("─────────────────────────────────────────");
+        System.out.println(String.format("✓ %d edits, %d re-parsed incrementally, every AST equal to a full parse",
+            EDITS.length, incremental));
+    }
+
+    private static void check(String description, Jinja2IncrementalParser.ParseResult result, Boolean mayReuse) {
+        FileCompilationResult full = new LanguageFrontEnd().compile("edited.html", result.source, SourceLanguage.JINJA2);
+        if (result.hasErrors() != !full.isSuccess()) {
+            throw new IllegalStateException(description + ": incremental errors " + result.syntaxErrors
+                + ", full parse errors " + full.syntaxErrors);
+        }
+        if (!result.hasErrors()) {
+            String expected = printed(full.ast);
+            String actual = printed(result.ast);
+            if (!expected.equals(actual)) {
+                System.out.println(expected);
+                System.out.println(actual);
+                throw new IllegalStateException(description + ": incremental AST prints differently");
+            }
+            if (!ASTJsonWriter.toJSON(full.ast).equals(ASTJsonWriter.toJSON(result.ast))) {
+                throw new IllegalStateException(description + ": incremental AST serializes differently");
+            }
+        }
+        // An edit confined to one or two items must not fall back to parsing everything
+        if (Boolean.TRUE.equals(mayReuse) && result.fullReparse) {
+            throw new IllegalStateException(description + ": expected an incremental re-parse");
+        }
+        if (mayReuse != null) {
+            System.out.println(String.format("  ✓ %-24s %s", description, result.hasErrors()
+                ? "syntax errors in both parses"
+                : result.fullReparse
+                    ? "full re-parse, same AST"
+                    : String.format("%d items re-parsed, %d reused, same AST", result.reparsedItems, result.reusedItems)));
+        }
+    }
+
+    private static String printed(ASTNode tree) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        try {
+            ASTPrinter.print(tree);
+        } finally {
+            System.setOut(out);
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,112 @@
+package compiler.tests.jinja2HtmlTests;
+
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+import compiler.render.CompiledTemplate;
+import compiler.render.TemplateCompiler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders test1_display_products.html with sample data through the compiled
+ * renderer, then measures renders per second to a discarding stream.
+ */
+public class TestJinja2Renderer {
+
+    public static void main(String[] args) throws IOException {
+        String resourcePath = "examples/test1_display_products.html";
+        InputStream is = TestJinja2Renderer.class.getClassLoader().getResourceAsStream(resourcePath);
+        if (is == null) {
+            throw new IllegalStateException("Resource not found on classpath: " + resourcePath);
+        }
+        String source = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+
+        FileCompilationResult parsed = new LanguageFrontEnd().compile(resourcePath, source, SourceLanguage.JINJA2);
+        if (!parsed.isSuccess()) {
+            throw new IllegalStateException("Template did not parse: " + parsed.syntaxErrors);
+        }
+
+        CompiledTemplate template = TemplateCompiler.compile(parsed.ast);
+        System.out.println("✓ Compiled: " + template);
+
+        Map<String, Object> context = sampleContext(12);
+        ByteArrayOutputStream firstRender = new ByteArrayOutputStream();
+        template.render(context, firstRender);
+        System.out.println(firstRender.toString(StandardCharsets.UTF_8));
+
+        if (!firstRender.toString(StandardCharsets.UTF_8).equals(template.renderToString(context))) {
+            throw new IllegalStateException("Stream and Writer output differ");
+        }
+
+        // A line break between inline elements is still a space once rendered
+        String inline = "<p><b>{{ first }}</b>\n<i>{{ second }}</i></p>";
+        String rendered = TemplateCompiler.compile(new LanguageFrontEnd().compile("inline.html", inline, SourceLanguage.JINJA2).ast)
+            .renderToString(Map.of("first", "A", "second", "B"));
+        if (!rendered.equals("<p><b>A</b> <i>B</i></p>")) {
+            throw new IllegalStateException("Whitespace between inline elements was lost: " + rendered);
+        }
+        System.out.println("✓ " + rendered);
+
+        // A filter binds tighter than any operator, in statements as in {{ }}
+        String filtered = "{% set name = title | lower %}{% if items | length > 0 %}{{ name }}: {{ 1 + price | round }}{% endif %}";
+        rendered = TemplateCompiler.compile(new LanguageFrontEnd().compile("filters.html", filtered, SourceLanguage.JINJA2).ast)
+            .renderToString(Map.of("title", "Cart", "items", List.of(1, 2), "price", 2.6));
+        if (!rendered.equals("cart: 4.0")) {
+            throw new IllegalStateException("Filters applied to the wrong operand: " + rendered);
+        }
+        System.out.println("✓ " + rendered);
+
+        OutputStream discard = OutputStream.nullOutputStream();
+        for (int i = 0; i < 20_000; i++) {
+            template.render(context, discard);
+        }
+        int renders = 100_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < renders; i++) {
+            template.render(context, discard);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println(String.format("✓ %d renders in %.2f s (%.0f renders/s, %d bytes each)",
+            renders, seconds, renders / seconds, firstRender.size()));
+    }
+
+    static Map<String, Object> sampleContext(int productCount) {
+        String[] categories = { "Electronics", "Books", "Garden & Home" };
+        List<Map<String, Object>> products = new ArrayList<>();
+        for (int i = 0; i < productCount; i++) {
+            Map<String, Object> product = new HashMap<>();
+            product.put("name", "Product <" + (i + 1) + ">");
+            product.put("category", categories[i % categories.length]);
+            product.put("price", Math.round((9.99 + i * 5) * 100) / 100.0);
+            product.put("description", "Description of product " + (i + 1) + " with \"quotes\" & ampersands");
+            product.put("stock", (long) (i * 7 % 40));
+            product.put("rating", 3.5 + (i % 3) * 0.5);
+            product.put("reviews", (long) (i * 13));
+            products.add(product);
+        }
+
+        Map<String, Object> user = new HashMap<>();
+        user.put("is_logged_in", true);
+        user.put("name", "Sam");
+        user.put("cart_items", 3L);
+
+        Map<String, Object> context = new LinkedHashMap<>();
+        context.put("page_title", "All Products");
+        context.put("store_name", "Tech & Garden Store");
+        context.put("user", user);
+        context.put("products", products);
+        context.put("product_count", (long) products.size());
+        context.put("category_count", (long) categories.length);
+        return context;
+    }
+}
@@ -0,0 +1,219 @@
+package compiler.tests.jinja2HtmlTests;
+
+import compiler.lsp.LanguageServer;
+import compiler.utils.ASTJsonWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drives LanguageServer in-process over pipes: opens app.py and a large
+ * template (a project template whose body is repeated to the requested
+ * number of lines), types a burst of characters into the template while
+ * asking for symbols and definitions, and prints request latencies, how many
+ * diagnostics publications the burst caused and how long after the last
+ * keystroke they arrived.
+ *
+ * Usage: TestLanguageServer [project-root] [template-lines]
+ */
+public class TestLanguageServer {
+
+    private static final int KEYSTROKES = 40;
+    private static final long KEYSTROKE_INTERVAL_MILLIS = 15;
+
+    private final OutputStream toServer;
+    private final InputStream fromServer;
+    private final BlockingQueue<String> responses = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> notifications = new LinkedBlockingQueue<>();
+    private int nextId = 1;
+
+    private TestLanguageServer(OutputStream toServer, InputStream fromServer) {
+        this.toServer = toServer;
+        this.fromServer = fromServer;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path root = Paths.get(args.length > 0 ? args[0] : ".");
+        int targetLines = args.length > 1 ? Integer.parseInt(args[1]) : 5_000;
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        PipedOutputStream clientOut = new PipedOutputStream();
+        PipedInputStream serverIn = new PipedInputStream(clientOut, 1 << 20);
+        PipedOutputStream serverOut = new PipedOutputStream();
+        PipedInputStream clientIn = new PipedInputStream(serverOut, 1 << 20);
+        Thread server = new Thread(() -> {
+            try {
+                new LanguageServer(serverIn, serverOut, 150).run();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        });
+        server.setDaemon(true);
+        server.start();
+
+        TestLanguageServer client = new TestLanguageServer(clientOut, clientIn);
+        client.startReader();
+
+        // One document whose body is repeated, so the template stays free of syntax errors
+        String page = Files.readString(root.resolve("templates/test3_product_details.html"));
+        int bodyStart = page.indexOf('\n', page.indexOf("<body")) + 1;
+        int bodyEnd = page.lastIndexOf("</body>");
+        String body = page.substring(bodyStart, bodyEnd);
+        StringBuilder template = new StringBuilder(page.substring(0, bodyStart));
+        int lines = page.split("\n", -1).length;
+        while (lines < targetLines) {
+            template.append(body);
+            lines += body.split("\n", -1).length - 1;
+        }
+        template.append(page.substring(bodyEnd));
+        String appUri = root.resolve("app.py").toUri().toString();
+        String templateUri = root.resolve("templates/large.html").toUri().toString();
+
+        client.request("initialize", "{\"capabilities\":{}}");
+        client.notify("initialized", "{}");
+
+        console.println("OPEN");
+        console.println("─────────────────────────────────────────");
+        long start = System.nanoTime();
+        client.notify("textDocument/didOpen", "{\"textDocument\":{\"uri\":\"" + appUri
+            + "\",\"languageId\":\"python\",\"version\":1,\"text\":" + quote(Files.readString(root.resolve("app.py"))) + "}}");
+        client.notify("textDocument/didOpen", "{\"textDocument\":{\"uri\":\"" + templateUri
+            + "\",\"languageId\":\"html\",\"version\":1,\"text\":" + quote(template.toString()) + "}}");
+        client.awaitDiagnostics(2);
+        console.println(String.format("  app.py + %,d-line template analyzed in %.1f ms (includes first-use warm-up)",
+            lines, (System.nanoTime() - start) / 1e6));
+
+        console.println("\nTYPING BURST (" + KEYSTROKES + " keystrokes, " + KEYSTROKE_INTERVAL_MILLIS + " ms apart)");
+        console.println("─────────────────────────────────────────");
+        // Type inside the text of the first <h1> (or line 1) of the template
+        int line = Math.max(0, lineOf(template.toString(), "<h1"));
+        long worst = 0;
+        long total = 0;
+        int requests = 0;
+        long lastKeystroke = 0;
+        for (int i = 0; i < KEYSTROKES; i++) {
+            client.notify("textDocument/didChange", "{\"textDocument\":{\"uri\":\"" + templateUri + "\",\"version\":"
+                + (i + 2) + "},\"contentChanges\":[{\"range\":{\"start\":{\"line\":" + line + ",\"character\":0},"
+                + "\"end\":{\"line\":" + line + ",\"character\":0}},\"text\":\"x\"}]}");
+            lastKeystroke = System.nanoTime();
+
+            long t = System.nanoTime();
+            if (i % 2 == 0) {
+                client.request("textDocument/documentSymbol", "{\"textDocument\":{\"uri\":\"" + templateUri + "\"}}");
+            } else {
+                client.request("textDocument/definition", "{\"textDocument\":{\"uri\":\"" + appUri
+                    + "\"},\"position\":{\"line\":4,\"character\":1}}");
+            }
+            long latency = System.nanoTime() - t;
+            worst = Math.max(worst, latency);
+            total += latency;
+            requests++;
+            Thread.sleep(KEYSTROKE_INTERVAL_MILLIS);
+        }
+        int published = client.awaitDiagnostics(1);
+        long settled = System.nanoTime() - lastKeystroke;
+        Thread.sleep(500);
+        published += client.notifications.size();
+
+        console.println(String.format("  request latency: avg %.2f ms, worst %.2f ms (%d requests)",
+            total / 1e6 / requests, worst / 1e6, requests));
+        console.println(String.format("  diagnostics published for the burst: %d (debounced from %d edits)",
+            published, KEYSTROKES));
+        console.println(String.format("  diagnostics %.1f ms after the last keystroke (150 ms debounce)", settled / 1e6));
+
+        client.request("shutdown", "null");
+        client.notify("exit", "null");
+    }
+
+    private static int lineOf(String text, String needle) {
+        int index = text.indexOf(needle);
+        if (index < 0) return 0;
+        int line = 0;
+        for (int i = 0; i < index; i++) {
+            if (text.charAt(i) == '\n') line++;
+        }
+        return line + 1;
+    }
+
+    private String request(String method, String params) throws Exception {
+        int id = nextId++;
+        send("{\"jsonrpc\":\"2.0\",\"id\":" + id + ",\"method\":\"" + method + "\",\"params\":" + params + "}");
+        return responses.poll(10, TimeUnit.SECONDS);
+    }
+
+    private void notify(String method, String params) throws IOException {
+        send("{\"jsonrpc\":\"2.0\",\"method\":\"" + method + "\",\"params\":" + params + "}");
+    }
+
+    private int awaitDiagnostics(int count) throws InterruptedException {
+        int received = 0;
+        while (received < count && notifications.poll(30, TimeUnit.SECONDS) != null) {
+            received++;
+        }
+        return received;
+    }
+
+    private void send(String json) throws IOException {
+        byte[] body = json.getBytes(StandardCharsets.UTF_8);
+        toServer.write(("Content-Length: " + body.length + "\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        toServer.write(body);
+        toServer.flush();
+    }
+
+    private void startReader() {
+        Thread reader = new Thread(() -> {
+            try {
+                while (true) {
+                    int length = -1;
+                    String header;
+                    while (!(header = readLine()).isEmpty()) {
+                        if (header.startsWith("Content-Length:")) {
+                            length = Integer.parseInt(header.substring(15).trim());
+                        }
+                    }
+                    if (length < 0) return;
+                    String body = new String(fromServer.readNBytes(length), StandardCharsets.UTF_8);
+                    if (body.contains("\"method\":\"textDocument/publishDiagnostics\"")) {
+                        notifications.add(body);
+                    } else {
+                        responses.add(body);
+                    }
+                }
+            } catch (IOException e) {
+                // Server closed the pipe
+            }
+        });
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private String readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = fromServer.read()) != '\n') {
+            if (b < 0) return "";
+            if (b != '\r') line.write(b);
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private static String quote(String text) {
+        StringBuilder sb = new StringBuilder();
+        ASTJsonWriter.quote(text, sb);
+        return sb.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package compiler.tests.jinja2HtmlTests;
+
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+import compiler.render.CompiledTemplate;
+import compiler.render.TemplateCompiler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renders product listings of several thousand rows: test1_display_products.html
+ * (repeated product.stock) and a listing whose loop body reads outer-scope
+ * values (user.name, store_name | upper) that the compiler hoists out of the loop.
+ * The listing and two templates whose values must not be hoisted or cached (a
+ * name set in the outer body and read in an inner loop, a loop target rebound
+ * in its body) are checked against output built in Java from the same context.
+ */
+public class TestLoopSlots {
+
+    private static final String LISTING =
+        "<table>{% for product in products %}<tr class=\"{{ user.name }}\">"
+            + "<td>{{ product.name }}</td><td>{{ store_name | upper }}</td>"
+            + "{% if product.stock > 20 %}<td>{{ product.stock }} in stock</td>"
+            + "{% elif product.stock > 0 %}<td>only {{ product.stock }} left</td>{% else %}<td>sold out</td>{% endif %}"
+            + "<td>{{ product.price * 2 }} / {{ product_count * 2 }}</td>"
+            + "{% for category in categories %}{% if category == product.category %}<td>{{ category }} #{{ loop.index }}"
+            + " of {{ user.cart_items + 1 }}</td>{% endif %}{% endfor %}"
+            + "</tr>{% endfor %}</table>\n";
+
+    // label changes every outer iteration, so it must not leave the outer loop
+    private static final String OUTER_SET =
+        "{% for product in products %}{% set label = product.name | upper %}"
+            + "{% for category in categories %}{% if category == product.category %}"
+            + "<i>{{ label }} / {{ category }}</i>{% endif %}{% endfor %}{% endfor %}";
+
+    // product.name before and after the rebinding are different values
+    private static final String REBOUND_TARGET =
+        "{% for product in products %}<b>{{ product.name }}</b>"
+            + "{% set product = {\"name\": product.category} %}<i>{{ product.name }}</i>{% endfor %}";
+
+    public static void main(String[] args) throws IOException {
+        Map<String, Object> context = TestJinja2Renderer.sampleContext(5_000);
+        context.put("categories", java.util.List.of("Electronics", "Books", "Garden & Home"));
+
+        String resourcePath = "examples/test1_display_products.html";
+        InputStream is = TestLoopSlots.class.getClassLoader().getResourceAsStream(resourcePath);
+        if (is == null) {
+            throw new IllegalStateException("Resource not found on classpath: " + resourcePath);
+        }
+        measure(resourcePath, new String(is.readAllBytes(), StandardCharsets.UTF_8), context, null);
+        measure("listing.html", LISTING, context, expectedListing(context));
+        measure("outer_set.html", OUTER_SET, context, expectedOuterSet(context));
+        measure("rebound_target.html", REBOUND_TARGET, context, expectedReboundTarget(context));
+    }
+
+    private static void measure(String name, String source, Map<String, Object> context, String expected)
+            throws IOException {
+        FileCompilationResult parsed = new LanguageFrontEnd().compile(name, source, SourceLanguage.JINJA2);
+        if (!parsed.isSuccess()) {
+            throw new IllegalStateException("Template did not parse: " + parsed.syntaxErrors);
+        }
+        CompiledTemplate template = TemplateCompiler.compile(parsed.ast);
+        String output = template.renderToString(context);
+        if (expected != null && !expected.equals(output)) {
+            int at = 0;
+            while (at < Math.min(expected.length(), output.length()) && expected.charAt(at) == output.charAt(at)) {
+                at++;
+            }
+            throw new IllegalStateException(String.format("%s renders differently at char %d: expected ...%s, got ...%s",
+                name, at, excerpt(expected, at), excerpt(output, at)));
+        }
+
+        OutputStream discard = OutputStream.nullOutputStream();
+        for (int i = 0; i < 200; i++) {
+            template.render(context, discard);
+        }
+        int renders = 1_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < renders; i++) {
+            template.render(context, discard);
+        }
+        double millis = (System.nanoTime() - start) / 1e6 / renders;
+
+        System.out.println("─────────────────────────────────────────");
+        System.out.println("✓ " + name + ": " + template);
+        System.out.println(String.format("✓ %d products: %.3f ms per render, %d chars, output hash %08x",
+            5_000, millis, output.length(), output.hashCode()));
+        if (expected != null) {
+            System.out.println("✓ Same output as built in Java");
+        }
+    }
+
+    // ==================== EXPECTED OUTPUT ====================
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> products(Map<String, Object> context) {
+        return (List<Map<String, Object>>) context.get("products");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String expectedListing(Map<String, Object> context) {
+        Map<String, Object> user = (Map<String, Object>) context.get("user");
+        List<String> categories = (List<String>) context.get("categories");
+        String storeName = escape(((String) context.get("store_name")).toUpperCase());
+        long productCount = (Long) context.get("product_count");
+
+        StringBuilder sb = new StringBuilder("<table>");
+        for (Map<String, Object> product : products(context)) {
+            long stock = (Long) product.get("stock");
+            sb.append("<tr class=\"").append(escape((String) user.get("name"))).append("\">");
+            sb.append("<td>").append(escape((String) product.get("name"))).append("</td>");
+            sb.append("<td>").append(storeName).append("</td>");
+            if (stock > 20) {
+                sb.append("<td>").append(stock).append(" in stock</td>");
+            } else if (stock > 0) {
+                sb.append("<td>only ").append(stock).append(" left</td>");
+            } else {
+                sb.append("<td>sold out</td>");
+            }
+            sb.append("<td>").append(pythonFloat((Double) product.get("price") * 2))
+                .append(" / ").append(productCount * 2).append("</td>");
+            for (int i = 0; i < categories.size(); i++) {
+                if (categories.get(i).equals(product.get("category"))) {
+                    sb.append("<td>").append(escape(categories.get(i))).append(" #").append(i + 1)
+                        .append(" of ").append((Long) user.get("cart_items") + 1).append("</td>");
+                }
+            }
+            sb.append("</tr>");
+        }
+        // The trailing line break is whitespace between tags, written as one space
+        return sb.append("</table> ").toString();
+    }
+
+    private static String expectedOuterSet(Map<String, Object> context) {
+        StringBuilder sb = new StringBuilder();
+        for (Map<String, Object> product : products(context)) {
+            String label = escape(((String) product.get("name")).toUpperCase());
+            sb.append("<i>").append(label).append(" / ").append(escape((String) product.get("category"))).append("</i>");
+        }
+        return sb.toString();
+    }
+
+    private static String expectedReboundTarget(Map<String, Object> context) {
+        StringBuilder sb = new StringBuilder();
+        for (Map<String, Object> product : products(context)) {
+            sb.append("<b>").append(escape((String) product.get("name"))).append("</b>");
+            sb.append("<i>").append(escape((String) product.get("category"))).append("</i>");
+        }
+        return sb.toString();
+    }
+
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;")
+            .replace("\"", "&#34;").replace("'", "&#39;");
+    }
+
+    // Python's str(float), as the renderer writes floats
+    private static String pythonFloat(double value) {
+        return value == Math.rint(value) ? (long) value + ".0" : Double.toString(value);
+    }
+
+    private static String excerpt(String text, int at) {
+        return text.substring(at, Math.min(text.length(), at + 60));
+    }
+}
@@ -0,0 +1,140 @@
+package compiler.tests.jinja2HtmlTests;
+
+import compiler.render.LinkedTemplate;
+import compiler.render.TemplateLinkException;
+import compiler.render.TemplateLinker;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Links a three-level inheritance chain with includes in a temporary
+ * directory, renders it, then shows cache hits, invalidation after the base
+ * template changes, cycle reporting, blocks inside included partials,
+ * rejection of {{ super() }} and cold vs cached link times.
+ */
+public class TestTemplateLinker {
+
+    public static void main(String[] args) throws IOException {
+        Path root = Files.createTempDirectory("templates");
+        write(root, "base.html",
+            "<html><head><title>{% block title %}Site{% endblock %}</title></head>\n"
+                + "<body>{% include \"partials/nav.html\" %}\n"
+                + "{% block content %}<p>No content</p>{% endblock %}\n"
+                + "{% block footer %}<footer>Base footer</footer>{% endblock %}</body></html>\n");
+        write(root, "layout.html",
+            "{% extends \"base.html\" %}\n"
+                + "{% block content %}<main>{% block main %}{% endblock %}</main>{% endblock %}\n");
+        write(root, "page.html",
+            "{% extends \"layout.html\" %}\n"
+                + "{% block title %}{{ title }}{% endblock %}\n"
+                + "{% block main %}<h1>{{ title }}</h1>{% include \"partials/card.html\" %}{% endblock %}\n");
+        write(root, "partials/nav.html", "<nav>{{ user }}</nav>");
+        write(root, "partials/card.html", "<div class=\"card\">{{ title }}</div>");
+
+        TemplateLinker linker = new TemplateLinker(root);
+        Map<String, Object> context = new HashMap<>();
+        context.put("title", "Products");
+        context.put("user", "alice");
+
+        System.out.println("─────────────────────────────────────────");
+        LinkedTemplate page = linker.link("page.html");
+        System.out.println("✓ Linked: " + page + " using " + page.getTemplates());
+        System.out.println(page.getCompiled().renderToString(context));
+        System.out.println("Dependencies of page.html: " + linker.getDependencies("page.html"));
+        System.out.println("Dependents of base.html:   " + linker.getDependents("base.html"));
+
+        System.out.println("─────────────────────────────────────────");
+        if (linker.link("page.html") != page) {
+            throw new IllegalStateException("Unchanged template was re-linked");
+        }
+        System.out.println("✓ Second link served from cache");
+        System.out.println(linker.getStatistics());
+
+        // Same size and a later modification time, so only the timestamp tells it changed
+        System.out.println("─────────────────────────────────────────");
+        Path base = root.resolve("base.html");
+        write(root, "base.html", Files.readString(base).replace("Base footer", "New footer!"));
+        Files.setLastModifiedTime(base, FileTime.fromMillis(Files.getLastModifiedTime(base).toMillis() + 2000));
+        LinkedTemplate relinked = linker.link("page.html");
+        if (relinked == page || !relinked.getCompiled().renderToString(context).contains("New footer!")) {
+            throw new IllegalStateException("Change to base.html was not picked up");
+        }
+        System.out.println("✓ base.html changed: page.html re-linked");
+        System.out.println("✓ invalidate(\"partials/nav.html\") dropped "
+            + linker.invalidate("partials/nav.html") + " linked templates");
+        System.out.println(linker.getStatistics());
+
+        System.out.println("─────────────────────────────────────────");
+        write(root, "a.html", "{% extends \"b.html\" %}");
+        write(root, "b.html", "{% include \"a.html\" %}");
+        try {
+            linker.link("a.html");
+            throw new IllegalStateException("Cycle was not detected");
+        } catch (TemplateLinkException e) {
+            System.out.println("✓ " + e.getMessage());
+        }
+        try {
+            linker.link("../outside.html");
+            throw new IllegalStateException("Escaping the root was not rejected");
+        } catch (TemplateLinkException e) {
+            System.out.println("✓ " + e.getMessage());
+        }
+
+        // Blocks of an included partial are the partial's own, in the child as in the parent
+        System.out.println("─────────────────────────────────────────");
+        write(root, "partials/titled.html", "{% block title %}Partial title{% endblock %}");
+        write(root, "partials/footer.html", "<small>{% block main %}Partial main{% endblock %}</small>");
+        write(root, "included.html",
+            "{% extends \"layout.html\" %}\n"
+                + "{% include \"partials/titled.html\" %}\n"
+                + "{% block main %}<h1>Own main</h1>{% endblock %}\n");
+        write(root, "base.html", Files.readString(base).replace("</body>", "{% include \"partials/footer.html\" %}</body>"));
+        linker.invalidate("base.html");
+        String rendered = linker.link("included.html").getCompiled().renderToString(context);
+        if (!rendered.contains("<title>Site</title>") || rendered.contains("Partial title")
+                || !rendered.contains("<main><h1>Own main</h1></main>") || !rendered.contains("<small>Partial main</small>")) {
+            throw new IllegalStateException("Blocks crossed an include: " + rendered);
+        }
+        System.out.println("✓ {% block %} in an included partial neither overrides nor is overridden");
+
+        write(root, "super.html",
+            "{% extends \"base.html\" %}\n"
+                + "{% block footer %}{{ super() }}<p>More</p>{% endblock %}\n");
+        try {
+            linker.link("super.html");
+            throw new IllegalStateException("{{ super() }} was not rejected");
+        } catch (TemplateLinkException e) {
+            System.out.println("✓ " + e.getMessage());
+        }
+
+        System.out.println("─────────────────────────────────────────");
+        int links = 2000;
+        for (int i = 0; i < 200; i++) {
+            linker.invalidate("base.html");
+            linker.link("page.html");
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < links; i++) {
+            linker.invalidate("base.html");
+            linker.link("page.html");
+        }
+        double relink = (System.nanoTime() - start) / 1e3 / links;
+        start = System.nanoTime();
+        for (int i = 0; i < links; i++) {
+            linker.link("page.html");
+        }
+        double cached = (System.nanoTime() - start) / 1e3 / links;
+        System.out.println(String.format("✓ Re-link after base change: %.1f µs, cached link: %.1f µs", relink, cached));
+    }
+
+    private static void write(Path root, String name, String text) throws IOException {
+        Path file = root.resolve(name);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, text);
+    }
+}
@@ -0,0 +1,86 @@
+package compiler.tests.jinja2HtmlTests;
+
+import compiler.ast.core.ProgramNode;
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+import compiler.render.CompiledTemplate;
+import compiler.render.TemplateCompiler;
+import compiler.render.TemplateOptimizer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Optimizes test1_display_products.html and a template full of constants, checks
+ * that each renders exactly like the unoptimized version, and compares render
+ * throughput.
+ */
+public class TestTemplateOptimizer {
+
+    private static final String CONSTANTS_TEMPLATE =
+        "{% set currency = \"EUR\" %}{% set per_page = 4 * 6 %}{% set debug = false %}\n"
+            + "<header><h1>{{ \"Spring sale\" | upper }}</h1><p>Prices in {{ currency | lower }}</p></header>\n"
+            + "{% if debug %}<pre>{{ products }}</pre>{% elif per_page > 10 %}<p>{{ per_page }} per page</p>{% endif %}\n"
+            + "<ul>{% for product in products %}<li class=\"{{ \"ITEM\" | lower }}\">"
+            + "{{ product.name }} - {{ product.price }} {{ currency }}</li>{% endfor %}</ul>\n"
+            + "<footer><p>Cache: {{ 60 * 60 * 24 }} s</p><p>{{ [\"a\", \"b\", \"c\"] | join(\", \") }}</p>"
+            + "<p>{{ 7 / 2 }} {{ 10 // 3 }} {{ \"<b>\" }} {{ \"<i>\" | safe }}</p></footer>\n";
+
+    public static void main(String[] args) throws IOException {
+        Map<String, Object> context = TestJinja2Renderer.sampleContext(12);
+
+        String resourcePath = "examples/test1_display_products.html";
+        InputStream is = TestTemplateOptimizer.class.getClassLoader().getResourceAsStream(resourcePath);
+        if (is == null) {
+            throw new IllegalStateException("Resource not found on classpath: " + resourcePath);
+        }
+        compare(resourcePath, new String(is.readAllBytes(), StandardCharsets.UTF_8), context);
+        compare("constants.html", CONSTANTS_TEMPLATE, context);
+    }
+
+    private static void compare(String name, String source, Map<String, Object> context) throws IOException {
+        System.out.println("─────────────────────────────────────────");
+        System.out.println(name);
+        CompiledTemplate plain = TemplateCompiler.compile(parse(name, source));
+        ProgramNode ast = parse(name, source);
+        TemplateOptimizer.Result result = TemplateOptimizer.optimize(ast);
+        CompiledTemplate optimized = TemplateCompiler.compile(ast);
+        result.print();
+        System.out.println("  Compiled: " + plain + " -> " + optimized);
+
+        String expected = plain.renderToString(context);
+        if (!expected.equals(optimized.renderToString(context))) {
+            System.out.println(expected);
+            System.out.println(optimized.renderToString(context));
+            throw new IllegalStateException("Optimized template renders differently");
+        }
+        System.out.println("✓ Same output (" + expected.length() + " chars)");
+        System.out.println(String.format("✓ %.0f renders/s -> %.0f renders/s",
+            rendersPerSecond(plain, context), rendersPerSecond(optimized, context)));
+    }
+
+    private static ProgramNode parse(String name, String source) {
+        FileCompilationResult parsed = new LanguageFrontEnd().compile(name, source, SourceLanguage.JINJA2);
+        if (!parsed.isSuccess()) {
+            throw new IllegalStateException("Template did not parse: " + parsed.syntaxErrors);
+        }
+        return (ProgramNode) parsed.ast;
+    }
+
+    private static double rendersPerSecond(CompiledTemplate template, Map<String, Object> context) throws IOException {
+        OutputStream discard = OutputStream.nullOutputStream();
+        for (int i = 0; i < 20_000; i++) {
+            template.render(context, discard);
+        }
+        int renders = 100_000;
+        long start = System.nanoTime();
+        for (int i = 0; i < renders; i++) {
+            template.render(context, discard);
+        }
+        return renders / ((System.nanoTime() - start) / 1e9);
+    }
+}
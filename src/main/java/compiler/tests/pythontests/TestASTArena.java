@@ -0,0 +1,168 @@
+package compiler.tests.pythontests;
+
+import compiler.ast.arena.ASTArena;
+import compiler.ast.arena.ASTCursor;
+import compiler.ast.core.ASTNode;
+import compiler.parsing.ParseMode;
+import compiler.parsing.TwoStageParser;
+import compiler.visitors.SimplePythonASTBuilder;
+import grammar.PythonLexer;
+import grammar.PythonParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compiles a generated Python project (the example files repeated up to
+ * the requested number of lines) twice: keeping every AST as node objects,
+ * and encoding each AST into one ASTArena as soon as it is built. Prints the
+ * heap retained by each, checks that every materialized tree prints the same
+ * as the tree it was encoded from, and counts node kinds with a cursor.
+ * Also adds trees to arenas trimmed while holding 0 and 1 nodes.
+ *
+ * Usage: TestASTArena [lines]
+ */
+public class TestASTArena {
+
+    private static final String[] SOURCES = {
+        "examples/app.py",
+        "examples/test_dict_list_literals.py",
+        "examples/test_python.py",
+        "examples/test_cpython_indentation.py",
+        "examples/test_basic_indentation.py"
+    };
+
+    public static void main(String[] args) throws Exception {
+        int targetLines = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+
+        List<String> files = new ArrayList<>();
+        int lines = 0;
+        while (lines < targetLines) {
+            for (String source : SOURCES) {
+                String text = readResource(source);
+                files.add(text);
+                lines += text.split("\n", -1).length;
+            }
+        }
+        System.out.println(String.format("Project: %d files, %d lines", files.size(), lines));
+        System.out.println("─────────────────────────────────────────");
+
+        long baseline = usedHeap();
+        List<ASTNode> objectTrees = new ArrayList<>();
+        for (String file : files) {
+            objectTrees.add(build(file));
+        }
+        long objectBytes = usedHeap() - baseline;
+        System.out.println(String.format("  node objects: %,12d bytes retained", objectBytes));
+        int treeCount = objectTrees.size();
+        objectTrees = null;
+
+        baseline = usedHeap();
+        ASTArena arena = new ASTArena();
+        for (String file : files) {
+            arena.add(build(file));
+        }
+        arena.trim();
+        long arenaBytes = usedHeap() - baseline;
+        System.out.println(String.format("  arena:        %,12d bytes retained (%,d nodes, %,d strings, %,d in arrays)",
+                arenaBytes, arena.size(), arena.getStringCount(), arena.getArrayBytes()));
+        System.out.println(String.format("  ratio:        %.1fx smaller", (double) objectBytes / Math.max(1, arenaBytes)));
+
+        System.out.println("\nROUND TRIP");
+        System.out.println("─────────────────────────────────────────");
+        int different = 0;
+        for (int i = 0; i < SOURCES.length; i++) {
+            String expected = printed(build(files.get(i)));
+            String actual = printed(arena.node(arena.getRoots().get(i)));
+            boolean same = expected.equals(actual);
+            if (!same) different++;
+            System.out.println(String.format("  %-40s %s", SOURCES[i], same ? "same tree ✓" : "DIFFERENT ✗"));
+        }
+        System.out.println(String.format("  %d of %d trees checked, %d different", SOURCES.length, treeCount, different));
+
+        // trim() leaves no spare slot; the next add must still grow the arrays
+        for (int held = 0; held <= 1; held++) {
+            ASTArena small = new ASTArena();
+            if (held == 1) {
+                small.add(null);
+            }
+            small.trim();
+            int root = small.add(build(files.get(0)));
+            boolean same = printed(build(files.get(0))).equals(printed(small.node(root)));
+            if (!same) different++;
+            System.out.println(String.format("  %-40s %s", "add after trim() at " + held + " nodes",
+                same ? "same tree ✓" : "DIFFERENT ✗"));
+        }
+        if (different > 0) {
+            throw new IllegalStateException(different + " trees differ after the round trip");
+        }
+
+        System.out.println("\nNODE KINDS (cursor walk over " + SOURCES[0] + ")");
+        System.out.println("─────────────────────────────────────────");
+        Map<String, Integer> kinds = new TreeMap<>();
+        ASTCursor cursor = arena.cursor(arena.getRoots().get(0));
+        do {
+            kinds.merge(cursor.kind(), 1, Integer::sum);
+        } while (next(cursor));
+        for (Map.Entry<String, Integer> entry : kinds.entrySet()) {
+            System.out.println(String.format("  %-22s %5d", entry.getKey(), entry.getValue()));
+        }
+    }
+
+    // Preorder step: down, else right, else up until a right is possible
+    private static boolean next(ASTCursor cursor) {
+        if (cursor.gotoFirstChild()) {
+            return true;
+        }
+        do {
+            if (cursor.gotoNextSibling()) {
+                return true;
+            }
+        } while (cursor.gotoParent());
+        return false;
+    }
+
+    private static ASTNode build(String source) {
+        PythonParser parser = new PythonParser(new CommonTokenStream(new PythonLexer(CharStreams.fromString(source))));
+        parser.removeErrorListeners();
+        return new SimplePythonASTBuilder().visit(
+            TwoStageParser.parse(parser, ParseMode.SLL_THEN_LL, PythonParser::file_input).tree);
+    }
+
+    private static String printed(ASTNode tree) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        try {
+            tree.print("");
+        } finally {
+            System.setOut(out);
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String readResource(String path) throws Exception {
+        try (InputStream is = TestASTArena.class.getClassLoader().getResourceAsStream(path)) {
+            if (is == null) {
+                throw new RuntimeException("Resource not found: " + path);
+            }
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
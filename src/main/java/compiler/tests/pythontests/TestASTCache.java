@@ -0,0 +1,169 @@
+package compiler.tests.pythontests;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.ExpressionNode;
+import compiler.ast.core.expressions.IdentifierNode;
+import compiler.ast.core.expressions.StringLiteralNode;
+import compiler.ast.jinjaHtml.JinjaFilterNode;
+import compiler.cache.ASTCache;
+import compiler.cache.ASTSerializer;
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+import compiler.utils.ASTJsonWriter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Exercises ASTCache in a temporary directory: a miss then a hit, the same key
+ * for a String and for every kind of ByteBuffer holding its UTF-8 bytes, a
+ * corrupt and a truncated entry (misses that put() replaces), an entry whose
+ * node fields no longer match the classes (stale), and a stream holding a JDK
+ * class outside the serializer's allow-list.
+ */
+public class TestASTCache {
+
+    private static final String SOURCE = "def greet(name):\n    return \"héllo \" + name\n\nprint(greet(\"wörld\"))\n";
+
+    public static void main(String[] args) throws IOException {
+        Path dir = Files.createTempDirectory("ast-cache");
+        try {
+            run(new ASTCache(dir));
+        } finally {
+            try (Stream<Path> files = Files.walk(dir)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private static void run(ASTCache cache) throws IOException {
+        FileCompilationResult parsed = new LanguageFrontEnd().compile("greet.py", SOURCE, SourceLanguage.PYTHON);
+        if (!parsed.isSuccess()) {
+            throw new IllegalStateException("Source did not parse: " + parsed.syntaxErrors);
+        }
+        String expected = ASTJsonWriter.toJSON(parsed.ast);
+
+        System.out.println("AST CACHE in " + cache.getCacheDir());
+        System.out.println("─────────────────────────────────────────");
+        System.out.println("  code version " + ASTCache.getCodeVersion());
+        check(!ASTCache.getCodeVersion().equals("unknown"), "code version read from the class files");
+
+        check(cache.get(SourceLanguage.PYTHON, SOURCE) == null, "miss before put");
+        cache.put(SourceLanguage.PYTHON, SOURCE, parsed.ast);
+        checkHit(cache.get(SourceLanguage.PYTHON, SOURCE), expected, "hit after put");
+        check(cache.get(SourceLanguage.CSS, SOURCE) == null, "miss for the same text in another language");
+
+        // The key depends on the bytes only, not on the buffer holding them
+        byte[] utf8 = SOURCE.getBytes(StandardCharsets.UTF_8);
+        String key = ASTCache.key(SourceLanguage.PYTHON, SOURCE);
+        ByteBuffer direct = ByteBuffer.allocateDirect(utf8.length);
+        direct.put(utf8).flip();
+        byte[] padded = new byte[utf8.length + 10];
+        System.arraycopy(utf8, 0, padded, 7, utf8.length);
+        ByteBuffer positioned = ByteBuffer.wrap(padded, 7, utf8.length);
+        ByteBuffer slice = ByteBuffer.wrap(padded).position(7).limit(7 + utf8.length).slice();
+        for (ByteBuffer buffer : new ByteBuffer[] { ByteBuffer.wrap(utf8), direct, positioned, slice }) {
+            int position = buffer.position();
+            check(ASTCache.key(SourceLanguage.PYTHON, buffer).equals(key) && buffer.position() == position,
+                "ByteBuffer key equals String key (" + describe(buffer) + ")");
+            checkHit(cache.get(SourceLanguage.PYTHON, buffer), expected,
+                "hit through " + describe(buffer) + " for an entry put with a String");
+        }
+
+        Path entry = entryPath(cache, key);
+        byte[] good = Files.readAllBytes(entry);
+
+        Files.write(entry, "not a cache entry".getBytes(StandardCharsets.US_ASCII));
+        check(cache.get(SourceLanguage.PYTHON, SOURCE) == null, "corrupt entry is a miss");
+        cache.put(SourceLanguage.PYTHON, direct.duplicate(), parsed.ast);
+        checkHit(cache.get(SourceLanguage.PYTHON, SOURCE), expected, "put through a ByteBuffer replaces it");
+
+        Files.write(entry, Arrays.copyOf(good, good.length / 2));
+        check(cache.get(SourceLanguage.PYTHON, SOURCE) == null, "truncated entry is a miss");
+
+        // As if ASTNode.lineNumber had been renamed after the entry was written
+        byte[] stale = replaceShape(good, "lineNumber:I", "lineNumbex:I");
+        Files.write(entry, stale);
+        check(cache.get(SourceLanguage.PYTHON, SOURCE) == null, "entry written by changed node classes is a miss");
+        try {
+            ASTSerializer.deserialize(stale);
+            throw new IllegalStateException("Stale entry deserialized");
+        } catch (InvalidClassException e) {
+            System.out.println("  ✓ " + e.getMessage());
+        }
+        cache.put(SourceLanguage.PYTHON, SOURCE, parsed.ast);
+        checkHit(cache.get(SourceLanguage.PYTHON, SOURCE), expected, "put replaces the stale entry");
+
+        // A node field holding a collection the node classes never use
+        List<ExpressionNode> arguments = new LinkedList<>();
+        arguments.add(new StringLiteralNode("x", 1));
+        byte[] foreign = ASTSerializer.serialize(new JinjaFilterNode(new IdentifierNode("name", 1), "default", arguments, 1));
+        try {
+            ASTSerializer.deserialize(foreign);
+            throw new IllegalStateException("java.util.LinkedList passed the input filter");
+        } catch (InvalidClassException e) {
+            System.out.println("  ✓ java.util.LinkedList rejected: " + e.getMessage());
+        }
+
+        System.out.println("─────────────────────────────────────────");
+        check(cache.getHits() == 7 && cache.getMisses() == 5,
+            String.format("%d hits, %d misses", cache.getHits(), cache.getMisses()));
+    }
+
+    private static Path entryPath(ASTCache cache, String key) {
+        Path entry = cache.getCacheDir().resolve(key.substring(0, 2)).resolve(key + ".ast");
+        if (!Files.isRegularFile(entry)) {
+            throw new IllegalStateException("No entry at " + entry);
+        }
+        return entry;
+    }
+
+    // Inflates an entry, swaps one shape string for another of the same length and deflates it again
+    private static byte[] replaceShape(byte[] entry, String from, String to) throws IOException {
+        byte[] raw;
+        try (InflaterInputStream in = new InflaterInputStream(new ByteArrayInputStream(entry))) {
+            raw = in.readAllBytes();
+        }
+        String text = new String(raw, StandardCharsets.ISO_8859_1);
+        if (!text.contains(from) || from.length() != to.length()) {
+            throw new IllegalStateException("Entry has no shape '" + from + "'");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(text.replace(from, to).getBytes(StandardCharsets.ISO_8859_1));
+        }
+        return out.toByteArray();
+    }
+
+    private static String describe(ByteBuffer buffer) {
+        return String.format("%s, position %d", buffer.isDirect() ? "direct" : buffer.arrayOffset() > 0 ? "slice" : "heap",
+            buffer.position());
+    }
+
+    private static void checkHit(ASTNode ast, String expected, String what) {
+        check(ast != null && ASTJsonWriter.toJSON(ast).equals(expected), what);
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + what);
+        }
+        System.out.println("  ✓ " + what);
+    }
+}
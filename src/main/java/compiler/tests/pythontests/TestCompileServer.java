@@ -0,0 +1,110 @@
+package compiler.tests.pythontests;
+
+import compiler.parsing.ParseMode;
+import compiler.server.CompileClient;
+import compiler.server.CompileServer;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Starts CompileServer on an ephemeral loopback port with a single compile
+ * worker, keeps one connection open and idle, and talks to it over a second
+ * connection with CompileClient: a good compile, a compile with syntax errors,
+ * malformed requests that keep the connection usable, and invalid length=
+ * values that must be rejected before any source is read.
+ */
+public class TestCompileServer {
+
+    private static final String GOOD = "def add(a, b):\n    return a + b\n\nprint(add(1, 2))\n";
+    private static final String BROKEN = "def add(a, b)\n    return a +\n";
+
+    public static void main(String[] args) throws Exception {
+        CompileServer server = new CompileServer(
+            new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), ParseMode.SLL_THEN_LL, null, 1);
+        server.start();
+        SocketAddress address = server.getLocalAddress();
+        Thread serving = new Thread(() -> {
+            try {
+                server.serve();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }, "compile-server");
+        serving.setDaemon(true);
+        serving.start();
+
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        System.out.println("COMPILE SERVER on " + address);
+        System.out.println("─────────────────────────────────────────");
+        // Holds a connection open for the whole run; with one worker per connection it starved the pool
+        try (CompileClient idle = new CompileClient(address)) {
+            within(client, () -> {
+                check(idle.request("ping").isOk(), "ping on the idle connection");
+                try (CompileClient connection = new CompileClient(address)) {
+                    expect(connection.compile("add.py", GOOD, "diagnostics"), "OK", "\"success\":true");
+                    expect(connection.compile("broken.py", BROKEN, "diagnostics"), "FAIL", "\"success\":false");
+                    expect(connection.request("compile name=x.py"), "ERROR", "path=<file> or length=<bytes>");
+                    expect(connection.request("compile stray"), "ERROR", "Expected key=value");
+                    expect(connection.request("frobnicate"), "ERROR", "Unknown command");
+                    check(connection.request("ping").isOk(), "ping after malformed requests");
+                }
+                for (String length : new String[] { "-5", "999999999999", String.valueOf(CompileServer.MAX_SOURCE_BYTES + 1), "ten" }) {
+                    try (CompileClient connection = new CompileClient(address)) {
+                        expect(connection.request("compile name=x.py length=" + length), "ERROR", "length must be");
+                        try {
+                            connection.request("ping");
+                            throw new IllegalStateException("Connection stayed open after length=" + length);
+                        } catch (IOException e) {
+                            System.out.println("  ✓ connection closed after length=" + length);
+                        }
+                    }
+                }
+                check(idle.request("ping").isOk(), "ping on the idle connection afterwards");
+                idle.request("shutdown");
+                return null;
+            });
+        } finally {
+            client.shutdownNow();
+        }
+        serving.join(10_000);
+        check(!serving.isAlive(), "server stopped after shutdown");
+    }
+
+    private interface Steps {
+        Void run() throws Exception;
+    }
+
+    // Runs the client steps, failing instead of hanging when the server stops answering
+    private static void within(ExecutorService client, Steps steps) throws Exception {
+        Future<Void> done = client.submit(steps::run);
+        try {
+            done.get(60, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Server did not answer within 60 s", e);
+        }
+    }
+
+    private static void expect(CompileClient.Response response, String status, String fragment) {
+        if (!response.status.equals(status) || !response.json.contains(fragment)) {
+            throw new IllegalStateException("Expected " + status + " with " + fragment + ", got "
+                + response.status + " " + response.json);
+        }
+        String json = response.json.length() > 90 ? response.json.substring(0, 90) + "..." : response.json;
+        System.out.println("  ✓ " + status + " " + json);
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) {
+            throw new IllegalStateException("Failed: " + what);
+        }
+        System.out.println("  ✓ " + what);
+    }
+}
@@ -0,0 +1,57 @@
+package compiler.tests.pythontests;
+
+import compiler.parsing.DFACache;
+import compiler.project.ProjectCompiler;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Times a project compile against cold, warmed, cleared and restored
+ * recognizer DFAs and prints the DFA state counts after each step.
+ *
+ * Usage: TestDFACache [project-root]
+ */
+public class TestDFACache {
+
+    public static void main(String[] args) throws Exception {
+        Path root = Paths.get(args.length > 0 ? args[0] : ".");
+
+        System.out.println("COLD");
+        System.out.println("─────────────────────────────────────────");
+        report(root);
+
+        DFACache.clear();
+        System.out.println("\nWARMED FROM BUNDLED CORPUS");
+        System.out.println("─────────────────────────────────────────");
+        System.out.println("  warm-up: " + DFACache.warmUp());
+        DFACache.Snapshot snapshot = DFACache.snapshot();
+        report(root);
+
+        DFACache.clear();
+        System.out.println("\nCLEARED");
+        System.out.println("─────────────────────────────────────────");
+        System.out.println("  states after clear: " + DFACache.totalStates());
+        report(root);
+
+        DFACache.clear();
+        DFACache.restore(snapshot);
+        System.out.println("\nRESTORED FROM SNAPSHOT");
+        System.out.println("─────────────────────────────────────────");
+        System.out.println(String.format("  snapshot: %d states, restored: %d states",
+            snapshot.getStateCount(), DFACache.totalStates()));
+        report(root);
+    }
+
+    private static void report(Path root) throws Exception {
+        ProjectCompiler compiler = new ProjectCompiler(root);
+        long start = System.nanoTime();
+        int files = compiler.discoverSourceFiles().size();
+        compiler.compile();
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("  project compile: %d files in %.1f ms", files, elapsed / 1e6));
+        for (DFACache.Stats stats : DFACache.stats()) {
+            System.out.println("  " + stats);
+        }
+    }
+}
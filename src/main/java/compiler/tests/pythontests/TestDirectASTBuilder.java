@@ -0,0 +1,136 @@
+package compiler.tests.pythontests;
+
+import compiler.ast.core.ASTNode;
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.ParseMode;
+import compiler.parsing.SourceLanguage;
+import compiler.parsing.TwoStageParser;
+import compiler.project.FileCompilationResult;
+import compiler.project.ProjectCompiler;
+import compiler.visitors.DirectASTBuilder;
+import compiler.visitors.SimplePythonASTBuilder;
+import grammar.PythonLexer;
+import grammar.PythonParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Compiles every file of a Flask project with and without direct AST
+ * construction and checks that both give the same AST; then parses one
+ * large generated Python module both ways and prints the heap held at the
+ * end of parsing (parse tree + AST for the visitor, the AST for the direct build).
+ *
+ * Usage: TestDirectASTBuilder [project-root] [lines]
+ */
+public class TestDirectASTBuilder {
+
+    public static void main(String[] args) throws Exception {
+        Path root = Paths.get(args.length > 0 ? args[0] : ".");
+        int targetLines = args.length > 1 ? Integer.parseInt(args[1]) : 50_000;
+
+        System.out.println("SAME AST");
+        System.out.println("─────────────────────────────────────────");
+        LanguageFrontEnd visitorFrontEnd = new LanguageFrontEnd();
+        LanguageFrontEnd directFrontEnd = new LanguageFrontEnd();
+        directFrontEnd.setDirectBuild(true);
+        int different = 0;
+        for (Path file : new ProjectCompiler(root).discoverSourceFiles()) {
+            String source = Files.readString(file);
+            SourceLanguage language = SourceLanguage.fromFileName(file.toString());
+            FileCompilationResult expected = visitorFrontEnd.compile(file.toString(), source, language);
+            FileCompilationResult actual = directFrontEnd.compile(file.toString(), source, language);
+            boolean same = expected.isSuccess() == actual.isSuccess()
+                && (expected.ast == null || printed(expected.ast).equals(printed(actual.ast)));
+            if (!same) different++;
+            System.out.println(String.format("  %-50s %-7s %s", root.relativize(file), language,
+                same ? "same ✓" : "DIFFERENT ✗"));
+        }
+        System.out.println("  " + (different == 0 ? "All files give the same AST." : different + " different."));
+
+        StringBuilder module = new StringBuilder();
+        String app = readResource("examples/app.py");
+        int lines = 0;
+        while (lines < targetLines) {
+            module.append(app).append('\n');
+            lines += app.split("\n", -1).length;
+        }
+        String source = module.toString();
+
+        System.out.println(String.format("\nHEAP AFTER PARSING (one module, %,d lines)", lines));
+        System.out.println("─────────────────────────────────────────");
+        long baseline = usedHeap();
+        PythonParser parser = parser(source);
+        TwoStageParser.Result<PythonParser.File_inputContext> result =
+            TwoStageParser.parse(parser, ParseMode.SLL_THEN_LL, PythonParser::file_input);
+        ASTNode ast = new SimplePythonASTBuilder().visit(result.tree);
+        long visitorBytes = usedHeap() - baseline;
+        System.out.println(String.format("  visitor:       %,12d bytes (%,d parse tree nodes)", visitorBytes, size(result.tree)));
+        String expected = printed(ast);
+        parser = null;
+        result = null;
+        ast = null;
+
+        baseline = usedHeap();
+        parser = parser(source);
+        DirectASTBuilder<?> direct = DirectASTBuilder.python(parser);
+        result = TwoStageParser.parse(parser, ParseMode.SLL_THEN_LL, PythonParser::file_input);
+        direct.detach();
+        ast = direct.getResult();
+        long directBytes = usedHeap() - baseline;
+        System.out.println(String.format("  direct build:  %,12d bytes (%,d parse tree nodes left)", directBytes, size(result.tree)));
+        System.out.println("  same AST: " + (expected.equals(printed(ast)) ? "yes ✓" : "NO ✗"));
+    }
+
+    // Tokens stay buffered in both runs, so the difference is the parse tree
+    private static PythonParser parser(String source) {
+        CommonTokenStream tokens = new CommonTokenStream(new PythonLexer(CharStreams.fromString(source)));
+        tokens.fill();
+        return new PythonParser(tokens);
+    }
+
+    private static int size(ParseTree tree) {
+        int count = 1;
+        for (int i = 0; i < tree.getChildCount(); i++) {
+            count += size(tree.getChild(i));
+        }
+        return count;
+    }
+
+    private static String printed(ASTNode tree) {
+        PrintStream out = System.out;
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+        try {
+            tree.print("");
+        } finally {
+            System.setOut(out);
+        }
+        return buffer.toString(StandardCharsets.UTF_8);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String readResource(String path) throws Exception {
+        try (InputStream is = TestDirectASTBuilder.class.getClassLoader().getResourceAsStream(path)) {
+            if (is == null) {
+                throw new RuntimeException("Resource not found: " + path);
+            }
+            return new String(is.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package compiler.tests.pythontests;
+
+import compiler.ast.core.ASTNode;
+import compiler.routing.Route;
+import compiler.routing.RouteMatcher;
+import compiler.semantic.FlaskSemanticAnalyzer;
+import compiler.visitors.SimplePythonASTBuilder;
+import grammar.PythonLexer;
+import grammar.PythonParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+import java.io.InputStream;
+
+/**
+ * Builds the route dispatch trie of a Flask app (examples/app.py by default)
+ * through FlaskSemanticAnalyzer and dispatches a few request paths with it.
+ *
+ * Usage: TestRouteMatcher [resource] [METHOD /path ...]
+ */
+public class TestRouteMatcher {
+
+    private static final String[] DEFAULT_REQUESTS = {
+        "GET", "/products",
+        "POST", "/products/add",
+        "GET", "/products/42",
+        "GET", "/products/abc",
+        "DELETE", "/products/add",
+        "GET", "/products/delete/7",
+        "HEAD", "/about",
+        "GET", "/missing"
+    };
+
+    public static void main(String[] args) throws Exception {
+        String resourcePath = args.length > 0 ? args[0] : "examples/app.py";
+        String[] requests = DEFAULT_REQUESTS;
+        if (args.length > 2) {
+            requests = new String[args.length - 1];
+            System.arraycopy(args, 1, requests, 0, requests.length);
+        }
+
+        InputStream is = TestRouteMatcher.class.getClassLoader().getResourceAsStream(resourcePath);
+        if (is == null) {
+            throw new RuntimeException("Resource not found: " + resourcePath);
+        }
+        PythonParser parser = new PythonParser(new CommonTokenStream(new PythonLexer(CharStreams.fromStream(is))));
+        ASTNode ast = new SimplePythonASTBuilder().visit(parser.file_input());
+
+        FlaskSemanticAnalyzer analyzer = new FlaskSemanticAnalyzer();
+        analyzer.analyze(ast);
+        RouteMatcher matcher = analyzer.getRouteMatcher();
+
+        System.out.println("ROUTES (" + matcher.getRoutes().size() + "):");
+        System.out.println("─────────────────────────────────────────");
+        for (Route route : matcher.getRoutes()) {
+            System.out.println("  " + route);
+        }
+        for (RouteMatcher.Conflict conflict : matcher.getConflicts()) {
+            System.out.println("  ⚠ " + conflict);
+        }
+
+        System.out.println("\nDISPATCH:");
+        System.out.println("─────────────────────────────────────────");
+        for (int i = 0; i + 1 < requests.length; i += 2) {
+            RouteMatcher.Match match = matcher.match(requests[i], requests[i + 1]);
+            System.out.println(String.format("  %-7s %-22s → %s", requests[i], requests[i + 1], match));
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package compiler.tests.pythontests;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.ExpressionNode;
+import compiler.ast.core.expressions.IdentifierNode;
+import compiler.ast.jinjaHtml.HTMLElementNode;
+import compiler.ast.jinjaHtml.JinjaForNode;
+import compiler.ast.python.ListLiteralNode;
+import compiler.diagnostics.CollectingDiagnosticSink;
+import compiler.parsing.LanguageFrontEnd;
+import compiler.parsing.SourceLanguage;
+import compiler.project.FileCompilationResult;
+import compiler.symboltable.ClassicalSymbolTable;
+import compiler.symboltable.SymbolTableBuilder;
+
+import java.util.List;
+
+/**
+ * Builds the symbol table of a small Python module and of a template and
+ * prints the (depth, slot) every identifier reference was resolved to.
+ */
+public class TestSlotResolution {
+
+    private static final String MODULE =
+        "total = 0\n"
+            + "def add(items, factor):\n"
+            + "    result = total\n"
+            + "    for item in items:\n"
+            + "        scaled = item * factor\n"
+            + "        result = result + scaled\n"
+            + "    return len(items) + result\n"
+            + "print(add([1, 2, 3], 2))\n";
+
+    private static final String TEMPLATE =
+        "{% set title = \"Products\" %}<h1>{{ title }}</h1>\n"
+            + "<ul>{% for product in products %}<li class=\"{{ title | lower }}\">{{ loop.index }}. {{ product.name }}"
+            + "{% for tag in product.tags %}<span>{{ tag }} / {{ title }}</span>{% endfor %}</li>"
+            + "{% else %}<li>{{ title }}</li>{% endfor %}</ul>\n";
+
+    public static void main(String[] args) {
+        resolve("module.py", MODULE, SourceLanguage.PYTHON);
+        resolve("products.html", TEMPLATE, SourceLanguage.JINJA2);
+    }
+
+    private static void resolve(String name, String source, SourceLanguage language) {
+        FileCompilationResult parsed = new LanguageFrontEnd().compile(name, source, language);
+        if (!parsed.isSuccess()) {
+            throw new IllegalStateException(name + " did not parse: " + parsed.syntaxErrors);
+        }
+        // Template context names are undefined to the table; collect instead of printing those errors
+        SymbolTableBuilder builder = new SymbolTableBuilder(ClassicalSymbolTable.allocate(), new CollectingDiagnosticSink());
+        builder.build(parsed.ast);
+
+        System.out.println("─────────────────────────────────────────");
+        System.out.println(name + " (global frame: " + builder.getFrameSize(parsed.ast) + " slots)");
+        print(parsed.ast, parsed.ast, builder);
+        System.out.println(String.format("✓ %d references resolved, %d unresolved",
+            builder.getResolvedReferences(), builder.getUnresolvedReferences()));
+
+        // Rebinding inside a loop body updates the function's local rather than a loop-only slot
+        if (language == SourceLanguage.PYTHON) {
+            List<String> addresses = new java.util.ArrayList<>();
+            collectAddresses(parsed.ast, "result", addresses);
+            if (addresses.size() != 4 || addresses.stream().distinct().count() != 1) {
+                throw new IllegalStateException("'result' resolved to different slots: " + addresses);
+            }
+            System.out.println("✓ every 'result' reference is " + addresses.get(0));
+        }
+    }
+
+    private static void collectAddresses(ASTNode node, String name, List<String> addresses) {
+        if (node instanceof IdentifierNode && name.equals(((IdentifierNode) node).getName())) {
+            IdentifierNode identifier = (IdentifierNode) node;
+            addresses.add(String.format("depth %d, slot %d", identifier.getDepth(), identifier.getSlot()));
+        }
+        for (ASTNode child : node.getChildren()) {
+            collectAddresses(child, name, addresses);
+        }
+    }
+
+    private static void print(ASTNode root, ASTNode node, SymbolTableBuilder builder) {
+        if (node instanceof IdentifierNode) {
+            IdentifierNode identifier = (IdentifierNode) node;
+            String address;
+            if (!identifier.isResolved()) {
+                address = "unresolved";
+            } else if (identifier.getDepth() == IdentifierNode.BUILTIN) {
+                address = "builtin #" + identifier.getSlot();
+            } else {
+                address = String.format("depth %d, slot %d", identifier.getDepth(), identifier.getSlot());
+            }
+            System.out.println(String.format("  line %-3d %-10s %s", identifier.getLineNumber(), identifier.getName(), address));
+        }
+        if (node instanceof JinjaForNode) {
+            print(root, ((JinjaForNode) node).getIterable(), builder);
+        }
+        if (builder.getFrameSize(node) >= 0 && node != root) {
+            String owner = node instanceof JinjaForNode ? "{% for %}" : node.getNodeType();
+            System.out.println(String.format("  %s at line %d opens a frame of %d slots",
+                owner, node.getLineNumber(), builder.getFrameSize(node)));
+        }
+        for (ASTNode child : node.getChildren()) {
+            print(root, child, builder);
+        }
+        if (node instanceof ListLiteralNode) {
+            for (ExpressionNode element : ((ListLiteralNode) node).getElements()) {
+                print(root, element, builder);
+            }
+        } else if (node instanceof HTMLElementNode) {
+            for (List<ASTNode> parts : ((HTMLElementNode) node).getAttributeParts().values()) {
+                for (ASTNode part : parts) {
+                    print(root, part, builder);
+                }
+            }
+        }
+    }
+}
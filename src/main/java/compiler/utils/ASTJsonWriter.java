@@ -0,0 +1,66 @@
+package compiler.utils;
+
+import compiler.ast.core.ASTNode;
+
+/**
+ * Writes an AST as compact JSON: every node is
+ * {"type": ..., "name": ..., "line": ..., "children": [...]}, with "name"
+ * left out when empty and "children" when there are none.
+ */
+public class ASTJsonWriter {
+
+    public static String toJSON(ASTNode root) {
+        StringBuilder sb = new StringBuilder();
+        write(root, sb);
+        return sb.toString();
+    }
+
+    public static void write(ASTNode node, StringBuilder sb) {
+        if (node == null) {
+            sb.append("null");
+            return;
+        }
+
+        sb.append("{\"type\":");
+        quote(node.getNodeType(), sb);
+        String name = node.getName();
+        if (name != null && !name.isEmpty()) {
+            sb.append(",\"name\":");
+            quote(name, sb);
+        }
+        sb.append(",\"line\":").append(node.getLineNumber());
+
+        if (!node.getChildren().isEmpty()) {
+            sb.append(",\"children\":[");
+            boolean first = true;
+            for (ASTNode child : node.getChildren()) {
+                if (!first) sb.append(',');
+                write(child, sb);
+                first = false;
+            }
+            sb.append(']');
+        }
+        sb.append('}');
+    }
+
+    public static void quote(String str, StringBuilder sb) {
+        sb.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -61,7 +61,7 @@ public class ASTPrinter {
     }
 
 
-    private static int countNodes(ASTNode node) {
+    public static int countNodes(ASTNode node) {
         if (node == null) {
             return 0;
         }
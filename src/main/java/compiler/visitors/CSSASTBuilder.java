@@ -3,6 +3,11 @@ package compiler.visitors;
 import compiler.ast.css.*;
 import grammar.CSSParser;
 import grammar.CSSParserBaseVisitor;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.List;
 
 public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
     @Override
@@ -10,19 +15,12 @@ public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
         int line = ctx.start != null ? ctx.start.getLine() : 1;
         CSSStylesheetNode stylesheet = new CSSStylesheetNode(line);
 
-        // Process rule sets
-        for (CSSParser.RuleSetContext ruleSetCtx : ctx.ruleSet()) {
-            CSSRuleSetNode ruleSet = (CSSRuleSetNode) visit(ruleSetCtx);
-            if (ruleSet != null) {
-                stylesheet.addRuleSet(ruleSet);
-            }
-        }
-
-        // Process at-rules
-        for (CSSParser.AtRuleContext atRuleCtx : ctx.atRule()) {
-            CSSAtRuleNode atRule = (CSSAtRuleNode) visit(atRuleCtx);
-            if (atRule != null) {
-                stylesheet.addAtRule(atRule);
+        // Rule sets and at-rules in source order (children keep the cascade order)
+        for (ParseTree child : ctx.children) {
+            if (child instanceof CSSParser.RuleSetContext ruleSetCtx) {
+                stylesheet.addRuleSet((CSSRuleSetNode) visit(ruleSetCtx));
+            } else if (child instanceof CSSParser.AtRuleContext atRuleCtx) {
+                stylesheet.addAtRule((CSSAtRuleNode) visit(atRuleCtx));
             }
         }
 
@@ -44,11 +42,13 @@ public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
             }
         }
 
-        // Process nested rule sets (for @media, @supports, etc.)
-        for (CSSParser.RuleSetContext ruleSetCtx : ctx.ruleSet()) {
-            CSSRuleSetNode ruleSet = (CSSRuleSetNode) visit(ruleSetCtx);
-            if (ruleSet != null) {
-                atRule.addRuleSet(ruleSet);
+        // Process nested rule sets (for @media, @supports, etc.) and @keyframes steps
+        atRule.setHasBlock(ctx.LBRACE() != null);
+        for (ParseTree child : ctx.children) {
+            if (child instanceof CSSParser.RuleSetContext ruleSetCtx) {
+                atRule.addRuleSet((CSSRuleSetNode) visit(ruleSetCtx));
+            } else if (child instanceof CSSParser.KeyframeRuleContext keyframeCtx) {
+                atRule.addKeyframeRule((CSSKeyframeRuleNode) visit(keyframeCtx));
             }
         }
 
@@ -80,10 +80,26 @@ public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
         if (tokenBuilder.length() > 0) {
             prelude.addToken(tokenBuilder.toString());
         }
+        prelude.setSourceText(sourceText(ctx));
 
         return prelude;
     }
 
+    @Override
+    public CSSASTNode visitKeyframeRule(CSSParser.KeyframeRuleContext ctx) {
+        int line = ctx.start.getLine();
+        CSSKeyframeRuleNode keyframeRule = new CSSKeyframeRuleNode(line);
+
+        for (CSSParser.KeyframeSelectorContext selectorCtx : ctx.keyframeSelector()) {
+            keyframeRule.addKeyframeSelector(selectorCtx.getText());
+        }
+        for (CSSParser.DeclarationContext declCtx : ctx.declaration()) {
+            keyframeRule.addDeclaration((CSSDeclarationNode) visit(declCtx));
+        }
+
+        return keyframeRule;
+    }
+
     // ==================== RULE SETS ====================
 
     @Override
@@ -132,10 +148,7 @@ public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
 
         // Process simple selectors and combinators
         for (int i = 0; i < ctx.simpleSelector().size(); i++) {
-            CSSSimpleSelectorNode simpleSelector = (CSSSimpleSelectorNode) visit(ctx.simpleSelector(i));
-            if (simpleSelector != null) {
-                selector.addSimpleSelector(simpleSelector);
-            }
+            addCompoundSelectors(selector, ctx.simpleSelector(i));
 
             // Add combinator if it exists (between simple selectors)
             if (i < ctx.combinator().size()) {
@@ -149,6 +162,36 @@ public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
         return selector;
     }
 
+    // The lexer skips whitespace, so "div p" parses as one simpleSelector with two
+    // parts; split it wherever the source had a gap and join with descendant combinators
+    private void addCompoundSelectors(CSSSelectorNode selector, CSSParser.SimpleSelectorContext ctx) {
+        List<CSSParser.SelectorPartContext> parts = ctx.selectorPart();
+        CSSSimpleSelectorNode simpleSelector = new CSSSimpleSelectorNode(ctx.start.getLine());
+        for (int i = 0; i < parts.size(); i++) {
+            if (i > 0 && hasGapBefore(parts.get(i - 1), parts.get(i))) {
+                selector.addSimpleSelector(simpleSelector);
+                selector.addCombinator(new CSSCombinatorNode(
+                        CSSCombinatorNode.CombinatorType.DESCENDANT, parts.get(i).start.getLine()));
+                simpleSelector = new CSSSimpleSelectorNode(parts.get(i).start.getLine());
+            }
+            simpleSelector.addSelectorPart((CSSSelectorPartNode) visit(parts.get(i)));
+        }
+        selector.addSimpleSelector(simpleSelector);
+    }
+
+    // Whitespace or a comment between two sibling rules
+    private static boolean hasGapBefore(ParserRuleContext previous, ParserRuleContext next) {
+        return previous.stop != null && next.start.getStartIndex() > previous.stop.getStopIndex() + 1;
+    }
+
+    private static String sourceText(ParserRuleContext ctx) {
+        if (ctx.start == null || ctx.stop == null || ctx.stop.getStopIndex() < ctx.start.getStartIndex()) {
+            return "";
+        }
+        return ctx.start.getInputStream().getText(
+                Interval.of(ctx.start.getStartIndex(), ctx.stop.getStopIndex()));
+    }
+
     @Override
     public CSSASTNode visitSimpleSelector(CSSParser.SimpleSelectorContext ctx) {
         int line = ctx.start.getLine();
@@ -212,14 +255,14 @@ public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
     @Override
     public CSSASTNode visitPseudoClassSelector(CSSParser.PseudoClassSelectorContext ctx) {
         int line = ctx.start.getLine();
-        String pseudoClass = ctx.PSEUDO_CLASS().getText(); // e.g., ":hover"
+        String pseudoClass = ctx.PSEUDO_CLASS().getText().substring(1); // ":hover" -> "hover"
         return new CSSPseudoClassSelectorNode(pseudoClass, line);
     }
 
     @Override
     public CSSASTNode visitPseudoElementSelector(CSSParser.PseudoElementSelectorContext ctx) {
         int line = ctx.start.getLine();
-        String pseudoElement = ctx.PSEUDO_ELEMENT().getText(); // e.g., "::before"
+        String pseudoElement = ctx.PSEUDO_ELEMENT().getText().substring(2); // "::before" -> "before"
         return new CSSPseudoElementSelectorNode(pseudoElement, line);
     }
 
@@ -314,9 +357,12 @@ public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
         int line = ctx.start.getLine();
         CSSValueNode value = new CSSValueNode(line);
 
-        for (CSSParser.ValueComponentContext componentCtx : ctx.valueComponent()) {
+        List<CSSParser.ValueComponentContext> componentCtxs = ctx.valueComponent();
+        for (int i = 0; i < componentCtxs.size(); i++) {
+            CSSParser.ValueComponentContext componentCtx = componentCtxs.get(i);
             CSSValueComponentNode component = (CSSValueComponentNode) visit(componentCtx);
             if (component != null) {
+                component.setSpaceBefore(i > 0 && hasGapBefore(componentCtxs.get(i - 1), componentCtx));
                 // دمج الرقم مع الوحدة كمكون واحد
                 if (component instanceof CSSNumberValueNode numberNode) {
                     String combined = numberNode.getNumber();
@@ -324,6 +370,7 @@ public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
                         combined += numberNode.getUnit();
                     }
                     CSSNumberValueNode newNode = new CSSNumberValueNode(combined, null, numberNode.getLineNumber());
+                    newNode.setSpaceBefore(component.hasSpaceBefore());
                     value.addComponent(newNode);
                 } else {
                     value.addComponent(component);
@@ -371,7 +418,7 @@ public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
     @Override
     public CSSASTNode visitIdentifierValue(CSSParser.IdentifierValueContext ctx) {
         int line = ctx.start.getLine();
-        String identifier = ctx.IDENTIFIER().getText();
+        String identifier = ctx.getText();
         return new CSSIdentifierValueNode(identifier, line);
     }
 
@@ -479,6 +526,31 @@ public class CSSASTBuilder extends CSSParserBaseVisitor<CSSASTNode> {
         return new CSSPercentageExpressionNode(percentage, line);
     }
 
+    @Override
+    public CSSASTNode visitIdentifierExpr(CSSParser.IdentifierExprContext ctx) {
+        return new CSSIdentifierExpressionNode(ctx.getText(), ctx.start.getLine());
+    }
+
+    @Override
+    public CSSASTNode visitCssVarExpr(CSSParser.CssVarExprContext ctx) {
+        return new CSSIdentifierExpressionNode(ctx.CSS_VAR().getText(), ctx.start.getLine());
+    }
+
+    @Override
+    public CSSASTNode visitStringExpr(CSSParser.StringExprContext ctx) {
+        String stringValue = ctx.STRING().getText();
+        if (stringValue.length() >= 2) {
+            stringValue = stringValue.substring(1, stringValue.length() - 1);
+        }
+        return new CSSStringExpressionNode(stringValue, ctx.start.getLine());
+    }
+
+    @Override
+    public CSSASTNode visitFunctionExpr(CSSParser.FunctionExprContext ctx) {
+        CSSFunctionCallNode functionCall = (CSSFunctionCallNode) visit(ctx.functionCall());
+        return new CSSFunctionExpressionNode(functionCall, ctx.start.getLine());
+    }
+
     @Override
     public CSSASTNode visitParenExpr(CSSParser.ParenExprContext ctx) {
         int line = ctx.start.getLine();
@@ -0,0 +1,245 @@
+package compiler.visitors;
+
+import compiler.ast.core.ASTNode;
+import compiler.ast.core.ProgramNode;
+import compiler.ast.css.CSSAtRuleNode;
+import compiler.ast.css.CSSRuleSetNode;
+import compiler.ast.css.CSSStylesheetNode;
+import compiler.ast.jinjaHtml.HTMLTextNode;
+import grammar.CSSParser;
+import grammar.Jinja2Parser;
+import grammar.PythonParser;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Builds the AST while the parser runs instead of from a finished parse tree.
+ *
+ * Installed as a parse listener, it hands every top-level rule (a Python
+ * statement, a CSS rule set or at-rule, a template content item) to the
+ * usual builder as soon as the rule exits, then unlinks that subtree from
+ * the root context. The parse tree held at any time is the top-level rule
+ * being parsed, not the whole file. Template content items nested in
+ * elements and control blocks are built and unlinked the same way, since
+ * the Jinja2 builder keeps no state between them.
+ *
+ * The AST is the one the builder's visitor produces from the full tree:
+ * the root is assembled exactly as visitFile_input / visitTemplateNode /
+ * visitStylesheet would, from the same units in the same order.
+ *
+ * Example:
+ *   DirectASTBuilder<ProgramNode> builder = DirectASTBuilder.python(parser);
+ *   TwoStageParser.parse(parser, ParseMode.SLL_THEN_LL, PythonParser::file_input);
+ *   builder.detach();
+ *   ProgramNode ast = builder.getResult();
+ *
+ * Building stops at the first syntax error; the result is then null. A
+ * restart of the parser (the LL stage of TwoStageParser) starts over.
+ */
+public abstract class DirectASTBuilder<T extends ASTNode> implements ParseTreeListener {
+
+    private final Parser parser;
+    private T result;
+    private boolean stopped;
+    private RuntimeException failure;
+
+    protected DirectASTBuilder(Parser parser) {
+        this.parser = parser;
+        parser.addParseListener(this);
+    }
+
+    public static DirectASTBuilder<ProgramNode> python(PythonParser parser) {
+        return new PythonBuilder(parser);
+    }
+
+    public static DirectASTBuilder<ProgramNode> jinja2(Jinja2Parser parser) {
+        return new Jinja2Builder(parser);
+    }
+
+    public static DirectASTBuilder<CSSStylesheetNode> css(CSSParser parser) {
+        return new CSSBuilder(parser);
+    }
+
+    // Stops listening; call once parsing is over, also when it threw
+    public void detach() {
+        parser.removeParseListener(this);
+    }
+
+    // The AST, or null if a syntax error stopped the build; rethrows what the builder threw
+    public T getResult() {
+        if (failure != null) {
+            throw failure;
+        }
+        return stopped ? null : result;
+    }
+
+    // A new parse of the start rule: fresh builder state and root node
+    protected abstract T start(ParserRuleContext root);
+
+    // A rule directly under the root has been parsed
+    protected abstract void topLevel(T result, ParserRuleContext ctx);
+
+    // A token directly under the root has been matched
+    protected void topLevelToken(T result, TerminalNode node) {
+    }
+
+    // Any other rule has been parsed; true if it was built and its children can be dropped
+    protected boolean nested(ParserRuleContext ctx) {
+        return false;
+    }
+
+    // ==================== LISTENER ====================
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        if (ctx.getParent() == null) {
+            stopped = false;
+            failure = null;
+            result = start(ctx);
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        if (ctx.getParent() == null || !building()) {
+            return;
+        }
+        ParserRuleContext parent = ctx.getParent();
+        try {
+            if (parent.getParent() == null) {
+                topLevel(result, ctx);
+                detach(parent, ctx);
+            } else if (nested(ctx)) {
+                ctx.children = null;
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+            stopped = true;
+        }
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+        ParserRuleContext parent = (ParserRuleContext) node.getParent();
+        if (parent.getParent() == null && building()) {
+            topLevelToken(result, node);
+            detach(parent, node);
+        }
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+        stopped = true;
+    }
+
+    private boolean building() {
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            stopped = true;
+        }
+        return !stopped;
+    }
+
+    // The child just added is normally last; recovery can add error nodes unannounced
+    private static void detach(ParserRuleContext parent, ParseTree child) {
+        if (parent.children == null) {
+            return;
+        }
+        int last = parent.children.size() - 1;
+        if (last >= 0 && parent.children.get(last) == child) {
+            parent.removeLastChild();
+        } else {
+            parent.children.remove(child);
+        }
+    }
+
+    // ==================== LANGUAGES ====================
+
+    private static class PythonBuilder extends DirectASTBuilder<ProgramNode> {
+        private SimplePythonASTBuilder builder;
+
+        PythonBuilder(PythonParser parser) {
+            super(parser);
+        }
+
+        @Override
+        protected ProgramNode start(ParserRuleContext root) {
+            builder = new SimplePythonASTBuilder();
+            return new ProgramNode(root.start != null ? root.start.getLine() : 1);
+        }
+
+        @Override
+        protected void topLevel(ProgramNode program, ParserRuleContext ctx) {
+            if (ctx instanceof PythonParser.StmtContext stmt) {
+                builder.addStatement(program, stmt);
+            }
+        }
+    }
+
+    private static class Jinja2Builder extends DirectASTBuilder<ProgramNode> {
+        private SimpleJinja2ASTBuilder builder;
+
+        Jinja2Builder(Jinja2Parser parser) {
+            super(parser);
+        }
+
+        @Override
+        protected ProgramNode start(ParserRuleContext root) {
+            builder = new SimpleJinja2ASTBuilder();
+            return new ProgramNode(root.start != null ? root.start.getLine() : 1);
+        }
+
+        @Override
+        protected void topLevel(ProgramNode program, ParserRuleContext ctx) {
+            if (ctx instanceof Jinja2Parser.ContentContext) {
+                ASTNode child = builder.visit(ctx);
+                if (child != null) {
+                    program.addChild(child);
+                }
+            }
+        }
+
+        // Kept as text so the template can be rendered back in full
+        @Override
+        protected void topLevelToken(ProgramNode program, TerminalNode node) {
+            if (node.getSymbol().getType() == Jinja2Parser.HTML_DOCTYPE) {
+                program.addChild(new HTMLTextNode(node.getText(), node.getSymbol().getLine()));
+            }
+        }
+
+        @Override
+        protected boolean nested(ParserRuleContext ctx) {
+            if (ctx instanceof Jinja2Parser.ContentContext || ctx instanceof Jinja2Parser.HtmlContentContext) {
+                builder.prebuild(ctx);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static class CSSBuilder extends DirectASTBuilder<CSSStylesheetNode> {
+        private CSSASTBuilder builder;
+
+        CSSBuilder(CSSParser parser) {
+            super(parser);
+        }
+
+        @Override
+        protected CSSStylesheetNode start(ParserRuleContext root) {
+            builder = new CSSASTBuilder();
+            return new CSSStylesheetNode(root.start != null ? root.start.getLine() : 1);
+        }
+
+        @Override
+        protected void topLevel(CSSStylesheetNode stylesheet, ParserRuleContext ctx) {
+            if (ctx instanceof CSSParser.RuleSetContext) {
+                stylesheet.addRuleSet((CSSRuleSetNode) builder.visit(ctx));
+            } else if (ctx instanceof CSSParser.AtRuleContext) {
+                stylesheet.addAtRule((CSSAtRuleNode) builder.visit(ctx));
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package compiler.visitors;
+
+import compiler.ast.core.ExpressionNode;
+import compiler.ast.core.expressions.IdentifierNode;
+import compiler.ast.core.expressions.MemberAccessNode;
+import compiler.ast.core.expressions.NumberLiteralNode;
+import compiler.ast.core.expressions.StringLiteralNode;
+import compiler.ast.jinjaHtml.JinjaFilterNode;
+import compiler.ast.python.BinaryOpNode;
+import compiler.ast.python.BooleanLiteralNode;
+import compiler.ast.python.ComparisonNode;
+import compiler.ast.python.DictionaryLiteralNode;
+import compiler.ast.python.FunctionCallNode;
+import compiler.ast.python.IndexAccessNode;
+import compiler.ast.python.ListLiteralNode;
+import compiler.ast.python.NoneLiteralNode;
+import compiler.ast.python.UnaryOpNode;
+import grammar.Jinja2Parser;
+import grammar.Jinja2ParserBaseVisitor;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds expression nodes from jinjaExpression, the one expression rule shared by
+ * {{ }}, {% %} and {{ }} inside attribute values. Operator precedence is settled
+ * by the grammar, so each alternative maps to a node directly.
+ */
+public class Jinja2ExpressionBuilder extends Jinja2ParserBaseVisitor<ExpressionNode> {
+
+    public ExpressionNode build(Jinja2Parser.JinjaExpressionContext ctx) {
+        return ctx != null ? visit(ctx) : null;
+    }
+
+    public List<ExpressionNode> build(List<Jinja2Parser.JinjaExpressionContext> contexts) {
+        List<ExpressionNode> result = new ArrayList<>();
+        for (Jinja2Parser.JinjaExpressionContext ctx : contexts) {
+            result.add(build(ctx));
+        }
+        return result;
+    }
+
+    // Arguments of a call, list literal or filter; empty when there are none
+    public List<ExpressionNode> arguments(Jinja2Parser.JinjaArgListContext ctx) {
+        return ctx != null ? build(ctx.jinjaExpression()) : new ArrayList<>();
+    }
+
+    private static int line(ParserRuleContext ctx) {
+        return ctx.start != null ? ctx.start.getLine() : 1;
+    }
+
+    @Override
+    public ExpressionNode visitJinjaMemberAccessExpr(Jinja2Parser.JinjaMemberAccessExprContext ctx) {
+        return new MemberAccessNode(build(ctx.jinjaExpression()), ctx.JINJA_IDENTIFIER().getText(), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaIndexAccessExpr(Jinja2Parser.JinjaIndexAccessExprContext ctx) {
+        return new IndexAccessNode(build(ctx.jinjaExpression(0)), build(ctx.jinjaExpression(1)), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaFilterExpr(Jinja2Parser.JinjaFilterExprContext ctx) {
+        return new JinjaFilterNode(build(ctx.jinjaExpression()), ctx.JINJA_IDENTIFIER().getText(),
+            arguments(ctx.jinjaArgList()), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaPowerExpr(Jinja2Parser.JinjaPowerExprContext ctx) {
+        return new BinaryOpNode("**", build(ctx.jinjaExpression(0)), build(ctx.jinjaExpression(1)), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaUnaryExpr(Jinja2Parser.JinjaUnaryExprContext ctx) {
+        return new UnaryOpNode(ctx.op.getText(), build(ctx.jinjaExpression()), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaMultiplicativeExpr(Jinja2Parser.JinjaMultiplicativeExprContext ctx) {
+        return new BinaryOpNode(ctx.op.getText(), build(ctx.jinjaExpression(0)), build(ctx.jinjaExpression(1)), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaAdditiveExpr(Jinja2Parser.JinjaAdditiveExprContext ctx) {
+        return new BinaryOpNode(ctx.op.getText(), build(ctx.jinjaExpression(0)), build(ctx.jinjaExpression(1)), line(ctx));
+    }
+
+    // `x is defined`: the test name is the right operand (wrapped in `not` for `is not`)
+    @Override
+    public ExpressionNode visitJinjaComparisonExpr(Jinja2Parser.JinjaComparisonExprContext ctx) {
+        return new ComparisonNode(ctx.op.getText(), build(ctx.jinjaExpression(0)), build(ctx.jinjaExpression(1)), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaNotExpr(Jinja2Parser.JinjaNotExprContext ctx) {
+        return new UnaryOpNode("not", build(ctx.jinjaExpression()), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaAndExpr(Jinja2Parser.JinjaAndExprContext ctx) {
+        return new BinaryOpNode("and", build(ctx.jinjaExpression(0)), build(ctx.jinjaExpression(1)), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaOrExpr(Jinja2Parser.JinjaOrExprContext ctx) {
+        return new BinaryOpNode("or", build(ctx.jinjaExpression(0)), build(ctx.jinjaExpression(1)), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaFunctionCallExpr(Jinja2Parser.JinjaFunctionCallExprContext ctx) {
+        IdentifierNode function = new IdentifierNode(ctx.JINJA_IDENTIFIER().getText(), line(ctx));
+        return new FunctionCallNode(function, arguments(ctx.jinjaArgList()), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaListExpr(Jinja2Parser.JinjaListExprContext ctx) {
+        return new ListLiteralNode(arguments(ctx.jinjaArgList()), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaDictExpr(Jinja2Parser.JinjaDictExprContext ctx) {
+        Map<ExpressionNode, ExpressionNode> entries = new LinkedHashMap<>();
+        if (ctx.jinjaDictItems() != null) {
+            for (Jinja2Parser.JinjaDictItemContext item : ctx.jinjaDictItems().jinjaDictItem()) {
+                entries.put(build(item.jinjaExpression(0)), build(item.jinjaExpression(1)));
+            }
+        }
+        return new DictionaryLiteralNode(entries, line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaParenExpr(Jinja2Parser.JinjaParenExprContext ctx) {
+        return build(ctx.jinjaExpression());
+    }
+
+    @Override
+    public ExpressionNode visitJinjaNumberExpr(Jinja2Parser.JinjaNumberExprContext ctx) {
+        return new NumberLiteralNode(Double.parseDouble(ctx.JINJA_NUMBER().getText()), line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaStringExpr(Jinja2Parser.JinjaStringExprContext ctx) {
+        String text = ctx.JINJA_STRING().getText();
+        // Remove quotes
+        return new StringLiteralNode(text.length() >= 2 ? text.substring(1, text.length() - 1) : text, line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaTrueExpr(Jinja2Parser.JinjaTrueExprContext ctx) {
+        return new BooleanLiteralNode(true, line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaFalseExpr(Jinja2Parser.JinjaFalseExprContext ctx) {
+        return new BooleanLiteralNode(false, line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaNoneExpr(Jinja2Parser.JinjaNoneExprContext ctx) {
+        return new NoneLiteralNode(line(ctx));
+    }
+
+    @Override
+    public ExpressionNode visitJinjaIdentifierExpr(Jinja2Parser.JinjaIdentifierExprContext ctx) {
+        return new IdentifierNode(ctx.JINJA_IDENTIFIER().getText(), line(ctx));
+    }
+}
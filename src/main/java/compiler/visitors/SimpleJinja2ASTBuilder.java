@@ -5,14 +5,15 @@ import compiler.ast.core.BlockNode;
 import compiler.ast.core.ExpressionNode;
 import compiler.ast.core.ProgramNode;
 import compiler.ast.jinjaHtml.*;
-import compiler.ast.core.expressions.IdentifierNode;
-import compiler.ast.core.expressions.MemberAccessNode;
-import compiler.ast.core.expressions.NumberLiteralNode;
-import compiler.ast.core.expressions.StringLiteralNode;
 import grammar.*;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Simplified Jinja2 AST Builder - compiles successfully with basic functionality
@@ -20,12 +21,36 @@ import java.util.List;
  */
 public class SimpleJinja2ASTBuilder extends Jinja2ParserBaseVisitor<ASTNode> {
 
+    // Content items already built while parsing (DirectASTBuilder), taken instead of visited again
+    private final Map<ParseTree, ASTNode> prebuilt = new IdentityHashMap<>();
+
+    // Expressions are the same in {{ }}, {% %} and attribute values
+    private final Jinja2ExpressionBuilder expressionBuilder = new Jinja2ExpressionBuilder();
+
+    @Override
+    public ASTNode visit(ParseTree tree) {
+        if (!prebuilt.isEmpty() && prebuilt.containsKey(tree)) {
+            return prebuilt.remove(tree);
+        }
+        return super.visit(tree);
+    }
+
+    // Builds a content item as soon as it is parsed; the caller may then drop its subtree
+    void prebuild(ParserRuleContext ctx) {
+        prebuilt.put(ctx, visit(ctx));
+    }
+
     @Override
     public ASTNode visitTemplateNode(Jinja2Parser.TemplateNodeContext ctx) {
         int lineNumber = ctx.start != null ? ctx.start.getLine() : 1;
 
         ProgramNode program = new ProgramNode(lineNumber);
 
+        // Kept as text so the template can be rendered back in full
+        if (ctx.HTML_DOCTYPE() != null) {
+            program.addChild(new HTMLTextNode(ctx.HTML_DOCTYPE().getText(), ctx.HTML_DOCTYPE().getSymbol().getLine()));
+        }
+
         if (ctx.content() != null) {
             for (Jinja2Parser.ContentContext contentCtx : ctx.content()) {
                 ASTNode child = visit(contentCtx);
@@ -65,22 +90,43 @@ public class SimpleJinja2ASTBuilder extends Jinja2ParserBaseVisitor<ASTNode> {
         return container;
     }
 
-    private ExpressionNode buildExpression(ASTNode node) {
-        if (node instanceof ExpressionNode) return (ExpressionNode) node;
-        return null; // fallback
+    private ExpressionNode expression(Jinja2Parser.JinjaExpressionContext ctx) {
+        return expressionBuilder.build(ctx);
+    }
+
+    private static int line(ParserRuleContext ctx) {
+        return ctx.start != null ? ctx.start.getLine() : 1;
+    }
+
+    // Content items lying strictly between two clause tokens ({% elif %}, {% else %}, ...)
+    private List<ASTNode> contentBetween(List<Jinja2Parser.ContentContext> contents, int fromToken, int toToken) {
+        List<ASTNode> nodes = new ArrayList<>();
+        for (Jinja2Parser.ContentContext contentCtx : contents) {
+            int index = contentCtx.start.getTokenIndex();
+            if (index > fromToken && index < toToken) {
+                ASTNode child = visit(contentCtx);
+                if (child != null) {
+                    nodes.add(child);
+                }
+            }
+        }
+        return nodes;
     }
 
 
     @Override
     public ASTNode visitHtmlTextContent(Jinja2Parser.HtmlTextContentContext ctx) {
-        int lineNumber = ctx.start != null ? ctx.start.getLine() : 1;
-        String text = ctx.HTML_TEXT() != null ? ctx.HTML_TEXT().getText() : "";
+        return ctx.HTML_TEXT() != null ? textNode(ctx.HTML_TEXT()) : null;
+    }
 
-        // Skip whitespace-only text
-        if (!text.trim().isEmpty()) {
-            return new HTMLTextNode(text, lineNumber);
+    // Whitespace-only runs spanning lines (indentation between tags) collapse to one space; dropping
+    // them would glue inline content together, e.g. <b>A</b>\n<i>B</i> rendering as "AB"
+    private HTMLTextNode textNode(TerminalNode textToken) {
+        String text = textToken.getText();
+        if (text.trim().isEmpty() && text.indexOf('\n') >= 0) {
+            text = " ";
         }
-        return null;
+        return new HTMLTextNode(text, textToken.getSymbol().getLine());
     }
 
     @Override
@@ -123,6 +169,34 @@ public class SimpleJinja2ASTBuilder extends Jinja2ParserBaseVisitor<ASTNode> {
 
         // Create the HTML element node
         HTMLElementNode htmlElement = new HTMLElementNode(tagName, attributes, selfClosing, lineNumber);
+        if (ctx.htmlCloseTag() != null) {
+            htmlElement.setClosingTagName(ctx.htmlCloseTag().tag.getText());
+        }
+
+        // Attribute values with {{ }} inside are also kept as text / variable parts
+        for (Jinja2Parser.HtmlAttributeContext attrCtx : ctx.htmlAttribute()) {
+            Jinja2Parser.AttrValueContext valueCtx = attrCtx.attrValue();
+            if (valueCtx == null || attrCtx.HTML_TAG_NAME() == null) {
+                continue;
+            }
+            List<ParseTree> valueParts = new ArrayList<>();
+            valueParts.addAll(valueCtx.attrValueDQContent());
+            valueParts.addAll(valueCtx.attrValueSQContent());
+            if (valueParts.stream().noneMatch(part -> part.getChild(0) instanceof Jinja2Parser.JinjaInAttrContext)) {
+                continue;
+            }
+            List<ASTNode> parts = new ArrayList<>();
+            for (ParseTree part : valueParts) {
+                ParseTree child = part.getChild(0);
+                if (child instanceof Jinja2Parser.JinjaInAttrContext) {
+                    parts.add(visit(child));
+                } else {
+                    TerminalNode text = (TerminalNode) child;
+                    parts.add(new HTMLTextNode(text.getText(), text.getSymbol().getLine()));
+                }
+            }
+            htmlElement.setAttributeParts(attrCtx.HTML_TAG_NAME().getText(), parts);
+        }
 
         // Process all nested content
         if (ctx.htmlContent() != null) {
@@ -139,10 +213,25 @@ public class SimpleJinja2ASTBuilder extends Jinja2ParserBaseVisitor<ASTNode> {
 
     @Override
     public ASTNode visitHtmlContent(Jinja2Parser.HtmlContentContext ctx) {
+        // Text inside an element is a bare token, which visitChildren would drop
+        if (ctx.HTML_TEXT() != null) {
+            return textNode(ctx.HTML_TEXT());
+        }
         // HtmlContent is a wrapper around different content types, just process the child
         return visitChildren(ctx);
     }
 
+    // <style> and <script> bodies are not parsed further; keep them as raw text
+    @Override
+    public ASTNode visitHtmlStyleTag(Jinja2Parser.HtmlStyleTagContext ctx) {
+        return new HTMLTextNode(ctx.getText(), line(ctx));
+    }
+
+    @Override
+    public ASTNode visitHtmlScriptTag(Jinja2Parser.HtmlScriptTagContext ctx) {
+        return new HTMLTextNode(ctx.getText(), line(ctx));
+    }
+
     @Override
     public ASTNode visitJinjaVarContent(Jinja2Parser.JinjaVarContentContext ctx) {
         if (ctx.jinjaVar() != null) {
@@ -189,50 +278,27 @@ public class SimpleJinja2ASTBuilder extends Jinja2ParserBaseVisitor<ASTNode> {
 
     @Override
     public ASTNode visitJinjaVar(Jinja2Parser.JinjaVarContext ctx) {
-        int lineNumber = ctx.start != null ? ctx.start.getLine() : 1;
-
-        // Get the expression
-        ExpressionNode expr = null;
-        if (ctx.jinjaExpression() != null) {
-            ASTNode exprNode = visit(ctx.jinjaExpression());
-            if (exprNode instanceof ExpressionNode) {
-                expr = (ExpressionNode) exprNode;
-            }
-        }
-
-        // Get filters
-        List<String> filters = new ArrayList<>();
-        if (ctx.jinjaFilter() != null) {
-            for (Jinja2Parser.JinjaFilterContext filterCtx : ctx.jinjaFilter()) {
-                if (filterCtx.JINJA_VAR_IDENTIFIER() != null) {
-                    filters.add(filterCtx.JINJA_VAR_IDENTIFIER().getText());
-                }
-            }
-        }
-
-        return new Jinja2VarNode(expr, filters, lineNumber);
-    }
-
-    @Override
-    public ASTNode visitJinjaIdentifierExpr(Jinja2Parser.JinjaIdentifierExprContext ctx) {
-        String name = ctx.JINJA_VAR_IDENTIFIER() != null ? ctx.JINJA_VAR_IDENTIFIER().getText() : "";
-        return new IdentifierNode(name, ctx.start.getLine());
+        return output(ctx.jinjaExpression(), line(ctx));
     }
 
-
     @Override
-    public ASTNode visitJinjaNumberExpr(Jinja2Parser.JinjaNumberExprContext ctx) {
-        double value = ctx.JINJA_VAR_NUMBER() != null ? Double.parseDouble(ctx.JINJA_VAR_NUMBER().getText()) : 0;
-        return new NumberLiteralNode(value, ctx.start.getLine());
+    public ASTNode visitJinjaInAttr(Jinja2Parser.JinjaInAttrContext ctx) {
+        return output(ctx.jinjaExpression(), line(ctx));
     }
 
-    @Override
-    public ASTNode visitJinjaStringExpr(Jinja2Parser.JinjaStringExprContext ctx) {
-        int lineNumber = ctx.start != null ? ctx.start.getLine() : 1;
-        String text = ctx.JINJA_VAR_STRING() != null ? ctx.JINJA_VAR_STRING().getText() : "";
-        // Remove quotes
-        String value = text.length() > 2 ? text.substring(1, text.length() - 1) : text;
-        return new StringLiteralNode(value, lineNumber);
+    // An expression and its outermost filters, wherever the {{ }} appears. Filters
+    // nested inside an operand ({{ a + b | round }}) stay part of the expression.
+    private Jinja2VarNode output(Jinja2Parser.JinjaExpressionContext ctx, int lineNumber) {
+        ExpressionNode expression = expression(ctx);
+        List<String> filters = new ArrayList<>();
+        List<List<ExpressionNode>> filterArguments = new ArrayList<>();
+        while (expression instanceof JinjaFilterNode) {
+            JinjaFilterNode filter = (JinjaFilterNode) expression;
+            filters.add(0, filter.getFilterName());
+            filterArguments.add(0, filter.getArguments());
+            expression = filter.getOperand();
+        }
+        return new Jinja2VarNode(expression, filters, filterArguments, lineNumber);
     }
 
     // Note: visitTemplate is not in base visitor because grammar labels it as #TemplateNode
@@ -242,99 +308,51 @@ public class SimpleJinja2ASTBuilder extends Jinja2ParserBaseVisitor<ASTNode> {
     }
 
 
-    @Override
-    public ASTNode visitJinjaMemberAccessExpr(Jinja2Parser.JinjaMemberAccessExprContext ctx) {
-        int lineNumber = ctx.start != null ? ctx.start.getLine() : 1;
-
-        ExpressionNode object = null;
-        if (ctx.jinjaExpression() != null) {
-            ASTNode objNode = visit(ctx.jinjaExpression());
-            if (objNode instanceof ExpressionNode) {
-                object = (ExpressionNode) objNode;
-            }
-        }
-
-        String memberName = ctx.JINJA_VAR_IDENTIFIER() != null ? ctx.JINJA_VAR_IDENTIFIER().getText() : "";
-        return new MemberAccessNode(object, memberName, lineNumber);
-    }
-
-    // Jinja Statement Expression Visitors (for control structures)
-    @Override
-    public ASTNode visitJinjaStmtIdentifierExpr(Jinja2Parser.JinjaStmtIdentifierExprContext ctx) {
-        int lineNumber = ctx.start != null ? ctx.start.getLine() : 1;
-        String name = ctx.JINJA_STMT_IDENTIFIER() != null ? ctx.JINJA_STMT_IDENTIFIER().getText() : "";
-        return new IdentifierNode(name, lineNumber);
-    }
-
-    @Override
-    public ASTNode visitJinjaStmtStringExpr(Jinja2Parser.JinjaStmtStringExprContext ctx) {
-        int lineNumber = ctx.start != null ? ctx.start.getLine() : 1;
-        String text = ctx.JINJA_STMT_STRING() != null ? ctx.JINJA_STMT_STRING().getText() : "";
-        // Remove quotes
-        String value = text.length() > 2 ? text.substring(1, text.length() - 1) : text;
-        return new StringLiteralNode(value, lineNumber);
-    }
-
-    @Override
-    public ASTNode visitJinjaStmtMemberAccessExpr(Jinja2Parser.JinjaStmtMemberAccessExprContext ctx) {
-        int lineNumber = ctx.start != null ? ctx.start.getLine() : 1;
-
-        ExpressionNode object = null;
-        if (ctx.jinjaStmtExpression() != null) {
-            ASTNode objNode = visit(ctx.jinjaStmtExpression());
-            if (objNode instanceof ExpressionNode) {
-                object = (ExpressionNode) objNode;
-            }
-        }
-
-        String memberName = ctx.JINJA_STMT_IDENTIFIER() != null ? ctx.JINJA_STMT_IDENTIFIER().getText() : "";
-        return new MemberAccessNode(object, memberName, lineNumber);
-    }
-
     // Jinja If/For/Block Implementations
     @Override
     public ASTNode visitJinjaIfStmt(Jinja2Parser.JinjaIfStmtContext ctx) {
         int lineNumber = ctx.start != null ? ctx.start.getLine() : 1;
-
-        // Get condition
-        ExpressionNode condition = null;
-        if (ctx.jinjaStmtExpression() != null && !ctx.jinjaStmtExpression().isEmpty()) {
-            ASTNode condNode = visit(ctx.jinjaStmtExpression(0));
-            if (condNode instanceof ExpressionNode) {
-                condition = (ExpressionNode) condNode;
-            }
+        JinjaIfNode ifNode = new JinjaIfNode(lineNumber);
+
+        // Each {% ... %} tag of this if opens a clause: if, elif..., else?, endif
+        List<TerminalNode> clauseOpens = ctx.JINJA_STMT_OPEN();
+        int branchCount = ctx.jinjaExpression().size();
+        for (int i = 0; i < branchCount; i++) {
+            ExpressionNode condition = expression(ctx.jinjaExpression(i));
+            List<ASTNode> body = contentBetween(ctx.content(),
+                clauseOpens.get(i).getSymbol().getTokenIndex(),
+                clauseOpens.get(i + 1).getSymbol().getTokenIndex());
+            ifNode.addBranch(condition, body);
         }
-
-        // Collect body content
-        List<ASTNode> thenBlock = new ArrayList<>();
-        if (ctx.content() != null) {
-            for (Jinja2Parser.ContentContext contentCtx : ctx.content()) {
-                ASTNode child = visit(contentCtx);
-                if (child != null) {
-                    thenBlock.add(child);
-                }
-            }
+        if (ctx.JINJA_STMT_ELSE() != null) {
+            ifNode.setElseBody(contentBetween(ctx.content(),
+                clauseOpens.get(branchCount).getSymbol().getTokenIndex(),
+                clauseOpens.get(branchCount + 1).getSymbol().getTokenIndex()));
         }
 
-        // Create if node with empty else block for now
-        return new JinjaIfNode(lineNumber);
+        return ifNode;
     }
 
     @Override
     public ASTNode visitJinjaForStmt(Jinja2Parser.JinjaForStmtContext ctx) {
-        String target = ctx.jinjaStmtTarget().JINJA_STMT_IDENTIFIER(0).getText();
-        ExpressionNode iterable = buildExpression(visit(ctx.jinjaStmtExpression()));
-
-        JinjaForNode forNode = new JinjaForNode(target, iterable, ctx.start.getLine());
-
-        List<ASTNode> body = new ArrayList<>();
-        if (ctx.content() != null) {
-            for (Jinja2Parser.ContentContext contentCtx : ctx.content()) {
-                ASTNode child = visit(contentCtx);
-                if (child != null) body.add(child);
-            }
+        List<String> targets = new ArrayList<>();
+        for (TerminalNode target : ctx.jinjaStmtTarget().JINJA_IDENTIFIER()) {
+            targets.add(target.getText());
+        }
+        ExpressionNode iterable = expression(ctx.jinjaExpression());
+
+        JinjaForNode forNode = new JinjaForNode(targets, iterable, ctx.start.getLine());
+
+        // for, else?, endfor
+        List<TerminalNode> clauseOpens = ctx.JINJA_STMT_OPEN();
+        forNode.setBody(contentBetween(ctx.content(),
+            clauseOpens.get(0).getSymbol().getTokenIndex(),
+            clauseOpens.get(1).getSymbol().getTokenIndex()));
+        if (ctx.JINJA_STMT_ELSE() != null) {
+            forNode.setElseBody(contentBetween(ctx.content(),
+                clauseOpens.get(1).getSymbol().getTokenIndex(),
+                clauseOpens.get(2).getSymbol().getTokenIndex()));
         }
-        forNode.setBody(body);
         return forNode;
     }
 
@@ -347,8 +365,8 @@ public class SimpleJinja2ASTBuilder extends Jinja2ParserBaseVisitor<ASTNode> {
 
         // Get block name
         String blockName = "";
-        if (ctx.JINJA_STMT_IDENTIFIER() != null && !ctx.JINJA_STMT_IDENTIFIER().isEmpty()) {
-            blockName = ctx.JINJA_STMT_IDENTIFIER(0).getText();
+        if (ctx.JINJA_IDENTIFIER() != null && !ctx.JINJA_IDENTIFIER().isEmpty()) {
+            blockName = ctx.JINJA_IDENTIFIER(0).getText();
         }
 
         // Collect block content
@@ -395,17 +413,16 @@ public class SimpleJinja2ASTBuilder extends Jinja2ParserBaseVisitor<ASTNode> {
     public ASTNode visitJinjaExtends(Jinja2Parser.JinjaExtendsContext ctx) {
         int lineNumber = ctx.start != null ? ctx.start.getLine() : 1;
 
-        // Get template name
-        String templateName = "";
-        if (ctx.JINJA_STMT_STRING() != null) {
-            String text = ctx.JINJA_STMT_STRING().getText();
-            // Remove quotes
-            templateName = text.length() > 2 ? text.substring(1, text.length() - 1) : text;
-        }
+        return new JinjaExtendsNode(templateName(ctx.JINJA_STRING()), lineNumber);
+    }
 
-        // Use StringLiteralNode to represent extends template name
-        // Prefix with "extends:" to distinguish it
-        return new StringLiteralNode("extends:" + templateName, lineNumber);
+    // Example: "\"base.html\"" -> "base.html"
+    private static String templateName(TerminalNode string) {
+        if (string == null) {
+            return "";
+        }
+        String text = string.getText();
+        return text.length() >= 2 ? text.substring(1, text.length() - 1) : text;
     }
 
     // Other Jinja control structures (stub implementations for now)
@@ -419,16 +436,23 @@ public class SimpleJinja2ASTBuilder extends Jinja2ParserBaseVisitor<ASTNode> {
 
     @Override
     public ASTNode visitJinjaIncludeControl(Jinja2Parser.JinjaIncludeControlContext ctx) {
-        // TODO: Implement include
-        return null;
+        Jinja2Parser.JinjaIncludeContext include = ctx.jinjaInclude();
+        return new JinjaIncludeNode(templateName(include.JINJA_STRING()), line(include));
     }
 
     @Override
     public ASTNode visitJinjaSetControl(Jinja2Parser.JinjaSetControlContext ctx) {
-        // TODO: Implement set
+        if (ctx.jinjaSet() != null) {
+            return visit(ctx.jinjaSet());
+        }
         return null;
     }
 
+    @Override
+    public ASTNode visitJinjaSet(Jinja2Parser.JinjaSetContext ctx) {
+        return new JinjaSetNode(ctx.JINJA_IDENTIFIER().getText(), expression(ctx.jinjaExpression()), line(ctx));
+    }
+
     @Override
     public ASTNode visitJinjaMacroControl(Jinja2Parser.JinjaMacroControlContext ctx) {
         // TODO: Implement macro
@@ -461,8 +485,9 @@ public class SimpleJinja2ASTBuilder extends Jinja2ParserBaseVisitor<ASTNode> {
 
     @Override
     public ASTNode visitJinjaImportControl(Jinja2Parser.JinjaImportControlContext ctx) {
-        // TODO: Implement import
-        return null;
+        Jinja2Parser.JinjaImportContext jinjaImport = ctx.jinjaImport();
+        return new JinjaImportNode(templateName(jinjaImport.JINJA_STRING()),
+            jinjaImport.JINJA_IDENTIFIER().getText(), jinjaImport.JINJA_STMT_FROM() != null, line(jinjaImport));
     }
 
     @Override
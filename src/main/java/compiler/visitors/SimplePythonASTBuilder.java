@@ -24,12 +24,29 @@ public class SimplePythonASTBuilder extends PythonParserBaseVisitor<ASTNode> {
     public ASTNode visitFile_input(PythonParser.File_inputContext ctx) {
         ProgramNode program = new ProgramNode(ctx.start != null ? ctx.start.getLine() : 1);
         for (PythonParser.StmtContext stmt : ctx.stmt()) {
-            ASTNode node = visit(stmt);
-            if (node != null) program.addChild(node);
+            addStatement(program, stmt);
         }
         return program;
     }
 
+    // A simple_stmt line may hold several ';'-separated statements; its last child is
+    // the NEWLINE, so the default visitChildren() would return null for it
+    void addStatement(ProgramNode block, PythonParser.StmtContext stmt) {
+        if (stmt.simple_stmt() != null) {
+            addSimpleStatements(block, stmt.simple_stmt());
+            return;
+        }
+        ASTNode node = visit(stmt);
+        if (node != null) block.addChild(node);
+    }
+
+    private void addSimpleStatements(ProgramNode block, PythonParser.Simple_stmtContext ctx) {
+        for (PythonParser.Small_stmtContext small : ctx.small_stmt()) {
+            ASTNode node = visit(small);
+            if (node != null) block.addChild(node);
+        }
+    }
+
     @Override
     public ASTNode visitAssignmentStmt(PythonParser.AssignmentStmtContext ctx) {
         int line = ctx.start.getLine();
@@ -199,6 +216,12 @@ public class SimplePythonASTBuilder extends PythonParserBaseVisitor<ASTNode> {
 
         // Build arguments list if call exists
         List<ExpressionNode> args = new ArrayList<>();
+
+        // atom_expr already consumes the call as a trailer, so ctx.call() is normally null
+        if (ctx.call() == null && decoratorExpr instanceof FunctionCallNode call) {
+            decoratorExpr = call.getFunction();
+            args.addAll(call.getArguments());
+        }
         if (ctx.call() != null && ctx.call().arglist() != null) {
             var arglist = ctx.call().arglist();
             if (arglist instanceof PythonParser.NormalArgListContext normalArgList) {
@@ -319,9 +342,11 @@ public class SimplePythonASTBuilder extends PythonParserBaseVisitor<ASTNode> {
     @Override
     public ASTNode visitSuite(PythonParser.SuiteContext ctx) {
         ProgramNode block = new ProgramNode(ctx.start.getLine());
+        if (ctx.simple_stmt() != null) {
+            addSimpleStatements(block, ctx.simple_stmt());
+        }
         for (PythonParser.StmtContext stmt : ctx.stmt()) {
-            ASTNode node = visit(stmt);
-            if (node != null) block.addChild(node);
+            addStatement(block, stmt);
         }
         return block;
     }
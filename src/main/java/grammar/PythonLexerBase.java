@@ -1,15 +1,24 @@
 package grammar;
 
 import org.antlr.v4.runtime.*;
-import java.util.*;
+
+import java.util.Arrays;
 
 public abstract class PythonLexerBase extends Lexer {
 
-    // Indentation stack - tracks nesting levels
-    private final Stack<Integer> indentStack = new Stack<>();
+    // INDENT/DEDENT carry no source text; every synthetic token shares these strings
+    private static final String INDENT_TEXT = "";
+    private static final String DEDENT_TEXT = "";
+    private static final String NEWLINE_TEXT = "\n";
+
+    // Indentation stack - tracks nesting levels (indentStack[0] is the base level 0)
+    private int[] indentStack = new int[16];
+    private int indentDepth = 1;
 
-    // Queue of pending tokens to emit
-    private final LinkedList<Token> pendingTokens = new LinkedList<>();
+    // Queue of pending tokens to emit (ring buffer, grows when full)
+    private Token[] pendingTokens = new Token[16];
+    private int pendingHead = 0;
+    private int pendingCount = 0;
 
     // Track nesting depth of (), [], {} for implicit line continuation
     private int parenDepth = 0;
@@ -22,15 +31,13 @@ public abstract class PythonLexerBase extends Lexer {
 
     public PythonLexerBase(CharStream input) {
         super(input);
-        indentStack.push(0); // Base indentation level
     }
 
     @Override
     public void reset() {
         super.reset();
-        indentStack.clear();
-        indentStack.push(0);
-        pendingTokens.clear();
+        indentDepth = 1;
+        clearPending();
         parenDepth = 0;
         atLineStart = true;
         lastToken = null;
@@ -39,13 +46,13 @@ public abstract class PythonLexerBase extends Lexer {
     @Override
     public Token nextToken() {
         // Check if end of file is reached
-        if (_input.LA(1) == IntStream.EOF && !pendingTokens.isEmpty()) {
-            return pendingTokens.poll();
+        if (_input.LA(1) == IntStream.EOF && pendingCount > 0) {
+            return pollPending();
         }
 
         // Return pending tokens first
-        if (!pendingTokens.isEmpty()) {
-            Token token = pendingTokens.poll();
+        if (pendingCount > 0) {
+            Token token = pollPending();
             lastToken = token;
             return token;
         }
@@ -59,17 +66,17 @@ public abstract class PythonLexerBase extends Lexer {
             if (lastToken != null &&
                 lastToken.getType() != getNewlineTokenType() &&
                 lastToken.getType() != getDedentTokenType()) {
-                pendingTokens.add(createToken(getNewlineTokenType(), "\n"));
+                addPending(createToken(getNewlineTokenType(), NEWLINE_TEXT));
             }
 
             // Emit DEDENT for each open indentation level
-            while (indentStack.size() > 1) {
-                indentStack.pop();
-                pendingTokens.add(createToken(getDedentTokenType(), ""));
+            while (indentDepth > 1) {
+                indentDepth--;
+                addPending(createToken(getDedentTokenType(), DEDENT_TEXT));
             }
 
-            pendingTokens.add(next);
-            return pendingTokens.poll();
+            addPending(next);
+            return pollPending();
         }
 
         // Track parentheses/brackets/braces for implicit line continuation
@@ -83,7 +90,9 @@ public abstract class PythonLexerBase extends Lexer {
         return next;
     }
 
-    protected void handleNewline(String indentText) {
+    // Called from the NEWLINE action: the indentation is the run of spaces/tabs at the
+    // end of the token just matched, read back from the input without copying it
+    protected void handleNewline() {
         // Skip if inside parentheses/brackets/braces
         if (parenDepth > 0) {
             return;
@@ -101,22 +110,25 @@ public abstract class PythonLexerBase extends Lexer {
         }
 
         // Calculate indentation level
-        int indent = getIndentationLength(indentText);
-        int current = indentStack.peek();
+        int indent = getIndentationLength(_input.index() - _tokenStartCharIndex);
+        int current = indentStack[indentDepth - 1];
 
         if (indent > current) {
             // INDENT - push new level
-            indentStack.push(indent);
-            pendingTokens.add(createToken(getIndentTokenType(), ""));
+            if (indentDepth == indentStack.length) {
+                indentStack = Arrays.copyOf(indentStack, indentStack.length * 2);
+            }
+            indentStack[indentDepth++] = indent;
+            addPending(createToken(getIndentTokenType(), INDENT_TEXT));
         } else if (indent < current) {
             // DEDENT - may need multiple tokens
-            while (!indentStack.isEmpty() && indent < indentStack.peek()) {
-                indentStack.pop();
-                pendingTokens.add(createToken(getDedentTokenType(), ""));
+            while (indentDepth > 0 && indent < indentStack[indentDepth - 1]) {
+                indentDepth--;
+                addPending(createToken(getDedentTokenType(), DEDENT_TEXT));
             }
 
             // Verify dedent matches a previous level
-            if (indentStack.isEmpty() || indent != indentStack.peek()) {
+            if (indentDepth == 0 || indent != indentStack[indentDepth - 1]) {
                 throw new IllegalStateException(
                     "IndentationError: unindent does not match any outer indentation level at line " + getLine()
                 );
@@ -127,9 +139,19 @@ public abstract class PythonLexerBase extends Lexer {
         atLineStart = false;
     }
 
-    private int getIndentationLength(String indent) {
+    // Width of the trailing [ \t]* of the last tokenLength characters before the input cursor
+    private int getIndentationLength(int tokenLength) {
+        int start = tokenLength;
+        while (start > 0) {
+            int c = _input.LA(-start);
+            if (c != '\r' && c != '\n') {
+                break;
+            }
+            start--;
+        }
         int length = 0;
-        for (char c : indent.toCharArray()) {
+        for (int i = start; i > 0; i--) {
+            int c = _input.LA(-i);
             if (c == '\t') {
                 // Tab advances to next multiple of 8
                 length = (length / 8 + 1) * 8;
@@ -148,6 +170,35 @@ public abstract class PythonLexerBase extends Lexer {
         return token;
     }
 
+    // ==================== PENDING TOKEN QUEUE ====================
+
+    private void addPending(Token token) {
+        if (pendingCount == pendingTokens.length) {
+            Token[] grown = new Token[pendingTokens.length * 2];
+            for (int i = 0; i < pendingCount; i++) {
+                grown[i] = pendingTokens[(pendingHead + i) % pendingTokens.length];
+            }
+            pendingTokens = grown;
+            pendingHead = 0;
+        }
+        pendingTokens[(pendingHead + pendingCount) % pendingTokens.length] = token;
+        pendingCount++;
+    }
+
+    private Token pollPending() {
+        Token token = pendingTokens[pendingHead];
+        pendingTokens[pendingHead] = null;
+        pendingHead = (pendingHead + 1) % pendingTokens.length;
+        pendingCount--;
+        return token;
+    }
+
+    private void clearPending() {
+        Arrays.fill(pendingTokens, null);
+        pendingHead = 0;
+        pendingCount = 0;
+    }
+
     protected boolean isInsideParens() {
         return parenDepth > 0;
     }